@@ -0,0 +1,113 @@
+package ee.taltech.inbankbackend;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from process start to the first successful /loan/decision response, for the boot jar and for the
+ * fast-startup build with AOT-generated code, a class-data sharing archive and lazy initialization.
+ * Run with {@code ./gradlew startupBenchmark -PfastStartup}, which builds both and passes their locations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 10)
+@Fork(1)
+public class StartupBenchmark {
+
+    private static final String REQUEST_BODY =
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}";
+    private static final long TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(60);
+
+    @Param({"boot-jar", "fast-startup"})
+    private String build;
+
+    private final HttpClient httpClient = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(1)).build();
+    private Process process;
+    private HttpRequest request;
+    private List<String> command;
+
+    @Setup(Level.Invocation)
+    public void setUp() throws IOException {
+        int port;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        request = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + port + "/loan/decision"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(REQUEST_BODY))
+                .build();
+
+        // the application runs on the same JVM as the benchmark
+        command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        if (build.equals("fast-startup")) {
+            String directory = System.getProperty("startup.fast-startup-directory");
+            command.add("-XX:SharedArchiveFile=" + new File(directory, "inbank-backend.jsa"));
+            command.add("-Dspring.aot.enabled=true");
+            command.add("-Dspring.profiles.active=fast-startup");
+            command.add("-jar");
+            command.add(new File(directory, "inbank-backend.jar").getPath());
+        } else {
+            command.add("-jar");
+            command.add(System.getProperty("startup.boot-jar"));
+        }
+        command.add("--server.port=" + port);
+    }
+
+    @Benchmark
+    public int timeToFirstDecision() throws Exception {
+        process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        long started = System.nanoTime();
+        while (System.nanoTime() - started < TIMEOUT_NANOS) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("Application exited with " + process.exitValue());
+            }
+            try {
+                HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() == 200) {
+                    return response.statusCode();
+                }
+            } catch (IOException e) {
+                // not accepting requests yet
+            }
+            Thread.sleep(5);
+        }
+        throw new IllegalStateException("No decision within 60 seconds");
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() throws InterruptedException {
+        if (process != null) {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+}
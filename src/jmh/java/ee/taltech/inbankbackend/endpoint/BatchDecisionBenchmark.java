@@ -0,0 +1,90 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.config.DecisionExecutorConfig;
+import ee.taltech.inbankbackend.service.BenchmarkCodes;
+import ee.taltech.inbankbackend.service.DecisionCoalescer;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import ee.taltech.inbankbackend.trace.DecisionTracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.StringJoiner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON decode, decide and encode of a full /loan/decisions batch on the production worker pool, without the
+ * servlet container. The batch mixes every country and credit segment, and the score is in decisions per second.
+ * Its few customers are always in the profile cache, so the score is an upper bound of the endpoint's throughput;
+ * the load generator measures it end to end.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BatchDecisionBenchmark {
+
+    // DecisionEngineConstants.MAXIMUM_BATCH_SIZE, the largest batch the endpoint takes
+    private static final int BATCH_SIZE = 500;
+    private static final TypeReference<List<DecisionRequest>> BATCH = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private ExecutorService decisionExecutor;
+    private DecisionEngineController controller;
+    private byte[] requestBody;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        decisionExecutor = new DecisionExecutorConfig().decisionExecutor(false);
+        DecisionEngine decisionEngine = new DecisionEngine();
+        controller = new DecisionEngineController(decisionEngine, new DecisionCoalescer(decisionEngine),
+                decisionExecutor, ShadowEvaluator.disabled(), DecisionTracer.disabled());
+
+        Country[] countries = Country.values();
+        CreditSegment[] segments = CreditSegment.values();
+        StringJoiner batch = new StringJoiner(",", "[", "]");
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            Country countryCode = countries[i % countries.length];
+            CreditSegment segment = segments[i / countries.length % segments.length];
+            batch.add("{\"personalCode\":\"" + BenchmarkCodes.forSegment(countryCode, segment)
+                    + "\",\"loanAmount\":" + (2000 + i % 9 * 1000) + ",\"loanPeriod\":" + (12 + i % 5 * 12)
+                    + ",\"countryCode\":\"" + countryCode + "\"}");
+        }
+        requestBody = batch.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @TearDown
+    public void tearDown() {
+        decisionExecutor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] decodeDecideEncodeBatch() throws IOException {
+        List<DecisionRequest> requests = objectMapper.readValue(requestBody, BATCH);
+        return objectMapper.writeValueAsBytes(controller.requestDecisions(requests).join().getBody());
+    }
+}
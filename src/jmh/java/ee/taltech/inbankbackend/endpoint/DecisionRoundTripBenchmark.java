@@ -0,0 +1,133 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.BenchmarkCodes;
+import ee.taltech.inbankbackend.service.DecisionCoalescer;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import ee.taltech.inbankbackend.trace.DecisionTracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full JSON decode, decide and encode round trip of the /loan/decision endpoint, without the servlet container,
+ * once with plain Jackson binding and once with the {@link DecisionJsonConverter} the endpoint uses.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionRoundTripBenchmark {
+
+    @Param({"EE", "LV", "LT"})
+    private Country countryCode;
+
+    @Param({"DEBT", "SEGMENT_2"})
+    private CreditSegment segment;
+
+    private ObjectMapper objectMapper;
+    private DecisionJsonConverter converter;
+    private DecisionEngineController controller;
+    private byte[] requestBody;
+
+    @Setup
+    public void setUp() {
+        // configured like the Spring Boot mapper, so the Lombok request binds through its constructor
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new DecisionJsonConverter(objectMapper,
+                new DecisionResponseCache(new RuleStore(RuleSnapshot.defaults())));
+        DecisionEngine decisionEngine = new DecisionEngine();
+        controller = new DecisionEngineController(decisionEngine, new DecisionCoalescer(decisionEngine), Runnable::run,
+                ShadowEvaluator.disabled(), new DecisionTracer(0, 1));
+        requestBody = ("{\"personalCode\":\"" + BenchmarkCodes.forSegment(countryCode, segment)
+                + "\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"" + countryCode + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] jackson() throws IOException {
+        DecisionRequest request = objectMapper.readValue(requestBody, DecisionRequest.class);
+        return objectMapper.writeValueAsBytes(controller.requestDecision(request, null).join().getBody());
+    }
+
+    @Benchmark
+    public byte[] decisionJsonConverter() throws IOException {
+        DecisionRequest request =
+                (DecisionRequest) converter.read(DecisionRequest.class, new InputMessage(requestBody));
+        OutputMessage response = new OutputMessage();
+        converter.write(controller.requestDecision(request, null).join().getBody(), MediaType.APPLICATION_JSON,
+                response);
+        return response.body.toByteArray();
+    }
+
+    /**
+     * Request body in memory, as the servlet container hands it to the converter.
+     */
+    private static final class InputMessage implements HttpInputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final byte[] body;
+
+        private InputMessage(byte[] body) {
+            this.body = body;
+            headers.setContentType(MediaType.APPLICATION_JSON);
+        }
+
+        @Override
+        public InputStream getBody() {
+            return new ByteArrayInputStream(body);
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+
+    /**
+     * Response body collected in memory.
+     */
+    private static final class OutputMessage implements HttpOutputMessage {
+
+        private final HttpHeaders headers = new HttpHeaders();
+        private final ByteArrayOutputStream body = new ByteArrayOutputStream(128);
+
+        @Override
+        public OutputStream getBody() {
+            return body;
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
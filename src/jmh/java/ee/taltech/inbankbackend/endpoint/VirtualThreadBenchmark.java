@@ -0,0 +1,89 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.service.BenchmarkCodes;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the default platform thread pool with virtual threads when every decision first waits on a
+ * blocking downstream dependency. One operation is a wave of concurrent requests, so the score is the time
+ * it takes the executor to get through the whole wave.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class VirtualThreadBenchmark {
+
+    // the default maximum of Tomcat's request thread pool
+    private static final int PLATFORM_POOL_SIZE = 200;
+
+    @Param({"platform", "virtual"})
+    private String threads;
+
+    @Param({"1000", "5000"})
+    private int concurrentRequests;
+
+    @Param({"10"})
+    private int dependencyLatencyMillis;
+
+    private ExecutorService executor;
+    private DecisionEngine decisionEngine;
+    private String personalCode;
+
+    @Setup
+    public void setUp() {
+        executor = threads.equals("virtual")
+                ? Executors.newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(PLATFORM_POOL_SIZE);
+        decisionEngine = new DecisionEngine();
+        personalCode = BenchmarkCodes.forSegment(Country.EE, CreditSegment.SEGMENT_2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public int decideWave() throws Exception {
+        List<Future<Decision>> wave = new ArrayList<>(concurrentRequests);
+        for (int i = 0; i < concurrentRequests; i++) {
+            wave.add(executor.submit(() -> {
+                // simulated blocking dependency, e.g. a credit bureau call
+                Thread.sleep(dependencyLatencyMillis);
+                return decisionEngine.decide(personalCode, 4000L, 24, Country.EE);
+            }));
+        }
+        int approved = 0;
+        for (Future<Decision> decision : wave) {
+            if (decision.get().isApproved()) {
+                approved++;
+            }
+        }
+        return approved;
+    }
+}
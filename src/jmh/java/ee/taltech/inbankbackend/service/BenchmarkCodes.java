@@ -0,0 +1,36 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+
+/**
+ * Builds valid personal ID codes of a given country and credit segment for the benchmarks.
+ */
+public final class BenchmarkCodes {
+
+    private BenchmarkCodes() {
+    }
+
+    /**
+     * Finds a valid code of an adult customer whose last four digits fall into the given segment.
+     *
+     * @param countryCode Country that issued the code
+     * @param segment     Credit segment the code must belong to
+     * @return A valid personal ID code
+     */
+    public static String forSegment(Country countryCode, CreditSegment segment) {
+        // birth date prefix of a customer aged between 18 and the lowest expected lifetime
+        String prefix = countryCode == Country.LV ? "170384-1" : "3840317";
+        for (int serial = 0; serial < 1000; serial++) {
+            for (int checksum = 0; checksum < 10; checksum++) {
+                String personalCode = prefix + String.format("%03d", serial) + checksum;
+                long parsedCode = PersonalCodeParser.parse(personalCode, countryCode);
+                if (PersonalCodeParser.isValid(parsedCode)
+                        && CreditSegment.fromLastFourDigits(PersonalCodeParser.lastFourDigits(parsedCode)) == segment) {
+                    return personalCode;
+                }
+            }
+        }
+        throw new IllegalStateException("No " + countryCode + " code found for " + segment);
+    }
+}
@@ -0,0 +1,79 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the decision engine per country and credit segment.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecisionEngineBenchmark {
+
+    @Param({"EE", "LV", "LT"})
+    private Country countryCode;
+
+    @Param({"DEBT", "SEGMENT_1", "SEGMENT_2", "SEGMENT_3"})
+    private CreditSegment segment;
+
+    private DecisionEngine decisionEngine;
+    private String personalCode;
+    private long parsedCode;
+    private final RuleSnapshot rules = RuleSnapshot.defaults();
+    private final AgeValidator ageValidator = new AgeValidator();
+
+    @Setup
+    public void setUp() {
+        decisionEngine = new DecisionEngine();
+        personalCode = BenchmarkCodes.forSegment(countryCode, segment);
+        parsedCode = PersonalCodeParser.parse(personalCode, countryCode);
+    }
+
+    @Benchmark
+    public Decision decide() {
+        return decisionEngine.decide(personalCode, 4000L, 12, countryCode);
+    }
+
+    @Benchmark
+    public Object calculateApprovedLoan() {
+        try {
+            return decisionEngine.calculateApprovedLoan(personalCode, 4000L, 12, countryCode);
+        } catch (Throwable rejection) {
+            // the exception based API still throws for debtors
+            return rejection;
+        }
+    }
+
+    @Benchmark
+    public DecisionReason verifyInputs() {
+        return decisionEngine.verifyInputs(rules, PersonalCodeParser.parse(personalCode, countryCode), 4000L, 12);
+    }
+
+    @Benchmark
+    public long parsePersonalCode() {
+        return PersonalCodeParser.parse(personalCode, countryCode);
+    }
+
+    @Benchmark
+    public Decision ageValidatorValidate() {
+        return ageValidator.validate(rules, parsedCode, countryCode, 12);
+    }
+}
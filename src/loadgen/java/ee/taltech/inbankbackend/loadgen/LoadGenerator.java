@@ -0,0 +1,142 @@
+package ee.taltech.inbankbackend.loadgen;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Open-loop load generator for capacity planning of a running instance, see {@link OpenLoopRun}.<br><br>
+ * Without {@code --slo-p99-millis} it sends {@code --rate} requests per second for {@code --duration-seconds}
+ * and prints the response time percentiles. With it, it ramps the rate up by {@code --rate-step} until a step
+ * misses the SLO or fails more than {@code --max-failure-percent} of its requests, narrows the rate down between
+ * the last passing and the first failing step, and prints the highest sustainable rate. With
+ * {@code --batch-size} above 1, every request is a /loan/decisions batch of that many decisions.<br><br>
+ * Run with {@code ./gradlew loadTest -PloadArgs="--rate=500 --slo-p99-millis=50"}.
+ */
+public final class LoadGenerator {
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("url", "http://localhost:8080/loan/decision"),
+            Map.entry("requests", ""),
+            Map.entry("countries", "EE:1,LV:1,LT:1"),
+            Map.entry("segments", "DEBT:1,SEGMENT_1:1,SEGMENT_2:1,SEGMENT_3:1"),
+            Map.entry("distinct", "10000"),
+            Map.entry("seed", "1"),
+            Map.entry("batch-size", "1"),
+            Map.entry("rate", "100"),
+            Map.entry("duration-seconds", "30"),
+            Map.entry("warmup-seconds", "10"),
+            Map.entry("slo-p99-millis", ""),
+            Map.entry("rate-step", "100"),
+            Map.entry("max-rate", "100000"),
+            Map.entry("refine-steps", "3"),
+            Map.entry("max-failure-percent", "1"),
+            Map.entry("timeout-millis", "5000"),
+            Map.entry("max-in-flight", "10000"));
+
+    private LoadGenerator() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = options(args);
+        RequestMix requests = options.get("requests").isBlank()
+                ? RequestMix.synthetic(weights(options.get("countries"), Country.class),
+                weights(options.get("segments"), CreditSegment.class),
+                Integer.parseInt(options.get("distinct")), Long.parseLong(options.get("seed")))
+                : RequestMix.fromFile(Path.of(options.get("requests")));
+        int batchSize = Integer.parseInt(options.get("batch-size"));
+        if (batchSize > 1) {
+            requests = requests.batches(batchSize);
+        }
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(1))
+                .build();
+        OpenLoopRun run = new OpenLoopRun(httpClient, URI.create(options.get("url")), requests,
+                Duration.ofMillis(Long.parseLong(options.get("timeout-millis"))),
+                Integer.parseInt(options.get("max-in-flight")));
+
+        double rate = Double.parseDouble(options.get("rate"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.get("duration-seconds")));
+        long warmupSeconds = Long.parseLong(options.get("warmup-seconds"));
+        System.out.println("Sending " + requests.size() + " distinct requests"
+                + (batchSize > 1 ? " of " + batchSize + " decisions" : "") + " to " + options.get("url"));
+        if (warmupSeconds > 0) {
+            System.out.println("Warming up for " + warmupSeconds + " s at " + rate + " requests/s");
+            run.run(rate, Duration.ofSeconds(warmupSeconds));
+        }
+        System.out.println(LoadReport.header());
+        if (options.get("slo-p99-millis").isBlank()) {
+            System.out.println(run.run(rate, duration).line());
+            return;
+        }
+
+        double sloMillis = Double.parseDouble(options.get("slo-p99-millis"));
+        double maximumFailureRatio = Double.parseDouble(options.get("max-failure-percent")) / 100;
+        double rateStep = Double.parseDouble(options.get("rate-step"));
+        double maximumRate = Double.parseDouble(options.get("max-rate"));
+        double passed = 0;
+        double failed = 0;
+        for (double step = rate; step <= maximumRate; step += rateStep) {
+            LoadReport report = run.run(step, duration);
+            System.out.println(report.line());
+            if (!report.meets(sloMillis, maximumFailureRatio)) {
+                failed = step;
+                break;
+            }
+            passed = step;
+        }
+        for (int i = 0; failed > 0 && i < Integer.parseInt(options.get("refine-steps")); i++) {
+            double step = (passed + failed) / 2;
+            LoadReport report = run.run(step, duration);
+            System.out.println(report.line());
+            if (report.meets(sloMillis, maximumFailureRatio)) {
+                passed = step;
+            } else {
+                failed = step;
+            }
+        }
+        if (passed == 0) {
+            System.out.printf("Even %.0f requests/s miss the p99 SLO of %.1f ms%n", rate, sloMillis);
+        } else if (failed == 0) {
+            System.out.printf("Sustained %.0f requests/s, the --max-rate, within the p99 SLO of %.1f ms%n",
+                    passed, sloMillis);
+        } else {
+            System.out.printf("Highest sustainable rate for a p99 of %.1f ms: %.0f requests/s%n", sloMillis, passed);
+        }
+    }
+
+    private static Map<String, String> options(String[] args) {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            String name = arg.startsWith("--") && equals > 2 ? arg.substring(2, equals) : null;
+            if (name == null || !DEFAULTS.containsKey(name)) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of --"
+                        + String.join("=, --", DEFAULTS.keySet()) + "=");
+            }
+            options.put(name, arg.substring(equals + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Parses weights like {@code EE:5,LV:3,LT:2}.
+     */
+    private static <T extends Enum<T>> Map<T, Integer> weights(String option, Class<T> type) {
+        Map<T, Integer> weights = new EnumMap<>(type);
+        for (String entry : option.split(",")) {
+            String[] parts = entry.trim().split(":");
+            weights.put(Enum.valueOf(type, parts[0].trim()), parts.length > 1 ? Integer.parseInt(parts[1].trim()) : 1);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,93 @@
+package ee.taltech.inbankbackend.loadgen;
+
+import ee.taltech.inbankbackend.metrics.LatencySnapshot;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Outcome of one load step at a fixed arrival rate.
+ * The response time is measured from when a request was due to be sent, so time a request spent waiting behind
+ * a stalled server or a saturated generator is included; the service time is measured from when it was sent.
+ * Loan rejections and invalid inputs are answered with 404 and 400 as ordinary outcomes, so 4xx answers are
+ * counted apart and only server errors and answers that turn the request away because of load are failures.
+ */
+@Getter
+@AllArgsConstructor
+class LoadReport {
+    private final double targetRate;
+    private final long durationNanos;
+    private final long scheduled;
+    private final long answered;
+    // answered with a 4xx status other than 429, a rejected loan or an invalid input
+    private final long rejected;
+    // answered with a 5xx status or 429
+    private final long errors;
+    // failed to connect, timed out, or not sent because too many requests were in flight
+    private final long failed;
+    private final LatencySnapshot responseTime;
+    private final LatencySnapshot serviceTime;
+
+    double achievedRate() {
+        return answered * (double) TimeUnit.SECONDS.toNanos(1) / durationNanos;
+    }
+
+    /**
+     * @param statusCode Status of an answer
+     * @return Whether the answer is a server error or turns the request away because of load
+     */
+    static boolean isError(int statusCode) {
+        return statusCode >= 500 || statusCode == 429;
+    }
+
+    /**
+     * @param statusCode Status of an answer
+     * @return Whether the answer is an ordinary 4xx outcome, such as a rejected loan or an invalid input
+     */
+    static boolean isRejection(int statusCode) {
+        return statusCode >= 400 && statusCode < 500 && statusCode != 429;
+    }
+
+    /**
+     * @return Share of the scheduled requests that were not answered, or answered with an error
+     */
+    double failureRatio() {
+        return scheduled == 0 ? 0 : (double) (scheduled - answered + errors) / scheduled;
+    }
+
+    /**
+     * @return Share of the answered requests that were answered with an ordinary 4xx outcome
+     */
+    double rejectionRatio() {
+        return answered == 0 ? 0 : (double) rejected / answered;
+    }
+
+    /**
+     * @param p99Millis           SLO for the 99th percentile response time
+     * @param maximumFailureRatio Highest share of requests that may fail
+     * @return Whether the step met the SLO
+     */
+    boolean meets(double p99Millis, double maximumFailureRatio) {
+        return responseTime.getP99Nanos() <= p99Millis * 1_000_000 && failureRatio() <= maximumFailureRatio;
+    }
+
+    static String header() {
+        return String.format("%10s %10s %9s %8s %8s %9s %9s %9s %9s %9s %12s",
+                "target/s", "achieved/s", "answered", "4xx%", "failed%", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms",
+                "max ms", "svc p99 ms");
+    }
+
+    String line() {
+        return String.format("%10.0f %10.1f %9d %8.2f %8.2f %9.2f %9.2f %9.2f %9.2f %9.2f %12.2f",
+                targetRate, achievedRate(), answered, rejectionRatio() * 100, failureRatio() * 100,
+                millis(responseTime, responseTime.getP50Nanos()), millis(responseTime, responseTime.getP90Nanos()),
+                millis(responseTime, responseTime.getP99Nanos()), millis(responseTime, responseTime.getP999Nanos()),
+                millis(responseTime, responseTime.getMaxNanos()), millis(serviceTime, serviceTime.getP99Nanos()));
+    }
+
+    // percentiles are bucket upper bounds, which can lie above the largest recorded value
+    private static double millis(LatencySnapshot snapshot, long nanos) {
+        return Math.min(nanos, snapshot.getMaxNanos()) / 1_000_000.0;
+    }
+}
@@ -0,0 +1,102 @@
+package ee.taltech.inbankbackend.loadgen;
+
+import ee.taltech.inbankbackend.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends requests at a fixed arrival rate, whether or not earlier requests have been answered.<br><br>
+ * Request {@code i} is due at {@code start + i / rate}. A closed-loop client that waits for each answer sends
+ * fewer requests while the server stalls and never measures the requests it did not send, which hides exactly
+ * the slow periods (coordinated omission). Here the schedule never waits for answers, and the response time of
+ * every request is taken from its due time, so a request that is sent late because the sender fell behind is
+ * charged for the delay too.
+ */
+final class OpenLoopRun {
+
+    private final HttpClient httpClient;
+    private final URI uri;
+    private final RequestMix requests;
+    private final Duration timeout;
+    private final int maximumInFlight;
+    // position in the request mix, continued across steps
+    private final AtomicLong next = new AtomicLong();
+
+    OpenLoopRun(HttpClient httpClient, URI uri, RequestMix requests, Duration timeout, int maximumInFlight) {
+        this.httpClient = httpClient;
+        this.uri = uri;
+        this.requests = requests;
+        this.timeout = timeout;
+        this.maximumInFlight = maximumInFlight;
+    }
+
+    /**
+     * Sends requests at the rate for the duration and waits for the outstanding answers, at most the timeout.
+     *
+     * @param rate     Requests per second
+     * @param duration Length of the step
+     * @return Response and service time percentiles of the step
+     */
+    LoadReport run(double rate, Duration duration) throws InterruptedException {
+        LatencyHistogram responseTime = new LatencyHistogram();
+        LatencyHistogram serviceTime = new LatencyHistogram();
+        LongAdder answered = new LongAdder();
+        LongAdder rejected = new LongAdder();
+        LongAdder errors = new LongAdder();
+        AtomicInteger inFlight = new AtomicInteger();
+
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long count = (long) (rate * duration.toNanos() / TimeUnit.SECONDS.toNanos(1));
+        long start = System.nanoTime();
+        for (long i = 0; i < count; i++) {
+            long due = start + (long) (i * intervalNanos);
+            long wait;
+            while ((wait = due - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (inFlight.get() >= maximumInFlight) {
+                // counted as failed; not sending keeps the generator from collapsing along with the server
+                continue;
+            }
+            inFlight.incrementAndGet();
+            long sent = System.nanoTime();
+            HttpRequest request = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(requests.body(next.getAndIncrement())))
+                    .build();
+            httpClient.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        inFlight.decrementAndGet();
+                        if (error != null) {
+                            return;
+                        }
+                        long answeredAt = System.nanoTime();
+                        responseTime.record(answeredAt - due);
+                        serviceTime.record(answeredAt - sent);
+                        answered.increment();
+                        if (LoadReport.isError(response.statusCode())) {
+                            errors.increment();
+                        } else if (LoadReport.isRejection(response.statusCode())) {
+                            rejected.increment();
+                        }
+                    });
+        }
+        long sendingDone = System.nanoTime();
+        long deadline = sendingDone + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        return new LoadReport(rate, Math.max(sendingDone - start, 1), count, answered.sum(), rejected.sum(),
+                errors.sum(), count - answered.sum(), responseTime.snapshot(), serviceTime.snapshot());
+    }
+}
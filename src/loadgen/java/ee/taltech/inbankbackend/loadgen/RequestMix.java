@@ -0,0 +1,146 @@
+package ee.taltech.inbankbackend.loadgen;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.service.PersonalCodeParser;
+
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * The /loan/decision request bodies a load run sends, in order and wrapping around at the end.
+ */
+final class RequestMix {
+
+    private static final int[] LOAN_AMOUNTS = {2000, 4000, 6000, 10000};
+    private static final int[] LOAN_PERIODS = {12, 24, 36, 48, 60};
+    // adults young enough for the longest loan period in every country, with codes of the 1900s
+    private static final LocalDate FIRST_BIRTH_DATE = LocalDate.of(1970, 1, 1);
+    private static final int BIRTH_DAYS = (int) ChronoUnit.DAYS.between(FIRST_BIRTH_DATE, LocalDate.of(2000, 1, 1));
+    // the segment is picked by the last four digits, three of which are the serial number
+    private static final int SERIALS_PER_SEGMENT = 1000 / CreditSegment.values().length;
+
+    private final List<String> bodies;
+
+    private RequestMix(List<String> bodies) {
+        if (bodies.isEmpty()) {
+            throw new IllegalArgumentException("No requests to send");
+        }
+        this.bodies = bodies;
+    }
+
+    /**
+     * Reads recorded traffic: one /loan/decision request body per line, blank lines are skipped.
+     *
+     * @param file NDJSON file, like the input of the offline scorer
+     * @return The requests of the file in file order
+     * @throws IOException If the file cannot be read
+     */
+    static RequestMix fromFile(Path file) throws IOException {
+        List<String> bodies = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                bodies.add(line.trim());
+            }
+        }
+        return new RequestMix(bodies);
+    }
+
+    /**
+     * Synthesizes traffic with valid personal ID codes of adult customers, drawn with the given weights per
+     * country and credit segment. The customers are born between 1970 and 1999 and have random serial numbers,
+     * so they rarely repeat within the requests, as in real traffic. Loan amounts and periods are drawn from the
+     * usual values.
+     *
+     * @param countryWeights Relative share of every country
+     * @param segmentWeights Relative share of every credit segment
+     * @param count          Number of distinct requests
+     * @param seed           Seed of the random draws, so runs are repeatable
+     * @return The synthesized requests
+     */
+    static RequestMix synthetic(Map<Country, Integer> countryWeights, Map<CreditSegment, Integer> segmentWeights,
+                                int count, long seed) {
+        Country[] countries = weighted(countryWeights, Country.class);
+        CreditSegment[] segments = weighted(segmentWeights, CreditSegment.class);
+        SplittableRandom random = new SplittableRandom(seed);
+        List<String> bodies = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Country countryCode = countries[random.nextInt(countries.length)];
+            String personalCode = personalCode(countryCode, segments[random.nextInt(segments.length)], random);
+            bodies.add("{\"personalCode\":\"" + personalCode
+                    + "\",\"loanAmount\":" + LOAN_AMOUNTS[random.nextInt(LOAN_AMOUNTS.length)]
+                    + ",\"loanPeriod\":" + LOAN_PERIODS[random.nextInt(LOAN_PERIODS.length)]
+                    + ",\"countryCode\":\"" + countryCode + "\"}");
+        }
+        return new RequestMix(bodies);
+    }
+
+    /**
+     * @param batchSize Number of requests per batch
+     * @return The requests grouped into /loan/decisions bodies of batchSize requests each, the last one may be
+     * smaller
+     */
+    RequestMix batches(int batchSize) {
+        List<String> batches = new ArrayList<>((bodies.size() + batchSize - 1) / batchSize);
+        for (int from = 0; from < bodies.size(); from += batchSize) {
+            batches.add("[" + String.join(",", bodies.subList(from, Math.min(from + batchSize, bodies.size()))) + "]");
+        }
+        return new RequestMix(batches);
+    }
+
+    int size() {
+        return bodies.size();
+    }
+
+    String body(long index) {
+        return bodies.get((int) (index % bodies.size()));
+    }
+
+    /**
+     * Draws a valid code of a customer of the segment with a random birth date, gender and serial number.
+     */
+    private static String personalCode(Country countryCode, CreditSegment segment, SplittableRandom random) {
+        LocalDate birthDate = FIRST_BIRTH_DATE.plusDays(random.nextInt(BIRTH_DAYS));
+        int serial = segment.ordinal() * SERIALS_PER_SEGMENT + random.nextInt(SERIALS_PER_SEGMENT);
+        int year = birthDate.getYear() % 100;
+        String prefix = countryCode == Country.LV
+                ? String.format("%02d%02d%02d-1%03d", birthDate.getDayOfMonth(), birthDate.getMonthValue(), year,
+                serial)
+                : String.format("%d%02d%02d%02d%03d", random.nextBoolean() ? 3 : 4, year, birthDate.getMonthValue(),
+                birthDate.getDayOfMonth(), serial);
+        for (int checksum = 0; checksum < 10; checksum++) {
+            String personalCode = prefix + checksum;
+            if (PersonalCodeParser.isValid(PersonalCodeParser.parse(personalCode, countryCode))) {
+                return personalCode;
+            }
+        }
+        throw new IllegalStateException("No valid " + countryCode + " code starts with " + prefix);
+    }
+
+    /**
+     * @return An array that holds every key as often as its weight, for drawing with a uniform index
+     */
+    private static <T extends Enum<T>> T[] weighted(Map<T, Integer> weights, Class<T> type) {
+        List<T> values = new ArrayList<>();
+        weights.forEach((value, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                values.add(value);
+            }
+        });
+        if (values.isEmpty()) {
+            throw new IllegalArgumentException("All " + type.getSimpleName() + " weights are 0");
+        }
+        @SuppressWarnings("unchecked")
+        T[] array = (T[]) Array.newInstance(type, values.size());
+        return values.toArray(array);
+    }
+}
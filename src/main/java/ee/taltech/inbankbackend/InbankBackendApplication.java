@@ -1,13 +1,21 @@
 package ee.taltech.inbankbackend;
 
+import ee.taltech.inbankbackend.endpoint.DecisionFileScorer;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 
 @SpringBootApplication
 public class InbankBackendApplication {
 
     public static void main(String[] args) {
-        SpringApplication.run(InbankBackendApplication.class, args);
+        SpringApplication application = new SpringApplication(InbankBackendApplication.class);
+        if (DecisionFileScorer.isRequested(args)) {
+            // headless batch mode: score the file without starting the web server, then exit
+            application.setWebApplicationType(WebApplicationType.NONE);
+            System.exit(SpringApplication.exit(application.run(args)));
+        }
+        application.run(args);
     }
 
 }
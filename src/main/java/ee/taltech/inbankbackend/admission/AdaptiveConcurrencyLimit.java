@@ -0,0 +1,90 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Limits the number of requests in flight, and adapts the limit to the observed latency with additive
+ * increase and multiplicative decrease.<br><br>
+ * - A request that takes longer than the latency target cuts the limit by a tenth. Requests admitted before the
+ * cut are still in flight and just as slow, so the next cut waits for as long as the slow request took.<br>
+ * - Once as many requests as the limit finished within the target while at least half the limit was in use,
+ * the limit grows by one. A node that is far from its limit does not learn anything about it, so an idle node
+ * keeps its limit instead of drifting up to the maximum.<br>
+ * The limit settles around the concurrency at which the latency reaches the target, and the requests beyond
+ * it are turned away instead of queueing.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final long latencyTargetNanos;
+    private final int minimumLimit;
+    private final int maximumLimit;
+    private final AtomicInteger limit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    // requests that finished within the target since the limit last changed
+    private final AtomicInteger fastResponses = new AtomicInteger();
+    private final AtomicLong nextDecreaseNanos;
+
+    /**
+     * @param latencyTargetNanos Latency above which the limit is cut
+     * @param initialLimit       Limit before any latency has been observed
+     * @param minimumLimit       Limit is never cut below this
+     * @param maximumLimit       Limit never grows above this
+     * @param nowNanos           Current time
+     */
+    AdaptiveConcurrencyLimit(long latencyTargetNanos, int initialLimit, int minimumLimit, int maximumLimit,
+                             long nowNanos) {
+        if (minimumLimit < 1 || minimumLimit > initialLimit || initialLimit > maximumLimit) {
+            throw new IllegalArgumentException("Concurrency limits must satisfy 1 <= minimum <= initial <= maximum");
+        }
+        this.latencyTargetNanos = latencyTargetNanos;
+        this.minimumLimit = minimumLimit;
+        this.maximumLimit = maximumLimit;
+        this.limit = new AtomicInteger(initialLimit);
+        this.nextDecreaseNanos = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * @return Whether the request may start, in which case it must be released with {@link #release}
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit.get()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @param latencyNanos Time from admission until the response was complete
+     * @param nowNanos     Current time
+     */
+    void release(long latencyNanos, long nowNanos) {
+        int wasInFlight = inFlight.getAndDecrement();
+        int current = limit.get();
+        if (latencyNanos > latencyTargetNanos) {
+            long next = nextDecreaseNanos.get();
+            if (nowNanos - next >= 0 && nextDecreaseNanos.compareAndSet(next, nowNanos + latencyNanos)) {
+                limit.updateAndGet(value -> Math.max(minimumLimit, (int) (value * BACKOFF_RATIO)));
+                fastResponses.set(0);
+            }
+        } else if (wasInFlight * 2 >= current && fastResponses.incrementAndGet() >= current) {
+            fastResponses.set(0);
+            limit.updateAndGet(value -> Math.min(maximumLimit, value + 1));
+        }
+    }
+
+    int limit() {
+        return limit.get();
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,25 @@
+package ee.taltech.inbankbackend.admission;
+
+import lombok.Getter;
+
+/**
+ * The answer of {@link AdmissionControl} to a request.
+ */
+@Getter
+public final class Admission {
+
+    static final Admission ADMITTED = new Admission(AdmissionOutcome.ADMITTED, 0);
+
+    private final AdmissionOutcome outcome;
+    // time after which the request is worth retrying, 0 for an admitted request
+    private final long retryAfterNanos;
+
+    Admission(AdmissionOutcome outcome, long retryAfterNanos) {
+        this.outcome = outcome;
+        this.retryAfterNanos = retryAfterNanos;
+    }
+
+    public boolean isAdmitted() {
+        return outcome == AdmissionOutcome.ADMITTED;
+    }
+}
@@ -0,0 +1,170 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides whether a request is let in before any work is done for it, so a burst beyond what the node can
+ * decide within its latency target is turned away at once instead of waiting in a queue until it times out.<br><br>
+ * A request must pass, in this order:<br>
+ * - the token bucket of its client, otherwise it is {@link AdmissionOutcome#CLIENT_RATE_LIMITED},<br>
+ * - the global token bucket, otherwise it is {@link AdmissionOutcome#RATE_LIMITED},<br>
+ * - the adaptive concurrency limit, see {@link AdaptiveConcurrencyLimit}, otherwise it is
+ * {@link AdmissionOutcome#OVERLOADED}.<br>
+ * A rate of 0 turns a bucket off. A token taken by a request that a later check turns away is not given back.
+ * None of the checks takes a lock. Every admitted request must be released once its response is complete.
+ */
+public class AdmissionControl {
+
+    private final boolean enabled;
+    private final double clientTokensPerSecond;
+    private final int clientBurst;
+    private final int maximumClients;
+    private final ConcurrentHashMap<String, TokenBucket> clientBuckets = new ConcurrentHashMap<>();
+    // shared by the clients that arrive while the map is full of active clients
+    private final TokenBucket overflowBucket;
+    private final AtomicLong nextSweepNanos;
+    private final TokenBucket globalBucket;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final long overloadRetryAfterNanos;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder clientRateLimited = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder overloaded = new LongAdder();
+
+    /**
+     * @param clientTokensPerSecond  Requests per second of a single client, 0 for no limit
+     * @param clientBurst            Requests a single client may send at once
+     * @param maximumClients         Number of clients whose buckets are kept
+     * @param globalTokensPerSecond  Requests per second of all clients together, 0 for no limit
+     * @param globalBurst            Requests all clients together may send at once
+     * @param latencyTarget          Latency above which the concurrency limit is cut
+     * @param initialLimit           Concurrency limit before any latency has been observed
+     * @param minimumLimit           Lowest concurrency limit
+     * @param maximumLimit           Highest concurrency limit
+     * @param overloadRetryAfter     Retry hint of a request turned away by the concurrency limit
+     */
+    public AdmissionControl(double clientTokensPerSecond, int clientBurst, int maximumClients,
+                            double globalTokensPerSecond, int globalBurst, Duration latencyTarget,
+                            int initialLimit, int minimumLimit, int maximumLimit, Duration overloadRetryAfter) {
+        long now = System.nanoTime();
+        this.enabled = true;
+        this.clientTokensPerSecond = clientTokensPerSecond;
+        this.clientBurst = clientBurst;
+        this.maximumClients = maximumClients;
+        this.overflowBucket = clientTokensPerSecond > 0 ? new TokenBucket(clientTokensPerSecond, clientBurst, now) : null;
+        this.nextSweepNanos = new AtomicLong(now);
+        this.globalBucket = globalTokensPerSecond > 0 ? new TokenBucket(globalTokensPerSecond, globalBurst, now) : null;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(latencyTarget.toNanos(), initialLimit, minimumLimit,
+                maximumLimit, now);
+        this.overloadRetryAfterNanos = overloadRetryAfter.toNanos();
+    }
+
+    private AdmissionControl() {
+        this.enabled = false;
+        this.clientTokensPerSecond = 0;
+        this.clientBurst = 0;
+        this.maximumClients = 0;
+        this.overflowBucket = null;
+        this.nextSweepNanos = new AtomicLong();
+        this.globalBucket = null;
+        this.concurrencyLimit = null;
+        this.overloadRetryAfterNanos = 0;
+    }
+
+    /**
+     * @return An admission control that lets every request in
+     */
+    public static AdmissionControl disabled() {
+        return new AdmissionControl();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Decides whether a request is let in.
+     *
+     * @param client   Key of the client that sent the request
+     * @param nowNanos Current time in {@link System#nanoTime()} units
+     * @return The admission, which tells how long a request that was turned away should wait before a retry
+     */
+    public Admission tryAdmit(String client, long nowNanos) {
+        if (!enabled) {
+            admitted.increment();
+            return Admission.ADMITTED;
+        }
+        if (overflowBucket != null) {
+            long waitNanos = clientBucket(client, nowNanos).tryTake(nowNanos);
+            if (waitNanos > 0) {
+                clientRateLimited.increment();
+                return new Admission(AdmissionOutcome.CLIENT_RATE_LIMITED, waitNanos);
+            }
+        }
+        if (globalBucket != null) {
+            long waitNanos = globalBucket.tryTake(nowNanos);
+            if (waitNanos > 0) {
+                rateLimited.increment();
+                return new Admission(AdmissionOutcome.RATE_LIMITED, waitNanos);
+            }
+        }
+        if (!concurrencyLimit.tryAcquire()) {
+            overloaded.increment();
+            return new Admission(AdmissionOutcome.OVERLOADED, overloadRetryAfterNanos);
+        }
+        admitted.increment();
+        return Admission.ADMITTED;
+    }
+
+    /**
+     * Releases an admitted request and lets its latency adapt the concurrency limit.
+     *
+     * @param latencyNanos Time from admission until the response was complete
+     * @param nowNanos     Current time in {@link System#nanoTime()} units
+     */
+    public void release(long latencyNanos, long nowNanos) {
+        if (enabled) {
+            concurrencyLimit.release(latencyNanos, nowNanos);
+        }
+    }
+
+    /**
+     * @return Request counts by outcome, and the current concurrency limit and requests in flight
+     */
+    public AdmissionStats stats() {
+        return new AdmissionStats(admitted.sum(), clientRateLimited.sum(), rateLimited.sum(), overloaded.sum(),
+                enabled ? concurrencyLimit.limit() : 0, enabled ? concurrencyLimit.inFlight() : 0,
+                clientBuckets.size());
+    }
+
+    private TokenBucket clientBucket(String client, long nowNanos) {
+        TokenBucket bucket = clientBuckets.get(client);
+        if (bucket != null) {
+            return bucket;
+        }
+        if (clientBuckets.size() >= maximumClients) {
+            sweep(nowNanos);
+            if (clientBuckets.size() >= maximumClients) {
+                return overflowBucket;
+            }
+        }
+        return clientBuckets.computeIfAbsent(client, key -> new TokenBucket(clientTokensPerSecond, clientBurst, nowNanos));
+    }
+
+    /**
+     * Drops the buckets of clients that have been quiet long enough for their bucket to fill up, since a new
+     * bucket starts full. Runs at most once a second, so clients that keep arriving cannot make every request
+     * scan the map.
+     */
+    private void sweep(long nowNanos) {
+        long next = nextSweepNanos.get();
+        if (nowNanos - next < 0 || !nextSweepNanos.compareAndSet(next, nowNanos + 1_000_000_000L)) {
+            return;
+        }
+        clientBuckets.values().removeIf(bucket -> bucket.isFull(nowNanos));
+    }
+}
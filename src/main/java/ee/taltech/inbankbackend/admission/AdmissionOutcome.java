@@ -0,0 +1,20 @@
+package ee.taltech.inbankbackend.admission;
+
+/**
+ * Whether a request was let in, and if not, which check turned it away.
+ */
+public enum AdmissionOutcome {
+    ADMITTED,
+    /**
+     * The client sent more requests than its own rate allows. Answered with 429 Too Many Requests.
+     */
+    CLIENT_RATE_LIMITED,
+    /**
+     * All clients together sent more requests than the node accepts. Answered with 503 Service Unavailable.
+     */
+    RATE_LIMITED,
+    /**
+     * The node is at its concurrency limit. Answered with 503 Service Unavailable.
+     */
+    OVERLOADED
+}
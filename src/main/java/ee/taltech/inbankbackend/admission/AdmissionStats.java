@@ -0,0 +1,19 @@
+package ee.taltech.inbankbackend.admission;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of the admission control counters and the current concurrency limit.
+ */
+@Getter
+@AllArgsConstructor
+public class AdmissionStats {
+    private final long admitted;
+    private final long clientRateLimited;
+    private final long rateLimited;
+    private final long overloaded;
+    private final int concurrencyLimit;
+    private final int inFlight;
+    private final int clients;
+}
@@ -0,0 +1,59 @@
+package ee.taltech.inbankbackend.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A lock-free token bucket, kept as the time at which it will be full again rather than as a token count
+ * (the generic cell rate algorithm). Taking a token moves that time one token interval into the future, and a
+ * token is only given while the time stays within the burst of the present, so the whole state is one
+ * {@link AtomicLong} and taking a token is a single compare-and-set without a refill timer.
+ */
+final class TokenBucket {
+
+    private final long tokenNanos;
+    private final long burstNanos;
+    // the time at which the bucket is full again, in System.nanoTime() units
+    private final AtomicLong fullAt;
+
+    /**
+     * @param tokensPerSecond Rate at which tokens are added
+     * @param burst           Number of tokens the bucket holds
+     * @param nowNanos        Current time, the bucket starts full
+     */
+    TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        if (!(tokensPerSecond > 0) || burst < 1) {
+            throw new IllegalArgumentException("Token rate and burst must be positive");
+        }
+        this.tokenNanos = Math.max(1L, Math.round(1_000_000_000L / tokensPerSecond));
+        this.burstNanos = tokenNanos * burst;
+        this.fullAt = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if there is one.
+     *
+     * @param nowNanos Current time
+     * @return 0 if a token was taken, otherwise the time in nanoseconds until the next token is added
+     */
+    long tryTake(long nowNanos) {
+        while (true) {
+            long current = fullAt.get();
+            long next = (current - nowNanos > 0 ? current : nowNanos) + tokenNanos;
+            long waitNanos = next - nowNanos - burstNanos;
+            if (waitNanos > 0) {
+                return waitNanos;
+            }
+            if (fullAt.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * @param nowNanos Current time
+     * @return Whether the bucket is full, so dropping it and creating a new one later loses nothing
+     */
+    boolean isFull(long nowNanos) {
+        return fullAt.get() - nowNanos <= 0;
+    }
+}
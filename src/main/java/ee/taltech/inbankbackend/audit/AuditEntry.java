@@ -0,0 +1,25 @@
+package ee.taltech.inbankbackend.audit;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One decision read back from the audit journal.
+ */
+@Getter
+@AllArgsConstructor
+public class AuditEntry {
+    private final long sequence;
+    private final long timestampMillis;
+    // null if the requested code was not 11 digits
+    private final String personalCode;
+    private final Country countryCode;
+    private final Long loanAmount;
+    private final int loanPeriod;
+    private final DecisionReason reason;
+    private final int approvedLoanAmount;
+    private final int approvedLoanPeriod;
+    private final String rulesVersion;
+}
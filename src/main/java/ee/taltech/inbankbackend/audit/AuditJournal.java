@@ -0,0 +1,353 @@
+package ee.taltech.inbankbackend.audit;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.registry.CreditRegistryFile;
+import ee.taltech.inbankbackend.service.Decision;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only journal of every decision, in the layout of {@link AuditJournalFile}.<br><br>
+ * Request threads never touch the disk. {@link #append} claims a slot of a lock-free ring buffer with one atomic
+ * increment, fills it and publishes it. A single writer thread copies every run of published records into the
+ * current memory-mapped segment in one go and then forces them according to the {@link FsyncPolicy}, so one
+ * fsync commits a whole group of decisions. A full segment is forced and the journal rolls over to a new one.<br>
+ * - If the writer falls behind by a whole ring, request threads wait for a free slot rather than dropping the
+ * record; every wait is counted.<br>
+ * - On startup the journal continues after the last complete record of the newest segment, a record that was
+ * cut off by a crash is overwritten.
+ */
+public class AuditJournal implements AutoCloseable {
+
+    // upper bound of the records of one group commit
+    static final int MAXIMUM_BATCH = 4096;
+
+    private static final Logger log = LoggerFactory.getLogger(AuditJournal.class);
+    private static final long IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    private static final long FULL_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(10);
+    private static final long CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(5);
+
+    private final Path directory;
+    private final FsyncPolicy fsyncPolicy;
+    private final long fsyncIntervalNanos;
+    private final int segmentBytes;
+
+    private final AuditRecord[] slots;
+    // sequence number of the record published in each slot, 0 before the first one
+    private final AtomicLongArray published;
+    private final int mask;
+    // highest sequence number handed to a request thread
+    private final AtomicLong claimed = new AtomicLong();
+    // highest sequence number copied out of the ring, i.e. written to a segment
+    private final AtomicLong written = new AtomicLong();
+    // highest sequence number forced to the disk
+    private volatile long durable;
+    private volatile long forces;
+
+    private final LongAdder ringFullWaits = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private final Thread writer;
+    private volatile boolean running;
+    private volatile boolean crashed;
+    private volatile long closeDeadline;
+
+    // only touched by the writer thread after construction
+    private MappedByteBuffer segment;
+    private int position;
+    private int forcedPosition;
+    private long lastForceNanos;
+
+    private AuditJournal(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval, int segmentBytes,
+                         int ringCapacity) throws IOException {
+        if (Integer.bitCount(ringCapacity) != 1) {
+            throw new IllegalArgumentException("Ring capacity must be a power of two");
+        }
+        if (segmentBytes < AuditJournalFile.HEADER_BYTES + AuditJournalFile.RECORD_BYTES) {
+            throw new IllegalArgumentException("Segment size must fit at least one record");
+        }
+        this.directory = directory;
+        this.fsyncPolicy = fsyncPolicy;
+        this.fsyncIntervalNanos = fsyncInterval.toNanos();
+        this.segmentBytes = segmentBytes;
+        this.slots = new AuditRecord[ringCapacity];
+        for (int i = 0; i < ringCapacity; i++) {
+            slots[i] = new AuditRecord();
+        }
+        this.published = new AtomicLongArray(ringCapacity);
+        this.mask = ringCapacity - 1;
+
+        recover();
+        this.lastForceNanos = System.nanoTime();
+        this.running = true;
+        this.writer = new Thread(this::run, "audit-journal-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    private AuditJournal() {
+        this.directory = null;
+        this.fsyncPolicy = FsyncPolicy.NONE;
+        this.fsyncIntervalNanos = 0;
+        this.segmentBytes = 0;
+        this.slots = null;
+        this.published = null;
+        this.mask = 0;
+        this.writer = null;
+    }
+
+    /**
+     * Opens the journal in a directory, continuing after its last complete record, and starts the writer.
+     *
+     * @param directory     Directory of the segments, created if missing
+     * @param fsyncPolicy   When written records are forced to the disk
+     * @param fsyncInterval Time between forces of the {@link FsyncPolicy#INTERVAL} policy
+     * @param segmentBytes  Size of a segment file
+     * @param ringCapacity  Number of records that can wait for the writer, a power of two
+     * @return The open journal
+     * @throws IOException If the directory or the newest segment cannot be opened
+     */
+    public static AuditJournal open(Path directory, FsyncPolicy fsyncPolicy, Duration fsyncInterval,
+                                    int segmentBytes, int ringCapacity) throws IOException {
+        return new AuditJournal(directory, fsyncPolicy, fsyncInterval, segmentBytes, ringCapacity);
+    }
+
+    /**
+     * @return A journal that records nothing, for when auditing is switched off
+     */
+    public static AuditJournal disabled() {
+        return new AuditJournal();
+    }
+
+    public boolean isEnabled() {
+        return slots != null;
+    }
+
+    /**
+     * Hands a decision to the writer. Returns as soon as the record is in the ring buffer.
+     *
+     * @param personalCode Requested personal ID code
+     * @param countryCode  Requested country code
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param decision     The decision
+     */
+    public void append(String personalCode, Country countryCode, Long loanAmount, int loanPeriod,
+                       Decision decision) {
+        if (!isEnabled() || !running) {
+            dropped.increment();
+            return;
+        }
+        long sequence = claimed.incrementAndGet();
+        long wrapPoint = sequence - slots.length;
+        if (wrapPoint > written.get() && !awaitSlot(wrapPoint)) {
+            return;
+        }
+        int index = (int) sequence & mask;
+        AuditRecord record = slots[index];
+        record.sequence = sequence;
+        record.timestampMillis = System.currentTimeMillis();
+        record.personalCode = personalCode == null ? -1 : CreditRegistryFile.encode(countryCode, personalCode);
+        record.countryCode = (byte) countryCode.ordinal();
+        record.loanAmount = loanAmount == null ? AuditJournalFile.NO_LOAN_AMOUNT : loanAmount;
+        record.loanPeriod = loanPeriod;
+        record.reason = (byte) decision.getReason().ordinal();
+        record.approvedLoanAmount = decision.getLoanAmount() == null ? 0 : decision.getLoanAmount();
+        record.approvedLoanPeriod = decision.getLoanPeriod() == null ? 0 : decision.getLoanPeriod().shortValue();
+        record.rulesVersion = decision.getRulesVersion();
+        // publishes the filled slot to the writer
+        published.lazySet(index, sequence);
+    }
+
+    /**
+     * Waits until the writer has copied the record that last used the slot.
+     *
+     * @return False if the journal was closed meanwhile and the record is dropped
+     */
+    private boolean awaitSlot(long wrapPoint) {
+        ringFullWaits.increment();
+        while (wrapPoint > written.get()) {
+            if (!running) {
+                dropped.increment();
+                return false;
+            }
+            LockSupport.parkNanos(FULL_PARK_NANOS);
+        }
+        return true;
+    }
+
+    /**
+     * @return Appended, written and durable record counts, and the waits for a full ring
+     */
+    public AuditJournalStats stats() {
+        return new AuditJournalStats(claimed.get(), written.get(), durable, ringFullWaits.sum(), dropped.sum(),
+                forces);
+    }
+
+    /**
+     * Stops taking records, writes and forces every record that was appended, and stops the writer.
+     */
+    @Override
+    public void close() {
+        if (!isEnabled() || !running) {
+            return;
+        }
+        closeDeadline = System.nanoTime() + CLOSE_TIMEOUT_NANOS;
+        running = false;
+        join();
+    }
+
+    /**
+     * Stops the writer where it is, without writing or forcing anything more, like a crash of the application.
+     * Records that were written to a segment are still in the page cache and survive; records that were only
+     * in the ring are lost.
+     */
+    void crash() {
+        crashed = true;
+        running = false;
+        join();
+    }
+
+    private void join() {
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        CRC32C checksum = new CRC32C();
+        try {
+            while (!crashed) {
+                int count = drain(checksum);
+                if (count > 0 && fsyncPolicy == FsyncPolicy.BATCH) {
+                    force();
+                } else if (fsyncPolicy == FsyncPolicy.INTERVAL
+                        && System.nanoTime() - lastForceNanos >= fsyncIntervalNanos) {
+                    force();
+                }
+                if (count == 0) {
+                    if (!running && (written.get() >= claimed.get() || System.nanoTime() > closeDeadline)) {
+                        force();
+                        return;
+                    }
+                    LockSupport.parkNanos(IDLE_PARK_NANOS);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            running = false;
+            log.error("Audit journal writer stopped, decisions are no longer recorded", e);
+        }
+    }
+
+    /**
+     * Copies the run of published records that follows the last written one into the segment.
+     *
+     * @return The number of records written
+     */
+    private int drain(CRC32C checksum) throws IOException {
+        long next = written.get() + 1;
+        int count = 0;
+        while (count < MAXIMUM_BATCH) {
+            int index = (int) next & mask;
+            if (published.get(index) != next) {
+                break;
+            }
+            if (position + AuditJournalFile.RECORD_BYTES > segment.capacity()) {
+                rollOver(next);
+            }
+            AuditJournalFile.writeRecord(segment, position, slots[index], checksum);
+            position += AuditJournalFile.RECORD_BYTES;
+            next++;
+            count++;
+        }
+        if (count > 0) {
+            // frees the slots for request threads
+            written.set(next - 1);
+        }
+        return count;
+    }
+
+    private void force() {
+        if (position > forcedPosition) {
+            segment.force(forcedPosition, position - forcedPosition);
+            forcedPosition = position;
+            forces++;
+        }
+        durable = written.get();
+        lastForceNanos = System.nanoTime();
+    }
+
+    private void rollOver(long firstSequence) throws IOException {
+        if (segment != null) {
+            force();
+        }
+        segment = map(AuditJournalFile.segment(directory, firstSequence), segmentBytes,
+                StandardOpenOption.CREATE_NEW);
+        AuditJournalFile.writeHeader(segment, firstSequence);
+        position = AuditJournalFile.HEADER_BYTES;
+        // the header is forced with the first records
+        forcedPosition = 0;
+    }
+
+    /**
+     * Continues after the last complete record of the newest segment, or starts the first segment.
+     */
+    private void recover() throws IOException {
+        Files.createDirectories(directory);
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(AuditJournalFile::isSegment).sorted().collect(Collectors.toList());
+        }
+        if (segments.isEmpty()) {
+            rollOver(1);
+            return;
+        }
+        Path newest = segments.get(segments.size() - 1);
+        segment = map(newest, (int) Files.size(newest));
+        long firstSequence = AuditJournalFile.readHeader(segment);
+        if (firstSequence < 1) {
+            throw new IOException("Not an audit journal segment: " + newest);
+        }
+        int count = AuditJournalFile.recordCount(segment, firstSequence, new CRC32C());
+        long lastSequence = firstSequence + count - 1;
+        position = AuditJournalFile.HEADER_BYTES + count * AuditJournalFile.RECORD_BYTES;
+        forcedPosition = position;
+        claimed.set(lastSequence);
+        written.set(lastSequence);
+        durable = lastSequence;
+        log.info("Audit journal {} continues after record {}", directory, lastSequence);
+    }
+
+    private static MappedByteBuffer map(Path file, int bytes, StandardOpenOption... options) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, withReadWrite(options))) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+        }
+    }
+
+    private static StandardOpenOption[] withReadWrite(StandardOpenOption[] options) {
+        StandardOpenOption[] all = new StandardOpenOption[options.length + 2];
+        all[0] = StandardOpenOption.READ;
+        all[1] = StandardOpenOption.WRITE;
+        System.arraycopy(options, 0, all, 2, options.length);
+        return all;
+    }
+}
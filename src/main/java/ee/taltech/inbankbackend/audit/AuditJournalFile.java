@@ -0,0 +1,176 @@
+package ee.taltech.inbankbackend.audit;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.DecisionReason;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.zip.CRC32C;
+
+/**
+ * Layout of the audit journal segments.<br><br>
+ * A segment starts with a {@value #HEADER_BYTES} byte header: the magic number, the format version and the
+ * sequence number of its first record. It is followed by fixed-width records of {@value #RECORD_BYTES} bytes.
+ * All values are big-endian. A record holds:<br>
+ * - long sequence number, starting at 1 and without gaps across segments<br>
+ * - long time of the decision, epoch milliseconds<br>
+ * - long personal ID code, encoded with its country like in the credit registry, -1 if it is not 11 digits<br>
+ * - long requested loan amount, {@link #NO_LOAN_AMOUNT} if none was given<br>
+ * - int requested loan period<br>
+ * - int approved loan amount, 0 if rejected<br>
+ * - short approved loan period, 0 if rejected<br>
+ * - byte country, the ordinal of the country<br>
+ * - byte outcome, the ordinal of the decision reason<br>
+ * - 16 bytes rules version, ASCII, zero padded and cut after 16 characters<br>
+ * - int CRC-32C of the preceding bytes of the record<br><br>
+ * The unused rest of a segment is zeros. A reader stops at the first record whose checksum does not match,
+ * which is where the writer stopped, also after a crash in the middle of a record.
+ */
+public final class AuditJournalFile {
+
+    public static final int MAGIC = 0x49414a31; // "IAJ1"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+    public static final int RECORD_BYTES = 64;
+    public static final long NO_LOAN_AMOUNT = Long.MIN_VALUE;
+
+    static final int RULES_VERSION_BYTES = 16;
+    static final int CHECKSUM_OFFSET = RECORD_BYTES - Integer.BYTES;
+
+    private static final Country[] COUNTRIES = Country.values();
+    private static final DecisionReason[] REASONS = DecisionReason.values();
+    private static final int CODE_DIGITS = 11;
+    private static final long CODE_FACTOR = 100_000_000_000L;
+    private static final String SEGMENT_PREFIX = "audit-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private AuditJournalFile() {
+    }
+
+    /**
+     * @param directory     Journal directory
+     * @param firstSequence Sequence number of the first record of the segment
+     * @return The segment file, named so that the segments sort in sequence order
+     */
+    public static Path segment(Path directory, long firstSequence) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, firstSequence, SEGMENT_SUFFIX));
+    }
+
+    /**
+     * @param file Any file
+     * @return Whether the file name is the name of a segment
+     */
+    public static boolean isSegment(Path file) {
+        String name = file.getFileName().toString();
+        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+    }
+
+    /**
+     * Writes the segment header at the start of the buffer.
+     */
+    static void writeHeader(ByteBuffer segment, long firstSequence) {
+        segment.putInt(0, MAGIC);
+        segment.putInt(4, VERSION);
+        segment.putLong(8, firstSequence);
+    }
+
+    /**
+     * @return The sequence number of the first record, or -1 if the buffer does not start with a segment header
+     */
+    static long readHeader(ByteBuffer segment) {
+        if (segment.capacity() < HEADER_BYTES
+                || segment.getInt(0) != MAGIC
+                || segment.getInt(4) != VERSION) {
+            return -1;
+        }
+        return segment.getLong(8);
+    }
+
+    /**
+     * Writes a record at an absolute position.
+     */
+    static void writeRecord(ByteBuffer segment, int position, AuditRecord record, CRC32C checksum) {
+        segment.putLong(position, record.sequence);
+        segment.putLong(position + 8, record.timestampMillis);
+        segment.putLong(position + 16, record.personalCode);
+        segment.putLong(position + 24, record.loanAmount);
+        segment.putInt(position + 32, record.loanPeriod);
+        segment.putInt(position + 36, record.approvedLoanAmount);
+        segment.putShort(position + 40, record.approvedLoanPeriod);
+        segment.put(position + 42, record.countryCode);
+        segment.put(position + 43, record.reason);
+        String rulesVersion = record.rulesVersion;
+        for (int i = 0; i < RULES_VERSION_BYTES; i++) {
+            char c = rulesVersion != null && i < rulesVersion.length() ? rulesVersion.charAt(i) : 0;
+            segment.put(position + 44 + i, c < 0x80 ? (byte) c : (byte) '?');
+        }
+        checksum.reset();
+        checksum.update(segment.slice(position, CHECKSUM_OFFSET));
+        segment.putInt(position + CHECKSUM_OFFSET, (int) checksum.getValue());
+    }
+
+    /**
+     * @return Whether a complete record is stored at the position
+     */
+    static boolean isRecord(ByteBuffer segment, int position, CRC32C checksum) {
+        if (position + RECORD_BYTES > segment.capacity() || segment.getLong(position) <= 0) {
+            return false;
+        }
+        checksum.reset();
+        checksum.update(segment.slice(position, CHECKSUM_OFFSET));
+        return segment.getInt(position + CHECKSUM_OFFSET) == (int) checksum.getValue();
+    }
+
+    /**
+     * Counts the records of a segment up to the first one that is incomplete or out of sequence.
+     *
+     * @return The number of readable records
+     */
+    static int recordCount(ByteBuffer segment, long firstSequence, CRC32C checksum) {
+        int count = 0;
+        int position = HEADER_BYTES;
+        while (isRecord(segment, position, checksum) && segment.getLong(position) == firstSequence + count) {
+            count++;
+            position += RECORD_BYTES;
+        }
+        return count;
+    }
+
+    /**
+     * Reads the record at the position, which must be a complete record.
+     */
+    static AuditEntry readRecord(ByteBuffer segment, int position) {
+        StringBuilder rulesVersion = new StringBuilder(RULES_VERSION_BYTES);
+        for (int i = 0; i < RULES_VERSION_BYTES; i++) {
+            byte c = segment.get(position + 44 + i);
+            if (c == 0) {
+                break;
+            }
+            rulesVersion.append((char) c);
+        }
+        long loanAmount = segment.getLong(position + 24);
+        return new AuditEntry(
+                segment.getLong(position),
+                segment.getLong(position + 8),
+                personalCode(segment.getLong(position + 16)),
+                ordinal(COUNTRIES, segment.get(position + 42)),
+                loanAmount == NO_LOAN_AMOUNT ? null : loanAmount,
+                segment.getInt(position + 32),
+                ordinal(REASONS, segment.get(position + 43)),
+                segment.getInt(position + 36),
+                segment.getShort(position + 40),
+                rulesVersion.toString());
+    }
+
+    private static String personalCode(long encoded) {
+        if (encoded < 0) {
+            return null;
+        }
+        String digits = Long.toString(encoded % CODE_FACTOR);
+        return "0".repeat(CODE_DIGITS - digits.length()) + digits;
+    }
+
+    private static <T> T ordinal(T[] values, byte ordinal) {
+        return ordinal >= 0 && ordinal < values.length ? values[ordinal] : null;
+    }
+}
@@ -0,0 +1,82 @@
+package ee.taltech.inbankbackend.audit;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Reads the decisions of an audit journal back in sequence order, for replaying them.
+ * Reading stops at the first incomplete record of the newest segment, which is where the writer stopped.<br><br>
+ * Run with {@code ./gradlew replayAuditLog -Paudit=<directory>} to print the journal as CSV.
+ */
+public final class AuditJournalReader {
+
+    private AuditJournalReader() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1) {
+            System.err.println("Usage: AuditJournalReader <audit directory>");
+            System.exit(2);
+        }
+        System.out.println("sequence,timestampMillis,personalCode,countryCode,loanAmount,loanPeriod,"
+                + "reason,approvedLoanAmount,approvedLoanPeriod,rulesVersion");
+        long records = read(Path.of(args[0]), entry -> System.out.println(entry.getSequence()
+                + "," + entry.getTimestampMillis()
+                + "," + (entry.getPersonalCode() == null ? "" : entry.getPersonalCode())
+                + "," + entry.getCountryCode()
+                + "," + (entry.getLoanAmount() == null ? "" : entry.getLoanAmount())
+                + "," + entry.getLoanPeriod()
+                + "," + entry.getReason()
+                + "," + entry.getApprovedLoanAmount()
+                + "," + entry.getApprovedLoanPeriod()
+                + "," + entry.getRulesVersion()));
+        System.err.println("Read " + records + " records from " + args[0]);
+    }
+
+    /**
+     * @param directory Journal directory
+     * @param consumer  Receives every record in sequence order
+     * @return Number of records read
+     * @throws IOException If a segment cannot be read, or records are missing between two segments
+     */
+    public static long read(Path directory, Consumer<AuditEntry> consumer) throws IOException {
+        List<Path> segments;
+        try (Stream<Path> files = Files.list(directory)) {
+            segments = files.filter(AuditJournalFile::isSegment).sorted().collect(Collectors.toList());
+        }
+        CRC32C checksum = new CRC32C();
+        long expected = -1;
+        long records = 0;
+        for (Path segment : segments) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            long firstSequence = AuditJournalFile.readHeader(buffer);
+            if (firstSequence < 1) {
+                throw new IOException("Not an audit journal segment: " + segment);
+            }
+            if (expected != -1 && firstSequence != expected) {
+                throw new IOException("Records " + expected + " to " + (firstSequence - 1) + " are missing before "
+                        + segment);
+            }
+            int count = AuditJournalFile.recordCount(buffer, firstSequence, checksum);
+            for (int i = 0; i < count; i++) {
+                consumer.accept(AuditJournalFile.readRecord(buffer,
+                        AuditJournalFile.HEADER_BYTES + i * AuditJournalFile.RECORD_BYTES));
+            }
+            records += count;
+            expected = firstSequence + count;
+        }
+        return records;
+    }
+}
@@ -0,0 +1,23 @@
+package ee.taltech.inbankbackend.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of the audit journal counters.
+ * Records up to {@code written} survive a crash of the application, records up to {@code durable} also survive
+ * a power loss.
+ */
+@Getter
+@AllArgsConstructor
+public class AuditJournalStats {
+    // sequence number of the last appended record
+    private final long appended;
+    // sequence number of the last record written to a segment
+    private final long written;
+    // sequence number of the last record forced to the disk
+    private final long durable;
+    private final long ringFullWaits;
+    private final long dropped;
+    private final long forces;
+}
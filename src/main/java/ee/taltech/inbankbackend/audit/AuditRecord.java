@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.audit;
+
+/**
+ * Reusable slot of the audit ring buffer, filled by a request thread and copied into the journal by the writer.
+ */
+final class AuditRecord {
+    long sequence;
+    long timestampMillis;
+    long personalCode;
+    long loanAmount;
+    int loanPeriod;
+    int approvedLoanAmount;
+    short approvedLoanPeriod;
+    byte countryCode;
+    byte reason;
+    String rulesVersion;
+}
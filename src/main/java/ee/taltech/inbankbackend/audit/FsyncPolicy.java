@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.audit;
+
+/**
+ * When the audit journal forces written records to the disk. Records that are written but not forced survive a
+ * crash of the application, but not a crash of the operating system or a power loss.
+ */
+public enum FsyncPolicy {
+    /**
+     * Every group of records is forced before the next group is written. Loses at most the group being written.
+     */
+    BATCH,
+    /**
+     * Written records are forced at a fixed interval. Loses at most the records of one interval.
+     */
+    INTERVAL,
+    /**
+     * Records are only forced when a segment is full and when the journal is closed; the operating system
+     * writes them back on its own schedule.
+     */
+    NONE
+}
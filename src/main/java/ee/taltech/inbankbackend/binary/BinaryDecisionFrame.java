@@ -0,0 +1,118 @@
+package ee.taltech.inbankbackend.binary;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of the frames of the binary decision protocol. All values are big-endian.<br><br>
+ * A request frame has {@value #REQUEST_BYTES} bytes:<br>
+ * - int request id, echoed in the response<br>
+ * - long personal ID code, its 11 digits as a number (a Latvian hyphen is left out)<br>
+ * - int requested loan amount<br>
+ * - short requested loan period<br>
+ * - byte country, the ordinal of {@link Country}<br>
+ * - one reserved byte<br><br>
+ * A response frame has {@value #RESPONSE_BYTES} bytes:<br>
+ * - int request id<br>
+ * - byte outcome, the ordinal of {@link DecisionReason}, or {@link #MALFORMED_REQUEST} or
+ * {@link #INTERNAL_ERROR}<br>
+ * - one reserved byte<br>
+ * - short approved loan period, 0 if rejected<br>
+ * - int approved loan amount, 0 if rejected<br><br>
+ * Error messages and the rules version are not sent, the outcome code identifies the message.
+ */
+public final class BinaryDecisionFrame {
+
+    public static final int REQUEST_BYTES = 20;
+    public static final int RESPONSE_BYTES = 12;
+
+    // outcome codes outside of the DecisionReason ordinals
+    public static final byte MALFORMED_REQUEST = (byte) 0xFE;
+    public static final byte INTERNAL_ERROR = (byte) 0xFF;
+
+    private static final Country[] COUNTRIES = Country.values();
+    private static final long MAXIMUM_CODE = 99_999_999_999L;
+    private static final String ZEROS = "00000000000";
+
+    private BinaryDecisionFrame() {
+    }
+
+    /**
+     * Writes a request frame.
+     *
+     * @param buffer       Buffer with room for the frame
+     * @param requestId    Id echoed in the response
+     * @param personalCode Personal ID code, digits only
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     */
+    public static void writeRequest(ByteBuffer buffer, int requestId, long personalCode, int loanAmount,
+                                    int loanPeriod, Country countryCode) {
+        buffer.putInt(requestId)
+                .putLong(personalCode)
+                .putInt(loanAmount)
+                .putShort((short) loanPeriod)
+                .put((byte) countryCode.ordinal())
+                .put((byte) 0);
+    }
+
+    /**
+     * Writes the response frame of a decision.
+     *
+     * @param buffer    Buffer with room for the frame
+     * @param requestId Id of the request
+     * @param decision  Decision of the request
+     */
+    public static void writeResponse(ByteBuffer buffer, int requestId, Decision decision) {
+        buffer.putInt(requestId)
+                .put((byte) decision.getReason().ordinal())
+                .put((byte) 0)
+                .putShort(decision.getLoanPeriod() == null ? 0 : decision.getLoanPeriod().shortValue())
+                .putInt(decision.getLoanAmount() == null ? 0 : decision.getLoanAmount());
+    }
+
+    /**
+     * Writes the response frame of a request that could not be decided.
+     *
+     * @param buffer    Buffer with room for the frame
+     * @param requestId Id of the request
+     * @param outcome   {@link #MALFORMED_REQUEST} or {@link #INTERNAL_ERROR}
+     */
+    public static void writeError(ByteBuffer buffer, int requestId, byte outcome) {
+        buffer.putInt(requestId)
+                .put(outcome)
+                .put((byte) 0)
+                .putShort((short) 0)
+                .putInt(0);
+    }
+
+    /**
+     * @param ordinal Country byte of a request frame
+     * @return The country, or null if the byte is no country
+     */
+    static Country country(byte ordinal) {
+        return ordinal >= 0 && ordinal < COUNTRIES.length ? COUNTRIES[ordinal] : null;
+    }
+
+    /**
+     * @param personalCode Personal ID code field of a request frame
+     * @param countryCode  Country of the request frame
+     * @return The code as the string the engine takes, with the hyphen put back into a Latvian code that holds
+     * a birth date, or null if it has more than 11 digits
+     */
+    static String personalCode(long personalCode, Country countryCode) {
+        if (personalCode < 0 || personalCode > MAXIMUM_CODE) {
+            return null;
+        }
+        String digits = Long.toString(personalCode);
+        String code = ZEROS.substring(digits.length()) + digits;
+        if (countryCode == Country.LV && !code.startsWith("32")) {
+            return code.substring(0, 6) + "-" + code.substring(6);
+        }
+        return code;
+    }
+}
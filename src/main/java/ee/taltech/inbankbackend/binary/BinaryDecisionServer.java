@@ -0,0 +1,304 @@
+package ee.taltech.inbankbackend.binary;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * TCP listener of the binary decision protocol, see {@link BinaryDecisionFrame}.<br><br>
+ * One selector thread serves all connections. It decodes the request frames straight from a direct buffer,
+ * decides them with the decision engine and encodes the responses into a direct buffer, so no request allocates
+ * more than the personal code string the engine takes.<br>
+ * - Requests can be pipelined: a client may send many frames without waiting for the responses.
+ * The responses are sent in request order.<br>
+ * - A decision that waits for the credit bureau does not hold the selector thread; its response is sent once
+ * it completes.<br>
+ * - At most {@value #MAXIMUM_PIPELINED_REQUESTS} requests per connection are in flight. Further frames are not
+ * read until responses have been sent, so a client that does not read its responses cannot exhaust memory.<br>
+ * - A client may shut down its output after the last frame. The connection is closed once every complete frame
+ * has been answered and every response has been written.
+ */
+public class BinaryDecisionServer implements AutoCloseable {
+
+    static final int MAXIMUM_PIPELINED_REQUESTS = 256;
+
+    private static final Logger log = LoggerFactory.getLogger(BinaryDecisionServer.class);
+
+    private final DecisionEngine decisionEngine;
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+    // connections with decisions completed off the selector thread
+    private final ConcurrentLinkedQueue<Connection> completed = new ConcurrentLinkedQueue<>();
+    private volatile boolean running = true;
+
+    private BinaryDecisionServer(DecisionEngine decisionEngine, InetSocketAddress address) throws IOException {
+        this.decisionEngine = decisionEngine;
+        this.selector = Selector.open();
+        this.serverChannel = ServerSocketChannel.open();
+        try {
+            serverChannel.bind(address);
+            serverChannel.configureBlocking(false);
+            serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        } catch (IOException e) {
+            serverChannel.close();
+            selector.close();
+            throw e;
+        }
+        this.thread = new Thread(this::run, "binary-decision-listener");
+        thread.setDaemon(true);
+    }
+
+    private BinaryDecisionServer() {
+        this.decisionEngine = null;
+        this.selector = null;
+        this.serverChannel = null;
+        this.thread = null;
+        this.running = false;
+    }
+
+    /**
+     * Starts listening for connections.
+     *
+     * @param decisionEngine Engine the requests are decided with
+     * @param address        Address to listen on, port 0 picks a free port
+     * @return The running server
+     * @throws IOException If the address cannot be bound
+     */
+    public static BinaryDecisionServer start(DecisionEngine decisionEngine, InetSocketAddress address)
+            throws IOException {
+        BinaryDecisionServer server = new BinaryDecisionServer(decisionEngine, address);
+        server.thread.start();
+        log.info("Listening for binary decision requests on {}", server.serverChannel.getLocalAddress());
+        return server;
+    }
+
+    /**
+     * @return A server that does not listen, for when the binary protocol is switched off
+     */
+    public static BinaryDecisionServer disabled() {
+        return new BinaryDecisionServer();
+    }
+
+    public boolean isEnabled() {
+        return serverChannel != null;
+    }
+
+    /**
+     * @return The port the server listens on, or -1 if it is disabled
+     */
+    public int getPort() {
+        return isEnabled() ? serverChannel.socket().getLocalPort() : -1;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!isEnabled()) {
+            return;
+        }
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys()) {
+            key.channel().close();
+        }
+        selector.close();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select();
+                Connection connection;
+                while ((connection = completed.poll()) != null) {
+                    connection.service();
+                }
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) {
+                        continue;
+                    }
+                    if (key.isAcceptable()) {
+                        accept();
+                    } else {
+                        ((Connection) key.attachment()).service();
+                    }
+                }
+            }
+        } catch (IOException | ClosedSelectorException e) {
+            if (running) {
+                log.error("Binary decision listener stopped", e);
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) {
+            return;
+        }
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Connection connection = new Connection(channel);
+        connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+    }
+
+    /**
+     * A request whose response has not been sent yet.
+     */
+    private static final class Pending {
+        private final int requestId;
+        // completes with null for a malformed request
+        private final CompletableFuture<Decision> decision;
+
+        private Pending(int requestId, CompletableFuture<Decision> decision) {
+            this.requestId = requestId;
+            this.decision = decision;
+        }
+    }
+
+    /**
+     * State of one connection, only touched by the selector thread.
+     */
+    private final class Connection {
+        private final SocketChannel channel;
+        private final ByteBuffer in = ByteBuffer.allocateDirect(
+                BinaryDecisionFrame.REQUEST_BYTES * MAXIMUM_PIPELINED_REQUESTS);
+        private final ByteBuffer out = ByteBuffer.allocateDirect(
+                BinaryDecisionFrame.RESPONSE_BYTES * MAXIMUM_PIPELINED_REQUESTS);
+        private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+        private SelectionKey key;
+        // the client shut down its output, no more frames arrive
+        private boolean inputClosed;
+
+        private Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+
+        /**
+         * Reads what has arrived, decides every complete frame, and writes the responses that are ready.
+         * After the client shut down its output, closes the connection once the last response has been written.
+         */
+        private void service() {
+            if (!channel.isOpen()) {
+                return;
+            }
+            try {
+                if (!inputClosed && in.hasRemaining() && channel.read(in) < 0) {
+                    inputClosed = true;
+                }
+                boolean progress = true;
+                while (progress) {
+                    progress = decideFrames() | encodeResponses();
+                    out.flip();
+                    channel.write(out);
+                    out.compact();
+                }
+                if (inputClosed && pending.isEmpty() && out.position() == 0) {
+                    // a trailing partial frame can never be completed
+                    close();
+                    return;
+                }
+                int interest = 0;
+                if (!inputClosed && pending.size() < MAXIMUM_PIPELINED_REQUESTS && in.hasRemaining()) {
+                    interest |= SelectionKey.OP_READ;
+                }
+                if (out.position() > 0) {
+                    interest |= SelectionKey.OP_WRITE;
+                }
+                key.interestOps(interest);
+            } catch (IOException e) {
+                close();
+            }
+        }
+
+        private boolean decideFrames() {
+            boolean decided = false;
+            in.flip();
+            while (in.remaining() >= BinaryDecisionFrame.REQUEST_BYTES
+                    && pending.size() < MAXIMUM_PIPELINED_REQUESTS) {
+                int requestId = in.getInt();
+                long personalCodeField = in.getLong();
+                int loanAmount = in.getInt();
+                int loanPeriod = in.getShort() & 0xFFFF;
+                Country countryCode = BinaryDecisionFrame.country(in.get());
+                in.get();
+                String personalCode = BinaryDecisionFrame.personalCode(personalCodeField, countryCode);
+                pending.add(new Pending(requestId, decide(personalCode, loanAmount, loanPeriod, countryCode)));
+                decided = true;
+            }
+            in.compact();
+            return decided;
+        }
+
+        private CompletableFuture<Decision> decide(String personalCode, int loanAmount, int loanPeriod,
+                                                   Country countryCode) {
+            if (personalCode == null || countryCode == null) {
+                return CompletableFuture.completedFuture(null);
+            }
+            CompletableFuture<Decision> decision;
+            try {
+                decision = decisionEngine.decideAsync(personalCode, (long) loanAmount, loanPeriod, countryCode);
+            } catch (RuntimeException e) {
+                decision = CompletableFuture.failedFuture(e);
+            }
+            if (!decision.isDone()) {
+                decision.whenComplete((result, error) -> {
+                    completed.add(this);
+                    selector.wakeup();
+                });
+            }
+            return decision;
+        }
+
+        private boolean encodeResponses() {
+            boolean encoded = false;
+            while (!pending.isEmpty() && pending.peek().decision.isDone()
+                    && out.remaining() >= BinaryDecisionFrame.RESPONSE_BYTES) {
+                Pending request = pending.poll();
+                encoded = true;
+                if (request.decision.isCompletedExceptionally()) {
+                    BinaryDecisionFrame.writeError(out, request.requestId, BinaryDecisionFrame.INTERNAL_ERROR);
+                    continue;
+                }
+                Decision decision = request.decision.join();
+                if (decision == null) {
+                    BinaryDecisionFrame.writeError(out, request.requestId, BinaryDecisionFrame.MALFORMED_REQUEST);
+                } else {
+                    BinaryDecisionFrame.writeResponse(out, request.requestId, decision);
+                }
+            }
+            return encoded;
+        }
+
+        private void close() {
+            key.cancel();
+            try {
+                channel.close();
+            } catch (IOException e) {
+                log.debug("Failed to close binary decision connection", e);
+            }
+        }
+    }
+}
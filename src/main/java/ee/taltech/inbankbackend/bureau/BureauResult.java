@@ -0,0 +1,53 @@
+package ee.taltech.inbankbackend.bureau;
+
+import ee.taltech.inbankbackend.registry.CreditRegistry;
+import lombok.Getter;
+
+/**
+ * Outcome of a credit bureau call. Only an answered call carries a credit modifier; every other status is a
+ * fallback and the decision is made with the local credit registry instead.
+ */
+@Getter
+public final class BureauResult {
+
+    public enum Status {
+        /**
+         * The bureau answered in time.
+         */
+        ANSWERED,
+        /**
+         * The deadline ran out before the bureau answered.
+         */
+        TIMED_OUT,
+        /**
+         * Too many bureau calls were already in flight, the call was not made.
+         */
+        BULKHEAD_FULL,
+        /**
+         * The bureau could not be reached or answered with an error.
+         */
+        FAILED
+    }
+
+    static final BureauResult TIMED_OUT = new BureauResult(Status.TIMED_OUT, CreditRegistry.UNKNOWN_CUSTOMER);
+    static final BureauResult BULKHEAD_FULL = new BureauResult(Status.BULKHEAD_FULL, CreditRegistry.UNKNOWN_CUSTOMER);
+    static final BureauResult FAILED = new BureauResult(Status.FAILED, CreditRegistry.UNKNOWN_CUSTOMER);
+    static final BureauResult UNKNOWN_CUSTOMER = new BureauResult(Status.ANSWERED, CreditRegistry.UNKNOWN_CUSTOMER);
+
+    private final Status status;
+    // same meaning as a credit registry modifier: 0 for debt, CreditRegistry.UNKNOWN_CUSTOMER if not known
+    private final int creditModifier;
+
+    private BureauResult(Status status, int creditModifier) {
+        this.status = status;
+        this.creditModifier = creditModifier;
+    }
+
+    static BureauResult answered(int creditModifier) {
+        return new BureauResult(Status.ANSWERED, creditModifier);
+    }
+
+    public boolean isAnswered() {
+        return status == Status.ANSWERED;
+    }
+}
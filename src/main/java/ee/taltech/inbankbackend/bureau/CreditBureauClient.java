@@ -0,0 +1,320 @@
+package ee.taltech.inbankbackend.bureau;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.LatencyHistogram;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Non-blocking client of the external credit bureau. The bureau answers
+ * {@code GET <base>/credit/<country>/<personal code>} with {@code {"creditModifier": <modifier>}},
+ * or with 404 if it does not know the customer.<br><br>
+ * No thread waits for the bureau: every call returns a CompletableFuture that always completes normally and
+ * never later than the deadline.<br>
+ * - A call that is still unanswered after the hedge delay sends a second, hedged request and takes whichever
+ * answer comes first. The hedge delay is the configured percentile of the answer latencies of the previous
+ * second, so only the slowest calls are hedged.<br>
+ * - A failed request is retried once right away as the hedged request.<br>
+ * - A bulkhead caps the number of requests in flight. A call that finds it full does not wait, it falls back
+ * right away.<br>
+ * - When the deadline runs out the call completes with {@link BureauResult.Status#TIMED_OUT} and the requests
+ * still in flight are cancelled.
+ */
+public class CreditBureauClient implements AutoCloseable {
+
+    // a hedge delay is only derived from a window with at least this many answers
+    static final int MINIMUM_HEDGE_SAMPLES = 100;
+    private static final long HEDGE_WINDOW_MILLIS = 1000;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper;
+    private final URI baseUri;
+    private final Duration deadline;
+    private final double hedgePercentile;
+    private final int maximumConcurrentCalls;
+    private final Semaphore bulkhead;
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final AtomicReference<LatencyHistogram> latencyWindow = new AtomicReference<>(new LatencyHistogram());
+    private volatile long hedgeDelayNanos;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder answered = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    private final LongAdder bulkheadFull = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder hedged = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+
+    /**
+     * @param httpClient             Client the requests are sent with
+     * @param objectMapper           Mapper the answers are read with
+     * @param baseUri                Base URI of the bureau
+     * @param deadline               Time after which a call falls back
+     * @param hedgePercentile        Percentile of the answer latency after which a hedged request is sent
+     * @param initialHedgeDelay      Hedge delay until enough answers have been seen
+     * @param maximumConcurrentCalls Maximum number of requests in flight
+     */
+    public CreditBureauClient(HttpClient httpClient, ObjectMapper objectMapper, URI baseUri, Duration deadline,
+                              double hedgePercentile, Duration initialHedgeDelay, int maximumConcurrentCalls) {
+        if (!(hedgePercentile > 0 && hedgePercentile < 1)) {
+            throw new IllegalArgumentException("Hedge percentile must be between 0 and 1");
+        }
+        this.httpClient = httpClient;
+        this.objectMapper = objectMapper;
+        this.baseUri = baseUri.toString().endsWith("/") ? baseUri : URI.create(baseUri + "/");
+        this.deadline = deadline;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeDelayNanos = initialHedgeDelay.toNanos();
+        this.maximumConcurrentCalls = maximumConcurrentCalls;
+        this.bulkhead = new Semaphore(maximumConcurrentCalls);
+        this.scheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "credit-bureau-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // deadlines of answered calls are cancelled, they must not pile up in the queue
+        scheduler.setRemoveOnCancelPolicy(true);
+        scheduler.scheduleAtFixedRate(this::refreshHedgeDelay,
+                HEDGE_WINDOW_MILLIS, HEDGE_WINDOW_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    private CreditBureauClient() {
+        this.httpClient = null;
+        this.objectMapper = null;
+        this.baseUri = null;
+        this.deadline = Duration.ZERO;
+        this.hedgePercentile = 0;
+        this.maximumConcurrentCalls = 0;
+        this.bulkhead = new Semaphore(0);
+        this.scheduler = null;
+    }
+
+    /**
+     * @return A client that is not connected to any bureau, decisions then only use the local credit registry
+     */
+    public static CreditBureauClient disabled() {
+        return new CreditBureauClient();
+    }
+
+    public boolean isEnabled() {
+        return httpClient != null;
+    }
+
+    /**
+     * Asks the bureau for the credit modifier of a customer.
+     *
+     * @param countryCode  Country the personal code was issued in
+     * @param personalCode Valid personal ID code of the customer
+     * @return The bureau result, completed within the deadline and never exceptionally
+     */
+    public CompletableFuture<BureauResult> creditModifier(Country countryCode, String personalCode) {
+        calls.increment();
+        Call call = new Call(HttpRequest.newBuilder(baseUri.resolve("credit/" + countryCode.name() + "/"
+                        + URLEncoder.encode(personalCode, StandardCharsets.UTF_8)))
+                .timeout(deadline)
+                .header("Accept", "application/json")
+                .GET()
+                .build());
+        call.start();
+        return call.result;
+    }
+
+    /**
+     * @return Call, fallback and hedging counts, and the current hedge delay
+     */
+    public CreditBureauStats stats() {
+        return new CreditBureauStats(calls.sum(), answered.sum(), timedOut.sum(), bulkheadFull.sum(), failed.sum(),
+                hedged.sum(), hedgeWins.sum(), hedgeDelayNanos, maximumConcurrentCalls - bulkhead.availablePermits());
+    }
+
+    @Override
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private void refreshHedgeDelay() {
+        LatencyHistogram window = latencyWindow.getAndSet(new LatencyHistogram());
+        if (window.count() >= MINIMUM_HEDGE_SAMPLES) {
+            hedgeDelayNanos = window.valueAtPercentile(hedgePercentile);
+        }
+    }
+
+    /**
+     * @return The result of an answer, or null if the response is an error
+     */
+    private BureauResult parse(HttpResponse<String> response) {
+        if (response.statusCode() == 404) {
+            return BureauResult.UNKNOWN_CUSTOMER;
+        }
+        if (response.statusCode() != 200) {
+            return null;
+        }
+        try {
+            JsonNode creditModifier = objectMapper.readTree(response.body()).path("creditModifier");
+            return creditModifier.isInt() && creditModifier.asInt() >= 0
+                    ? BureauResult.answered(creditModifier.asInt())
+                    : null;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * One call to the bureau with up to two requests: the primary and the hedged request.
+     */
+    private final class Call {
+        private final HttpRequest request;
+        private final CompletableFuture<BureauResult> result = new CompletableFuture<>();
+        // guarded by this
+        private final List<CompletableFuture<?>> requests = new ArrayList<>(2);
+        private int inFlight;
+        private boolean hedgeStarted;
+        private boolean done;
+        private ScheduledFuture<?> deadlineTimer;
+
+        private Call(HttpRequest request) {
+            this.request = request;
+        }
+
+        private void start() {
+            if (!send(false)) {
+                complete(BureauResult.BULKHEAD_FULL, false);
+                return;
+            }
+            ScheduledFuture<?> timer = scheduler.schedule(() -> complete(BureauResult.TIMED_OUT, false),
+                    deadline.toNanos(), TimeUnit.NANOSECONDS);
+            synchronized (this) {
+                deadlineTimer = timer;
+                if (done) {
+                    timer.cancel(false);
+                }
+            }
+            long hedgeDelay = hedgeDelayNanos;
+            if (hedgeDelay < deadline.toNanos()) {
+                scheduler.schedule(this::hedge, hedgeDelay, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        private void hedge() {
+            // when the bulkhead is full no hedge is sent, the primary request still answers or the deadline runs out
+            if (startHedge()) {
+                send(true);
+            }
+        }
+
+        private synchronized boolean startHedge() {
+            if (done || hedgeStarted) {
+                return false;
+            }
+            hedgeStarted = true;
+            return true;
+        }
+
+        private boolean send(boolean hedge) {
+            if (!bulkhead.tryAcquire()) {
+                return false;
+            }
+            if (hedge) {
+                hedged.increment();
+            }
+            long sent = System.nanoTime();
+            CompletableFuture<HttpResponse<String>> pending;
+            try {
+                pending = httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+            } catch (RuntimeException e) {
+                pending = CompletableFuture.failedFuture(e);
+            }
+            synchronized (this) {
+                inFlight++;
+                requests.add(pending);
+            }
+            pending.whenComplete((response, error) -> {
+                bulkhead.release();
+                BureauResult answer = error == null ? parse(response) : null;
+                if (answer != null) {
+                    latencyWindow.get().record(System.nanoTime() - sent);
+                    complete(answer, hedge);
+                    return;
+                }
+                if (requestFailed()) {
+                    send(true);
+                }
+                allFailedIfNoneInFlight();
+            });
+            return true;
+        }
+
+        /**
+         * @return Whether the failed request was the primary one and the hedged request should be sent now
+         */
+        private synchronized boolean requestFailed() {
+            inFlight--;
+            if (hedgeStarted || done) {
+                return false;
+            }
+            hedgeStarted = true;
+            return true;
+        }
+
+        private void allFailedIfNoneInFlight() {
+            synchronized (this) {
+                if (inFlight > 0) {
+                    return;
+                }
+            }
+            complete(BureauResult.FAILED, false);
+        }
+
+        /**
+         * Completes the call with the first result. The counters are updated before the result is published,
+         * and the deadline and the requests still in flight are cancelled.
+         */
+        private void complete(BureauResult answer, boolean hedge) {
+            List<CompletableFuture<?>> outstanding;
+            ScheduledFuture<?> timer;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                done = true;
+                outstanding = new ArrayList<>(requests);
+                timer = deadlineTimer;
+            }
+            switch (answer.getStatus()) {
+                case ANSWERED -> answered.increment();
+                case TIMED_OUT -> timedOut.increment();
+                case BULKHEAD_FULL -> bulkheadFull.increment();
+                default -> failed.increment();
+            }
+            if (hedge && answer.isAnswered()) {
+                hedgeWins.increment();
+            }
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            for (CompletableFuture<?> request : outstanding) {
+                request.cancel(true);
+            }
+            result.complete(answer);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.bureau;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of the credit bureau client counters.
+ */
+@Getter
+@AllArgsConstructor
+public class CreditBureauStats {
+    private final long calls;
+    private final long answered;
+    private final long timedOut;
+    private final long bulkheadFull;
+    private final long failed;
+    private final long hedged;
+    private final long hedgeWins;
+    private final long hedgeDelayNanos;
+    private final int callsInFlight;
+}
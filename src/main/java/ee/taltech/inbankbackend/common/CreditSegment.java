@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.common;
+
+/**
+ * Credit segments a customer can belong to, derived from the last four digits of their ID code.
+ * Debt - 0000...2499
+ * Segment 1 - 2500...4999
+ * Segment 2 - 5000...7499
+ * Segment 3 - 7500...9999
+ */
+public enum CreditSegment {
+    DEBT, SEGMENT_1, SEGMENT_2, SEGMENT_3;
+
+    private static final CreditSegment[] VALUES = values();
+
+    /**
+     * Finds the segment for the last four digits of a personal ID code.
+     *
+     * @param lastFourDigits Last four digits of the ID code as a number between 0 and 9999
+     * @return Segment to which the customer belongs
+     */
+    public static CreditSegment fromLastFourDigits(int lastFourDigits) {
+        return VALUES[Math.min(lastFourDigits / 2500, VALUES.length - 1)];
+    }
+}
@@ -0,0 +1,80 @@
+package ee.taltech.inbankbackend.common;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Checks a file for a new version at a fixed interval on a daemon thread and hands every new version to a loader.
+ * A version that fails to load is logged and skipped, the loader keeps whatever it loaded before.
+ */
+public final class FilePoller implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(FilePoller.class);
+
+    /**
+     * Loads one version of a watched file.
+     */
+    @FunctionalInterface
+    public interface Loader {
+        void load(Path file) throws IOException;
+    }
+
+    private final String name;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param name Name of the polling thread
+     */
+    public FilePoller(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Loads the file now and then again every time its modification time changes.
+     *
+     * @param file     File to watch
+     * @param interval Time between checks
+     * @param loader   Loader of the file
+     * @throws IOException If the file cannot be loaded initially
+     */
+    public synchronized void watch(Path file, Duration interval, Loader loader) throws IOException {
+        FileTime[] loadedModifiedTime = {Files.getLastModifiedTime(file)};
+        loader.load(file);
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        // the array is only touched by the single polling thread after this point
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                FileTime modifiedTime = Files.getLastModifiedTime(file);
+                if (!modifiedTime.equals(loadedModifiedTime[0])) {
+                    loadedModifiedTime[0] = modifiedTime;
+                    loader.load(file);
+                }
+            } catch (IOException | RuntimeException e) {
+                log.warn("Keeping the current version of {}, the new version could not be loaded: {}",
+                        file, e.getMessage());
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.admission.AdmissionControl;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Provides the admission control in front of the loan endpoints.
+ */
+@Configuration
+public class AdmissionControlConfig {
+
+    /**
+     * With {@code admission.enabled=true}, a request to the loan endpoints is turned away with 429 or 503 and a
+     * Retry-After header when its client or all clients together exceed their rate, or when the node is at its
+     * concurrency limit. The limit adapts so the decision latency stays near {@code admission.latency-target-millis}.
+     * The check is off by default, and so is the client rate, since the client header can only be trusted when a
+     * proxy in front of the service sets it.
+     *
+     * @param enabled                   Whether requests are checked at all
+     * @param clientRate                Requests per second of a single client, 0 for no limit
+     * @param clientBurst               Requests a single client may send at once
+     * @param maximumClients            Number of clients whose rate is tracked separately
+     * @param globalRate                Requests per second of all clients together, 0 for no limit
+     * @param globalBurst               Requests all clients together may send at once
+     * @param latencyTargetMillis       Latency above which the concurrency limit is cut
+     * @param initialLimit              Concurrency limit at startup
+     * @param minimumLimit              Lowest concurrency limit
+     * @param maximumLimit              Highest concurrency limit
+     * @param overloadRetryAfterSeconds Retry hint of a request turned away by the concurrency limit
+     * @return The admission control, or a disabled one
+     */
+    @Bean
+    public AdmissionControl admissionControl(
+            @Value("${admission.enabled:false}") boolean enabled,
+            @Value("${admission.client-rate-per-second:0}") double clientRate,
+            @Value("${admission.client-burst:200}") int clientBurst,
+            @Value("${admission.max-clients:10000}") int maximumClients,
+            @Value("${admission.global-rate-per-second:0}") double globalRate,
+            @Value("${admission.global-burst:1000}") int globalBurst,
+            @Value("${admission.latency-target-millis:100}") long latencyTargetMillis,
+            @Value("${admission.initial-concurrency-limit:200}") int initialLimit,
+            @Value("${admission.min-concurrency-limit:8}") int minimumLimit,
+            @Value("${admission.max-concurrency-limit:2000}") int maximumLimit,
+            @Value("${admission.overload-retry-after-seconds:1}") long overloadRetryAfterSeconds) {
+        if (!enabled) {
+            return AdmissionControl.disabled();
+        }
+        return new AdmissionControl(clientRate, clientBurst, maximumClients, globalRate, globalBurst,
+                Duration.ofMillis(latencyTargetMillis), initialLimit, minimumLimit, maximumLimit,
+                Duration.ofSeconds(overloadRetryAfterSeconds));
+    }
+}
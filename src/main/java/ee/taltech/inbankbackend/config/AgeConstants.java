@@ -1,5 +1,8 @@
 package ee.taltech.inbankbackend.config;
 
+/**
+ * Default age limits of the rules, see RuleSnapshot.
+ */
 public class AgeConstants {
 
     public static final short ESTONIAN_AVERAGE_FEMALE_LIFETIME_YEARS = 82;
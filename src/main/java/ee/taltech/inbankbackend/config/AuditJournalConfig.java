@@ -0,0 +1,54 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.audit.AuditJournal;
+import ee.taltech.inbankbackend.audit.FsyncPolicy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Provides the journal every decision is recorded in.
+ */
+@Configuration
+public class AuditJournalConfig {
+
+    // a segment is mapped as one buffer, so its size in bytes must fit an int
+    static final int MAXIMUM_SEGMENT_MEGABYTES = Integer.MAX_VALUE >> 20;
+
+    /**
+     * With {@code audit.directory} set, every decision is appended to a segmented journal in that directory.
+     * {@code audit.fsync} chooses between forcing every group of records, forcing every
+     * {@code audit.fsync-interval-millis}, or leaving it to the operating system. The journal is opened at startup
+     * even with lazy initialization, so an unusable directory fails the startup.
+     *
+     * @param directory           Journal directory, or empty to record nothing
+     * @param fsyncPolicy         When written records are forced to the disk
+     * @param fsyncIntervalMillis Time between forces of the INTERVAL policy
+     * @param segmentMegabytes    Size of a segment file, between 1 and {@value #MAXIMUM_SEGMENT_MEGABYTES}
+     * @param ringCapacity        Number of records that can wait for the writer, a power of two
+     * @return The open journal, or a disabled one
+     * @throws IOException If the journal directory cannot be opened
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy(false)
+    public AuditJournal auditJournal(@Value("${audit.directory:}") String directory,
+                                     @Value("${audit.fsync:BATCH}") FsyncPolicy fsyncPolicy,
+                                     @Value("${audit.fsync-interval-millis:100}") long fsyncIntervalMillis,
+                                     @Value("${audit.segment-megabytes:64}") int segmentMegabytes,
+                                     @Value("${audit.ring-capacity:65536}") int ringCapacity) throws IOException {
+        if (directory.isBlank()) {
+            return AuditJournal.disabled();
+        }
+        if (segmentMegabytes < 1 || segmentMegabytes > MAXIMUM_SEGMENT_MEGABYTES) {
+            throw new IllegalArgumentException("audit.segment-megabytes must be between 1 and "
+                    + MAXIMUM_SEGMENT_MEGABYTES + ", was " + segmentMegabytes);
+        }
+        return AuditJournal.open(Path.of(directory), fsyncPolicy, Duration.ofMillis(fsyncIntervalMillis),
+                segmentMegabytes << 20, ringCapacity);
+    }
+}
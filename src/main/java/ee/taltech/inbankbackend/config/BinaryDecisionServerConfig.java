@@ -0,0 +1,40 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.binary.BinaryDecisionServer;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Provides the TCP listener of the binary decision protocol for internal callers.
+ */
+@Configuration
+public class BinaryDecisionServerConfig {
+
+    /**
+     * With {@code binary-protocol.enabled=true}, binary decision requests are served on
+     * {@code binary-protocol.port}, next to the HTTP endpoints. The switch is read at runtime instead of being a
+     * bean condition, because conditions are fixed at build time in the fast-startup build.
+     *
+     * @param enabled        Whether the binary protocol is served
+     * @param port           Port to listen on
+     * @param decisionEngine Engine the requests are decided with
+     * @return The running listener, or a disabled one
+     * @throws IOException If the port cannot be bound
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy(false)
+    public BinaryDecisionServer binaryDecisionServer(@Value("${binary-protocol.enabled:false}") boolean enabled,
+                                                     @Value("${binary-protocol.port:7070}") int port,
+                                                     DecisionEngine decisionEngine) throws IOException {
+        if (!enabled) {
+            return BinaryDecisionServer.disabled();
+        }
+        return BinaryDecisionServer.start(decisionEngine, new InetSocketAddress(port));
+    }
+}
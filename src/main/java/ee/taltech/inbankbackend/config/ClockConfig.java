@@ -0,0 +1,23 @@
+package ee.taltech.inbankbackend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Clock;
+
+/**
+ * Provides the clock ages are calculated with.
+ */
+@Configuration
+public class ClockConfig {
+
+    /**
+     * The system clock in the default time zone. A bean, so tests can replace it with a fixed clock.
+     *
+     * @return Clock the current date is read from
+     */
+    @Bean
+    public Clock clock() {
+        return Clock.systemDefaultZone();
+    }
+}
@@ -0,0 +1,47 @@
+package ee.taltech.inbankbackend.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.bureau.CreditBureauClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+/**
+ * Provides the client of the external credit bureau.
+ */
+@Configuration
+public class CreditBureauConfig {
+
+    /**
+     * With {@code credit-bureau.url} set, every decision asks the bureau at that URL for the customer's credit
+     * modifier. Without it the client is disabled and only the credit registry is used.
+     *
+     * @param url                     Base URL of the bureau, or empty to disable the bureau
+     * @param deadlineMillis          Time after which a call falls back to the credit registry
+     * @param hedgePercentile         Percentile of the answer latency after which a hedged request is sent
+     * @param initialHedgeDelayMillis Hedge delay until enough answers have been seen
+     * @param maximumConcurrentCalls  Maximum number of bureau requests in flight
+     * @param objectMapper            Mapper the answers are read with
+     * @return Client of the credit bureau
+     */
+    @Bean(destroyMethod = "close")
+    public CreditBureauClient creditBureauClient(
+            @Value("${credit-bureau.url:}") String url,
+            @Value("${credit-bureau.deadline-millis:300}") long deadlineMillis,
+            @Value("${credit-bureau.hedge-percentile:0.95}") double hedgePercentile,
+            @Value("${credit-bureau.initial-hedge-delay-millis:50}") long initialHedgeDelayMillis,
+            @Value("${credit-bureau.max-concurrent-calls:100}") int maximumConcurrentCalls,
+            ObjectMapper objectMapper) {
+        if (url.isBlank()) {
+            return CreditBureauClient.disabled();
+        }
+        Duration deadline = Duration.ofMillis(deadlineMillis);
+        HttpClient httpClient = HttpClient.newBuilder().connectTimeout(deadline).build();
+        return new CreditBureauClient(httpClient, objectMapper, URI.create(url), deadline, hedgePercentile,
+                Duration.ofMillis(initialHedgeDelayMillis), maximumConcurrentCalls);
+    }
+}
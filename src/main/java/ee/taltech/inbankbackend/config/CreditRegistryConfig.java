@@ -0,0 +1,42 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.registry.ReloadableCreditRegistry;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Provides the credit registry the decision engine reads credit modifiers from.
+ */
+@Configuration
+public class CreditRegistryConfig {
+
+    /**
+     * With {@code credit-registry.file} set, credit modifiers are looked up in that memory-mapped registry file,
+     * which is checked for a new version every {@code credit-registry.refresh-seconds}. Without it the modifier
+     * is derived from the last four digits of the personal ID code. The registry is loaded at startup even with
+     * lazy initialization, so a broken registry file fails the startup instead of the first decision.
+     *
+     * @param file           Registry file, or empty to use the last four digits
+     * @param refreshSeconds Time between checks of the registry file for a new version
+     * @return Credit registry used by the decision engine
+     * @throws IOException If the configured registry file cannot be loaded
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy(false)
+    public ReloadableCreditRegistry creditRegistry(@Value("${credit-registry.file:}") String file,
+                                                   @Value("${credit-registry.refresh-seconds:30}") long refreshSeconds)
+            throws IOException {
+        ReloadableCreditRegistry registry = new ReloadableCreditRegistry(new SegmentCreditRegistry());
+        if (!file.isBlank()) {
+            registry.watch(Path.of(file), Duration.ofSeconds(refreshSeconds));
+        }
+        return registry;
+    }
+}
@@ -2,6 +2,7 @@ package ee.taltech.inbankbackend.config;
 
 /**
  * Holds all necessary constants for the decision engine.
+ * The loan limits and credit modifiers are the defaults of the rules, see RuleSnapshot.
  */
 public class DecisionEngineConstants {
     public static final Integer MINIMUM_LOAN_AMOUNT = 2000;
@@ -11,4 +12,7 @@ public class DecisionEngineConstants {
     public static final Integer SEGMENT_1_CREDIT_MODIFIER = 100;
     public static final Integer SEGMENT_2_CREDIT_MODIFIER = 300;
     public static final Integer SEGMENT_3_CREDIT_MODIFIER = 1000;
+    public static final Integer MAXIMUM_BATCH_SIZE = 500;
+    public static final Integer PROFILE_CACHE_MAXIMUM_SIZE = 100000;
+    public static final Integer PROFILE_CACHE_TTL_MINUTES = 60;
 }
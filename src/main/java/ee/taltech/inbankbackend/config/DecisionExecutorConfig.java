@@ -0,0 +1,46 @@
+package ee.taltech.inbankbackend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Provides the worker pool that batch decisions are fanned out on.
+ */
+@Configuration
+public class DecisionExecutorConfig {
+
+    /**
+     * A fixed pool with one worker per CPU core. The queue is bounded, and when it is full the submitting
+     * thread runs the decision itself, so a burst of batches slows callers down instead of piling up work.<br><br>
+     * With {@code spring.threads.virtual.enabled=true} every decision gets its own virtual thread instead.
+     * Decisions that wait on blocking downstream calls then do not hold a platform thread, while CPU-bound
+     * work is still limited to one carrier thread per core.
+     *
+     * @param virtualThreads Whether the application runs on virtual threads
+     * @return Executor used for batch decisions
+     */
+    @Bean(name = "decisionExecutor", destroyMethod = "shutdown")
+    public ExecutorService decisionExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualThreads) {
+        if (virtualThreads) {
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("decision-worker-", 1).factory());
+        }
+        int workers = Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        return new ThreadPoolExecutor(workers, workers, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(DecisionEngineConstants.MAXIMUM_BATCH_SIZE),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "decision-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+}
@@ -0,0 +1,34 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.trace.DecisionTracer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Provides the tracer of loan decisions.
+ */
+@Configuration
+public class DecisionTracerConfig {
+
+    /**
+     * With {@code trace.enabled=true}, a {@code trace.sample-rate} share of the loan decisions is traced, none by
+     * default, and so is every decision requested with the {@code X-Debug-Trace} header. The last
+     * {@code trace.capacity} traces are kept. Tracing is off by default, since a trace explains a customer's
+     * decision and should only be read by operators.
+     *
+     * @param enabled    Whether decisions are traced at all
+     * @param sampleRate Share of the decisions that are traced without being asked for, between 0 and 1
+     * @param capacity   Number of finished traces that are kept
+     * @return The decision tracer, or a disabled one
+     */
+    @Bean
+    public DecisionTracer decisionTracer(@Value("${trace.enabled:false}") boolean enabled,
+                                         @Value("${trace.sample-rate:0}") double sampleRate,
+                                         @Value("${trace.capacity:1024}") int capacity) {
+        if (!enabled) {
+            return DecisionTracer.disabled();
+        }
+        return new DecisionTracer(sampleRate, capacity);
+    }
+}
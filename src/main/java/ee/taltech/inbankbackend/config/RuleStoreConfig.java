@@ -0,0 +1,41 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Provides the store of the rules the decision engine works with.
+ */
+@Configuration
+public class RuleStoreConfig {
+
+    /**
+     * With {@code rules.file} set, the rules are read from that properties file, which is checked for a new
+     * version every {@code rules.refresh-seconds}. Without it the rules of {@link DecisionEngineConstants}
+     * and {@link AgeConstants} are used. The store is created at startup even with lazy initialization,
+     * so an invalid rules file fails the startup instead of the first decision.
+     *
+     * @param file           Rules file, or empty to use the built-in rules
+     * @param refreshSeconds Time between checks of the rules file for a new version
+     * @return Store of the current rules
+     * @throws IOException If the configured rules file cannot be loaded
+     */
+    @Bean(destroyMethod = "close")
+    @Lazy(false)
+    public RuleStore ruleStore(@Value("${rules.file:}") String file,
+                               @Value("${rules.refresh-seconds:30}") long refreshSeconds) throws IOException {
+        RuleStore ruleStore = new RuleStore(RuleSnapshot.defaults());
+        if (!file.isBlank()) {
+            ruleStore.watch(Path.of(file), Duration.ofSeconds(refreshSeconds));
+        }
+        return ruleStore;
+    }
+}
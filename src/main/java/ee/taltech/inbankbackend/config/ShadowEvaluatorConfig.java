@@ -0,0 +1,55 @@
+package ee.taltech.inbankbackend.config;
+
+import ee.taltech.inbankbackend.registry.CreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * Provides the shadow evaluation of a candidate rule set.
+ */
+@Configuration
+public class ShadowEvaluatorConfig {
+
+    /**
+     * With {@code shadow.rules-file} set, a {@code shadow.sample-rate} share of the loan decisions is decided
+     * again with the rules of that file, which is checked for a new version like the live rules file. Without it
+     * nothing is decided twice.
+     *
+     * @param file           Candidate rules file, or empty to disable shadow evaluation
+     * @param refreshSeconds Time between checks of the candidate rules file for a new version
+     * @param sampleRate     Share of the requests that are decided again, between 0 and 1
+     * @param threads        Number of workers that make candidate decisions
+     * @param queueCapacity  Number of sampled requests that may wait for a worker before new ones are dropped
+     * @param profileCache   Profile cache of the live engine
+     * @param creditRegistry Credit registry of the live engine
+     * @param clock          Clock the current date is read from
+     * @return The shadow evaluator, or a disabled one
+     * @throws IOException If the configured candidate rules file cannot be loaded
+     */
+    @Bean(destroyMethod = "close")
+    public ShadowEvaluator shadowEvaluator(@Value("${shadow.rules-file:}") String file,
+                                           @Value("${rules.refresh-seconds:30}") long refreshSeconds,
+                                           @Value("${shadow.sample-rate:0.05}") double sampleRate,
+                                           @Value("${shadow.threads:1}") int threads,
+                                           @Value("${shadow.queue-capacity:1000}") int queueCapacity,
+                                           ProfileCache profileCache, CreditRegistry creditRegistry,
+                                           Clock clock) throws IOException {
+        if (file.isBlank()) {
+            return ShadowEvaluator.disabled();
+        }
+        RuleStore candidateRules = new RuleStore(RuleSnapshot.defaults());
+        candidateRules.watch(Path.of(file), Duration.ofSeconds(refreshSeconds));
+        return new ShadowEvaluator(candidateRules, profileCache, creditRegistry, clock, sampleRate,
+                threads, queueCapacity);
+    }
+}
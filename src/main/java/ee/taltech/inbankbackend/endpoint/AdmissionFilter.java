@@ -0,0 +1,151 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.admission.Admission;
+import ee.taltech.inbankbackend.admission.AdmissionControl;
+import ee.taltech.inbankbackend.admission.AdmissionOutcome;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs every request to the loan endpoints through {@link AdmissionControl} before it reaches
+ * {@link DecisionEngineController}.<br><br>
+ * A request that is turned away gets 429 Too Many Requests when its own client exceeded its rate, or 503
+ * Service Unavailable when the node as a whole is saturated, with a Retry-After header in whole seconds.
+ * An admitted request is released when its response is complete, which for the asynchronous endpoints is at
+ * the end of the async dispatch. The client is identified by the {@code admission.client-header} header, or
+ * by its remote address when the header is missing. The header is only meaningful when a trusted proxy sets it.
+ */
+@Component
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    private static final String PERMIT_ATTRIBUTE = AdmissionFilter.class.getName() + ".permit";
+    private static final byte[] TOO_MANY_REQUESTS =
+            "{\"errorMessage\":\"Too many requests, retry later.\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OVERLOADED =
+            "{\"errorMessage\":\"The service is overloaded, retry later.\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AdmissionControl admissionControl;
+    private final String clientHeader;
+
+    AdmissionFilter(AdmissionControl admissionControl,
+                    @Value("${admission.client-header:X-Client-Id}") String clientHeader) {
+        this.admissionControl = admissionControl;
+        this.clientHeader = clientHeader;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !admissionControl.isEnabled()
+                || !request.getRequestURI().startsWith(request.getContextPath() + "/loan/");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        // the permit of an asynchronous request is released at the end of its async dispatch
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (isAsyncDispatch(request)) {
+            try {
+                chain.doFilter(request, response);
+            } finally {
+                if (!request.isAsyncStarted() && request.getAttribute(PERMIT_ATTRIBUTE) instanceof Permit permit) {
+                    permit.release();
+                }
+            }
+            return;
+        }
+
+        long admittedNanos = System.nanoTime();
+        Admission admission = admissionControl.tryAdmit(client(request), admittedNanos);
+        if (!admission.isAdmitted()) {
+            reject(response, admission);
+            return;
+        }
+        Permit permit = new Permit(admittedNanos);
+        request.setAttribute(PERMIT_ATTRIBUTE, permit);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // also releases a request that times out or fails without finishing an async dispatch
+                request.getAsyncContext().addListener(permit);
+            } else {
+                permit.release();
+            }
+        }
+    }
+
+    private String client(HttpServletRequest request) {
+        String client = request.getHeader(clientHeader);
+        return client == null || client.isEmpty() ? request.getRemoteAddr() : client;
+    }
+
+    private static void reject(HttpServletResponse response, Admission admission) throws IOException {
+        boolean clientLimited = admission.getOutcome() == AdmissionOutcome.CLIENT_RATE_LIMITED;
+        byte[] body = clientLimited ? TOO_MANY_REQUESTS : OVERLOADED;
+        // Retry-After is in whole seconds, rounded up so a retry does not arrive early
+        long retryAfterSeconds = Math.max(1, (admission.getRetryAfterNanos() + 999_999_999L) / 1_000_000_000L);
+        response.setStatus(clientLimited ? HttpStatus.TOO_MANY_REQUESTS.value() : HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * The admission of one request, released exactly once by whichever of the async dispatch and the
+     * completion of the async context comes first.
+     */
+    private final class Permit implements AsyncListener {
+        private final long admittedNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long admittedNanos) {
+            this.admittedNanos = admittedNanos;
+        }
+
+        private void release() {
+            if (released.compareAndSet(false, true)) {
+                long now = System.nanoTime();
+                admissionControl.release(now - admittedNanos, now);
+            }
+        }
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            // followed by onComplete
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            // followed by onComplete
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * Holds the response data of a single item of the batch REST endpoint.
+ * The status mirrors the HTTP status the item would get from the single decision endpoint.
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchDecisionResponse {
+    private int status;
+    private Integer loanAmount;
+    private Integer loanPeriod;
+    private String errorMessage;
+    private String rulesVersion;
+}
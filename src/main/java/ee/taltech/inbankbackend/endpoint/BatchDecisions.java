@@ -0,0 +1,64 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Decides single items of a batch, turning every outcome into a BatchDecisionResponse.
+ * Shared by the batch REST endpoint and the offline file scorer.
+ */
+final class BatchDecisions {
+
+    private BatchDecisions() {
+    }
+
+    /**
+     * Decides one request. Never throws, every failure is reported through the status and error message.
+     *
+     * @param decisionEngine Engine to decide the request with
+     * @param request        The request to decide
+     * @return The response item for the request
+     */
+    static BatchDecisionResponse decide(DecisionEngine decisionEngine, DecisionRequest request) {
+        try {
+            Decision decision = decisionEngine.
+                    decide(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(), request.getCountryCode());
+            return response(decision);
+        } catch (Exception e) {
+            return failed();
+        }
+    }
+
+    /**
+     * Decides one request without waiting for the credit bureau. Never completes exceptionally, every failure
+     * is reported through the status and error message.
+     *
+     * @param decisionEngine Engine to decide the request with
+     * @param request        The request to decide
+     * @return The response item for the request
+     */
+    static CompletableFuture<BatchDecisionResponse> decideAsync(DecisionEngine decisionEngine, DecisionRequest request) {
+        CompletableFuture<Decision> decision;
+        try {
+            decision = decisionEngine.
+                    decideAsync(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(), request.getCountryCode());
+        } catch (Exception e) {
+            decision = CompletableFuture.failedFuture(e);
+        }
+        return decision.handle((result, error) -> error != null ? failed() : response(result));
+    }
+
+    private static BatchDecisionResponse response(Decision decision) {
+        return new BatchDecisionResponse(DecisionStatus.of(decision.getReason()).value(),
+                decision.getLoanAmount(), decision.getLoanPeriod(), decision.getErrorMessage(),
+                decision.getRulesVersion());
+    }
+
+    private static BatchDecisionResponse failed() {
+        return new BatchDecisionResponse(HttpStatus.INTERNAL_SERVER_ERROR.value(), null, null,
+                "An unexpected error occurred", null);
+    }
+}
@@ -0,0 +1,69 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.metrics.DecisionStage;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Type;
+
+/**
+ * Records how long it takes to bind the JSON body of a decision request.
+ * The start time travels with the input message, so no thread-local state is needed.
+ */
+@ControllerAdvice(assignableTypes = DecisionEngineController.class)
+public class BindingMetricsAdvice extends RequestBodyAdviceAdapter {
+
+    private final DecisionMetrics metrics;
+
+    BindingMetricsAdvice(DecisionMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean supports(MethodParameter methodParameter, Type targetType,
+                            Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public HttpInputMessage beforeBodyRead(HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                           Class<? extends HttpMessageConverter<?>> converterType) {
+        return new TimedInputMessage(inputMessage, System.nanoTime());
+    }
+
+    @Override
+    public Object afterBodyRead(Object body, HttpInputMessage inputMessage, MethodParameter parameter, Type targetType,
+                                Class<? extends HttpMessageConverter<?>> converterType) {
+        if (inputMessage instanceof TimedInputMessage timedMessage) {
+            metrics.recordStage(DecisionStage.JSON_BINDING, System.nanoTime() - timedMessage.started);
+        }
+        return body;
+    }
+
+    private static final class TimedInputMessage implements HttpInputMessage {
+        private final HttpInputMessage delegate;
+        private final long started;
+
+        private TimedInputMessage(HttpInputMessage delegate, long started) {
+            this.delegate = delegate;
+            this.started = started;
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+    }
+}
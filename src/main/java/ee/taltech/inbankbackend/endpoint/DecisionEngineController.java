@@ -1,32 +1,53 @@
 package ee.taltech.inbankbackend.endpoint;
 
-import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
-import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
-import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
-import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
 import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionCoalescer;
 import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.OfferCurve;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import ee.taltech.inbankbackend.trace.DecisionTrace;
+import ee.taltech.inbankbackend.trace.DecisionTracer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
 @RestController
 @RequestMapping("/loan")
-@CrossOrigin
+@CrossOrigin(exposedHeaders = DecisionEngineController.TRACE_ID_HEADER)
 public class DecisionEngineController {
 
+    static final String DEBUG_TRACE_HEADER = "X-Debug-Trace";
+    static final String TRACE_ID_HEADER = "X-Trace-Id";
+
     private final DecisionEngine decisionEngine;
-    private final DecisionResponse response;
+    private final DecisionCoalescer decisionCoalescer;
+    private final Executor decisionExecutor;
+    private final ShadowEvaluator shadowEvaluator;
+    private final DecisionTracer decisionTracer;
 
     @Autowired
-    DecisionEngineController(DecisionEngine decisionEngine, DecisionResponse response) {
+    DecisionEngineController(DecisionEngine decisionEngine, DecisionCoalescer decisionCoalescer,
+                             @Qualifier("decisionExecutor") Executor decisionExecutor,
+                             ShadowEvaluator shadowEvaluator, DecisionTracer decisionTracer) {
         this.decisionEngine = decisionEngine;
-        this.response = response;
+        this.decisionCoalescer = decisionCoalescer;
+        this.decisionExecutor = decisionExecutor;
+        this.shadowEvaluator = shadowEvaluator;
+        this.decisionTracer = decisionTracer;
     }
 
     /**
@@ -37,39 +58,116 @@ public class DecisionEngineController {
      * - If the personal ID code is invalid, the endpoint returns a bad request response with an error message.<br>
      * - If an unexpected error occurs, the endpoint returns an internal server error response with an error message.<br>
      * - If no valid loans can be found, the endpoint returns a not found response with an error message.<br>
-     * - If a valid loan is found, a DecisionResponse is returned containing the approved loan amount and period.
+     * - If a valid loan is found, a DecisionResponse is returned containing the approved loan amount and period.<br>
+     * - If the customer's age does not allow the loan, an OK response is returned with an error message.<br>
+     * The status is picked from the reason code of the decision and the error messages are pre-built.
+     * Identical requests that arrive while one of them is being decided share its decision.
+     * A sample of the decisions is handed to the shadow evaluator, which decides them again with candidate rules
+     * off the request thread.<br><br>
+     * When tracing is enabled, a request with the X-Debug-Trace header, and a sample of the others, is traced: it
+     * is decided on its own instead of sharing a decision, every rule step is recorded, and the response carries
+     * the id of the trace in the X-Trace-Id header.
      *
-     * @param request The request body containing the customer's personal ID code, requested loan amount, and loan period
+     * @param request    The request body containing the customer's personal ID code, requested loan amount, and loan period
+     * @param debugTrace Value of the X-Debug-Trace header, any value asks for a trace
      * @return A ResponseEntity with a DecisionResponse body containing the approved loan amount and period, and an error message (if any)
      */
     @PostMapping("/decision")
-    public ResponseEntity<DecisionResponse> requestDecision(@RequestBody DecisionRequest request) {
+    public CompletableFuture<ResponseEntity<DecisionResponse>> requestDecision(
+            @RequestBody DecisionRequest request,
+            @RequestHeader(value = DEBUG_TRACE_HEADER, required = false) String debugTrace) {
+        DecisionTrace trace = decisionTracer.start(debugTrace != null, request.getCountryCode());
+        CompletableFuture<Decision> decision;
         try {
-            Decision decision = decisionEngine.
-                    calculateApprovedLoan(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(), request.getCountryCode());
-            response.setLoanAmount(decision.getLoanAmount());
-            response.setLoanPeriod(decision.getLoanPeriod());
-            response.setErrorMessage(decision.getErrorMessage());
-
-            return ResponseEntity.ok(response);
-        } catch (InvalidPersonalCodeException | InvalidLoanAmountException | InvalidLoanPeriodException e) {
-            response.setLoanAmount(null);
-            response.setLoanPeriod(null);
-            response.setErrorMessage(e.getMessage());
-
-            return ResponseEntity.badRequest().body(response);
-        } catch (NoValidLoanException e) {
-            response.setLoanAmount(null);
-            response.setLoanPeriod(null);
-            response.setErrorMessage(e.getMessage());
+            decision = trace == null
+                    ? decisionCoalescer.decide(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(), request.getCountryCode())
+                    : decisionEngine.decideAsync(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(), request.getCountryCode(), trace);
+        } catch (Exception e) {
+            decision = CompletableFuture.failedFuture(e);
+        }
+        return decision.handle((result, error) -> {
+            if (trace != null) {
+                decisionTracer.finish(trace, result);
+            }
+            ResponseEntity.BodyBuilder response = error != null
+                    ? ResponseEntity.internalServerError() : ResponseEntity.status(DecisionStatus.of(result.getReason()));
+            if (trace != null) {
+                response.header(TRACE_ID_HEADER, trace.getId());
+            }
+            if (error != null) {
+                return response.body(new DecisionResponse(null, null, "An unexpected error occurred", null));
+            }
+            shadowEvaluator.submit(request.getPersonalCode(), request.getLoanAmount(), request.getLoanPeriod(),
+                    request.getCountryCode(), result);
+            return response
+                    .body(new DecisionResponse(result.getLoanAmount(), result.getLoanPeriod(), result.getErrorMessage(),
+                            result.getRulesVersion()));
+        });
+    }
 
-            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+    /**
+     * A REST endpoint that returns every loan the customer can get, one offer per loan period, so a client can
+     * show all periods without asking for a decision per period. Each offer is what the decision endpoint
+     * approves when that period is requested.<br><br>
+     * - If the customer cannot get any loan, the endpoint returns no offers and the status and error message the
+     * decision endpoint would return.<br>
+     * - Otherwise an OK response is returned with the offers in ascending order of the loan period.
+     *
+     * @param request The request body containing the customer's personal ID code and country
+     * @return A ResponseEntity with an OfferCurveResponse body
+     */
+    @PostMapping("/offers")
+    public CompletableFuture<ResponseEntity<OfferCurveResponse>> requestOffers(@RequestBody OfferRequest request) {
+        CompletableFuture<OfferCurve> curve;
+        try {
+            curve = decisionEngine.offerCurve(request.getPersonalCode(), request.getCountryCode());
         } catch (Exception e) {
-            response.setLoanAmount(null);
-            response.setLoanPeriod(null);
-            response.setErrorMessage("An unexpected error occurred");
+            curve = CompletableFuture.failedFuture(e);
+        }
+        return curve.handle((result, error) -> {
+            if (error != null) {
+                return ResponseEntity.internalServerError().body(new OfferCurveResponse(List.of(), "An unexpected error occurred", null));
+            }
+            List<LoanOffer> offers = new ArrayList<>(result.getOffers().size());
+            for (Decision offer : result.getOffers()) {
+                offers.add(new LoanOffer(offer.getLoanAmount(), offer.getLoanPeriod()));
+            }
+            return ResponseEntity.status(DecisionStatus.of(result.getReason()))
+                    .body(new OfferCurveResponse(offers, result.getErrorMessage(), result.getRulesVersion()));
+        });
+    }
 
-            return ResponseEntity.internalServerError().body(response);
+    /**
+     * A REST endpoint that handles a batch of loan decision requests in one call.
+     * The items are decided in parallel on the decision worker pool and the responses are returned in
+     * the same order as the requests. Every item carries its own status and error message, using the same
+     * statuses as the single decision endpoint, so one invalid item does not fail the rest of the batch.<br><br>
+     * - If the batch holds more than {@link DecisionEngineConstants#MAXIMUM_BATCH_SIZE} items, the endpoint
+     * returns a payload too large response without deciding any of them.<br>
+     * - Otherwise an OK response is returned with one BatchDecisionResponse per request.
+     *
+     * @param requests The request body containing the list of loan decision requests
+     * @return A ResponseEntity with a list of BatchDecisionResponse bodies in request order
+     */
+    @PostMapping("/decisions")
+    public CompletableFuture<ResponseEntity<List<BatchDecisionResponse>>> requestDecisions(
+            @RequestBody List<DecisionRequest> requests) {
+        if (requests.size() > DecisionEngineConstants.MAXIMUM_BATCH_SIZE) {
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).build());
+        }
+
+        List<CompletableFuture<BatchDecisionResponse>> pending = new ArrayList<>(requests.size());
+        for (DecisionRequest request : requests) {
+            pending.add(CompletableFuture.supplyAsync(() -> BatchDecisions.decideAsync(decisionEngine, request), decisionExecutor)
+                    .thenCompose(Function.identity()));
         }
+
+        return CompletableFuture.allOf(pending.toArray(new CompletableFuture<?>[0])).thenApply(done -> {
+            List<BatchDecisionResponse> responses = new ArrayList<>(pending.size());
+            for (CompletableFuture<BatchDecisionResponse> item : pending) {
+                responses.add(item.join());
+            }
+            return ResponseEntity.ok(responses);
+        });
     }
 }
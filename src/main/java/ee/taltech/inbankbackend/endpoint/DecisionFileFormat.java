@@ -0,0 +1,86 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.common.Country;
+
+import java.nio.file.Path;
+
+/**
+ * Record formats understood by the offline file scorer.
+ * Every input line holds one DecisionRequest and produces exactly one output line.
+ */
+enum DecisionFileFormat {
+    /**
+     * One JSON object per line, with the same fields as the /loan/decision request and response bodies.
+     */
+    NDJSON,
+    /**
+     * Comma separated personalCode,loanAmount,loanPeriod,countryCode with an optional header line.
+     */
+    CSV;
+
+    private static final String CSV_REQUEST_HEADER = "personalCode";
+    private static final String CSV_RESULT_HEADER = "status,loanAmount,loanPeriod,errorMessage,rulesVersion";
+
+    /**
+     * Picks the format from the file extension, defaulting to NDJSON.
+     *
+     * @param file Input file
+     * @return Format of the file
+     */
+    static DecisionFileFormat of(Path file) {
+        return file.getFileName().toString().toLowerCase().endsWith(".csv") ? CSV : NDJSON;
+    }
+
+    boolean isHeader(String line) {
+        return this == CSV && line.regionMatches(true, 0, CSV_REQUEST_HEADER, 0, CSV_REQUEST_HEADER.length());
+    }
+
+    String resultHeader() {
+        return CSV_RESULT_HEADER;
+    }
+
+    DecisionRequest parse(String line, ObjectMapper objectMapper) throws JsonProcessingException {
+        if (this == NDJSON) {
+            return objectMapper.readValue(line, DecisionRequest.class);
+        }
+        String[] fields = line.split(",", -1);
+        if (fields.length != 4) {
+            throw new IllegalArgumentException("Expected 4 fields but found " + fields.length);
+        }
+        return new DecisionRequest(unquote(fields[0]), Long.valueOf(unquote(fields[1])),
+                Integer.parseInt(unquote(fields[2])), Country.valueOf(unquote(fields[3])));
+    }
+
+    String format(BatchDecisionResponse response, ObjectMapper objectMapper) throws JsonProcessingException {
+        if (this == NDJSON) {
+            return objectMapper.writeValueAsString(response);
+        }
+        StringBuilder line = new StringBuilder(48).append(response.getStatus()).append(',');
+        if (response.getLoanAmount() != null) {
+            line.append(response.getLoanAmount());
+        }
+        line.append(',');
+        if (response.getLoanPeriod() != null) {
+            line.append(response.getLoanPeriod());
+        }
+        line.append(',');
+        if (response.getErrorMessage() != null) {
+            line.append('"').append(response.getErrorMessage().replace("\"", "\"\"")).append('"');
+        }
+        line.append(',');
+        if (response.getRulesVersion() != null) {
+            line.append(response.getRulesVersion());
+        }
+        return line.toString();
+    }
+
+    private static String unquote(String field) {
+        String value = field.trim();
+        if (value.length() >= 2 && value.charAt(0) == '"' && value.charAt(value.length() - 1) == '"') {
+            return value.substring(1, value.length() - 1).trim();
+        }
+        return value;
+    }
+}
@@ -0,0 +1,174 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch mode that scores an NDJSON or CSV file of DecisionRequest records into a results file.
+ * Started with {@code --score-file=<input>} and optionally {@code --score-output=<output>}; the web server
+ * is not started in this mode.<br><br>
+ * The input is streamed through a buffered NIO reader in chunks of {@value #CHUNK_SIZE} lines. The chunks are
+ * decided on the decision worker pool and written back in input order. At most two chunks per core are in
+ * flight at any time, so memory use stays flat no matter how large the file is. Line N of the results file
+ * always belongs to line N of the input file.
+ */
+@Component
+@ConditionalOnProperty(name = DecisionFileScorer.INPUT_PROPERTY)
+public class DecisionFileScorer implements ApplicationRunner {
+
+    static final String INPUT_PROPERTY = "score-file";
+    static final String OUTPUT_PROPERTY = "score-output";
+    static final int CHUNK_SIZE = 1024;
+    private static final String MALFORMED_RECORD = "Malformed record";
+    private static final Logger log = LoggerFactory.getLogger(DecisionFileScorer.class);
+
+    private final DecisionEngine decisionEngine;
+    private final ObjectMapper objectMapper;
+    private final ExecutorService decisionExecutor;
+    private final String input;
+    private final String output;
+
+    @Autowired
+    DecisionFileScorer(DecisionEngine decisionEngine, ObjectMapper objectMapper,
+                       @Qualifier("decisionExecutor") ExecutorService decisionExecutor,
+                       @Value("${" + INPUT_PROPERTY + "}") String input,
+                       @Value("${" + OUTPUT_PROPERTY + ":}") String output) {
+        this.decisionEngine = decisionEngine;
+        this.objectMapper = objectMapper;
+        this.decisionExecutor = decisionExecutor;
+        this.input = input;
+        this.output = output;
+    }
+
+    /**
+     * Checks whether the command line asks for the headless batch mode.
+     *
+     * @param args Command line arguments of the application
+     * @return True if the input file flag is present
+     */
+    public static boolean isRequested(String[] args) {
+        for (String arg : args) {
+            if (arg.startsWith("--" + INPUT_PROPERTY + "=")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        Path inputFile = Path.of(input);
+        Path outputFile = output.isEmpty() ? Path.of(input + ".results") : Path.of(output);
+        long started = System.nanoTime();
+        long records = score(inputFile, outputFile);
+        log.info("Scored {} records from {} into {} in {} ms", records, inputFile, outputFile,
+                (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * Streams the input file through the decision engine and writes one result line per input line.
+     *
+     * @param inputFile  NDJSON or CSV file of requests
+     * @param outputFile File the results are written to, in the same format as the input
+     * @return Number of records scored
+     * @throws IOException If reading or writing a file fails
+     */
+    long score(Path inputFile, Path outputFile) throws IOException {
+        DecisionFileFormat format = DecisionFileFormat.of(inputFile);
+        int window = 2 * Runtime.getRuntime().availableProcessors();
+        Deque<Future<List<String>>> inFlight = new ArrayDeque<>(window);
+        long records = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(inputFile, StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(outputFile, StandardCharsets.UTF_8)) {
+            String line = reader.readLine();
+            if (line != null && format.isHeader(line)) {
+                writer.write(format.resultHeader());
+                writer.newLine();
+                line = reader.readLine();
+            }
+
+            List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+            while (line != null) {
+                chunk.add(line);
+                records++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    submit(chunk, format, inFlight, window, writer);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+                line = reader.readLine();
+            }
+            if (!chunk.isEmpty()) {
+                submit(chunk, format, inFlight, window, writer);
+            }
+            while (!inFlight.isEmpty()) {
+                write(inFlight.removeFirst(), writer);
+            }
+        }
+        return records;
+    }
+
+    private void submit(List<String> chunk, DecisionFileFormat format, Deque<Future<List<String>>> inFlight,
+                        int window, BufferedWriter writer) throws IOException {
+        if (inFlight.size() >= window) {
+            write(inFlight.removeFirst(), writer);
+        }
+        inFlight.addLast(decisionExecutor.submit(() -> scoreChunk(chunk, format)));
+    }
+
+    private void write(Future<List<String>> scored, BufferedWriter writer) throws IOException {
+        try {
+            for (String result : scored.get()) {
+                writer.write(result);
+                writer.newLine();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while scoring", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Scoring a chunk failed", e.getCause());
+        }
+    }
+
+    private List<String> scoreChunk(List<String> lines, DecisionFileFormat format) throws IOException {
+        List<String> results = new ArrayList<>(lines.size());
+        for (String line : lines) {
+            if (line.isBlank()) {
+                results.add("");
+                continue;
+            }
+            BatchDecisionResponse response;
+            try {
+                response = BatchDecisions.decide(decisionEngine, format.parse(line, objectMapper));
+            } catch (Exception e) {
+                response = new BatchDecisionResponse(HttpStatus.BAD_REQUEST.value(), null, null, MALFORMED_RECORD, null);
+            }
+            results.add(format.format(response, objectMapper));
+        }
+        return results;
+    }
+}
@@ -0,0 +1,382 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.common.Country;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Hand-rolled JSON codec of the /loan/decision request and response bodies, see {@link DecisionJsonConverter}.
+ * <br><br>
+ * The request reader parses the UTF-8 bytes in a single pass straight into primitives. It only covers the bodies
+ * real clients send: an object with any of the four request fields, each at most once, where the personal code
+ * is a plain ASCII string, the loan amount and period are plain integers, the country is one of the constant
+ * names, and any of them may be null. For anything else, including malformed input, it returns null and the
+ * body is left to Jackson, so every accepted and rejected body is treated exactly as before.<br><br>
+ * The response writer writes the same bytes as Jackson, with the fields in declaration order, null fields
+ * included and the same escapes.
+ */
+final class DecisionJson {
+
+    private static final byte[] PERSONAL_CODE = ascii("personalCode");
+    private static final byte[] LOAN_AMOUNT = ascii("loanAmount");
+    private static final byte[] LOAN_PERIOD = ascii("loanPeriod");
+    private static final byte[] COUNTRY_CODE = ascii("countryCode");
+    private static final byte[] NULL = ascii("null");
+
+    private static final byte[] LOAN_AMOUNT_FIELD = ascii("{\"loanAmount\":");
+    private static final byte[] LOAN_PERIOD_FIELD = ascii(",\"loanPeriod\":");
+    private static final byte[] ERROR_MESSAGE_FIELD = ascii(",\"errorMessage\":");
+    private static final byte[] RULES_VERSION_FIELD = ascii(",\"rulesVersion\":");
+    private static final byte[] HEX_DIGITS = ascii("0123456789ABCDEF");
+
+    // longer numbers may overflow and are left to Jackson
+    private static final int MAXIMUM_LONG_DIGITS = 18;
+    private static final int MAXIMUM_INT_DIGITS = 9;
+
+    private final byte[] json;
+    private int position;
+
+    private DecisionJson(byte[] json) {
+        this.json = json;
+    }
+
+    /**
+     * @param json Request body in UTF-8
+     * @return The request, or null if the body is not one of the plain bodies this reader covers
+     */
+    static DecisionRequest readRequest(byte[] json) {
+        return new DecisionJson(json).readRequest();
+    }
+
+    /**
+     * Writes a response body with a single write, without building an intermediate string.
+     *
+     * @param response Response to write
+     * @param output   Stream the body is written to
+     * @throws IOException If the body cannot be written
+     */
+    static void writeResponse(DecisionResponse response, OutputStream output) throws IOException {
+        String errorMessage = response.getErrorMessage();
+        String rulesVersion = response.getRulesVersion();
+        // the field names, two integers and two nulls take at most 91 bytes, and a char at most six, as an escape
+        byte[] buffer = new byte[91 + 6 * ((errorMessage == null ? 0 : errorMessage.length())
+                + (rulesVersion == null ? 0 : rulesVersion.length()))];
+        int length = put(buffer, 0, LOAN_AMOUNT_FIELD);
+        length = putInteger(buffer, length, response.getLoanAmount());
+        length = put(buffer, length, LOAN_PERIOD_FIELD);
+        length = putInteger(buffer, length, response.getLoanPeriod());
+        length = put(buffer, length, ERROR_MESSAGE_FIELD);
+        length = putString(buffer, length, errorMessage);
+        length = put(buffer, length, RULES_VERSION_FIELD);
+        length = putString(buffer, length, rulesVersion);
+        buffer[length++] = '}';
+        output.write(buffer, 0, length);
+    }
+
+    private DecisionRequest readRequest() {
+        String personalCode = null;
+        long loanAmount = 0;
+        boolean hasLoanAmount = false;
+        int loanPeriod = 0;
+        Country countryCode = null;
+        int seen = 0;
+
+        if (!skipWhitespaceAndTake('{')) {
+            return null;
+        }
+        skipWhitespace();
+        if (position < json.length && json[position] == '}') {
+            position++;
+        } else {
+            while (true) {
+                int field = readFieldName();
+                if (field < 0 || (seen & 1 << field) != 0 || !skipWhitespaceAndTake(':')) {
+                    return null;
+                }
+                seen |= 1 << field;
+                skipWhitespace();
+                boolean isNull = takeNull();
+                switch (field) {
+                    case 0 -> {
+                        if (!isNull) {
+                            personalCode = readAsciiString();
+                            if (personalCode == null) {
+                                return null;
+                            }
+                        }
+                    }
+                    case 1 -> {
+                        if (!isNull) {
+                            int start = position;
+                            loanAmount = readInteger(MAXIMUM_LONG_DIGITS);
+                            if (position == start) {
+                                return null;
+                            }
+                            hasLoanAmount = true;
+                        }
+                    }
+                    case 2 -> {
+                        if (!isNull) {
+                            int start = position;
+                            loanPeriod = (int) readInteger(MAXIMUM_INT_DIGITS);
+                            if (position == start) {
+                                return null;
+                            }
+                        }
+                    }
+                    default -> {
+                        if (!isNull) {
+                            countryCode = readCountry();
+                            if (countryCode == null) {
+                                return null;
+                            }
+                        }
+                    }
+                }
+                skipWhitespace();
+                if (position >= json.length) {
+                    return null;
+                }
+                byte next = json[position++];
+                if (next == '}') {
+                    break;
+                }
+                if (next != ',') {
+                    return null;
+                }
+                skipWhitespace();
+            }
+        }
+        skipWhitespace();
+        if (position != json.length) {
+            return null;
+        }
+        return new DecisionRequest(personalCode, hasLoanAmount ? loanAmount : null, loanPeriod, countryCode);
+    }
+
+    /**
+     * @return Index of the request field whose name starts at the position, or -1 for any other name
+     */
+    private int readFieldName() {
+        if (matchesString(PERSONAL_CODE)) {
+            return 0;
+        }
+        if (matchesString(LOAN_AMOUNT)) {
+            return 1;
+        }
+        if (matchesString(LOAN_PERIOD)) {
+            return 2;
+        }
+        if (matchesString(COUNTRY_CODE)) {
+            return 3;
+        }
+        return -1;
+    }
+
+    /**
+     * Takes a quoted string whose content is exactly the given bytes.
+     */
+    private boolean matchesString(byte[] expected) {
+        int end = position + expected.length + 2;
+        if (end > json.length || json[position] != '"' || json[end - 1] != '"') {
+            return false;
+        }
+        for (int i = 0; i < expected.length; i++) {
+            if (json[position + 1 + i] != expected[i]) {
+                return false;
+            }
+        }
+        position = end;
+        return true;
+    }
+
+    /**
+     * @return The quoted string at the position, or null if it is not plain printable ASCII without escapes
+     */
+    private String readAsciiString() {
+        if (position >= json.length || json[position] != '"') {
+            return null;
+        }
+        int start = position + 1;
+        for (int i = start; i < json.length; i++) {
+            byte value = json[i];
+            if (value == '"') {
+                position = i + 1;
+                return new String(json, start, i - start, StandardCharsets.ISO_8859_1);
+            }
+            if (value < 0x20 || value == '\\') {
+                // negative bytes are non-ASCII
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The integer at the position, which is not moved if there is no plain integer of at most the
+     * given number of digits
+     */
+    private long readInteger(int maximumDigits) {
+        int start = position;
+        int index = start;
+        boolean negative = index < json.length && json[index] == '-';
+        if (negative) {
+            index++;
+        }
+        int firstDigit = index;
+        long value = 0;
+        while (index < json.length && json[index] >= '0' && json[index] <= '9') {
+            value = value * 10 + (json[index++] - '0');
+        }
+        int digits = index - firstDigit;
+        // JSON has no leading zeros
+        if (digits == 0 || digits > maximumDigits || (digits > 1 && json[firstDigit] == '0')) {
+            return 0;
+        }
+        position = index;
+        return negative ? -value : value;
+    }
+
+    private Country readCountry() {
+        if (position + 4 > json.length || json[position] != '"' || json[position + 3] != '"') {
+            return null;
+        }
+        byte first = json[position + 1];
+        byte second = json[position + 2];
+        Country country = null;
+        if (first == 'E' && second == 'E') {
+            country = Country.EE;
+        } else if (first == 'L' && second == 'V') {
+            country = Country.LV;
+        } else if (first == 'L' && second == 'T') {
+            country = Country.LT;
+        }
+        if (country != null) {
+            position += 4;
+        }
+        return country;
+    }
+
+    private boolean takeNull() {
+        if (position + NULL.length > json.length) {
+            return false;
+        }
+        for (int i = 0; i < NULL.length; i++) {
+            if (json[position + i] != NULL[i]) {
+                return false;
+            }
+        }
+        position += NULL.length;
+        return true;
+    }
+
+    private boolean skipWhitespaceAndTake(char expected) {
+        skipWhitespace();
+        if (position < json.length && json[position] == expected) {
+            position++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipWhitespace() {
+        while (position < json.length) {
+            byte value = json[position];
+            if (value != ' ' && value != '\n' && value != '\r' && value != '\t') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private static int put(byte[] buffer, int offset, byte[] bytes) {
+        System.arraycopy(bytes, 0, buffer, offset, bytes.length);
+        return offset + bytes.length;
+    }
+
+    private static int putInteger(byte[] buffer, int offset, Integer value) {
+        if (value == null) {
+            return put(buffer, offset, NULL);
+        }
+        long remaining = value;
+        if (remaining < 0) {
+            buffer[offset++] = '-';
+            remaining = -remaining;
+        }
+        int digits = 1;
+        for (long bound = 10; bound <= remaining; bound *= 10) {
+            digits++;
+        }
+        for (int i = offset + digits - 1; i >= offset; i--) {
+            buffer[i] = (byte) ('0' + remaining % 10);
+            remaining /= 10;
+        }
+        return offset + digits;
+    }
+
+    /**
+     * Writes a string with the escapes of Jackson: a backslash before quotes and backslashes, the short escapes
+     * of the common control characters, a four digit unicode escape for the others, and everything else as UTF-8.
+     */
+    private static int putString(byte[] buffer, int offset, String value) {
+        if (value == null) {
+            return put(buffer, offset, NULL);
+        }
+        buffer[offset++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[offset++] = '\\';
+                buffer[offset++] = (byte) c;
+            } else if (c < 0x20) {
+                switch (c) {
+                    case '\b' -> offset = putEscape(buffer, offset, 'b');
+                    case '\t' -> offset = putEscape(buffer, offset, 't');
+                    case '\n' -> offset = putEscape(buffer, offset, 'n');
+                    case '\f' -> offset = putEscape(buffer, offset, 'f');
+                    case '\r' -> offset = putEscape(buffer, offset, 'r');
+                    default -> offset = putUnicodeEscape(buffer, offset, c);
+                }
+            } else if (c < 0x80) {
+                buffer[offset++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[offset++] = (byte) (0xC0 | c >> 6);
+                buffer[offset++] = (byte) (0x80 | c & 0x3F);
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                // Jackson 2.15 escapes both chars of a surrogate pair rather than writing four UTF-8 bytes
+                offset = putUnicodeEscape(buffer, offset, c);
+                offset = putUnicodeEscape(buffer, offset, value.charAt(++i));
+            } else {
+                // Jackson refuses to write a lone surrogate, it is written in the three bytes of its char here
+                buffer[offset++] = (byte) (0xE0 | c >> 12);
+                buffer[offset++] = (byte) (0x80 | c >> 6 & 0x3F);
+                buffer[offset++] = (byte) (0x80 | c & 0x3F);
+            }
+        }
+        buffer[offset++] = '"';
+        return offset;
+    }
+
+    private static int putEscape(byte[] buffer, int offset, char escape) {
+        buffer[offset++] = '\\';
+        buffer[offset++] = (byte) escape;
+        return offset;
+    }
+
+    private static int putUnicodeEscape(byte[] buffer, int offset, char c) {
+        buffer[offset++] = '\\';
+        buffer[offset++] = 'u';
+        buffer[offset++] = HEX_DIGITS[c >> 12];
+        buffer[offset++] = HEX_DIGITS[c >> 8 & 0xF];
+        buffer[offset++] = HEX_DIGITS[c >> 4 & 0xF];
+        buffer[offset++] = HEX_DIGITS[c & 0xF];
+        return offset;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,85 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the /loan/decision request body and writes its response body with {@link DecisionJson} instead of
+ * reflection-based Jackson binding. It only handles {@link DecisionRequest} and {@link DecisionResponse}, every
+ * other body is still converted by Jackson. Spring Boot puts converter beans in front of its default
+ * converters, so this one is asked first.<br><br>
+ * A request body that the hand-rolled reader does not cover is parsed by Jackson from the bytes already read,
+ * so unusual and malformed bodies are accepted or rejected exactly as before.<br><br>
+ * A response that is a decision of the current rules is written from the bytes kept by
+ * {@link DecisionResponseCache}, without serializing it again.
+ */
+@Component
+public class DecisionJsonConverter extends AbstractHttpMessageConverter<Object> {
+
+    private final ObjectMapper objectMapper;
+    private final DecisionResponseCache responseCache;
+
+    DecisionJsonConverter(ObjectMapper objectMapper, DecisionResponseCache responseCache) {
+        super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+        this.objectMapper = objectMapper;
+        this.responseCache = responseCache;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return clazz == DecisionRequest.class || clazz == DecisionResponse.class;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionRequest.class && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return clazz == DecisionResponse.class && canWrite(mediaType);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        byte[] json = inputMessage.getBody().readAllBytes();
+        MediaType contentType = inputMessage.getHeaders().getContentType();
+        Charset charset = contentType == null || contentType.getCharset() == null
+                ? StandardCharsets.UTF_8 : contentType.getCharset();
+        try {
+            if (charset.equals(StandardCharsets.UTF_8)) {
+                DecisionRequest request = DecisionJson.readRequest(json);
+                return request != null ? request : objectMapper.readValue(json, DecisionRequest.class);
+            }
+            return objectMapper.readValue(new String(json, charset), DecisionRequest.class);
+        } catch (JsonProcessingException e) {
+            throw new HttpMessageNotReadableException("JSON parse error: " + e.getOriginalMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected Long getContentLength(Object response, MediaType contentType) {
+        byte[] cached = responseCache.bytes((DecisionResponse) response);
+        return cached != null ? (long) cached.length : null;
+    }
+
+    @Override
+    protected void writeInternal(Object response, HttpOutputMessage outputMessage) throws IOException {
+        byte[] cached = responseCache.bytes((DecisionResponse) response);
+        if (cached != null) {
+            outputMessage.getBody().write(cached);
+        } else {
+            DecisionJson.writeResponse((DecisionResponse) response, outputMessage.getBody());
+        }
+    }
+}
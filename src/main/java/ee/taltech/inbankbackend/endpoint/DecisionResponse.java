@@ -1,17 +1,21 @@
 package ee.taltech.inbankbackend.endpoint;
 
+import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.springframework.stereotype.Component;
 
 /**
  * Holds the response data of the REST endpoint.
+ * A new instance is created for every request, so concurrent requests never share a response.
  */
 @Getter
 @Setter
-@Component
+@NoArgsConstructor
+@AllArgsConstructor
 public class DecisionResponse {
     private Integer loanAmount;
     private Integer loanPeriod;
     private String errorMessage;
+    private String rulesVersion;
 }
@@ -0,0 +1,141 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.OfferTable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Serialized bodies of the /loan/decision responses, so a response is written by copying bytes.
+ * The responses of the current rules are few: an approved loan is an amount and a period within the rule limits,
+ * and a rejection is one of the pre-built messages of the rule snapshot.<br><br>
+ * The approved loans of the credit segments and every rejection are serialized when a table is built, and any
+ * other approved loan, such as one of a credit registry modifier, the first time it is written. A new table is
+ * built on the first response after the rules are updated. A response of other rules, or one that is not a
+ * decision of the rules at all, is not cached and has to be serialized.
+ */
+@Component
+public class DecisionResponseCache {
+
+    // approved loans are not cached beyond this many amount and period pairs, about 4 MB of references
+    static final int MAXIMUM_APPROVED_SLOTS = 1 << 20;
+
+    private final RuleStore ruleStore;
+    private volatile Table table;
+
+    @Autowired
+    public DecisionResponseCache(RuleStore ruleStore) {
+        this.ruleStore = ruleStore;
+        this.table = new Table(ruleStore.current());
+    }
+
+    /**
+     * @param response Response to write
+     * @return The serialized response, or null if it is not a decision of the current rules
+     */
+    byte[] bytes(DecisionResponse response) {
+        Table current = table;
+        RuleSnapshot rules = ruleStore.current();
+        if (current.rules != rules) {
+            // concurrent rebuilds produce equal tables, so the last one simply wins
+            current = new Table(rules);
+            table = current;
+        }
+        return current.bytes(response);
+    }
+
+    private static final class Table {
+        private final RuleSnapshot rules;
+        private final int minimumLoanAmount;
+        private final int maximumLoanAmount;
+        private final int minimumLoanPeriod;
+        private final int periods;
+        // indexed by the loan amount minus the minimum times the number of periods, plus the period minus the
+        // minimum; null when there are too many pairs to keep
+        private final AtomicReferenceArray<byte[]> approved;
+        // indexed by error message, only read after the table is built
+        private final Map<String, byte[]> rejections = new HashMap<>();
+
+        private Table(RuleSnapshot rules) {
+            this.rules = rules;
+            this.minimumLoanAmount = rules.getMinimumLoanAmount();
+            this.maximumLoanAmount = rules.getMaximumLoanAmount();
+            this.minimumLoanPeriod = rules.getMinimumLoanPeriod();
+            this.periods = rules.getMaximumLoanPeriod() - minimumLoanPeriod + 1;
+            long slots = (long) (maximumLoanAmount - minimumLoanAmount + 1) * periods;
+            this.approved = slots <= MAXIMUM_APPROVED_SLOTS ? new AtomicReferenceArray<>((int) slots) : null;
+
+            OfferTable offerTable = rules.getOfferTable();
+            for (CreditSegment segment : CreditSegment.values()) {
+                for (int loanPeriod = minimumLoanPeriod; loanPeriod <= rules.getMaximumLoanPeriod(); loanPeriod++) {
+                    Decision offer = offerTable.offer(segment, loanPeriod);
+                    if (offer != null) {
+                        approvedBytes(offer.getLoanAmount(), offer.getLoanPeriod());
+                    }
+                }
+            }
+            for (DecisionReason reason : DecisionReason.values()) {
+                addRejection(rules.rejected(reason));
+            }
+            for (Country country : Country.values()) {
+                addRejection(rules.loanPeriodRejection(rules.lifetimeYears(country, false)));
+                addRejection(rules.loanPeriodRejection(rules.lifetimeYears(country, true)));
+            }
+        }
+
+        private byte[] bytes(DecisionResponse response) {
+            if (!rules.getVersion().equals(response.getRulesVersion())) {
+                return null;
+            }
+            Integer loanAmount = response.getLoanAmount();
+            Integer loanPeriod = response.getLoanPeriod();
+            if (response.getErrorMessage() == null) {
+                return loanAmount == null || loanPeriod == null ? null : approvedBytes(loanAmount, loanPeriod);
+            }
+            return loanAmount == null && loanPeriod == null ? rejections.get(response.getErrorMessage()) : null;
+        }
+
+        private byte[] approvedBytes(int loanAmount, int loanPeriod) {
+            if (approved == null || loanAmount < minimumLoanAmount || loanAmount > maximumLoanAmount
+                    || loanPeriod < minimumLoanPeriod || loanPeriod - minimumLoanPeriod >= periods) {
+                return null;
+            }
+            int slot = (loanAmount - minimumLoanAmount) * periods + loanPeriod - minimumLoanPeriod;
+            byte[] bytes = approved.get(slot);
+            if (bytes == null) {
+                bytes = serialize(new DecisionResponse(loanAmount, loanPeriod, null, rules.getVersion()));
+                approved.set(slot, bytes);
+            }
+            return bytes;
+        }
+
+        private void addRejection(Decision rejection) {
+            if (rejection != null) {
+                rejections.put(rejection.getErrorMessage(), serialize(new DecisionResponse(null, null,
+                        rejection.getErrorMessage(), rules.getVersion())));
+            }
+        }
+
+        private static byte[] serialize(DecisionResponse response) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+            try {
+                DecisionJson.writeResponse(response, bytes);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return bytes.toByteArray();
+        }
+    }
+}
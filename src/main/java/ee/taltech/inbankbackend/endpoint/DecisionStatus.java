@@ -0,0 +1,44 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.service.DecisionReason;
+import org.springframework.http.HttpStatus;
+
+/**
+ * Maps decision reason codes to the HTTP status of the response.
+ */
+final class DecisionStatus {
+
+    private static final HttpStatus[] STATUSES = new HttpStatus[DecisionReason.values().length];
+
+    static {
+        for (DecisionReason reason : DecisionReason.values()) {
+            STATUSES[reason.ordinal()] = statusOf(reason);
+        }
+    }
+
+    private DecisionStatus() {
+    }
+
+    /**
+     * @param reason Reason code of a decision
+     * @return HTTP status the decision is answered with
+     */
+    static HttpStatus of(DecisionReason reason) {
+        return STATUSES[reason.ordinal()];
+    }
+
+    private static HttpStatus statusOf(DecisionReason reason) {
+        switch (reason) {
+            case INVALID_PERSONAL_CODE:
+            case INVALID_LOAN_AMOUNT:
+            case INVALID_LOAN_PERIOD:
+                return HttpStatus.BAD_REQUEST;
+            case DEBT:
+            case NO_VALID_LOAN:
+                return HttpStatus.NOT_FOUND;
+            default:
+                // approvals and age restrictions, the latter are reported through the error message
+                return HttpStatus.OK;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * One point of the offer curve: a loan amount approved for a loan period.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoanOffer {
+    private Integer loanAmount;
+    private Integer loanPeriod;
+}
@@ -0,0 +1,146 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.admission.AdmissionControl;
+import ee.taltech.inbankbackend.admission.AdmissionStats;
+import ee.taltech.inbankbackend.audit.AuditJournal;
+import ee.taltech.inbankbackend.audit.AuditJournalStats;
+import ee.taltech.inbankbackend.bureau.CreditBureauClient;
+import ee.taltech.inbankbackend.bureau.CreditBureauStats;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.metrics.DecisionMetricsReport;
+import ee.taltech.inbankbackend.service.DecisionCoalescer;
+import ee.taltech.inbankbackend.service.DecisionCoalescerStats;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import ee.taltech.inbankbackend.service.ProfileCacheStats;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import ee.taltech.inbankbackend.shadow.ShadowReport;
+import ee.taltech.inbankbackend.trace.DecisionTraceReport;
+import ee.taltech.inbankbackend.trace.DecisionTracer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/metrics")
+public class MetricsController {
+
+    private final DecisionMetrics metrics;
+    private final ProfileCache profileCache;
+    private final CreditBureauClient creditBureau;
+    private final DecisionCoalescer decisionCoalescer;
+    private final AuditJournal auditJournal;
+    private final AdmissionControl admissionControl;
+    private final ShadowEvaluator shadowEvaluator;
+    private final DecisionTracer decisionTracer;
+
+    @Autowired
+    MetricsController(DecisionMetrics metrics, ProfileCache profileCache, CreditBureauClient creditBureau,
+                      DecisionCoalescer decisionCoalescer, AuditJournal auditJournal,
+                      AdmissionControl admissionControl, ShadowEvaluator shadowEvaluator,
+                      DecisionTracer decisionTracer) {
+        this.metrics = metrics;
+        this.profileCache = profileCache;
+        this.creditBureau = creditBureau;
+        this.decisionCoalescer = decisionCoalescer;
+        this.auditJournal = auditJournal;
+        this.admissionControl = admissionControl;
+        this.shadowEvaluator = shadowEvaluator;
+        this.decisionTracer = decisionTracer;
+    }
+
+    /**
+     * A REST endpoint that reports the latency percentiles of every decision stage and the number of
+     * decisions by country, credit segment and reason code.
+     *
+     * @return The current decision metrics
+     */
+    @GetMapping("/decisions")
+    public DecisionMetricsReport decisionMetrics() {
+        return metrics.report();
+    }
+
+    /**
+     * A REST endpoint that reports the size of the customer profile cache and its hit, miss, eviction
+     * and expiration counts.
+     *
+     * @return The current profile cache statistics
+     */
+    @GetMapping("/profile-cache")
+    public ProfileCacheStats profileCacheStats() {
+        return profileCache.stats();
+    }
+
+    /**
+     * A REST endpoint that reports the credit bureau calls by outcome, the hedged calls and the current
+     * hedge delay.
+     *
+     * @return The current credit bureau statistics
+     */
+    @GetMapping("/credit-bureau")
+    public CreditBureauStats creditBureauStats() {
+        return creditBureau.stats();
+    }
+
+    /**
+     * A REST endpoint that reports how many decision requests shared the decision of an identical request
+     * in flight.
+     *
+     * @return The current decision coalescing statistics
+     */
+    @GetMapping("/coalescing")
+    public DecisionCoalescerStats coalescingStats() {
+        return decisionCoalescer.stats();
+    }
+
+    /**
+     * A REST endpoint that reports how far the audit journal has appended, written and forced decisions,
+     * and how often request threads waited for a full ring buffer.
+     *
+     * @return The current audit journal statistics
+     */
+    @GetMapping("/audit")
+    public AuditJournalStats auditStats() {
+        return auditJournal.stats();
+    }
+
+    /**
+     * A REST endpoint that reports how many requests were admitted or turned away by each admission check,
+     * and the current concurrency limit.
+     *
+     * @return The current admission control statistics
+     */
+    @GetMapping("/admission")
+    public AdmissionStats admissionStats() {
+        return admissionControl.stats();
+    }
+
+    /**
+     * A REST endpoint that reports how many decisions were decided again with the candidate rules, and how the
+     * candidate decisions differ by country and credit segment.
+     *
+     * @return The current shadow evaluation report
+     */
+    @GetMapping("/shadow")
+    public ShadowReport shadowReport() {
+        return shadowEvaluator.report();
+    }
+
+    /**
+     * A REST endpoint that returns a decision trace: the outcome and an explanation of every rule step, such as
+     * which age limit applied, which credit segment matched and how far the loan period was extended.<br><br>
+     * - If tracing is disabled, or the trace is not kept because it never existed or newer traces have replaced
+     * it, the endpoint returns a not found response.<br>
+     * - Otherwise an OK response is returned with the trace.
+     *
+     * @param id Id of the trace, from the X-Trace-Id header of the decision response
+     * @return A ResponseEntity with a DecisionTraceReport body
+     */
+    @GetMapping("/traces/{id}")
+    public ResponseEntity<DecisionTraceReport> trace(@PathVariable String id) {
+        DecisionTraceReport trace = decisionTracer.find(id);
+        return trace != null ? ResponseEntity.ok(trace) : ResponseEntity.notFound().build();
+    }
+}
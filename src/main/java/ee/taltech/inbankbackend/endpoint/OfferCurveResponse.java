@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * Holds the response data of the offer curve endpoint.
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OfferCurveResponse {
+    private List<LoanOffer> offers;
+    private String errorMessage;
+    private String rulesVersion;
+}
@@ -0,0 +1,15 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.common.Country;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Holds the request data of the offer curve endpoint
+ */
+@Getter
+@AllArgsConstructor
+public class OfferRequest {
+    private String personalCode;
+    private Country countryCode;
+}
@@ -0,0 +1,12 @@
+package ee.taltech.inbankbackend.exceptions;
+
+/**
+ * Base of the exceptions that reject a loan request. Rejections are expected outcomes, so these exceptions
+ * capture no stack trace.
+ */
+public abstract class LoanRejectionException extends Throwable {
+
+    protected LoanRejectionException(String message, Throwable cause) {
+        super(message, cause, false, false);
+    }
+}
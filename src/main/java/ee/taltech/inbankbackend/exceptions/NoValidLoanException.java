@@ -3,26 +3,13 @@ package ee.taltech.inbankbackend.exceptions;
 /**
  * Thrown when no valid loan is found.
  */
-public class NoValidLoanException extends Throwable {
-    private final String message;
-    private final Throwable cause;
+public class NoValidLoanException extends LoanRejectionException {
 
     public NoValidLoanException(String message) {
         this(message, null);
     }
 
     public NoValidLoanException(String message, Throwable cause) {
-        this.message = message;
-        this.cause = cause;
-    }
-
-    @Override
-    public Throwable getCause() {
-        return cause;
-    }
-
-    @Override
-    public String getMessage() {
-        return message;
+        super(message, cause);
     }
 }
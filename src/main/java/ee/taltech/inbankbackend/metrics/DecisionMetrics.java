@@ -0,0 +1,82 @@
+package ee.taltech.inbankbackend.metrics;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records the latency of every decision stage and counts decisions by country, credit segment and reason.
+ * Everything is kept in preallocated lock-free structures, so recording never blocks a request.
+ */
+@Component
+public class DecisionMetrics {
+
+    private static final Country[] COUNTRIES = Country.values();
+    private static final CreditSegment[] SEGMENTS = CreditSegment.values();
+    private static final DecisionReason[] REASONS = DecisionReason.values();
+
+    private final LatencyHistogram[] stages = new LatencyHistogram[DecisionStage.values().length];
+    // indexed by country, segment and reason; the last country and segment slot is used when it is unknown
+    private final LongAdder[] outcomes = new LongAdder[(COUNTRIES.length + 1) * (SEGMENTS.length + 1) * REASONS.length];
+
+    public DecisionMetrics() {
+        for (int i = 0; i < stages.length; i++) {
+            stages[i] = new LatencyHistogram();
+        }
+        for (int i = 0; i < outcomes.length; i++) {
+            outcomes[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * @param stage Stage of the decision
+     * @param nanos Time spent in the stage in nanoseconds
+     */
+    public void recordStage(DecisionStage stage, long nanos) {
+        stages[stage.ordinal()].record(nanos);
+    }
+
+    /**
+     * @param countryCode Country of the request, or null if unknown
+     * @param segment     Credit segment of the customer, or null if unknown
+     * @param reason      Reason code of the decision
+     */
+    public void recordOutcome(Country countryCode, CreditSegment segment, DecisionReason reason) {
+        int country = countryCode == null ? COUNTRIES.length : countryCode.ordinal();
+        int segmentIndex = segment == null ? SEGMENTS.length : segment.ordinal();
+        outcomes[(country * (SEGMENTS.length + 1) + segmentIndex) * REASONS.length + reason.ordinal()].increment();
+    }
+
+    /**
+     * @return Latency percentiles of every stage and all non-zero outcome counts
+     */
+    public DecisionMetricsReport report() {
+        Map<DecisionStage, LatencySnapshot> stageSnapshots = new EnumMap<>(DecisionStage.class);
+        for (DecisionStage stage : DecisionStage.values()) {
+            stageSnapshots.put(stage, stages[stage.ordinal()].snapshot());
+        }
+
+        List<OutcomeCount> outcomeCounts = new ArrayList<>();
+        for (int country = 0; country <= COUNTRIES.length; country++) {
+            for (int segment = 0; segment <= SEGMENTS.length; segment++) {
+                for (DecisionReason reason : REASONS) {
+                    long count = outcomes[(country * (SEGMENTS.length + 1) + segment) * REASONS.length + reason.ordinal()].sum();
+                    if (count > 0) {
+                        outcomeCounts.add(new OutcomeCount(
+                                country < COUNTRIES.length ? COUNTRIES[country].name() : null,
+                                segment < SEGMENTS.length ? SEGMENTS[segment].name() : null,
+                                reason.name(), count));
+                    }
+                }
+            }
+        }
+        return new DecisionMetricsReport(stageSnapshots, outcomeCounts);
+    }
+}
@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latency of every decision stage and the decision counts by outcome.
+ */
+@Getter
+@AllArgsConstructor
+public class DecisionMetricsReport {
+    private final Map<DecisionStage, LatencySnapshot> stages;
+    private final List<OutcomeCount> outcomes;
+}
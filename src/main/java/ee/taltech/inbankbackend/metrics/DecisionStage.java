@@ -0,0 +1,27 @@
+package ee.taltech.inbankbackend.metrics;
+
+/**
+ * Stages of a decision whose latency is recorded separately.
+ */
+public enum DecisionStage {
+    /**
+     * Reading the JSON request body into a DecisionRequest.
+     */
+    JSON_BINDING,
+    /**
+     * Parsing the personal ID code and verifying the inputs.
+     */
+    PERSONAL_CODE_VALIDATION,
+    /**
+     * Checking the customer's age limits.
+     */
+    AGE_VALIDATION,
+    /**
+     * Waiting for the credit bureau, including hedged requests. Only recorded when a bureau is configured.
+     */
+    CREDIT_BUREAU,
+    /**
+     * Finding the credit segment and the approved loan.
+     */
+    SCORING
+}
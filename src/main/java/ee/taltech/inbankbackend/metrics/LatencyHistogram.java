@@ -0,0 +1,109 @@
+package ee.taltech.inbankbackend.metrics;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with log-linear buckets.
+ * Every power of two is split into eight buckets, so a percentile is reported with at most 12.5% relative
+ * error. Values below 16 ns are counted exactly and values above about 18 minutes are clamped.
+ * Recording is a few atomic increments and never blocks; percentiles are computed when a snapshot is taken.
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final long MAX_VALUE = (1L << 40) - 1;
+    private static final int BUCKETS = bucketIndex(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0L);
+
+    /**
+     * @param nanos Measured latency in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.min(Math.max(nanos, 0L), MAX_VALUE);
+        counts.incrementAndGet(bucketIndex(value));
+        totalNanos.add(value);
+        maxNanos.accumulate(value);
+    }
+
+    /**
+     * Takes a snapshot of the recorded latencies. Values recorded while the snapshot is taken may or may not
+     * be included.
+     *
+     * @return Count, mean, percentiles and maximum of the recorded latencies
+     */
+    public LatencySnapshot snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        long mean = count == 0 ? 0 : totalNanos.sum() / count;
+        return new LatencySnapshot(count, mean,
+                percentile(buckets, count, 0.50), percentile(buckets, count, 0.90),
+                percentile(buckets, count, 0.99), percentile(buckets, count, 0.999),
+                maxNanos.get());
+    }
+
+    /**
+     * @param percentile Percentile between 0 and 1
+     * @return The recorded latency at the percentile in nanoseconds, 0 if nothing was recorded
+     */
+    public long valueAtPercentile(double percentile) {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        return percentile(buckets, count, percentile);
+    }
+
+    /**
+     * @return Number of recorded latencies
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * @return The upper bound of the bucket that holds the given percentile of all values
+     */
+    private static long percentile(long[] buckets, long count, double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * count);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return bucketUpperBound(i);
+            }
+        }
+        return MAX_VALUE;
+    }
+
+    static int bucketIndex(long value) {
+        int shift = Math.max(0, 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    static long bucketUpperBound(int index) {
+        if (index < 2 << SUB_BUCKET_BITS) {
+            return index;
+        }
+        int shift = (index >> SUB_BUCKET_BITS) - 1;
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,19 @@
+package ee.taltech.inbankbackend.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of a latency histogram. All latencies are in nanoseconds.
+ */
+@Getter
+@AllArgsConstructor
+public class LatencySnapshot {
+    private final long count;
+    private final long meanNanos;
+    private final long p50Nanos;
+    private final long p90Nanos;
+    private final long p99Nanos;
+    private final long p999Nanos;
+    private final long maxNanos;
+}
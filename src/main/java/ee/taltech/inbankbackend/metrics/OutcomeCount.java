@@ -0,0 +1,17 @@
+package ee.taltech.inbankbackend.metrics;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Number of decisions with the same country, credit segment and reason code.
+ * The country and segment are null when they were not known for the decision.
+ */
+@Getter
+@AllArgsConstructor
+public class OutcomeCount {
+    private final String country;
+    private final String segment;
+    private final String reason;
+    private final long count;
+}
@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+
+/**
+ * Source of the credit modifier of a customer.
+ * Lookups are made on every decision, so implementations must be thread safe and must not block.
+ */
+public interface CreditRegistry {
+
+    /**
+     * Credit modifier returned for customers the registry knows nothing about.
+     */
+    int UNKNOWN_CUSTOMER = -1;
+
+    /**
+     * @param profile Profile of a customer with a valid personal ID code
+     * @param rules   Rules the decision is made with
+     * @return Credit modifier of the customer, 0 if the customer has debt,
+     * or {@link #UNKNOWN_CUSTOMER} if the customer is not in the registry
+     */
+    int creditModifier(CustomerProfile profile, RuleSnapshot rules);
+}
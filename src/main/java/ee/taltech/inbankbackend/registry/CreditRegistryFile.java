@@ -0,0 +1,49 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.common.Country;
+
+/**
+ * Layout of a credit registry file.<br><br>
+ * The file starts with a {@value #HEADER_BYTES} byte header: the magic number, the format version and the
+ * number of records. It is followed by fixed-width records of {@value #RECORD_BYTES} bytes, each an encoded
+ * personal code as a long and a credit modifier as an int, sorted by the encoded code. All values are big-endian.
+ */
+public final class CreditRegistryFile {
+
+    public static final int MAGIC = 0x49435246; // "ICRF"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int RECORD_BYTES = 12;
+
+    private static final int CODE_DIGITS = 11;
+    private static final long COUNTRY_FACTOR = 100_000_000_000L;
+
+    private CreditRegistryFile() {
+    }
+
+    /**
+     * Encodes a personal ID code as a number that is unique across countries:
+     * the country ordinal followed by the 11 digits of the code. A Latvian hyphen is ignored.
+     *
+     * @param countryCode  Country the code was issued in
+     * @param personalCode Personal ID code
+     * @return The encoded code, or -1 if the code does not consist of 11 digits
+     */
+    public static long encode(Country countryCode, String personalCode) {
+        long digits = 0;
+        int count = 0;
+        for (int i = 0; i < personalCode.length(); i++) {
+            char c = personalCode.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits = digits * 10 + (c - '0');
+                count++;
+            } else if (c != '-') {
+                return -1;
+            }
+        }
+        if (count != CODE_DIGITS) {
+            return -1;
+        }
+        return countryCode.ordinal() * COUNTRY_FACTOR + digits;
+    }
+}
@@ -0,0 +1,119 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.PersonalCodeParser;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Builds a {@link CreditRegistryFile} from a CSV file of {@code personalCode,countryCode,creditModifier} lines.
+ * A header line starting with {@code personalCode} is skipped. The file is written next to the output
+ * and then moved into place, so a running service never maps a half-written registry.<br><br>
+ * Run with {@code ./gradlew buildCreditRegistry -Pcsv=<input> -Pregistry=<output>}.
+ */
+public final class CreditRegistryFileBuilder {
+
+    // a record is packed into one long while sorting: the encoded code in the high bits, the modifier in the low bits
+    private static final int MODIFIER_BITS = 24;
+    static final int MAXIMUM_CREDIT_MODIFIER = (1 << MODIFIER_BITS) - 1;
+
+    private CreditRegistryFileBuilder() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Usage: CreditRegistryFileBuilder <input.csv> <output registry file>");
+            System.exit(2);
+        }
+        long records = build(Path.of(args[0]), Path.of(args[1]));
+        System.out.println("Wrote " + records + " records to " + args[1]);
+    }
+
+    /**
+     * @param csvFile      CSV file of personal codes and credit modifiers
+     * @param registryFile Registry file to write, replaced atomically if it exists
+     * @return Number of records written
+     * @throws IOException              If a file cannot be read or written
+     * @throws IllegalArgumentException If a line is malformed or a personal code occurs twice
+     */
+    public static long build(Path csvFile, Path registryFile) throws IOException {
+        long[] records = readRecords(csvFile);
+        Arrays.parallelSort(records);
+        for (int i = 1; i < records.length; i++) {
+            if (records[i] >>> MODIFIER_BITS == records[i - 1] >>> MODIFIER_BITS) {
+                throw new IllegalArgumentException("Duplicate personal code in " + csvFile);
+            }
+        }
+
+        Path directory = registryFile.toAbsolutePath().getParent();
+        Path temporaryFile = Files.createTempFile(directory, registryFile.getFileName().toString(), ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporaryFile), 1 << 16))) {
+                out.writeInt(CreditRegistryFile.MAGIC);
+                out.writeInt(CreditRegistryFile.VERSION);
+                out.writeLong(records.length);
+                for (long record : records) {
+                    out.writeLong(record >>> MODIFIER_BITS);
+                    out.writeInt((int) (record & MAXIMUM_CREDIT_MODIFIER));
+                }
+            }
+            Files.move(temporaryFile, registryFile,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporaryFile);
+        }
+        return records.length;
+    }
+
+    private static long[] readRecords(Path csvFile) throws IOException {
+        long[] records = new long[1024];
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(csvFile, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && line.startsWith("personalCode"))) {
+                    continue;
+                }
+                if (count == records.length) {
+                    records = Arrays.copyOf(records, count * 2);
+                }
+                records[count++] = parseRecord(line, lineNumber);
+            }
+        }
+        return Arrays.copyOf(records, count);
+    }
+
+    private static long parseRecord(String line, int lineNumber) {
+        String[] fields = line.split(",", -1);
+        if (fields.length != 3) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": expected 3 fields");
+        }
+        String personalCode = fields[0].trim();
+        Country countryCode;
+        int creditModifier;
+        try {
+            countryCode = Country.valueOf(fields[1].trim());
+            creditModifier = Integer.parseInt(fields[2].trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": " + e.getMessage());
+        }
+        if (!PersonalCodeParser.isValid(PersonalCodeParser.parse(personalCode, countryCode))) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": invalid personal code " + personalCode);
+        }
+        if (creditModifier < 0 || creditModifier > MAXIMUM_CREDIT_MODIFIER) {
+            throw new IllegalArgumentException("Line " + lineNumber + ": credit modifier out of range");
+        }
+        return CreditRegistryFile.encode(countryCode, personalCode) << MODIFIER_BITS | creditModifier;
+    }
+}
@@ -0,0 +1,84 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Credit registry backed by a memory-mapped {@link CreditRegistryFile}.
+ * The records stay in the page cache outside the heap and a lookup is a binary search over the mapped file,
+ * so tens of millions of customers cost no heap and no startup time. The mapping is read-only and only read
+ * with absolute gets, so any number of threads can search it at once.
+ */
+public final class MappedCreditRegistry implements CreditRegistry {
+
+    private final MappedByteBuffer records;
+    private final int recordCount;
+    private final Path file;
+
+    private MappedCreditRegistry(MappedByteBuffer records, int recordCount, Path file) {
+        this.records = records;
+        this.recordCount = recordCount;
+        this.file = file;
+    }
+
+    /**
+     * Maps a registry file into memory.
+     *
+     * @param file Registry file written by {@link CreditRegistryFileBuilder}
+     * @return Registry that searches the file
+     * @throws IOException If the file cannot be read or is not a valid registry file
+     */
+    public static MappedCreditRegistry open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < CreditRegistryFile.HEADER_BYTES || size > Integer.MAX_VALUE) {
+                throw new IOException("Invalid credit registry file size " + size + ": " + file);
+            }
+            // the mapping stays valid after the channel is closed
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != CreditRegistryFile.MAGIC || buffer.getInt(4) != CreditRegistryFile.VERSION) {
+                throw new IOException("Not a credit registry file: " + file);
+            }
+            long recordCount = buffer.getLong(8);
+            if (recordCount < 0
+                    || CreditRegistryFile.HEADER_BYTES + recordCount * CreditRegistryFile.RECORD_BYTES != size) {
+                throw new IOException("Truncated credit registry file: " + file);
+            }
+            return new MappedCreditRegistry(buffer, (int) recordCount, file);
+        }
+    }
+
+    @Override
+    public int creditModifier(CustomerProfile profile, RuleSnapshot rules) {
+        long key = CreditRegistryFile.encode(profile.getCountryCode(), profile.getPersonalCode());
+        int low = 0;
+        int high = recordCount - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int offset = CreditRegistryFile.HEADER_BYTES + middle * CreditRegistryFile.RECORD_BYTES;
+            long middleKey = records.getLong(offset);
+            if (middleKey < key) {
+                low = middle + 1;
+            } else if (middleKey > key) {
+                high = middle - 1;
+            } else {
+                return records.getInt(offset + Long.BYTES);
+            }
+        }
+        return UNKNOWN_CUSTOMER;
+    }
+
+    public int size() {
+        return recordCount;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+}
@@ -0,0 +1,73 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.common.FilePoller;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Credit registry that delegates to a registry that can be replaced at runtime.
+ * A lookup reads the current registry once, so a swap is atomic: every lookup sees either the old or the new
+ * registry, and lookups in flight finish on the registry they started with. Swapping never waits for them.
+ * A replaced file mapping is released by the garbage collector once no lookup uses it anymore.
+ */
+public class ReloadableCreditRegistry implements CreditRegistry, AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReloadableCreditRegistry.class);
+
+    private final AtomicReference<CreditRegistry> current;
+    private final FilePoller poller = new FilePoller("credit-registry-refresher");
+
+    public ReloadableCreditRegistry(CreditRegistry initial) {
+        this.current = new AtomicReference<>(initial);
+    }
+
+    @Override
+    public int creditModifier(CustomerProfile profile, RuleSnapshot rules) {
+        return current.get().creditModifier(profile, rules);
+    }
+
+    /**
+     * Replaces the registry used by all following lookups.
+     *
+     * @param registry The new registry
+     * @return The registry that was replaced
+     */
+    public CreditRegistry swap(CreditRegistry registry) {
+        return current.getAndSet(registry);
+    }
+
+    /**
+     * Maps a registry file and swaps it in.
+     *
+     * @param file Registry file written by {@link CreditRegistryFileBuilder}
+     * @throws IOException If the file is not a valid registry file, the current registry is kept then
+     */
+    public void load(Path file) throws IOException {
+        MappedCreditRegistry registry = MappedCreditRegistry.open(file);
+        swap(registry);
+        log.info("Loaded {} customers from credit registry {}", registry.size(), file);
+    }
+
+    /**
+     * Loads the registry file and then checks it for changes at a fixed interval, swapping in every new version.
+     *
+     * @param file     Registry file written by {@link CreditRegistryFileBuilder}
+     * @param interval Time between checks
+     * @throws IOException If the file cannot be loaded initially
+     */
+    public void watch(Path file, Duration interval) throws IOException {
+        poller.watch(file, interval, this::load);
+    }
+
+    @Override
+    public void close() {
+        poller.close();
+    }
+}
@@ -0,0 +1,16 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+
+/**
+ * Credit registry that derives the credit modifier from the last four digits of the personal ID code,
+ * using the segment modifiers of the current rules. Used when no registry file is configured.
+ */
+public class SegmentCreditRegistry implements CreditRegistry {
+
+    @Override
+    public int creditModifier(CustomerProfile profile, RuleSnapshot rules) {
+        return rules.creditModifier(profile.getSegment());
+    }
+}
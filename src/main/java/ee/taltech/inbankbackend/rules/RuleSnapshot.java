@@ -0,0 +1,209 @@
+package ee.taltech.inbankbackend.rules;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.config.AgeConstants;
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.OfferTable;
+import lombok.Getter;
+
+import java.util.Properties;
+
+/**
+ * An immutable, versioned set of the rules a decision is made with: the loan limits, the credit modifiers of the
+ * segments and the age limits of every country. Everything derived from the rules, the offer table and the
+ * rejection messages, is built together with the snapshot, so a decision reads one snapshot from start to end
+ * and every decision it returns carries the snapshot version.<br><br>
+ * Snapshots are read from properties files. {@link #defaults()} holds the values of
+ * {@link DecisionEngineConstants} and {@link AgeConstants}.
+ */
+public final class RuleSnapshot {
+
+    public static final String DEFAULT_VERSION = "default";
+
+    static final String VERSION = "rules.version";
+    static final String MINIMUM_LOAN_AMOUNT = "loan.minimum-amount";
+    static final String MAXIMUM_LOAN_AMOUNT = "loan.maximum-amount";
+    static final String MINIMUM_LOAN_PERIOD = "loan.minimum-period";
+    static final String MAXIMUM_LOAN_PERIOD = "loan.maximum-period";
+    static final String SEGMENT_1_CREDIT_MODIFIER = "credit-modifier.segment-1";
+    static final String SEGMENT_2_CREDIT_MODIFIER = "credit-modifier.segment-2";
+    static final String SEGMENT_3_CREDIT_MODIFIER = "credit-modifier.segment-3";
+    static final String UNDERAGE_YEARS = "age.minimum-years";
+    static final String ESTONIAN_FEMALE_LIFETIME_YEARS = "lifetime.ee.female";
+    static final String ESTONIAN_MALE_LIFETIME_YEARS = "lifetime.ee.male";
+    static final String LATVIAN_LIFETIME_YEARS = "lifetime.lv";
+    static final String LITHUANIAN_FEMALE_LIFETIME_YEARS = "lifetime.lt.female";
+    static final String LITHUANIAN_MALE_LIFETIME_YEARS = "lifetime.lt.male";
+
+    private static final int MAXIMUM_LIFETIME_YEARS = 150;
+    private static final int MAXIMUM_LOAN_PERIOD_LIMIT = 1200;
+
+    @Getter
+    private final String version;
+    @Getter
+    private final int minimumLoanAmount;
+    @Getter
+    private final int maximumLoanAmount;
+    @Getter
+    private final int minimumLoanPeriod;
+    @Getter
+    private final int maximumLoanPeriod;
+    @Getter
+    private final int underageYears;
+    @Getter
+    private final OfferTable offerTable;
+
+    // indexed by segment ordinal
+    private final int[] creditModifiers = new int[CreditSegment.values().length];
+    // indexed by country ordinal times two, plus one for women
+    private final int[] lifetimeYears = new int[Country.values().length * 2];
+    // indexed by reason ordinal
+    private final Decision[] rejections = new Decision[DecisionReason.values().length];
+    // rejections for a loan period that ends after the expected lifetime, indexed by the lifetime in years
+    private final Decision[] loanPeriodRejections = new Decision[MAXIMUM_LIFETIME_YEARS + 1];
+
+    private RuleSnapshot(Properties rules) {
+        version = rules.getProperty(VERSION, "").trim();
+        require(!version.isEmpty(), VERSION + " is missing");
+        // the version is written unquoted into results files
+        require(version.matches("[A-Za-z0-9._:-]+"), VERSION + " may only contain letters, digits and . _ : -");
+        minimumLoanAmount = positive(rules, MINIMUM_LOAN_AMOUNT);
+        maximumLoanAmount = positive(rules, MAXIMUM_LOAN_AMOUNT);
+        require(minimumLoanAmount <= maximumLoanAmount, MINIMUM_LOAN_AMOUNT + " exceeds " + MAXIMUM_LOAN_AMOUNT);
+        minimumLoanPeriod = positive(rules, MINIMUM_LOAN_PERIOD);
+        maximumLoanPeriod = positive(rules, MAXIMUM_LOAN_PERIOD);
+        require(minimumLoanPeriod <= maximumLoanPeriod, MINIMUM_LOAN_PERIOD + " exceeds " + MAXIMUM_LOAN_PERIOD);
+        require(maximumLoanPeriod <= MAXIMUM_LOAN_PERIOD_LIMIT,
+                MAXIMUM_LOAN_PERIOD + " exceeds " + MAXIMUM_LOAN_PERIOD_LIMIT + " months");
+
+        creditModifiers[CreditSegment.DEBT.ordinal()] = 0;
+        creditModifiers[CreditSegment.SEGMENT_1.ordinal()] = positive(rules, SEGMENT_1_CREDIT_MODIFIER);
+        creditModifiers[CreditSegment.SEGMENT_2.ordinal()] = positive(rules, SEGMENT_2_CREDIT_MODIFIER);
+        creditModifiers[CreditSegment.SEGMENT_3.ordinal()] = positive(rules, SEGMENT_3_CREDIT_MODIFIER);
+
+        underageYears = positive(rules, UNDERAGE_YEARS);
+        setLifetime(Country.EE, true, lifetime(rules, ESTONIAN_FEMALE_LIFETIME_YEARS));
+        setLifetime(Country.EE, false, lifetime(rules, ESTONIAN_MALE_LIFETIME_YEARS));
+        int latvianLifetimeYears = lifetime(rules, LATVIAN_LIFETIME_YEARS);
+        setLifetime(Country.LV, true, latvianLifetimeYears);
+        setLifetime(Country.LV, false, latvianLifetimeYears);
+        setLifetime(Country.LT, true, lifetime(rules, LITHUANIAN_FEMALE_LIFETIME_YEARS));
+        setLifetime(Country.LT, false, lifetime(rules, LITHUANIAN_MALE_LIFETIME_YEARS));
+
+        offerTable = new OfferTable(creditModifiers, minimumLoanAmount, maximumLoanAmount,
+                minimumLoanPeriod, maximumLoanPeriod, version);
+        for (DecisionReason reason : DecisionReason.values()) {
+            if (reason.getMessage() != null) {
+                rejections[reason.ordinal()] = Decision.rejected(reason, reason.getMessage(), version);
+            }
+        }
+        rejections[DecisionReason.UNDERAGE.ordinal()] = Decision.rejected(DecisionReason.UNDERAGE,
+                "Loans are not offered to people under age " + underageYears + ".", version);
+    }
+
+    /**
+     * @return The rules of {@link DecisionEngineConstants} and {@link AgeConstants}, versioned {@value #DEFAULT_VERSION}
+     */
+    public static RuleSnapshot defaults() {
+        Properties rules = new Properties();
+        rules.setProperty(VERSION, DEFAULT_VERSION);
+        rules.setProperty(MINIMUM_LOAN_AMOUNT, String.valueOf(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT));
+        rules.setProperty(MAXIMUM_LOAN_AMOUNT, String.valueOf(DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT));
+        rules.setProperty(MINIMUM_LOAN_PERIOD, String.valueOf(DecisionEngineConstants.MINIMUM_LOAN_PERIOD));
+        rules.setProperty(MAXIMUM_LOAN_PERIOD, String.valueOf(DecisionEngineConstants.MAXIMUM_LOAN_PERIOD));
+        rules.setProperty(SEGMENT_1_CREDIT_MODIFIER, String.valueOf(DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER));
+        rules.setProperty(SEGMENT_2_CREDIT_MODIFIER, String.valueOf(DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER));
+        rules.setProperty(SEGMENT_3_CREDIT_MODIFIER, String.valueOf(DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER));
+        rules.setProperty(UNDERAGE_YEARS, String.valueOf(AgeConstants.UNDERAGE_PERIOD));
+        rules.setProperty(ESTONIAN_FEMALE_LIFETIME_YEARS, String.valueOf(AgeConstants.ESTONIAN_AVERAGE_FEMALE_LIFETIME_YEARS));
+        rules.setProperty(ESTONIAN_MALE_LIFETIME_YEARS, String.valueOf(AgeConstants.ESTONIAN_AVERAGE_MALE_LIFETIME_YEARS));
+        rules.setProperty(LATVIAN_LIFETIME_YEARS, String.valueOf(AgeConstants.LATVIAN_AVERAGE_LIFETIME_YEARS));
+        rules.setProperty(LITHUANIAN_FEMALE_LIFETIME_YEARS, String.valueOf(AgeConstants.LITHUANIAN_AVERAGE_FEMALE_LIFETIME_YEARS));
+        rules.setProperty(LITHUANIAN_MALE_LIFETIME_YEARS, String.valueOf(AgeConstants.LITHUANIAN_AVERAGE_MALE_LIFETIME_YEARS));
+        return new RuleSnapshot(rules);
+    }
+
+    /**
+     * Validates the rules and builds a snapshot of them.
+     *
+     * @param rules Rules as read from a rules file
+     * @return Snapshot of the rules
+     * @throws IllegalArgumentException If a rule is missing or invalid
+     */
+    public static RuleSnapshot of(Properties rules) {
+        return new RuleSnapshot(rules);
+    }
+
+    /**
+     * @param segment Credit segment of a customer
+     * @return Credit modifier of the segment, 0 for debt
+     */
+    public int creditModifier(CreditSegment segment) {
+        return creditModifiers[segment.ordinal()];
+    }
+
+    /**
+     * @param countryCode Country of the customer, null is treated as Estonia
+     * @param female      Whether the customer is a woman
+     * @return Expected lifetime in years
+     */
+    public int lifetimeYears(Country countryCode, boolean female) {
+        Country country = countryCode == null ? Country.EE : countryCode;
+        return lifetimeYears[country.ordinal() * 2 + (female ? 1 : 0)];
+    }
+
+    /**
+     * @param reason Reason of the rejection, must have a pre-built message
+     * @return The shared rejected decision of the reason under these rules
+     */
+    public Decision rejected(DecisionReason reason) {
+        return rejections[reason.ordinal()];
+    }
+
+    /**
+     * @param lifetimeYears Expected lifetime returned by {@link #lifetimeYears}
+     * @return The shared rejection for a loan period that ends after this lifetime
+     */
+    public Decision loanPeriodRejection(int lifetimeYears) {
+        return loanPeriodRejections[lifetimeYears];
+    }
+
+    private void setLifetime(Country country, boolean female, int years) {
+        lifetimeYears[country.ordinal() * 2 + (female ? 1 : 0)] = years;
+        if (loanPeriodRejections[years] == null) {
+            loanPeriodRejections[years] = Decision.rejected(DecisionReason.LOAN_PERIOD_EXCEEDS_LIFETIME,
+                    "Your age plus specified loan period exceeds expected "
+                            + years
+                            + " years life time in your country. Try to request smaller loan period", version);
+        }
+    }
+
+    private int lifetime(Properties rules, String key) {
+        int years = positive(rules, key);
+        require(years > underageYears && years <= MAXIMUM_LIFETIME_YEARS,
+                key + " must be above " + UNDERAGE_YEARS + " and at most " + MAXIMUM_LIFETIME_YEARS);
+        return years;
+    }
+
+    private static int positive(Properties rules, String key) {
+        String value = rules.getProperty(key);
+        require(value != null, key + " is missing");
+        int number;
+        try {
+            number = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid rules: " + key + " is not a number: " + value);
+        }
+        require(number > 0, key + " must be positive");
+        return number;
+    }
+
+    private static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException("Invalid rules: " + message);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package ee.taltech.inbankbackend.rules;
+
+import ee.taltech.inbankbackend.common.FilePoller;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Publishes the current rule snapshot.
+ * A decision reads the snapshot once and uses it to the end, so when a new snapshot is published decisions in
+ * flight finish on the old one and all following decisions use the new one. Reading takes no lock.
+ */
+public class RuleStore implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(RuleStore.class);
+
+    private final AtomicReference<RuleSnapshot> current;
+    private final FilePoller poller = new FilePoller("rules-refresher");
+
+    public RuleStore(RuleSnapshot initial) {
+        this.current = new AtomicReference<>(initial);
+    }
+
+    /**
+     * @return The snapshot that new decisions are made with
+     */
+    public RuleSnapshot current() {
+        return current.get();
+    }
+
+    /**
+     * Replaces the snapshot used by all following decisions.
+     *
+     * @param snapshot The new snapshot
+     * @return The snapshot that was replaced
+     */
+    public RuleSnapshot publish(RuleSnapshot snapshot) {
+        return current.getAndSet(snapshot);
+    }
+
+    /**
+     * Reads and validates a rules file and publishes it.
+     *
+     * @param file Properties file with the rules
+     * @throws IOException              If the file cannot be read, the current snapshot is kept then
+     * @throws IllegalArgumentException If a rule is missing or invalid, the current snapshot is kept then
+     */
+    public void load(Path file) throws IOException {
+        Properties rules = new Properties();
+        try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            rules.load(reader);
+        }
+        RuleSnapshot snapshot = RuleSnapshot.of(rules);
+        RuleSnapshot replaced = publish(snapshot);
+        log.info("Published rules version {} from {}, replacing version {}",
+                snapshot.getVersion(), file, replaced.getVersion());
+    }
+
+    /**
+     * Loads the rules file and then checks it for changes at a fixed interval, publishing every new valid version.
+     *
+     * @param file     Properties file with the rules
+     * @param interval Time between checks
+     * @throws IOException If the file cannot be loaded initially
+     */
+    public void watch(Path file, Duration interval) throws IOException {
+        poller.watch(file, interval, this::load);
+    }
+
+    @Override
+    public void close() {
+        poller.close();
+    }
+}
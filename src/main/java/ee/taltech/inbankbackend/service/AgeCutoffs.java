@@ -0,0 +1,101 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+
+import java.time.Clock;
+import java.time.LocalDate;
+
+/**
+ * The latest birth dates, as epoch days, at which a customer reaches each age limit on one day under one rule
+ * snapshot.<br><br>
+ * A customer has lived at least {@code n} whole months on a day exactly when they were born on or before that day
+ * minus {@code n} months, with the same clamping to the end of the month as {@link java.time.Period#between}.
+ * So every age check of a decision is one comparison of the birth date with a cutoff computed here once a day.
+ */
+final class AgeCutoffs {
+
+    private final RuleSnapshot rules;
+    private final long validFromMillis;
+    private final long validUntilMillis;
+    // born after it: younger than the minimum age
+    private final long underageCutoff;
+    // indexed by country ordinal times two, plus one for women, then by loan period in months;
+    // born on or before it: the loan period ends in or after the year the expected lifetime is reached
+    private final long[][] payOffCutoffs;
+
+    private AgeCutoffs(RuleSnapshot rules, LocalDate today, long validFromMillis, long validUntilMillis) {
+        this.rules = rules;
+        this.validFromMillis = validFromMillis;
+        this.validUntilMillis = validUntilMillis;
+        this.underageCutoff = cutoff(today, rules.getUnderageYears() * 12L);
+        Country[] countries = Country.values();
+        this.payOffCutoffs = new long[countries.length * 2][];
+        for (Country countryCode : countries) {
+            for (int female = 0; female < 2; female++) {
+                long lifetimeMonths = rules.lifetimeYears(countryCode, female == 1) * 12L;
+                long[] cutoffs = new long[rules.getMaximumLoanPeriod() + 1];
+                for (int loanPeriod = 0; loanPeriod < cutoffs.length; loanPeriod++) {
+                    cutoffs[loanPeriod] = cutoff(today, lifetimeMonths - loanPeriod);
+                }
+                payOffCutoffs[countryCode.ordinal() * 2 + female] = cutoffs;
+            }
+        }
+    }
+
+    /**
+     * Computes the cutoffs of the current day of the clock, valid until the next midnight in its time zone.
+     */
+    static AgeCutoffs of(RuleSnapshot rules, Clock clock) {
+        LocalDate today = LocalDate.now(clock);
+        return new AgeCutoffs(rules, today,
+                today.atStartOfDay(clock.getZone()).toInstant().toEpochMilli(),
+                today.plusDays(1).atStartOfDay(clock.getZone()).toInstant().toEpochMilli());
+    }
+
+    boolean isValid(RuleSnapshot rules, long nowMillis) {
+        return this.rules == rules && nowMillis >= validFromMillis && nowMillis < validUntilMillis;
+    }
+
+    boolean isUnderage(int birthEpochDay) {
+        return birthEpochDay > underageCutoff;
+    }
+
+    /**
+     * @return Whether the customer has already reached the expected lifetime
+     */
+    boolean isLifetimeExceeded(int birthEpochDay, Country countryCode, boolean female) {
+        return birthEpochDay <= payOffCutoffs[slot(countryCode, female)][0];
+    }
+
+    /**
+     * @return Whether the loan period ends in or after the year the customer reaches the expected lifetime
+     */
+    boolean isPayOffTooLate(int birthEpochDay, Country countryCode, boolean female, int loanPeriodMonths) {
+        long[] cutoffs = payOffCutoffs[slot(countryCode, female)];
+        // periods beyond the table are longer than any period the rules accept
+        return loanPeriodMonths >= cutoffs.length || birthEpochDay <= cutoffs[Math.max(loanPeriodMonths, 0)];
+    }
+
+    /**
+     * @return The longest loan period, at most the maximum loan period of the rules, that ends before the year the
+     * customer reaches the expected lifetime, or -1 if there is none
+     */
+    int longestLoanPeriod(int birthEpochDay, Country countryCode, boolean female) {
+        long[] cutoffs = payOffCutoffs[slot(countryCode, female)];
+        int loanPeriod = cutoffs.length - 1;
+        while (loanPeriod >= 0 && birthEpochDay <= cutoffs[loanPeriod]) {
+            loanPeriod--;
+        }
+        return loanPeriod;
+    }
+
+    private static int slot(Country countryCode, boolean female) {
+        Country country = countryCode == null ? Country.EE : countryCode;
+        return country.ordinal() * 2 + (female ? 1 : 0);
+    }
+
+    private static long cutoff(LocalDate today, long months) {
+        return today.minusMonths(months).toEpochDay();
+    }
+}
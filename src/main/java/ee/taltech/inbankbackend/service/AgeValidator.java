@@ -1,59 +1,91 @@
 package ee.taltech.inbankbackend.service;
 
-import com.github.vladislavgoltjajev.personalcode.common.Gender;
-import com.github.vladislavgoltjajev.personalcode.exception.PersonalCodeException;
-import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
-import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeParser;
-import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeParser;
 import ee.taltech.inbankbackend.common.Country;
-import ee.taltech.inbankbackend.config.AgeConstants;
-import ee.taltech.inbankbackend.exceptions.AgeRestrictionException;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
 
-import java.time.Period;
-import java.util.Objects;
+import java.time.Clock;
 
+/**
+ * Checks a customer's age against the age limits of their country.
+ * The age limits are turned into cutoff birth dates once a day, see {@link AgeCutoffs}, so a check compares the
+ * birth date of the parsed personal code with a few cached numbers and allocates nothing. The cutoffs are
+ * computed again after midnight in the time zone of the clock, and when the rules change.
+ */
+@Component
 public class AgeValidator {
 
-    private static final EstonianPersonalCodeParser estonianPersonalCodeParser = new EstonianPersonalCodeParser();
-    private static final LatvianPersonalCodeParser latvianPersonalCodeParser = new LatvianPersonalCodeParser();
-    private static final LithuanianPersonalCodeParser lithuanianPersonalCodeParser = new LithuanianPersonalCodeParser();
-
-
-    public static void validate(String personalCode, Country countryCode, int loanPeriodMonths) throws AgeRestrictionException, PersonalCodeException {
-        Objects.requireNonNull(personalCode);
-        // parse personal code retrieving birthdate
-        Period age;
-        short averageLifetimeYears;
-        if (countryCode == Country.LT) {
-            age = lithuanianPersonalCodeParser.getAge(personalCode);
-            boolean isFemale = lithuanianPersonalCodeParser.getGender(personalCode).equals(Gender.FEMALE);
-            averageLifetimeYears = isFemale ? AgeConstants.LITHUANIAN_AVERAGE_FEMALE_LIFETIME_YEARS : AgeConstants.LITHUANIAN_AVERAGE_MALE_LIFETIME_YEARS;
-
-        } else if (countryCode == Country.LV) {
-            age = latvianPersonalCodeParser.getAge(personalCode);
-            averageLifetimeYears = AgeConstants.LATVIAN_AVERAGE_LIFETIME_YEARS;
-        } else {
-            age = estonianPersonalCodeParser.getAge(personalCode);
-            boolean isFemale = estonianPersonalCodeParser.getGender(personalCode).equals(Gender.FEMALE);
-            averageLifetimeYears = isFemale ? AgeConstants.ESTONIAN_AVERAGE_FEMALE_LIFETIME_YEARS : AgeConstants.ESTONIAN_AVERAGE_MALE_LIFETIME_YEARS;
+    private final Clock clock;
+    private volatile AgeCutoffs cutoffs;
+
+    /**
+     * Creates a validator that reads the date from the system clock in the default time zone.
+     */
+    public AgeValidator() {
+        this(Clock.systemDefaultZone());
+    }
+
+    @Autowired
+    public AgeValidator(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Checks the customer's age against the age limits of their country.
+     *
+     * @param rules            Rules the decision is made with
+     * @param parsedCode       Personal ID code of the customer, parsed by {@link PersonalCodeParser}
+     * @param countryCode      Country of the customer
+     * @param loanPeriodMonths Requested loan period
+     * @return The rejected decision if the customer is too young or too old for the loan, null otherwise
+     */
+    public Decision validate(RuleSnapshot rules, long parsedCode, Country countryCode, int loanPeriodMonths) {
+        if (!PersonalCodeParser.hasBirthDate(parsedCode)) {
+            return rules.rejected(DecisionReason.BIRTH_DATE_UNKNOWN);
         }
-        if (AgeConstants.UNDERAGE_PERIOD > age.getYears()) {
-            throw new AgeRestrictionException("Loans are not offered to people under age 18.");
+        AgeCutoffs today = cutoffs(rules);
+        // birthdate is taken from the parsed personal code
+        int birthEpochDay = PersonalCodeParser.birthEpochDay(parsedCode);
+        boolean female = PersonalCodeParser.isFemale(parsedCode);
+        if (today.isUnderage(birthEpochDay)) {
+            return rules.rejected(DecisionReason.UNDERAGE);
         }
-        // calculate when person pays off the loan
-        int expectedLoanPayOffYears = age.plusMonths(loanPeriodMonths).normalized().getYears();
-        validateLifetimeNotExceedingLoanPeriod(averageLifetimeYears, age, expectedLoanPayOffYears);
+        if (today.isLifetimeExceeded(birthEpochDay, countryCode, female)) {
+            return rules.rejected(DecisionReason.LIFETIME_EXCEEDED);
+        }
+        if (today.isPayOffTooLate(birthEpochDay, countryCode, female, loanPeriodMonths)) {
+            return rules.loanPeriodRejection(rules.lifetimeYears(countryCode, female));
+        }
+        return null;
     }
 
-    private static void validateLifetimeNotExceedingLoanPeriod(short averageLifetimeYears, Period age, int expectedLoanPayOffYears) throws AgeRestrictionException {
-        if (averageLifetimeYears <= age.getYears()) {
-            throw new AgeRestrictionException("Your age exceeds the current expected lifetime in your country");
-        }
+    /**
+     * Finds the longest loan period the customer can pay off before reaching the average lifetime of their
+     * country, with the same rounding as {@link #validate}. Only meaningful for a customer whose code holds a
+     * birth date.
+     *
+     * @param rules       Rules the decision is made with
+     * @param parsedCode  Personal ID code of the customer, parsed by {@link PersonalCodeParser}
+     * @param countryCode Country of the customer
+     * @return The longest loan period in months that {@link #validate} accepts, at most the maximum loan period
+     * of the rules, or -1 if it accepts none
+     */
+    public int longestLoanPeriod(RuleSnapshot rules, long parsedCode, Country countryCode) {
+        return cutoffs(rules).longestLoanPeriod(PersonalCodeParser.birthEpochDay(parsedCode), countryCode,
+                PersonalCodeParser.isFemale(parsedCode));
+    }
 
-        if (averageLifetimeYears <= expectedLoanPayOffYears) {
-            throw new AgeRestrictionException("Your age plus specified loan period exceeds expected "
-                    + averageLifetimeYears
-                    + " years life time in your country. Try to request smaller loan period");
+    /**
+     * @return The cutoffs of the current day under the rules, computed again after midnight
+     */
+    private AgeCutoffs cutoffs(RuleSnapshot rules) {
+        AgeCutoffs current = cutoffs;
+        if (current == null || !current.isValid(rules, clock.millis())) {
+            // concurrent refreshes compute the same immutable cutoffs, so the last one simply wins
+            current = AgeCutoffs.of(rules, clock);
+            cutoffs = current;
         }
+        return current;
     }
 }
@@ -0,0 +1,48 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import lombok.Getter;
+
+/**
+ * Everything the engine derives from a personal ID code alone: validity, birth date, gender and credit segment.
+ * The customer's age is deliberately not part of the profile, it is recomputed from the birth date on every
+ * decision so that a cached profile stays correct when the date changes.
+ */
+@Getter
+public final class CustomerProfile {
+
+    private final String personalCode;
+    private final Country countryCode;
+    // packed parse result, read with the PersonalCodeParser accessors
+    private final long parsedCode;
+    // null if the personal code is invalid
+    private final CreditSegment segment;
+    private final long expiresAtNanos;
+
+    CustomerProfile(String personalCode, Country countryCode, long parsedCode, long expiresAtNanos) {
+        this.personalCode = personalCode;
+        this.countryCode = countryCode;
+        this.parsedCode = parsedCode;
+        this.segment = PersonalCodeParser.isValid(parsedCode)
+                ? CreditSegment.fromLastFourDigits(PersonalCodeParser.lastFourDigits(parsedCode))
+                : null;
+        this.expiresAtNanos = expiresAtNanos;
+    }
+
+    public boolean isValid() {
+        return PersonalCodeParser.isValid(parsedCode);
+    }
+
+    public boolean hasBirthDate() {
+        return PersonalCodeParser.hasBirthDate(parsedCode);
+    }
+
+    public int getBirthEpochDay() {
+        return PersonalCodeParser.birthEpochDay(parsedCode);
+    }
+
+    public int getGender() {
+        return PersonalCodeParser.gender(parsedCode);
+    }
+}
@@ -1,15 +1,98 @@
 package ee.taltech.inbankbackend.service;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 
 /**
- * Holds the response data of the REST endpoint.
+ * Holds the outcome of a loan decision.
+ * Every decision carries a reason code, so rejections are returned as ordinary results instead of exceptions.
+ * Decisions are immutable and the common ones are shared instances.
  */
 @Getter
-@AllArgsConstructor
 public class Decision {
+    private static final Decision[] REJECTIONS = new Decision[DecisionReason.values().length];
+
+    static {
+        for (DecisionReason reason : DecisionReason.values()) {
+            if (reason.getMessage() != null) {
+                REJECTIONS[reason.ordinal()] = new Decision(null, null, reason.getMessage(), reason, null, null);
+            }
+        }
+    }
+
     private final Integer loanAmount;
     private final Integer loanPeriod;
     private final String errorMessage;
+    private final DecisionReason reason;
+    // version of the rule snapshot that produced the decision, null if it was not made with a snapshot
+    private final String rulesVersion;
+    // credit modifier the credit bureau answered with, null if the decision was not scored with one
+    private final Integer bureauCreditModifier;
+
+    private Decision(Integer loanAmount, Integer loanPeriod, String errorMessage, DecisionReason reason,
+                     String rulesVersion, Integer bureauCreditModifier) {
+        this.loanAmount = loanAmount;
+        this.loanPeriod = loanPeriod;
+        this.errorMessage = errorMessage;
+        this.reason = reason;
+        this.rulesVersion = rulesVersion;
+        this.bureauCreditModifier = bureauCreditModifier;
+    }
+
+    /**
+     * @param loanAmount Approved loan amount
+     * @param loanPeriod Approved loan period
+     * @return An approved decision
+     */
+    public static Decision approved(int loanAmount, int loanPeriod) {
+        return new Decision(loanAmount, loanPeriod, null, DecisionReason.APPROVED, null, null);
+    }
+
+    /**
+     * @param loanAmount   Approved loan amount
+     * @param loanPeriod   Approved loan period
+     * @param rulesVersion Version of the rule snapshot that approved the loan
+     * @return An approved decision
+     */
+    public static Decision approved(int loanAmount, int loanPeriod, String rulesVersion) {
+        return new Decision(loanAmount, loanPeriod, null, DecisionReason.APPROVED, rulesVersion, null);
+    }
+
+    /**
+     * @param reason Reason of the rejection, must have a pre-built message
+     * @return The shared rejected decision of the reason
+     */
+    public static Decision rejected(DecisionReason reason) {
+        return REJECTIONS[reason.ordinal()];
+    }
+
+    /**
+     * @param reason       Reason of the rejection
+     * @param errorMessage Error message of the rejection
+     * @return A rejected decision with the given message
+     */
+    public static Decision rejected(DecisionReason reason, String errorMessage) {
+        return new Decision(null, null, errorMessage, reason, null, null);
+    }
+
+    /**
+     * @param reason       Reason of the rejection
+     * @param errorMessage Error message of the rejection
+     * @param rulesVersion Version of the rule snapshot that rejected the loan
+     * @return A rejected decision with the given message
+     */
+    public static Decision rejected(DecisionReason reason, String errorMessage, String rulesVersion) {
+        return new Decision(null, null, errorMessage, reason, rulesVersion, null);
+    }
+
+    /**
+     * @param creditModifier Credit modifier the credit bureau answered with
+     * @return A copy of this decision that records it was scored with the bureau's credit modifier
+     */
+    public Decision withBureauCreditModifier(int creditModifier) {
+        return new Decision(loanAmount, loanPeriod, errorMessage, reason, rulesVersion, creditModifier);
+    }
+
+    public boolean isApproved() {
+        return reason == DecisionReason.APPROVED;
+    }
 }
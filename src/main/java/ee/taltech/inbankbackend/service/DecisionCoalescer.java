@@ -0,0 +1,113 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Single-flight front of the decision engine. Identical requests that arrive while the first one is still being
+ * decided share its decision instead of asking the engine, and with it the credit bureau, again.
+ * A request is only coalesced while the first one is in flight; its entry is dropped as soon as the decision is
+ * done, so no decision is ever served from memory after it was made.
+ * A request that shares a decision is still recorded by the engine on its own, so it has its own audit record and
+ * is counted by its outcome.
+ */
+@Component
+public class DecisionCoalescer {
+
+    private final DecisionEngine decisionEngine;
+    private final ConcurrentHashMap<Key, CompletableFuture<Decision>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    @Autowired
+    public DecisionCoalescer(DecisionEngine decisionEngine) {
+        this.decisionEngine = decisionEngine;
+    }
+
+    /**
+     * Decides the request like {@link DecisionEngine#decideAsync}, sharing the decision of an identical request
+     * that is still in flight.
+     *
+     * @param personalCode ID code of the customer that made the request.
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     * @return The decision
+     */
+    public CompletableFuture<Decision> decide(String personalCode, Long loanAmount, int loanPeriod,
+                                              Country countryCode) {
+        requests.increment();
+        Key key = new Key(personalCode, loanAmount, loanPeriod, countryCode);
+        CompletableFuture<Decision> shared = new CompletableFuture<>();
+        CompletableFuture<Decision> leader = inFlight.putIfAbsent(key, shared);
+        if (leader != null) {
+            coalesced.increment();
+            // a dependent future, so a caller completing its future cannot complete the shared one
+            return leader.thenApply(decision -> {
+                decisionEngine.recordShared(personalCode, loanAmount, loanPeriod, countryCode, decision);
+                return decision;
+            });
+        }
+
+        CompletableFuture<Decision> decision;
+        try {
+            decision = decisionEngine.decideAsync(personalCode, loanAmount, loanPeriod, countryCode);
+        } catch (RuntimeException e) {
+            decision = CompletableFuture.failedFuture(e);
+        }
+        decision.whenComplete((result, error) -> {
+            // removed before completing, so a request that sees the decision never joins a finished flight
+            inFlight.remove(key, shared);
+            if (error != null) {
+                shared.completeExceptionally(error);
+            } else {
+                shared.complete(result);
+            }
+        });
+        return shared.copy();
+    }
+
+    /**
+     * @return Request and coalescing counts, and the number of decisions in flight
+     */
+    public DecisionCoalescerStats stats() {
+        return new DecisionCoalescerStats(requests.sum(), coalesced.sum(), inFlight.size());
+    }
+
+    private static final class Key {
+        private final String personalCode;
+        private final Long loanAmount;
+        private final int loanPeriod;
+        private final Country countryCode;
+
+        private Key(String personalCode, Long loanAmount, int loanPeriod, Country countryCode) {
+            this.personalCode = personalCode;
+            this.loanAmount = loanAmount;
+            this.loanPeriod = loanPeriod;
+            this.countryCode = countryCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof Key key)) {
+                return false;
+            }
+            return loanPeriod == key.loanPeriod
+                    && Objects.equals(personalCode, key.personalCode)
+                    && Objects.equals(loanAmount, key.loanAmount)
+                    && countryCode == key.countryCode;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(personalCode, loanAmount, loanPeriod, countryCode);
+        }
+    }
+}
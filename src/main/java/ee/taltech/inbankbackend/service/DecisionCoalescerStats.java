@@ -0,0 +1,15 @@
+package ee.taltech.inbankbackend.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of the decision coalescing counters.
+ */
+@Getter
+@AllArgsConstructor
+public class DecisionCoalescerStats {
+    private final long requests;
+    private final long coalesced;
+    private final int inFlight;
+}
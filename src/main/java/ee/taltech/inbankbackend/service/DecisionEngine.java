@@ -1,138 +1,431 @@
 package ee.taltech.inbankbackend.service;
 
-import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
-import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeValidator;
-import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeValidator;
-import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.audit.AuditJournal;
+import ee.taltech.inbankbackend.bureau.BureauResult;
+import ee.taltech.inbankbackend.bureau.CreditBureauClient;
+import ee.taltech.inbankbackend.common.CreditSegment;
 import ee.taltech.inbankbackend.common.Country;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
 import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
 import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
 import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.metrics.DecisionStage;
+import ee.taltech.inbankbackend.registry.CreditRegistry;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.trace.DecisionTrace;
+import ee.taltech.inbankbackend.trace.TraceStep;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * A service class that provides a method for calculating an approved loan amount and period for a customer.
  * The loan amount is calculated based on the customer's credit modifier,
- * which is determined by the last four digits of their ID code.
+ * which is asked from the credit bureau when one is configured and looked up in the credit registry otherwise,
+ * or when the bureau does not answer in time.
+ * The engine keeps no per-request state and returns immutable decisions,
+ * so one instance is shared by all concurrent requests.
+ * Every decision is made with the rule snapshot that was current when it started and reports its version,
+ * and is recorded in the audit journal when one is configured.
  */
 @Service
 public class DecisionEngine {
 
-    // Used to check for the validity of the presented ID code.
-    private final EstonianPersonalCodeValidator estonianPersonalCodeValidator = new EstonianPersonalCodeValidator();
-    private final LatvianPersonalCodeValidator latvianPersonalCodeValidator = new LatvianPersonalCodeValidator();
-    private final LithuanianPersonalCodeValidator lithuanianPersonalCodeValidator = new LithuanianPersonalCodeValidator();
-    private int creditModifier = 0;
+    private final DecisionMetrics metrics;
+    private final ProfileCache profileCache;
+    private final CreditRegistry creditRegistry;
+    private final RuleStore ruleStore;
+    private final CreditBureauClient creditBureau;
+    private final AuditJournal auditJournal;
+    private final AgeValidator ageValidator;
+
+    /**
+     * Creates an engine with its own metrics and profile cache, for use outside the Spring context.
+     * Credit modifiers are derived from the last four digits of the personal ID code, no credit bureau is asked
+     * and the rules are the built-in defaults.
+     */
+    public DecisionEngine() {
+        this(new DecisionMetrics(), new ProfileCache(), new SegmentCreditRegistry(),
+                new RuleStore(RuleSnapshot.defaults()));
+    }
+
+    /**
+     * Creates an engine that takes every credit modifier from the credit registry, without a credit bureau.
+     */
+    public DecisionEngine(DecisionMetrics metrics, ProfileCache profileCache, CreditRegistry creditRegistry,
+                          RuleStore ruleStore) {
+        this(metrics, profileCache, creditRegistry, ruleStore, CreditBureauClient.disabled());
+    }
+
+    /**
+     * Creates an engine that records no decisions.
+     */
+    public DecisionEngine(DecisionMetrics metrics, ProfileCache profileCache, CreditRegistry creditRegistry,
+                          RuleStore ruleStore, CreditBureauClient creditBureau) {
+        this(metrics, profileCache, creditRegistry, ruleStore, creditBureau, AuditJournal.disabled());
+    }
+
+    /**
+     * Creates an engine that checks ages against the system clock.
+     */
+    public DecisionEngine(DecisionMetrics metrics, ProfileCache profileCache, CreditRegistry creditRegistry,
+                          RuleStore ruleStore, CreditBureauClient creditBureau, AuditJournal auditJournal) {
+        this(metrics, profileCache, creditRegistry, ruleStore, creditBureau, auditJournal, new AgeValidator());
+    }
+
+    @Autowired
+    public DecisionEngine(DecisionMetrics metrics, ProfileCache profileCache, CreditRegistry creditRegistry,
+                          RuleStore ruleStore, CreditBureauClient creditBureau, AuditJournal auditJournal,
+                          AgeValidator ageValidator) {
+        this.metrics = metrics;
+        this.profileCache = profileCache;
+        this.creditRegistry = creditRegistry;
+        this.ruleStore = ruleStore;
+        this.creditBureau = creditBureau;
+        this.auditJournal = auditJournal;
+        this.ageValidator = ageValidator;
+    }
 
     /**
      * Calculates the maximum loan amount and period for the customer based on their ID code,
      * the requested loan amount and the loan period.
-     * The loan period must be between 12 and 60 months (inclusive).
-     * The loan amount must be between 2000 and 10000€ months (inclusive).
+     * The loan period must be between 12 and 60 months (inclusive) under the default rules.
+     * The loan amount must be between 2000 and 10000€ months (inclusive) under the default rules.
+     * Rejections are ordinary outcomes and are returned with their reason code instead of being thrown.
+     * When a credit bureau is configured this waits for it, at most until the bureau deadline;
+     * use {@link #decideAsync} to not hold the calling thread.
      *
      * @param personalCode ID code of the customer that made the request.
      * @param loanAmount   Requested loan amount
      * @param loanPeriod   Requested loan period
      * @param countryCode  Requested country code
-     * @return A Decision object containing the approved loan amount and period, and an error message (if any)
-     * @throws InvalidPersonalCodeException If the provided personal ID code is invalid
-     * @throws InvalidLoanAmountException   If the requested loan amount is invalid
-     * @throws InvalidLoanPeriodException   If the requested loan period is invalid
-     * @throws NoValidLoanException         If there is no valid loan found for the given ID code, loan amount and loan period
+     * @return A Decision object containing the reason code, the approved loan amount and period,
+     * and an error message (if any)
      */
-    public Decision calculateApprovedLoan(String personalCode, Long loanAmount, int loanPeriod, Country countryCode)
-            throws InvalidPersonalCodeException, InvalidLoanAmountException, InvalidLoanPeriodException,
-            NoValidLoanException {
-        try {
-            verifyInputs(personalCode, loanAmount, loanPeriod, countryCode);
-            AgeValidator.validate(personalCode, countryCode, loanPeriod);
-        } catch (Exception e) {
-            return new Decision(null, null, e.getMessage());
+    public Decision decide(String personalCode, Long loanAmount, int loanPeriod, Country countryCode) {
+        return decide(personalCode, loanAmount, loanPeriod, countryCode, null);
+    }
+
+    /**
+     * Calculates the maximum loan amount and period like {@link #decide(String, Long, int, Country)}, with a credit
+     * modifier the credit bureau has already answered with instead of asking the bureau again, e.g. to decide a
+     * request a second time with other rules.
+     *
+     * @param personalCode         ID code of the customer that made the request.
+     * @param loanAmount           Requested loan amount
+     * @param loanPeriod           Requested loan period
+     * @param countryCode          Requested country code
+     * @param bureauCreditModifier Credit modifier the bureau answered with, or null to find the modifier as usual
+     * @return The decision
+     */
+    public Decision decide(String personalCode, Long loanAmount, int loanPeriod, Country countryCode,
+                           Integer bureauCreditModifier) {
+        long started = System.nanoTime();
+        // read once, so a rules update never changes the rules halfway through a decision
+        RuleSnapshot rules = ruleStore.current();
+        // the code is parsed once per customer, validation and age are read from the cached profile
+        CustomerProfile profile = profileCache.get(personalCode, countryCode);
+        Decision rejection = screen(rules, profile, loanAmount, loanPeriod, countryCode, started, null);
+        if (rejection != null) {
+            return audit(profile, loanAmount, loanPeriod, rejection);
+        }
+        if (bureauCreditModifier != null) {
+            return audit(profile, loanAmount, loanPeriod, score(rules, loanPeriod, countryCode, bureauCreditModifier,
+                    DecisionTrace.CREDIT_BUREAU, System.nanoTime(), null)
+                    .withBureauCreditModifier(bureauCreditModifier));
         }
+        if (creditBureau.isEnabled()) {
+            return audit(profile, loanAmount, loanPeriod,
+                    scoreWithBureau(rules, profile, loanPeriod, countryCode, null).join());
+        }
+        long scoring = System.nanoTime();
+        return audit(profile, loanAmount, loanPeriod, score(rules, loanPeriod, countryCode,
+                creditRegistry.creditModifier(profile, rules), DecisionTrace.CREDIT_REGISTRY, scoring, null));
+    }
 
-        int outputLoanAmount;
-        creditModifier = getCreditModifier(personalCode);
+    /**
+     * Calculates the maximum loan amount and period like {@link #decide}, without waiting for the credit bureau.
+     * The inputs and the age are checked on the calling thread, the rest of the decision completes when the
+     * bureau answers or its deadline runs out.
+     *
+     * @param personalCode ID code of the customer that made the request.
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     * @return The decision, completed within the bureau deadline
+     */
+    public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                   Country countryCode) {
+        return decideAsync(personalCode, loanAmount, loanPeriod, countryCode, null);
+    }
 
-        if (creditModifier == 0) {
-            throw new NoValidLoanException("Loan cannot be acquired due to a debt!");
+    /**
+     * Calculates the maximum loan amount and period like {@link #decideAsync(String, Long, int, Country)}, and
+     * records every rule step of the decision in the trace.
+     *
+     * @param personalCode ID code of the customer that made the request.
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     * @param trace        Trace the rule steps are recorded in, or null to not trace the decision
+     * @return The decision, completed within the bureau deadline
+     */
+    public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                   Country countryCode, DecisionTrace trace) {
+        long started = System.nanoTime();
+        RuleSnapshot rules = ruleStore.current();
+        CustomerProfile profile = profileCache.get(personalCode, countryCode);
+        Decision rejection = screen(rules, profile, loanAmount, loanPeriod, countryCode, started, trace);
+        if (rejection != null) {
+            return CompletableFuture.completedFuture(audit(profile, loanAmount, loanPeriod, rejection));
         }
-
-        while (highestValidLoanAmount(loanPeriod) < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT) {
-            loanPeriod++;
+        if (creditBureau.isEnabled()) {
+            return scoreWithBureau(rules, profile, loanPeriod, countryCode, trace)
+                    .thenApply(decision -> audit(profile, loanAmount, loanPeriod, decision));
         }
+        long scoring = System.nanoTime();
+        return CompletableFuture.completedFuture(audit(profile, loanAmount, loanPeriod, score(rules, loanPeriod,
+                countryCode, creditRegistry.creditModifier(profile, rules), DecisionTrace.CREDIT_REGISTRY, scoring,
+                trace)));
+    }
 
-        if (loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD) {
-            outputLoanAmount = Math.min(DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT, highestValidLoanAmount(loanPeriod));
-        } else {
-            throw new NoValidLoanException("No valid loan found!");
+    /**
+     * Calculates every loan the customer can get, for showing all loan periods at once.
+     * The code is parsed, the customer's age is checked and the credit modifier is looked up once for the whole
+     * curve, and the offers are read from the offer table of the rules instead of deciding every period.
+     * Like {@link #decideAsync}, this does not wait for the credit bureau on the calling thread.
+     *
+     * @param personalCode ID code of the customer that made the request.
+     * @param countryCode  Requested country code
+     * @return The offers of every loan period, or the reason why the customer cannot get any loan
+     */
+    public CompletableFuture<OfferCurve> offerCurve(String personalCode, Country countryCode) {
+        RuleSnapshot rules = ruleStore.current();
+        CustomerProfile profile = profileCache.get(personalCode, countryCode);
+        long parsedCode = profile.getParsedCode();
+        if (!PersonalCodeParser.isValid(parsedCode)) {
+            return CompletableFuture.completedFuture(
+                    OfferCurve.rejected(rules.rejected(DecisionReason.INVALID_PERSONAL_CODE)));
+        }
+        // the shortest period is paid off first, so a customer rejected for it cannot get any loan
+        Decision ageRejection = ageValidator.validate(rules, parsedCode, profile.getCountryCode(),
+                rules.getMinimumLoanPeriod());
+        if (ageRejection != null) {
+            return CompletableFuture.completedFuture(OfferCurve.rejected(ageRejection));
+        }
+        int longestLoanPeriod = ageValidator.longestLoanPeriod(rules, parsedCode, profile.getCountryCode());
+        if (creditBureau.isEnabled()) {
+            return creditBureau.creditModifier(profile.getCountryCode(), profile.getPersonalCode())
+                    .thenApply(answer -> offerCurve(rules, creditModifier(answer, profile, rules), longestLoanPeriod));
         }
+        return CompletableFuture.completedFuture(
+                offerCurve(rules, creditRegistry.creditModifier(profile, rules), longestLoanPeriod));
+    }
 
-        return new Decision(outputLoanAmount, loanPeriod, null);
+    private OfferCurve offerCurve(RuleSnapshot rules, int creditModifier, int longestLoanPeriod) {
+        if (creditModifier == 0) {
+            return OfferCurve.rejected(rules.rejected(DecisionReason.DEBT));
+        }
+        List<Decision> offers = rules.getOfferTable().offers(creditModifier, longestLoanPeriod);
+        if (offers.isEmpty()) {
+            return OfferCurve.rejected(rules.rejected(DecisionReason.NO_VALID_LOAN));
+        }
+        return OfferCurve.of(offers, rules.getVersion());
     }
 
     /**
-     * Calculates the largest valid loan for the current credit modifier and loan period.
+     * Records a decision that was made for an identical request, for a request that is answered with it instead
+     * of being decided again, so every answered request has its own audit record and is counted by its outcome.
      *
-     * @return Largest valid loan amount
+     * @param personalCode ID code of the customer that made the request.
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     * @param decision     The shared decision the request is answered with
+     */
+    public void recordShared(String personalCode, Long loanAmount, int loanPeriod, Country countryCode,
+                             Decision decision) {
+        CustomerProfile profile = profileCache.get(personalCode, countryCode);
+        metrics.recordOutcome(countryCode, scoredSegment(profile, decision), decision.getReason());
+        audit(profile, loanAmount, loanPeriod, decision);
+    }
+
+    /**
+     * @return Credit segment the decision was scored in, or null if it was rejected before scoring
+     */
+    private CreditSegment scoredSegment(CustomerProfile profile, Decision decision) {
+        DecisionReason reason = decision.getReason();
+        if (reason != DecisionReason.APPROVED && reason != DecisionReason.DEBT
+                && reason != DecisionReason.NO_VALID_LOAN) {
+            return null;
+        }
+        RuleSnapshot rules = ruleStore.current();
+        Integer bureauCreditModifier = decision.getBureauCreditModifier();
+        return rules.getOfferTable().segment(bureauCreditModifier != null
+                ? bureauCreditModifier : creditRegistry.creditModifier(profile, rules));
+    }
+
+    /**
+     * Hands the decision to the audit journal, which only takes a slot of its ring buffer on this thread.
      */
-    private int highestValidLoanAmount(int loanPeriod) {
-        return creditModifier * loanPeriod;
+    private Decision audit(CustomerProfile profile, Long loanAmount, int loanPeriod, Decision decision) {
+        if (auditJournal.isEnabled()) {
+            auditJournal.append(profile.getPersonalCode(), profile.getCountryCode(), loanAmount, loanPeriod,
+                    decision);
+        }
+        return decision;
     }
 
     /**
-     * Calculates the credit modifier of the customer to according to the last four digits of their ID code.
-     * Debt - 0000...2499
-     * Segment 1 - 2500...4999
-     * Segment 2 - 5000...7499
-     * Segment 3 - 7500...9999
+     * Verifies the inputs and the customer's age.
      *
-     * @param personalCode ID code of the customer that made the request.
-     * @return Segment to which the customer belongs.
+     * @return The rejection, or null if the customer can be scored
      */
-    private int getCreditModifier(String personalCode) {
-        int segment = Integer.parseInt(personalCode.substring(personalCode.length() - 4));
+    private Decision screen(RuleSnapshot rules, CustomerProfile profile, Long loanAmount, int loanPeriod,
+                            Country countryCode, long started, DecisionTrace trace) {
+        long parsedCode = profile.getParsedCode();
+        DecisionReason invalidInput = verifyInputs(rules, parsedCode, loanAmount, loanPeriod);
+        long verified = System.nanoTime();
+        metrics.recordStage(DecisionStage.PERSONAL_CODE_VALIDATION, verified - started);
+        if (trace != null) {
+            trace.record(TraceStep.INPUTS, (invalidInput != null ? invalidInput : DecisionReason.APPROVED).ordinal(),
+                    DecisionTrace.amount(loanAmount), loanPeriod);
+        }
+        if (invalidInput != null) {
+            metrics.recordOutcome(countryCode, null, invalidInput);
+            return rules.rejected(invalidInput);
+        }
 
-        if (segment < 2500) {
-            return 0;
-        } else if (segment < 5000) {
-            return DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER;
-        } else if (segment < 7500) {
-            return DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER;
+        // the age is recomputed from the birth date every time, so cached profiles stay correct across days
+        Decision ageRejection = ageValidator.validate(rules, parsedCode, countryCode, loanPeriod);
+        metrics.recordStage(DecisionStage.AGE_VALIDATION, System.nanoTime() - verified);
+        if (trace != null) {
+            trace.record(TraceStep.AGE, (ageRejection != null ? ageRejection.getReason() : DecisionReason.APPROVED)
+                    .ordinal(), rules.getUnderageYears(), PersonalCodeParser.hasBirthDate(parsedCode)
+                    ? rules.lifetimeYears(countryCode, PersonalCodeParser.isFemale(parsedCode)) : -1);
         }
+        if (ageRejection != null) {
+            metrics.recordOutcome(countryCode, null, ageRejection.getReason());
+        }
+        return ageRejection;
+    }
+
+    /**
+     * Asks the credit bureau for the credit modifier and scores the customer with it. If the bureau does not
+     * answer in time, the modifier of the local credit registry is used instead. A decision scored with the
+     * bureau's modifier records it.
+     */
+    private CompletableFuture<Decision> scoreWithBureau(RuleSnapshot rules, CustomerProfile profile, int loanPeriod,
+                                                        Country countryCode, DecisionTrace trace) {
+        long asked = System.nanoTime();
+        return creditBureau.creditModifier(profile.getCountryCode(), profile.getPersonalCode())
+                .thenApply(answer -> {
+                    long answered = System.nanoTime();
+                    metrics.recordStage(DecisionStage.CREDIT_BUREAU, answered - asked);
+                    if (!answer.isAnswered()) {
+                        return score(rules, loanPeriod, countryCode, creditRegistry.creditModifier(profile, rules),
+                                DecisionTrace.CREDIT_BUREAU_FALLBACK, answered, trace);
+                    }
+                    return score(rules, loanPeriod, countryCode, answer.getCreditModifier(),
+                            DecisionTrace.CREDIT_BUREAU, answered, trace)
+                            .withBureauCreditModifier(answer.getCreditModifier());
+                });
+    }
 
-        return DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER;
+    private int creditModifier(BureauResult answer, CustomerProfile profile, RuleSnapshot rules) {
+        return answer.isAnswered() ? answer.getCreditModifier() : creditRegistry.creditModifier(profile, rules);
     }
 
     /**
-     * Verify that all inputs are valid according to business rules.
-     * If inputs are invalid, then throws corresponding exceptions.
+     * Finds the approved loan for the customer's credit modifier.
+     *
+     * @param creditModifierSource Where the credit modifier came from, only recorded in the trace
+     */
+    private Decision score(RuleSnapshot rules, int loanPeriod, Country countryCode, int creditModifier,
+                           int creditModifierSource, long started, DecisionTrace trace) {
+        OfferTable offerTable = rules.getOfferTable();
+        CreditSegment segment = offerTable.segment(creditModifier);
+        if (trace != null) {
+            trace.record(TraceStep.CREDIT_MODIFIER, creditModifierSource, creditModifier,
+                    segment == null ? -1 : segment.ordinal());
+        }
+        Decision decision;
+        if (creditModifier == 0) {
+            decision = rules.rejected(DecisionReason.DEBT);
+        } else {
+            Decision offer = creditModifier > 0 ? offerTable.offer(creditModifier, loanPeriod) : null;
+            decision = offer != null ? offer : rules.rejected(DecisionReason.NO_VALID_LOAN);
+            if (trace != null) {
+                trace.record(TraceStep.OFFER, loanPeriod, offer != null ? offer.getLoanPeriod() : -1,
+                        offer != null ? offer.getLoanAmount() : -1);
+            }
+        }
+        metrics.recordStage(DecisionStage.SCORING, System.nanoTime() - started);
+        metrics.recordOutcome(countryCode, segment, decision.getReason());
+        return decision;
+    }
+
+    /**
+     * Calculates the maximum loan amount and period like {@link #decide}, but reports invalid inputs and
+     * missing loans with exceptions. Kept for callers of the exception based API; age restrictions are
+     * returned as a Decision with an error message, as before.
      *
-     * @param personalCode Provided personal ID code
+     * @param personalCode ID code of the customer that made the request.
      * @param loanAmount   Requested loan amount
      * @param loanPeriod   Requested loan period
      * @param countryCode  Requested country code
+     * @return A Decision object containing the approved loan amount and period, and an error message (if any)
      * @throws InvalidPersonalCodeException If the provided personal ID code is invalid
      * @throws InvalidLoanAmountException   If the requested loan amount is invalid
      * @throws InvalidLoanPeriodException   If the requested loan period is invalid
+     * @throws NoValidLoanException         If there is no valid loan found for the given ID code, loan amount and loan period
+     */
+    public Decision calculateApprovedLoan(String personalCode, Long loanAmount, int loanPeriod, Country countryCode)
+            throws InvalidPersonalCodeException, InvalidLoanAmountException, InvalidLoanPeriodException,
+            NoValidLoanException {
+        Decision decision = decide(personalCode, loanAmount, loanPeriod, countryCode);
+        switch (decision.getReason()) {
+            case INVALID_PERSONAL_CODE:
+                throw new InvalidPersonalCodeException(decision.getErrorMessage());
+            case INVALID_LOAN_AMOUNT:
+                throw new InvalidLoanAmountException(decision.getErrorMessage());
+            case INVALID_LOAN_PERIOD:
+                throw new InvalidLoanPeriodException(decision.getErrorMessage());
+            case DEBT:
+            case NO_VALID_LOAN:
+                throw new NoValidLoanException(decision.getErrorMessage());
+            default:
+                return decision;
+        }
+    }
+
+    /**
+     * Verify that all inputs are valid according to business rules.
+     *
+     * @param rules      Rules with the loan limits
+     * @param parsedCode Provided personal ID code, parsed according to the requested country
+     * @param loanAmount Requested loan amount
+     * @param loanPeriod Requested loan period
+     * @return The reason code of the first invalid input, or null if all inputs are valid
      */
-    private void verifyInputs(String personalCode, Long loanAmount, int loanPeriod, Country countryCode)
-            throws InvalidPersonalCodeException, InvalidLoanAmountException, InvalidLoanPeriodException {
-        // TODO: Must validate personal code based on country (EE,LV,LT)
-        if (countryCode == Country.EE && !estonianPersonalCodeValidator.isValid(personalCode)
-                || countryCode == Country.LV && !latvianPersonalCodeValidator.isValid(personalCode)
-                || countryCode == Country.LT && !lithuanianPersonalCodeValidator.isValid(personalCode)) {
-            throw new InvalidPersonalCodeException("Invalid personal ID code!");
+    DecisionReason verifyInputs(RuleSnapshot rules, long parsedCode, Long loanAmount, int loanPeriod) {
+        if (!PersonalCodeParser.isValid(parsedCode)) {
+            return DecisionReason.INVALID_PERSONAL_CODE;
         }
-        if (!(DecisionEngineConstants.MINIMUM_LOAN_AMOUNT <= loanAmount)
-                || !(loanAmount <= DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT)) {
-            throw new InvalidLoanAmountException("Invalid loan amount!");
+        if (loanAmount == null
+                || !(rules.getMinimumLoanAmount() <= loanAmount)
+                || !(loanAmount <= rules.getMaximumLoanAmount())) {
+            return DecisionReason.INVALID_LOAN_AMOUNT;
         }
-        if (!(DecisionEngineConstants.MINIMUM_LOAN_PERIOD <= loanPeriod)
-                || !(loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD)) {
-            throw new InvalidLoanPeriodException("Invalid loan period!");
+        if (!(rules.getMinimumLoanPeriod() <= loanPeriod)
+                || !(loanPeriod <= rules.getMaximumLoanPeriod())) {
+            return DecisionReason.INVALID_LOAN_PERIOD;
         }
-
-
+        return null;
     }
 }
@@ -0,0 +1,28 @@
+package ee.taltech.inbankbackend.service;
+
+/**
+ * Reason codes of every possible decision outcome, together with their pre-built error messages.
+ */
+public enum DecisionReason {
+    APPROVED(null),
+    INVALID_PERSONAL_CODE("Invalid personal ID code!"),
+    INVALID_LOAN_AMOUNT("Invalid loan amount!"),
+    INVALID_LOAN_PERIOD("Invalid loan period!"),
+    UNDERAGE("Loans are not offered to people under age 18."),
+    BIRTH_DATE_UNKNOWN("Birth date cannot be determined from the personal ID code"),
+    LIFETIME_EXCEEDED("Your age exceeds the current expected lifetime in your country"),
+    // the message names the expected lifetime, see AgeValidator
+    LOAN_PERIOD_EXCEEDS_LIFETIME(null),
+    DEBT("Loan cannot be acquired due to a debt!"),
+    NO_VALID_LOAN("No valid loan found!");
+
+    private final String message;
+
+    DecisionReason(String message) {
+        this.message = message;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,44 @@
+package ee.taltech.inbankbackend.service;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Every loan a customer can get, one offer per loan period in ascending order of the period.
+ * Each offer is the decision /loan/decision returns when that period is requested, so the curve holds no loan
+ * the single decision would not approve. A customer that cannot get any loan has no offers and the reason of
+ * the rejection instead.
+ */
+@Getter
+public class OfferCurve {
+    private final List<Decision> offers;
+    private final DecisionReason reason;
+    private final String errorMessage;
+    private final String rulesVersion;
+
+    private OfferCurve(List<Decision> offers, DecisionReason reason, String errorMessage, String rulesVersion) {
+        this.offers = offers;
+        this.reason = reason;
+        this.errorMessage = errorMessage;
+        this.rulesVersion = rulesVersion;
+    }
+
+    /**
+     * @param offers       Approved decisions in ascending order of the loan period, not empty
+     * @param rulesVersion Version of the rule snapshot that made the offers
+     * @return The curve of the offers
+     */
+    public static OfferCurve of(List<Decision> offers, String rulesVersion) {
+        return new OfferCurve(List.copyOf(offers), DecisionReason.APPROVED, null, rulesVersion);
+    }
+
+    /**
+     * @param rejection Decision that rejects every loan period
+     * @return A curve without offers
+     */
+    public static OfferCurve rejected(Decision rejection) {
+        return new OfferCurve(List.of(), rejection.getReason(), rejection.getErrorMessage(),
+                rejection.getRulesVersion());
+    }
+}
@@ -0,0 +1,141 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.CreditSegment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An immutable table of the approved loan for every credit segment and requested loan period.
+ * The approved loan only depends on these two values, so the period search is done once when the table is
+ * built and a decision becomes a single array lookup that returns a shared, immutable Decision.
+ * Credit modifiers that do not belong to a segment, such as those from a credit registry file,
+ * are searched on demand.
+ */
+public final class OfferTable {
+
+    private static final CreditSegment[] SEGMENTS = CreditSegment.values();
+
+    private final int[] creditModifiers;
+    private final int minimumLoanAmount;
+    private final int maximumLoanAmount;
+    private final int minimumLoanPeriod;
+    private final int maximumLoanPeriod;
+    private final String rulesVersion;
+    // indexed by segment ordinal and loan period minus the minimum period, null when no valid loan exists
+    private final Decision[][] offers;
+
+    /**
+     * Builds the table by running the period search for every segment and requested period.
+     *
+     * @param creditModifiers   Credit modifier of every segment, indexed by segment ordinal
+     * @param minimumLoanAmount Smallest loan amount that may be approved
+     * @param maximumLoanAmount Largest loan amount that may be approved
+     * @param minimumLoanPeriod Shortest loan period that may be requested
+     * @param maximumLoanPeriod Longest loan period that may be approved
+     * @param rulesVersion      Version of the rule snapshot the table belongs to, reported by every offer
+     */
+    public OfferTable(int[] creditModifiers, int minimumLoanAmount, int maximumLoanAmount,
+                      int minimumLoanPeriod, int maximumLoanPeriod, String rulesVersion) {
+        this.creditModifiers = creditModifiers.clone();
+        this.minimumLoanAmount = minimumLoanAmount;
+        this.maximumLoanAmount = maximumLoanAmount;
+        this.minimumLoanPeriod = minimumLoanPeriod;
+        this.maximumLoanPeriod = maximumLoanPeriod;
+        this.rulesVersion = rulesVersion;
+        this.offers = new Decision[creditModifiers.length][maximumLoanPeriod - minimumLoanPeriod + 1];
+        for (int segment = 0; segment < creditModifiers.length; segment++) {
+            for (int loanPeriod = minimumLoanPeriod; loanPeriod <= maximumLoanPeriod; loanPeriod++) {
+                offers[segment][loanPeriod - minimumLoanPeriod] = searchOffer(creditModifiers[segment], loanPeriod);
+            }
+        }
+    }
+
+    /**
+     * Looks up the approved loan for a segment and a requested loan period.
+     *
+     * @param segment    Credit segment of the customer
+     * @param loanPeriod Requested loan period, already validated to be within the period limits
+     * @return The approved loan, or null if no valid loan exists
+     */
+    public Decision offer(CreditSegment segment, int loanPeriod) {
+        return offers[segment.ordinal()][loanPeriod - minimumLoanPeriod];
+    }
+
+    /**
+     * Looks up the approved loan for a credit modifier and a requested loan period.
+     * Modifiers of a segment are answered from the table, any other modifier is searched.
+     *
+     * @param creditModifier Credit modifier of the customer, 0 if the customer has debt
+     * @param loanPeriod     Requested loan period, already validated to be within the period limits
+     * @return The approved loan, or null if no valid loan exists
+     */
+    public Decision offer(int creditModifier, int loanPeriod) {
+        CreditSegment segment = segment(creditModifier);
+        if (segment != null) {
+            return offer(segment, loanPeriod);
+        }
+        return searchOffer(creditModifier, loanPeriod);
+    }
+
+    /**
+     * Lists every loan that is approved for the period it was requested for, which is every distinct loan the
+     * offers of the shorter periods lead to as well. Segment modifiers are read from the table, any other
+     * modifier is computed directly without a period search.
+     *
+     * @param creditModifier    Credit modifier of the customer, 0 if the customer has debt
+     * @param longestLoanPeriod Longest loan period that may be offered, e.g. because of the customer's age
+     * @return The approved loans in ascending order of the period, empty if there are none
+     */
+    public List<Decision> offers(int creditModifier, int longestLoanPeriod) {
+        List<Decision> curve = new ArrayList<>();
+        if (creditModifier <= 0) {
+            return curve;
+        }
+        CreditSegment segment = segment(creditModifier);
+        int lastPeriod = Math.min(longestLoanPeriod, maximumLoanPeriod);
+        for (int loanPeriod = minimumLoanPeriod; loanPeriod <= lastPeriod; loanPeriod++) {
+            if ((long) creditModifier * loanPeriod < minimumLoanAmount) {
+                continue;
+            }
+            curve.add(segment != null
+                    ? offer(segment, loanPeriod)
+                    : Decision.approved((int) Math.min(maximumLoanAmount, (long) creditModifier * loanPeriod),
+                    loanPeriod, rulesVersion));
+        }
+        return curve;
+    }
+
+    /**
+     * @param creditModifier Credit modifier of a customer
+     * @return The segment with exactly this credit modifier, or null if there is none
+     */
+    public CreditSegment segment(int creditModifier) {
+        for (int segment = 0; segment < creditModifiers.length; segment++) {
+            if (creditModifiers[segment] == creditModifier) {
+                return SEGMENTS[segment];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Extends the loan period until the highest valid loan amount reaches the minimum loan amount.
+     *
+     * @return The approved loan, or null if the period would have to exceed the maximum loan period
+     */
+    private Decision searchOffer(int creditModifier, int loanPeriod) {
+        if (creditModifier <= 0) {
+            return null;
+        }
+        // registry modifiers can be large, so the products are computed in long
+        while (loanPeriod <= maximumLoanPeriod && (long) creditModifier * loanPeriod < minimumLoanAmount) {
+            loanPeriod++;
+        }
+        if (loanPeriod > maximumLoanPeriod) {
+            return null;
+        }
+        return Decision.approved((int) Math.min(maximumLoanAmount, (long) creditModifier * loanPeriod), loanPeriod,
+                rulesVersion);
+    }
+}
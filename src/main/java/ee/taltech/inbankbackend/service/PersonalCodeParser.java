@@ -0,0 +1,230 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+
+/**
+ * Single-pass parser for Estonian, Latvian and Lithuanian personal ID codes.
+ * A code is read once and everything the decision needs is packed into one primitive long,
+ * so parsing does not allocate. The accessors of this class unpack the individual fields.<br><br>
+ * Bit layout of a parsed code:<br>
+ * - bits 0-13: last four digits of the code (0...9999)<br>
+ * - bits 14-17: checksum digit<br>
+ * - bits 18-19: gender, one of the GENDER_ constants<br>
+ * - bit 20: set if the code holds a birth date<br>
+ * - bit 21: set if the code is valid<br>
+ * - bits 32-63: birth date as an epoch day
+ */
+public final class PersonalCodeParser {
+
+    /**
+     * The parse result of every invalid code.
+     */
+    public static final long INVALID = 0L;
+
+    public static final int GENDER_UNKNOWN = 0;
+    public static final int GENDER_MALE = 1;
+    public static final int GENDER_FEMALE = 2;
+
+    private static final int CHECKSUM_SHIFT = 14;
+    private static final int GENDER_SHIFT = 18;
+    private static final long HAS_BIRTH_DATE = 1L << 20;
+    private static final long VALID = 1L << 21;
+    private static final int BIRTH_DATE_SHIFT = 32;
+
+    private static final int CODE_LENGTH = 11;
+    private static final int HIGHEST_GENDER_DIGIT = 6;
+    private static final int[] CHECKSUM_WEIGHTS_1 = {1, 2, 3, 4, 5, 6, 7, 8, 9, 1};
+    private static final int[] CHECKSUM_WEIGHTS_2 = {3, 4, 5, 6, 7, 8, 9, 1, 2, 3};
+    private static final int[] LATVIAN_CHECKSUM_WEIGHTS = {1, 6, 3, 7, 9, 10, 5, 8, 4, 2};
+
+    private PersonalCodeParser() {
+    }
+
+    /**
+     * Parses a personal ID code of the given country.
+     * Codes of an unknown (null) country are parsed as Estonian codes.
+     *
+     * @param personalCode Personal ID code of the customer
+     * @param countryCode  Country that issued the code
+     * @return The packed parse result, or {@link #INVALID} if the code is not valid
+     */
+    public static long parse(String personalCode, Country countryCode) {
+        if (personalCode == null) {
+            return INVALID;
+        }
+        if (countryCode == Country.LV) {
+            return parseLatvian(personalCode);
+        }
+        return parseBaltic(personalCode);
+    }
+
+    public static boolean isValid(long parsedCode) {
+        return (parsedCode & VALID) != 0;
+    }
+
+    public static boolean hasBirthDate(long parsedCode) {
+        return (parsedCode & HAS_BIRTH_DATE) != 0;
+    }
+
+    public static int birthEpochDay(long parsedCode) {
+        return (int) (parsedCode >> BIRTH_DATE_SHIFT);
+    }
+
+    public static int gender(long parsedCode) {
+        return (int) (parsedCode >>> GENDER_SHIFT) & 0x3;
+    }
+
+    public static boolean isFemale(long parsedCode) {
+        return gender(parsedCode) == GENDER_FEMALE;
+    }
+
+    public static int checksum(long parsedCode) {
+        return (int) (parsedCode >>> CHECKSUM_SHIFT) & 0xF;
+    }
+
+    public static int lastFourDigits(long parsedCode) {
+        return (int) parsedCode & 0x3FFF;
+    }
+
+    /**
+     * Estonian and Lithuanian codes share the GYYMMDDSSSC layout, where G holds the century and gender.
+     * Only the centuries 1800 to 2099 are issued, so G is 1 to 6.
+     */
+    private static long parseBaltic(String personalCode) {
+        if (personalCode.length() != CODE_LENGTH || !allDigits(personalCode, 0, CODE_LENGTH)) {
+            return INVALID;
+        }
+        int genderDigit = digit(personalCode, 0);
+        if (genderDigit < 1 || genderDigit > HIGHEST_GENDER_DIGIT) {
+            return INVALID;
+        }
+        int year = 1800 + (genderDigit - 1) / 2 * 100 + number(personalCode, 1, 2);
+        int month = number(personalCode, 3, 2);
+        int day = number(personalCode, 5, 2);
+        if (!isValidDate(year, month, day)) {
+            return INVALID;
+        }
+
+        int checksum = weightedSum(personalCode, CHECKSUM_WEIGHTS_1) % 11;
+        if (checksum == 10) {
+            checksum = weightedSum(personalCode, CHECKSUM_WEIGHTS_2) % 11;
+            if (checksum == 10) {
+                checksum = 0;
+            }
+        }
+        if (checksum != digit(personalCode, 10)) {
+            return INVALID;
+        }
+
+        int gender = genderDigit % 2 == 0 ? GENDER_FEMALE : GENDER_MALE;
+        return pack(checksum, gender, true, epochDay(year, month, day), number(personalCode, 7, 4));
+    }
+
+    /**
+     * Latvian codes are either legacy DDMMYY-CNNNX codes, where C holds the century, or codes issued since
+     * 2017 that start with 32 and hold no birth date. The hyphen is optional only in the latter.
+     */
+    private static long parseLatvian(String personalCode) {
+        int offset = 0;
+        if (personalCode.length() == CODE_LENGTH + 1) {
+            if (personalCode.charAt(6) != '-') {
+                return INVALID;
+            }
+            // read around the hyphen without copying the string
+            offset = 1;
+        } else if (personalCode.length() != CODE_LENGTH) {
+            return INVALID;
+        }
+        if (!allDigits(personalCode, 0, 6) || !allDigits(personalCode, 6 + offset, CODE_LENGTH + offset)) {
+            return INVALID;
+        }
+
+        int sum = 0;
+        for (int i = 0; i < LATVIAN_CHECKSUM_WEIGHTS.length; i++) {
+            sum += LATVIAN_CHECKSUM_WEIGHTS[i] * digit(personalCode, i < 6 ? i : i + offset);
+        }
+        // a remainder of 10 gives the check digit 0
+        int checksum = (1101 - sum) % 11 % 10;
+        int lastDigit = digit(personalCode, 10 + offset);
+        int lastFour = number(personalCode, 7 + offset, 4);
+
+        if (digit(personalCode, 0) == 3 && digit(personalCode, 1) == 2) {
+            return checksum == lastDigit ? pack(checksum, GENDER_UNKNOWN, false, 0, lastFour) : INVALID;
+        }
+
+        int century = digit(personalCode, 6 + offset);
+        if (offset == 0 || century > 2) {
+            return INVALID;
+        }
+        int year = 1800 + century * 100 + number(personalCode, 4, 2);
+        int month = number(personalCode, 2, 2);
+        int day = number(personalCode, 0, 2);
+        if (!isValidDate(year, month, day) || checksum != lastDigit) {
+            return INVALID;
+        }
+        return pack(checksum, GENDER_UNKNOWN, true, epochDay(year, month, day), lastFour);
+    }
+
+    private static long pack(int checksum, int gender, boolean hasBirthDate, long birthEpochDay, int lastFour) {
+        return birthEpochDay << BIRTH_DATE_SHIFT
+                | VALID
+                | (hasBirthDate ? HAS_BIRTH_DATE : 0L)
+                | (long) gender << GENDER_SHIFT
+                | (long) checksum << CHECKSUM_SHIFT
+                | lastFour;
+    }
+
+    private static boolean allDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            char c = value.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digit(String value, int index) {
+        return value.charAt(index) - '0';
+    }
+
+    private static int number(String value, int from, int length) {
+        int number = 0;
+        for (int i = from; i < from + length; i++) {
+            number = number * 10 + digit(value, i);
+        }
+        return number;
+    }
+
+    private static int weightedSum(String value, int[] weights) {
+        int sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i] * digit(value, i);
+        }
+        return sum;
+    }
+
+    private static boolean isValidDate(int year, int month, int day) {
+        return month >= 1 && month <= 12 && day >= 1 && day <= daysInMonth(year, month);
+    }
+
+    private static int daysInMonth(int year, int month) {
+        if (month == 2) {
+            boolean leapYear = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leapYear ? 29 : 28;
+        }
+        return month == 4 || month == 6 || month == 9 || month == 11 ? 30 : 31;
+    }
+
+    /**
+     * Days since 1970-01-01 of a valid proleptic Gregorian date, computed without java.time objects.
+     */
+    static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = (y >= 0 ? y : y - 399) / 400;
+        int yearOfEra = y - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097L + dayOfEra - 719468;
+    }
+}
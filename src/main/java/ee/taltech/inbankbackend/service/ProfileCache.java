@@ -0,0 +1,140 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of parsed customer profiles keyed by personal ID code and country.
+ * Entries expire after a fixed time to live and the oldest entries are evicted first once the cache is full.
+ * Codes the parser rejects are not cached, so a stream of made-up codes cannot evict real customers.
+ * Lookups and inserts take no locks, so the cache can sit in front of every decision.
+ */
+@Component
+public class ProfileCache {
+
+    private static final Country[] COUNTRIES = Country.values();
+
+    // one map per country, so the personal code itself is the key and a lookup allocates nothing
+    private final ConcurrentHashMap<String, CustomerProfile>[] profiles;
+    // insertion order of the profiles, used for eviction
+    private final ConcurrentLinkedQueue<CustomerProfile> insertionOrder = new ConcurrentLinkedQueue<>();
+    // every cached profile has exactly one queue entry, so this also bounds the number of cached profiles
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+
+    public ProfileCache() {
+        this(DecisionEngineConstants.PROFILE_CACHE_MAXIMUM_SIZE,
+                Duration.ofMinutes(DecisionEngineConstants.PROFILE_CACHE_TTL_MINUTES));
+    }
+
+    /**
+     * @param maximumSize Maximum number of cached profiles
+     * @param timeToLive  Time after which a cached profile is parsed again
+     */
+    @SuppressWarnings("unchecked")
+    public ProfileCache(int maximumSize, Duration timeToLive) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive");
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = timeToLive.toNanos();
+        this.profiles = new ConcurrentHashMap[COUNTRIES.length];
+        for (int i = 0; i < profiles.length; i++) {
+            profiles[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the cached profile of the customer, parsing the personal ID code if it is not cached yet.
+     *
+     * @param personalCode Personal ID code of the customer
+     * @param countryCode  Country the code was issued in, null is treated as Estonia like in the parser
+     * @return Profile of the customer, also for invalid codes, which are parsed again on every call
+     */
+    public CustomerProfile get(String personalCode, Country countryCode) {
+        Country country = countryCode == null ? Country.EE : countryCode;
+        if (personalCode == null) {
+            misses.increment();
+            return new CustomerProfile(null, country, PersonalCodeParser.INVALID, 0);
+        }
+
+        ConcurrentHashMap<String, CustomerProfile> countryProfiles = profiles[country.ordinal()];
+        long now = System.nanoTime();
+        CustomerProfile cached = countryProfiles.get(personalCode);
+        if (cached != null) {
+            if (now - cached.getExpiresAtNanos() < 0) {
+                hits.increment();
+                return cached;
+            }
+            if (countryProfiles.remove(personalCode, cached)) {
+                expirations.increment();
+            }
+        }
+
+        misses.increment();
+        long parsedCode = PersonalCodeParser.parse(personalCode, country);
+        CustomerProfile parsed = new CustomerProfile(personalCode, country, parsedCode, now + timeToLiveNanos);
+        if (!PersonalCodeParser.isValid(parsedCode)) {
+            return parsed;
+        }
+        CustomerProfile existing = countryProfiles.putIfAbsent(personalCode, parsed);
+        if (existing != null) {
+            // another request parsed the same code concurrently, both results are identical
+            return parsed;
+        }
+        insertionOrder.add(parsed);
+        if (queued.incrementAndGet() > maximumSize) {
+            evictOldest();
+        }
+        return parsed;
+    }
+
+    /**
+     * Drops all cached profiles, for example after the rules that derive a profile have changed.
+     */
+    public void invalidateAll() {
+        CustomerProfile oldest;
+        while ((oldest = insertionOrder.poll()) != null) {
+            queued.decrementAndGet();
+            profiles[oldest.getCountryCode().ordinal()].remove(oldest.getPersonalCode(), oldest);
+        }
+    }
+
+    /**
+     * @return Current size of the cache and its hit, miss, eviction and expiration counts
+     */
+    public ProfileCacheStats stats() {
+        long size = 0;
+        for (ConcurrentHashMap<String, CustomerProfile> countryProfiles : profiles) {
+            size += countryProfiles.size();
+        }
+        return new ProfileCacheStats(size, maximumSize, hits.sum(), misses.sum(), evictions.sum(), expirations.sum());
+    }
+
+    private void evictOldest() {
+        while (queued.get() > maximumSize) {
+            CustomerProfile oldest = insertionOrder.poll();
+            if (oldest == null) {
+                return;
+            }
+            queued.decrementAndGet();
+            // the queue entry may belong to a profile that has already expired and been replaced
+            if (profiles[oldest.getCountryCode().ordinal()].remove(oldest.getPersonalCode(), oldest)) {
+                evictions.increment();
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package ee.taltech.inbankbackend.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Point in time view of the profile cache counters.
+ */
+@Getter
+@AllArgsConstructor
+public class ProfileCacheStats {
+    private final long size;
+    private final long maximumSize;
+    private final long hits;
+    private final long misses;
+    private final long evictions;
+    private final long expirations;
+}
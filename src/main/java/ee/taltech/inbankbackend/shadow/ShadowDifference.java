@@ -0,0 +1,26 @@
+package ee.taltech.inbankbackend.shadow;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * How the candidate decisions of the requests with the same country and credit segment differ from the
+ * decisions the customers got. The country and segment are null when they were not known for the request.
+ * The amount and period deltas are sums of candidate minus live over the requests both approved.
+ */
+@Getter
+@AllArgsConstructor
+public class ShadowDifference {
+    private final String country;
+    private final String segment;
+    private final long compared;
+    private final long approvalsGained;
+    private final long approvalsLost;
+    // both rejected, for different reasons
+    private final long reasonsChanged;
+    private final long amountsIncreased;
+    private final long amountsDecreased;
+    private final long amountDelta;
+    private final long periodsChanged;
+    private final long periodDelta;
+}
@@ -0,0 +1,231 @@
+package ee.taltech.inbankbackend.shadow;
+
+import ee.taltech.inbankbackend.audit.AuditJournal;
+import ee.taltech.inbankbackend.bureau.CreditBureauClient;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.registry.CreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.AgeValidator;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.ProfileCache;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decides a sample of the live requests a second time with a candidate rule set, and counts where the candidate
+ * decision differs from the decision the customer got, by country and credit segment.<br><br>
+ * The candidate decisions are made on a small pool of low priority workers with a bounded queue. A sampled
+ * request that finds the queue full is dropped and counted, so the shadow work never holds up or slows down
+ * the request that was sampled. The candidate engine has its own metrics and age validator, asks no credit bureau
+ * and records nothing in the audit journal. A live decision that was scored with the credit bureau's modifier is
+ * decided again with that same modifier, any other with the credit registry's modifier under the candidate rules.
+ */
+public class ShadowEvaluator implements AutoCloseable {
+
+    private static final Country[] COUNTRIES = Country.values();
+    private static final CreditSegment[] SEGMENTS = CreditSegment.values();
+
+    private final RuleStore candidateRules;
+    private final DecisionEngine candidateEngine;
+    private final ProfileCache profileCache;
+    private final CreditRegistry creditRegistry;
+    private final double sampleRate;
+    private final ThreadPoolExecutor executor;
+
+    private final LongAdder sampled = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    // indexed by country and segment; the last country and segment slot is used when it is unknown
+    private final Tally[] tallies = new Tally[(COUNTRIES.length + 1) * (SEGMENTS.length + 1)];
+
+    /**
+     * @param candidateRules Store of the candidate rules, closed with the evaluator
+     * @param profileCache   Profile cache of the live engine
+     * @param creditRegistry Credit registry of the live engine
+     * @param clock          Clock the candidate engine reads the current date from
+     * @param sampleRate     Share of the requests that are decided again, between 0 and 1
+     * @param threads        Number of workers that make candidate decisions
+     * @param queueCapacity  Number of sampled requests that may wait for a worker
+     */
+    public ShadowEvaluator(RuleStore candidateRules, ProfileCache profileCache, CreditRegistry creditRegistry,
+                           Clock clock, double sampleRate, int threads, int queueCapacity) {
+        this.candidateRules = candidateRules;
+        // its own age validator, whose cached age cutoffs belong to the candidate rules
+        this.candidateEngine = new DecisionEngine(new DecisionMetrics(), profileCache, creditRegistry,
+                candidateRules, CreditBureauClient.disabled(), AuditJournal.disabled(), new AgeValidator(clock));
+        this.profileCache = profileCache;
+        this.creditRegistry = creditRegistry;
+        this.sampleRate = sampleRate;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "shadow-worker-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                },
+                // a discard policy that counts what it discards
+                (runnable, pool) -> dropped.increment());
+        for (int i = 0; i < tallies.length; i++) {
+            tallies[i] = new Tally();
+        }
+    }
+
+    private ShadowEvaluator() {
+        this.candidateRules = null;
+        this.candidateEngine = null;
+        this.profileCache = null;
+        this.creditRegistry = null;
+        this.sampleRate = 0;
+        this.executor = null;
+    }
+
+    /**
+     * @return An evaluator that decides nothing a second time
+     */
+    public static ShadowEvaluator disabled() {
+        return new ShadowEvaluator();
+    }
+
+    public boolean isEnabled() {
+        return executor != null;
+    }
+
+    /**
+     * Hands a request to the candidate workers if it is sampled. Never blocks the calling thread.
+     *
+     * @param personalCode ID code of the customer that made the request
+     * @param loanAmount   Requested loan amount
+     * @param loanPeriod   Requested loan period
+     * @param countryCode  Requested country code
+     * @param decision     Decision the customer got
+     */
+    public void submit(String personalCode, Long loanAmount, int loanPeriod, Country countryCode,
+                       Decision decision) {
+        if (executor == null || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        sampled.increment();
+        executor.execute(() -> {
+            try {
+                compare(personalCode, loanAmount, loanPeriod, countryCode, decision);
+            } catch (RuntimeException e) {
+                failed.increment();
+            }
+        });
+    }
+
+    /**
+     * Decides the request with the candidate rules on the calling thread and counts the difference.
+     */
+    void compare(String personalCode, Long loanAmount, int loanPeriod, Country countryCode, Decision decision) {
+        Decision candidate = candidateEngine.decide(personalCode, loanAmount, loanPeriod, countryCode,
+                decision.getBureauCreditModifier());
+        CreditSegment segment = segment(personalCode, countryCode, decision.getBureauCreditModifier());
+        int country = countryCode == null ? COUNTRIES.length : countryCode.ordinal();
+        Tally tally = tallies[country * (SEGMENTS.length + 1) + (segment == null ? SEGMENTS.length : segment.ordinal())];
+        tally.compared.increment();
+        boolean approved = decision.getReason() == DecisionReason.APPROVED;
+        boolean candidateApproved = candidate.getReason() == DecisionReason.APPROVED;
+        if (approved && candidateApproved) {
+            int amountDelta = candidate.getLoanAmount() - decision.getLoanAmount();
+            int periodDelta = candidate.getLoanPeriod() - decision.getLoanPeriod();
+            if (amountDelta > 0) {
+                tally.amountsIncreased.increment();
+            } else if (amountDelta < 0) {
+                tally.amountsDecreased.increment();
+            }
+            if (periodDelta != 0) {
+                tally.periodsChanged.increment();
+            }
+            tally.amountDelta.add(amountDelta);
+            tally.periodDelta.add(periodDelta);
+        } else if (candidateApproved) {
+            tally.approvalsGained.increment();
+        } else if (approved) {
+            tally.approvalsLost.increment();
+        } else if (candidate.getReason() != decision.getReason()) {
+            tally.reasonsChanged.increment();
+        }
+    }
+
+    /**
+     * @return Segment of the customer's credit modifier under the candidate rules, or null if it has none
+     */
+    private CreditSegment segment(String personalCode, Country countryCode, Integer bureauCreditModifier) {
+        RuleSnapshot rules = candidateRules.current();
+        if (bureauCreditModifier != null) {
+            return rules.getOfferTable().segment(bureauCreditModifier);
+        }
+        CustomerProfile profile = profileCache.get(personalCode, countryCode);
+        if (!profile.isValid()) {
+            return null;
+        }
+        return rules.getOfferTable().segment(creditRegistry.creditModifier(profile, rules));
+    }
+
+    /**
+     * @return The candidate rules version, the sampling counters and the differences of every country and
+     * credit segment with compared decisions
+     */
+    public ShadowReport report() {
+        List<ShadowDifference> differences = new ArrayList<>();
+        for (int country = 0; country <= COUNTRIES.length; country++) {
+            for (int segment = 0; segment <= SEGMENTS.length; segment++) {
+                Tally tally = tallies[country * (SEGMENTS.length + 1) + segment];
+                if (tally != null && tally.compared.sum() > 0) {
+                    differences.add(tally.difference(
+                            country < COUNTRIES.length ? COUNTRIES[country].name() : null,
+                            segment < SEGMENTS.length ? SEGMENTS[segment].name() : null));
+                }
+            }
+        }
+        return new ShadowReport(candidateRules == null ? null : candidateRules.current().getVersion(),
+                sampled.sum(), dropped.sum(), failed.sum(), differences);
+    }
+
+    /**
+     * Stops the workers, dropping the sampled requests that have not been decided yet, and stops watching the
+     * candidate rules.
+     */
+    @Override
+    public void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            candidateRules.close();
+        }
+    }
+
+    private static final class Tally {
+        private final LongAdder compared = new LongAdder();
+        private final LongAdder approvalsGained = new LongAdder();
+        private final LongAdder approvalsLost = new LongAdder();
+        private final LongAdder reasonsChanged = new LongAdder();
+        private final LongAdder amountsIncreased = new LongAdder();
+        private final LongAdder amountsDecreased = new LongAdder();
+        private final LongAdder amountDelta = new LongAdder();
+        private final LongAdder periodsChanged = new LongAdder();
+        private final LongAdder periodDelta = new LongAdder();
+
+        private ShadowDifference difference(String country, String segment) {
+            return new ShadowDifference(country, segment, compared.sum(), approvalsGained.sum(),
+                    approvalsLost.sum(), reasonsChanged.sum(), amountsIncreased.sum(), amountsDecreased.sum(),
+                    amountDelta.sum(), periodsChanged.sum(), periodDelta.sum());
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package ee.taltech.inbankbackend.shadow;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * Point in time view of the shadow evaluation: how many requests were sampled, dropped because the candidate
+ * workers were busy or failed, and the differences of the candidate decisions by country and credit segment.
+ * The candidate rules version is null when shadow evaluation is disabled.
+ */
+@Getter
+@AllArgsConstructor
+public class ShadowReport {
+    private final String candidateRulesVersion;
+    private final long sampled;
+    private final long dropped;
+    private final long failed;
+    private final List<ShadowDifference> differences;
+}
@@ -0,0 +1,171 @@
+package ee.taltech.inbankbackend.trace;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Record of the rule steps of one decision, for explaining afterwards why the customer got it.
+ * Every step is a step code and three integers in preallocated arrays, so recording allocates nothing, and the
+ * explanations are only written when the trace is read, see {@link #report()}. The personal ID code is not kept.
+ * <br><br>
+ * A trace is written by the threads that make the decision one after another, and only read after it has been
+ * finished and stored in the {@link DecisionTracer}.
+ */
+public final class DecisionTrace {
+
+    /**
+     * Credit modifier source of a customer looked up in the credit registry.
+     */
+    public static final int CREDIT_REGISTRY = 0;
+    /**
+     * Credit modifier source of a customer the credit bureau answered for.
+     */
+    public static final int CREDIT_BUREAU = 1;
+    /**
+     * Credit modifier source of a customer looked up in the credit registry because the bureau did not answer.
+     */
+    public static final int CREDIT_BUREAU_FALLBACK = 2;
+
+    // a missing requested amount, amounts beyond an int are clamped
+    static final int NO_AMOUNT = Integer.MIN_VALUE;
+    static final int MAXIMUM_STEPS = 8;
+
+    private static final TraceStep[] STEPS = TraceStep.values();
+    private static final DecisionReason[] REASONS = DecisionReason.values();
+    private static final CreditSegment[] SEGMENTS = CreditSegment.values();
+
+    private final String id;
+    private final int slot;
+    private final long startedAtMillis;
+    private final long startedNanos;
+    private final Country countryCode;
+    private final byte[] steps = new byte[MAXIMUM_STEPS];
+    private final int[] values = new int[MAXIMUM_STEPS * 3];
+    private int stepCount;
+    private long elapsedNanos;
+    private Decision decision;
+
+    DecisionTrace(String id, int slot, Country countryCode) {
+        this.id = id;
+        this.slot = slot;
+        this.startedAtMillis = System.currentTimeMillis();
+        this.startedNanos = System.nanoTime();
+        this.countryCode = countryCode;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Records a rule step, see {@link TraceStep} for the meaning of its values. Steps beyond
+     * {@value #MAXIMUM_STEPS} are not recorded.
+     */
+    public void record(TraceStep step, int first, int second, int third) {
+        if (stepCount == MAXIMUM_STEPS) {
+            return;
+        }
+        steps[stepCount] = (byte) step.ordinal();
+        values[stepCount * 3] = first;
+        values[stepCount * 3 + 1] = second;
+        values[stepCount * 3 + 2] = third;
+        stepCount++;
+    }
+
+    /**
+     * @param loanAmount Requested loan amount, or null
+     * @return The amount as it is recorded in a step
+     */
+    public static int amount(Long loanAmount) {
+        if (loanAmount == null) {
+            return NO_AMOUNT;
+        }
+        return (int) Math.max(NO_AMOUNT + 1, Math.min(Integer.MAX_VALUE, loanAmount));
+    }
+
+    /**
+     * @param decision The decision, or null if it failed
+     */
+    void finish(Decision decision) {
+        this.elapsedNanos = System.nanoTime() - startedNanos;
+        this.decision = decision;
+    }
+
+    /**
+     * @return The decision and every recorded step with its explanation
+     */
+    public DecisionTraceReport report() {
+        List<TraceRecord> records = new ArrayList<>(stepCount);
+        for (int i = 0; i < stepCount; i++) {
+            TraceStep step = STEPS[steps[i]];
+            records.add(new TraceRecord(step.name(),
+                    explain(step, values[i * 3], values[i * 3 + 1], values[i * 3 + 2])));
+        }
+        return new DecisionTraceReport(id, Instant.ofEpochMilli(startedAtMillis).toString(),
+                elapsedNanos / 1000, countryCode == null ? null : countryCode.name(),
+                decision == null ? null : decision.getReason().name(),
+                decision == null ? null : decision.getLoanAmount(),
+                decision == null ? null : decision.getLoanPeriod(),
+                decision == null ? null : decision.getRulesVersion(), records);
+    }
+
+    private static String explain(TraceStep step, int first, int second, int third) {
+        return switch (step) {
+            case INPUTS -> explainInputs(REASONS[first], second, third);
+            case AGE -> explainAge(REASONS[first], second, third);
+            case CREDIT_MODIFIER -> "Credit modifier " + second
+                    + (third < 0 ? " matching no credit segment" : " of credit segment " + SEGMENTS[third])
+                    + switch (first) {
+                case CREDIT_BUREAU -> " from the credit bureau";
+                case CREDIT_BUREAU_FALLBACK -> " from the credit registry, the credit bureau did not answer in time";
+                default -> " from the credit registry";
+            };
+            case OFFER -> explainOffer(first, second, third);
+        };
+    }
+
+    private static String explainInputs(DecisionReason reason, int loanAmount, int loanPeriod) {
+        String inputs = "amount " + (loanAmount == NO_AMOUNT ? "missing" : String.valueOf(loanAmount))
+                + " and period " + loanPeriod + " months";
+        return switch (reason) {
+            case APPROVED -> "Valid personal code, " + inputs + " within the loan limits";
+            case INVALID_PERSONAL_CODE -> "Rejected, invalid personal code";
+            default -> "Rejected as " + reason + ", " + inputs;
+        };
+    }
+
+    private static String explainAge(DecisionReason reason, int minimumAgeYears, int lifetimeYears) {
+        return switch (reason) {
+            case APPROVED -> "At least " + minimumAgeYears + " years old, and the loan is paid off before the"
+                    + " expected lifetime of " + lifetimeYears + " years";
+            case BIRTH_DATE_UNKNOWN -> "Rejected, the personal code holds no birth date";
+            case UNDERAGE -> "Rejected, younger than the minimum age of " + minimumAgeYears + " years";
+            case LIFETIME_EXCEEDED -> "Rejected, older than the expected lifetime of " + lifetimeYears + " years";
+            default -> "Rejected, the loan would be paid off after the expected lifetime of " + lifetimeYears
+                    + " years";
+        };
+    }
+
+    private static String explainOffer(int requestedPeriod, int loanPeriod, int loanAmount) {
+        if (loanAmount < 0) {
+            return "No loan of at least the minimum amount for " + requestedPeriod
+                    + " months or any longer period";
+        }
+        if (loanPeriod == requestedPeriod) {
+            return "Highest amount for " + loanPeriod + " months is " + loanAmount;
+        }
+        return "No loan of at least the minimum amount for " + requestedPeriod + " months, the period was"
+                + " extended by " + (loanPeriod - requestedPeriod) + " months to " + loanPeriod + " months for "
+                + loanAmount;
+    }
+}
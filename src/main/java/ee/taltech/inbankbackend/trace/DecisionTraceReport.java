@@ -0,0 +1,24 @@
+package ee.taltech.inbankbackend.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * A stored decision trace: when the decision started and how long it took, the outcome, and the explanation of
+ * every rule step in the order the steps were taken. The outcome fields are null if the decision failed.
+ */
+@Getter
+@AllArgsConstructor
+public class DecisionTraceReport {
+    private final String id;
+    private final String startedAt;
+    private final long durationMicros;
+    private final String country;
+    private final String reason;
+    private final Integer loanAmount;
+    private final Integer loanPeriod;
+    private final String rulesVersion;
+    private final List<TraceRecord> steps;
+}
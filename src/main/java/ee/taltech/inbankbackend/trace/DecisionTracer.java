@@ -0,0 +1,110 @@
+package ee.taltech.inbankbackend.trace;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decides which decisions are traced and keeps the latest finished traces in a fixed ring, so they can be read
+ * back by id until newer traces take their place. A decision is traced when the client asks for it, or at random
+ * with the sample rate; an untraced decision costs one random number, or nothing with a sample rate of 0.
+ * Storing a trace takes no lock.<br><br>
+ * A trace id is the ring slot of the trace, a hyphen and {@value #SECRET_BYTES} bytes from a {@link SecureRandom}
+ * in URL-safe Base64, so trace ids cannot be guessed, not even from the ids of other traces.
+ */
+public class DecisionTracer {
+
+    private static final int SECRET_BYTES = 16;
+    private static final Base64.Encoder SECRET_ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private final double sampleRate;
+    private final AtomicLong nextSequence = new AtomicLong();
+    // indexed by the slot at the start of the trace id
+    private final AtomicReferenceArray<DecisionTrace> traces;
+    private final SecureRandom secrets;
+
+    /**
+     * @param sampleRate Share of the decisions that are traced without being asked for, between 0 and 1
+     * @param capacity   Number of finished traces that are kept
+     */
+    public DecisionTracer(double sampleRate, int capacity) {
+        this.sampleRate = sampleRate;
+        this.traces = new AtomicReferenceArray<>(capacity);
+        this.secrets = new SecureRandom();
+    }
+
+    private DecisionTracer() {
+        this.sampleRate = 0;
+        this.traces = null;
+        this.secrets = null;
+    }
+
+    /**
+     * @return A tracer that traces nothing, whether the client asks for it or not
+     */
+    public static DecisionTracer disabled() {
+        return new DecisionTracer();
+    }
+
+    public boolean isEnabled() {
+        return traces != null;
+    }
+
+    /**
+     * @param requested   Whether the client asked for the decision to be traced
+     * @param countryCode Requested country code
+     * @return A new trace, or null if the decision is not traced
+     */
+    public DecisionTrace start(boolean requested, Country countryCode) {
+        if (traces == null
+                || !requested && (sampleRate <= 0 || ThreadLocalRandom.current().nextDouble() >= sampleRate)) {
+            return null;
+        }
+        int slot = (int) (nextSequence.getAndIncrement() % traces.length());
+        byte[] secret = new byte[SECRET_BYTES];
+        secrets.nextBytes(secret);
+        return new DecisionTrace(slot + "-" + SECRET_ENCODER.encodeToString(secret), slot, countryCode);
+    }
+
+    /**
+     * Stores a trace once its decision is made, replacing the oldest trace in its slot.
+     *
+     * @param trace    The trace of the decision
+     * @param decision The decision, or null if it failed
+     */
+    public void finish(DecisionTrace trace, Decision decision) {
+        trace.finish(decision);
+        traces.set(trace.getSlot(), trace);
+    }
+
+    /**
+     * @param id Id of a trace
+     * @return The trace, or null if it was never stored or has been replaced by a newer one
+     */
+    public DecisionTraceReport find(String id) {
+        if (traces == null || id == null) {
+            return null;
+        }
+        int separator = id.indexOf('-');
+        int slot;
+        try {
+            slot = separator > 0 ? Integer.parseInt(id, 0, separator, 10) : -1;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (slot < 0 || slot >= traces.length()) {
+            return null;
+        }
+        DecisionTrace trace = traces.get(slot);
+        // compared in constant time, so the time of a miss tells nothing about the id of the stored trace
+        return trace != null && MessageDigest.isEqual(trace.getId().getBytes(StandardCharsets.US_ASCII),
+                id.getBytes(StandardCharsets.US_ASCII)) ? trace.report() : null;
+    }
+}
@@ -0,0 +1,14 @@
+package ee.taltech.inbankbackend.trace;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * One rule step of a decision trace with its explanation.
+ */
+@Getter
+@AllArgsConstructor
+public class TraceRecord {
+    private final String step;
+    private final String explanation;
+}
@@ -0,0 +1,27 @@
+package ee.taltech.inbankbackend.trace;
+
+/**
+ * Rule steps of a decision that a {@link DecisionTrace} records, each with three integer values.
+ */
+public enum TraceStep {
+    /**
+     * The personal code and the requested amount and period were checked: the reason code ordinal, APPROVED if
+     * they are valid, the requested amount and the requested period.
+     */
+    INPUTS,
+    /**
+     * The customer's age was checked: the reason code ordinal, APPROVED if the age allows the loan, the minimum
+     * age in years and the expected lifetime in years of the customer's country and gender.
+     */
+    AGE,
+    /**
+     * The credit modifier was found: its source, see {@link DecisionTrace#CREDIT_REGISTRY}, the modifier and
+     * the ordinal of its credit segment, or -1 if it matches none.
+     */
+    CREDIT_MODIFIER,
+    /**
+     * The offer was read from the offer table: the requested period, the approved period and the approved
+     * amount, both -1 if no loan was found.
+     */
+    OFFER
+}
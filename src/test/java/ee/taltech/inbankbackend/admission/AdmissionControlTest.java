@@ -0,0 +1,174 @@
+package ee.taltech.inbankbackend.admission;
+
+import ee.taltech.inbankbackend.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class holds tests for the admission checks, and a simulated overload that shows the latency of the
+ * admitted requests stays bounded while an unchecked queue grows without limit.
+ */
+class AdmissionControlTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    // the simulated node decides 2000 requests per second on 4 workers and is offered three times that
+    private static final int WORKERS = 4;
+    private static final long SERVICE_NANOS = 2 * MILLIS;
+    private static final long ARRIVAL_NANOS = 1_000_000_000L / 6000;
+    private static final int ARRIVALS = 6000 * 30;
+    private static final long LATENCY_TARGET_NANOS = 20 * MILLIS;
+
+    @Test
+    void testClientIsLimitedToItsBurstAndRate() {
+        AdmissionControl control = new AdmissionControl(10, 5, 100, 0, 1,
+                Duration.ofSeconds(1), 100, 1, 100, Duration.ofSeconds(1));
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 5; i++) {
+            assertTrue(control.tryAdmit("a", now).isAdmitted());
+        }
+        Admission limited = control.tryAdmit("a", now);
+        assertEquals(AdmissionOutcome.CLIENT_RATE_LIMITED, limited.getOutcome());
+        assertEquals(100 * MILLIS, limited.getRetryAfterNanos());
+        // another client has a bucket of its own
+        assertTrue(control.tryAdmit("b", now).isAdmitted());
+        assertTrue(control.tryAdmit("a", now + limited.getRetryAfterNanos()).isAdmitted());
+        assertFalse(control.tryAdmit("a", now + limited.getRetryAfterNanos()).isAdmitted());
+        assertEquals(2, control.stats().getClientRateLimited());
+    }
+
+    @Test
+    void testGlobalBucketLimitsAllClientsTogether() {
+        AdmissionControl control = new AdmissionControl(0, 1, 100, 10, 3,
+                Duration.ofSeconds(1), 100, 1, 100, Duration.ofSeconds(1));
+        long now = System.nanoTime();
+
+        for (int i = 0; i < 3; i++) {
+            assertTrue(control.tryAdmit("client-" + i, now).isAdmitted());
+        }
+        Admission limited = control.tryAdmit("client-3", now);
+        assertEquals(AdmissionOutcome.RATE_LIMITED, limited.getOutcome());
+        assertEquals(100 * MILLIS, limited.getRetryAfterNanos());
+        assertEquals(0, control.stats().getClients());
+    }
+
+    @Test
+    void testFullConcurrencyLimitTurnsRequestsAway() {
+        AdmissionControl control = new AdmissionControl(0, 1, 100, 0, 1,
+                Duration.ofSeconds(1), 2, 2, 2, Duration.ofSeconds(3));
+        long now = System.nanoTime();
+
+        assertTrue(control.tryAdmit("a", now).isAdmitted());
+        assertTrue(control.tryAdmit("a", now).isAdmitted());
+        Admission overloaded = control.tryAdmit("a", now);
+        assertEquals(AdmissionOutcome.OVERLOADED, overloaded.getOutcome());
+        assertEquals(3_000 * MILLIS, overloaded.getRetryAfterNanos());
+        control.release(MILLIS, now + MILLIS);
+        assertTrue(control.tryAdmit("a", now + MILLIS).isAdmitted());
+        assertEquals(2, control.stats().getInFlight());
+    }
+
+    @Test
+    void testTokenBucketGivesEachTokenOnceUnderContention() throws InterruptedException {
+        long now = System.nanoTime();
+        TokenBucket bucket = new TokenBucket(0.001, 10_000, now);
+        AtomicInteger taken = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Thread thread = new Thread(() -> {
+                for (int j = 0; j < 5_000; j++) {
+                    if (bucket.tryTake(now) == 0) {
+                        taken.incrementAndGet();
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(10_000, taken.get());
+    }
+
+    @Test
+    void testQuietClientsAreDroppedWhenClientLimitIsReached() {
+        AdmissionControl control = new AdmissionControl(1000, 1, 2, 0, 1,
+                Duration.ofSeconds(1), 100, 1, 100, Duration.ofSeconds(1));
+        long now = System.nanoTime();
+        control.tryAdmit("a", now);
+        control.tryAdmit("b", now);
+
+        // both buckets are full again two seconds later, so they make room for a new client
+        assertTrue(control.tryAdmit("c", now + 2_000 * MILLIS).isAdmitted());
+        assertEquals(1, control.stats().getClients());
+    }
+
+    @Test
+    void testP99StaysBoundedUnderOverload() {
+        LatencyHistogram unchecked = simulate(AdmissionControl.disabled());
+        AdmissionControl control = new AdmissionControl(0, 1, 100, 0, 1,
+                Duration.ofNanos(LATENCY_TARGET_NANOS), 100, 4, 1000, Duration.ofSeconds(1));
+        LatencyHistogram admitted = simulate(control);
+
+        // without admission control the queue grows by 4000 requests a second, and so does the latency
+        assertTrue(unchecked.valueAtPercentile(0.99) > 10_000 * MILLIS);
+        assertTrue(admitted.valueAtPercentile(0.99) < 2 * LATENCY_TARGET_NANOS,
+                "p99 " + admitted.valueAtPercentile(0.99) / MILLIS + " ms");
+        // the excess is turned away while the node keeps deciding at nearly its full capacity
+        long capacity = ARRIVALS * ARRIVAL_NANOS / SERVICE_NANOS * WORKERS;
+        assertTrue(admitted.count() > capacity * 95 / 100, admitted.count() + " of " + capacity);
+        AdmissionStats stats = control.stats();
+        assertEquals(ARRIVALS - admitted.count(), stats.getOverloaded());
+        assertTrue(stats.getConcurrencyLimit() < 100);
+    }
+
+    /**
+     * Offers requests at a fixed rate, three times what the workers can decide, to a node that queues the
+     * admitted requests in arrival order. Time is simulated, so the test is exact and quick.
+     *
+     * @return Latencies of the admitted requests from arrival until their decision
+     */
+    private static LatencyHistogram simulate(AdmissionControl control) {
+        LatencyHistogram latencies = new LatencyHistogram();
+        long[] workerFreeAt = new long[WORKERS];
+        // completion time and arrival time of every admitted request that is still in flight
+        PriorityQueue<long[]> inFlight = new PriorityQueue<>(Comparator.comparingLong((long[] request) -> request[0]));
+        long start = System.nanoTime();
+        Arrays.fill(workerFreeAt, start);
+        for (int i = 0; i < ARRIVALS; i++) {
+            long now = start + i * ARRIVAL_NANOS;
+            while (!inFlight.isEmpty() && inFlight.peek()[0] - now <= 0) {
+                long[] done = inFlight.poll();
+                control.release(done[0] - done[1], done[0]);
+            }
+            if (!control.tryAdmit("client-" + i % 50, now).isAdmitted()) {
+                continue;
+            }
+            int worker = 0;
+            for (int w = 1; w < WORKERS; w++) {
+                if (workerFreeAt[w] - workerFreeAt[worker] < 0) {
+                    worker = w;
+                }
+            }
+            long completed = Math.max(now, workerFreeAt[worker]) + SERVICE_NANOS;
+            workerFreeAt[worker] = completed;
+            latencies.record(completed - now);
+            inFlight.add(new long[]{completed, now});
+        }
+        return latencies;
+    }
+}
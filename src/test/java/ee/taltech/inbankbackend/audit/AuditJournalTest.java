@@ -0,0 +1,176 @@
+package ee.taltech.inbankbackend.audit;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class holds tests for the audit journal, its recovery and the records each fsync policy can lose.
+ */
+class AuditJournalTest {
+
+    private static final int SEGMENT_BYTES = 1 << 20;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testClosedJournalIsReadBackInOrder() throws IOException {
+        AuditJournal journal = open(FsyncPolicy.BATCH, SEGMENT_BYTES);
+        journal.append("50307172740", Country.EE, 4000L, 24, Decision.approved(2400, 24, "2024-06-01.1"));
+        journal.append("170384-12344", Country.LV, null, 24, Decision.rejected(DecisionReason.INVALID_LOAN_AMOUNT));
+        journal.append("abc", Country.EE, 4000L, 24, Decision.rejected(DecisionReason.INVALID_PERSONAL_CODE));
+        journal.close();
+
+        List<AuditEntry> entries = readAll();
+        assertEquals(3, entries.size());
+        AuditEntry approved = entries.get(0);
+        assertEquals(1, approved.getSequence());
+        assertEquals("50307172740", approved.getPersonalCode());
+        assertEquals(Country.EE, approved.getCountryCode());
+        assertEquals(4000L, approved.getLoanAmount());
+        assertEquals(DecisionReason.APPROVED, approved.getReason());
+        assertEquals(2400, approved.getApprovedLoanAmount());
+        assertEquals(24, approved.getApprovedLoanPeriod());
+        assertEquals("2024-06-01.1", approved.getRulesVersion());
+        AuditEntry latvian = entries.get(1);
+        assertEquals("17038412344", latvian.getPersonalCode());
+        assertEquals(Country.LV, latvian.getCountryCode());
+        assertNull(latvian.getLoanAmount());
+        assertEquals(DecisionReason.INVALID_LOAN_AMOUNT, latvian.getReason());
+        assertNull(entries.get(2).getPersonalCode());
+        assertEquals(3, journal.stats().getDurable());
+    }
+
+    @Test
+    void testRecordsRollOverIntoNewSegments() throws IOException {
+        int recordsPerSegment = 10;
+        AuditJournal journal = open(FsyncPolicy.NONE,
+                AuditJournalFile.HEADER_BYTES + recordsPerSegment * AuditJournalFile.RECORD_BYTES);
+        appendConcurrently(journal, 4, 25);
+        journal.close();
+
+        assertEquals(10, segmentCount());
+        assertSequential(readAll(), 100);
+    }
+
+    @Test
+    void testReopenedJournalContinuesTheSequence() throws IOException {
+        AuditJournal journal = open(FsyncPolicy.BATCH, SEGMENT_BYTES);
+        appendConcurrently(journal, 2, 50);
+        journal.crash();
+
+        AuditJournal reopened = open(FsyncPolicy.BATCH, SEGMENT_BYTES);
+        long written = journal.stats().getWritten();
+        assertEquals(written, reopened.stats().getWritten());
+        appendConcurrently(reopened, 2, 50);
+        reopened.close();
+
+        assertSequential(readAll(), written + 100);
+    }
+
+    @Test
+    void testCrashWithBatchFsyncLosesAtMostOneUnforcedBatch() throws IOException {
+        AuditJournalStats stats = crashDuringLoad(FsyncPolicy.BATCH);
+
+        assertTrue(stats.getWritten() - stats.getDurable() <= AuditJournal.MAXIMUM_BATCH);
+    }
+
+    @Test
+    void testCrashWithIntervalFsyncLosesAtMostOneInterval() throws Exception {
+        AuditJournal journal = AuditJournal.open(directory, FsyncPolicy.INTERVAL, Duration.ofMillis(1),
+                64 * SEGMENT_BYTES, 1024);
+        appendConcurrently(journal, 4, 20_000);
+        // longer than an interval, so the written records are forced while the writer is idle
+        Thread.sleep(100);
+        journal.crash();
+
+        AuditJournalStats stats = journal.stats();
+        assertEquals(80_000, stats.getWritten());
+        assertEquals(80_000, stats.getDurable());
+        assertSequential(readAll(), 80_000);
+    }
+
+    @Test
+    void testCrashWithoutFsyncForcesNothingBeforeSegmentIsFull() throws IOException {
+        AuditJournalStats stats = crashDuringLoad(FsyncPolicy.NONE);
+
+        assertEquals(0, stats.getDurable());
+        assertEquals(0, stats.getForces());
+    }
+
+    /**
+     * Appends from several threads, stops the writer without draining the ring and checks that exactly the
+     * written records can be read back. The durable sequence number is what would survive a power loss.
+     */
+    private AuditJournalStats crashDuringLoad(FsyncPolicy fsyncPolicy) throws IOException {
+        AuditJournal journal = open(fsyncPolicy, 64 * SEGMENT_BYTES);
+        appendConcurrently(journal, 4, 20_000);
+        journal.crash();
+
+        AuditJournalStats stats = journal.stats();
+        assertEquals(80_000, stats.getAppended());
+        assertTrue(stats.getWritten() <= stats.getAppended());
+        assertTrue(stats.getDurable() <= stats.getWritten());
+        assertSequential(readAll(), stats.getWritten());
+        return stats;
+    }
+
+    private AuditJournal open(FsyncPolicy fsyncPolicy, int segmentBytes) throws IOException {
+        return AuditJournal.open(directory, fsyncPolicy, Duration.ofHours(1), segmentBytes, 1024);
+    }
+
+    private static void appendConcurrently(AuditJournal journal, int threads, int recordsPerThread) {
+        Decision decision = Decision.approved(2400, 24);
+        List<Thread> appenders = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread appender = new Thread(() -> {
+                for (int j = 0; j < recordsPerThread; j++) {
+                    journal.append("50307172740", Country.EE, 4000L, 24, decision);
+                }
+            });
+            appender.start();
+            appenders.add(appender);
+        }
+        for (Thread appender : appenders) {
+            try {
+                appender.join();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private List<AuditEntry> readAll() throws IOException {
+        List<AuditEntry> entries = new ArrayList<>();
+        AuditJournalReader.read(directory, entries::add);
+        return entries;
+    }
+
+    private long segmentCount() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(AuditJournalFile::isSegment).count();
+        }
+    }
+
+    private static void assertSequential(List<AuditEntry> entries, long count) {
+        assertEquals(count, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).getSequence());
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package ee.taltech.inbankbackend.binary;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class holds tests for the binary decision protocol listener.
+ */
+class BinaryDecisionServerTest {
+
+    private BinaryDecisionServer server;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (server != null) {
+            server.close();
+        }
+    }
+
+    @Test
+    void testPipelinedRequestsAreAnsweredInOrder() throws IOException {
+        server = BinaryDecisionServer.start(new DecisionEngine(), new InetSocketAddress("127.0.0.1", 0));
+        ByteBuffer requests = ByteBuffer.allocate(3 * BinaryDecisionFrame.REQUEST_BYTES);
+        BinaryDecisionFrame.writeRequest(requests, 1, 50307172740L, 4000, 24, Country.EE);
+        BinaryDecisionFrame.writeRequest(requests, 2, 12345678901L, 4000, 24, Country.EE);
+        BinaryDecisionFrame.writeRequest(requests, 3, 50307172740L, 100, 24, Country.EE);
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(requests.array());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            assertResponse(in, 1, (byte) DecisionReason.APPROVED.ordinal(), 2400, 24);
+            assertResponse(in, 2, (byte) DecisionReason.INVALID_PERSONAL_CODE.ordinal(), 0, 0);
+            assertResponse(in, 3, (byte) DecisionReason.INVALID_LOAN_AMOUNT.ordinal(), 0, 0);
+        }
+    }
+
+    @Test
+    void testFramesSplitAcrossPacketsAreReassembled() throws Exception {
+        server = BinaryDecisionServer.start(new DecisionEngine(), new InetSocketAddress("127.0.0.1", 0));
+        ByteBuffer request = ByteBuffer.allocate(BinaryDecisionFrame.REQUEST_BYTES);
+        // a Latvian code with a leading zero, the hyphen is left out
+        BinaryDecisionFrame.writeRequest(request, 7, 1038412348L, 4000, 24, Country.LV);
+
+        try (Socket socket = connect()) {
+            OutputStream out = socket.getOutputStream();
+            out.write(request.array(), 0, 7);
+            out.flush();
+            Thread.sleep(50);
+            out.write(request.array(), 7, BinaryDecisionFrame.REQUEST_BYTES - 7);
+
+            Decision expected = new DecisionEngine().decide("010384-12348", 4000L, 24, Country.LV);
+            assertResponse(new DataInputStream(socket.getInputStream()), 7, (byte) expected.getReason().ordinal(),
+                    expected.isApproved() ? expected.getLoanAmount() : 0,
+                    expected.isApproved() ? expected.getLoanPeriod() : 0);
+        }
+    }
+
+    @Test
+    void testMalformedRequestDoesNotCloseConnection() throws IOException {
+        server = BinaryDecisionServer.start(new DecisionEngine(), new InetSocketAddress("127.0.0.1", 0));
+        ByteBuffer requests = ByteBuffer.allocate(2 * BinaryDecisionFrame.REQUEST_BYTES);
+        requests.putInt(1).putLong(50307172740L).putInt(4000).putShort((short) 24).put((byte) 9).put((byte) 0);
+        BinaryDecisionFrame.writeRequest(requests, 2, 50307172740L, 4000, 24, Country.EE);
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(requests.array());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            assertResponse(in, 1, BinaryDecisionFrame.MALFORMED_REQUEST, 0, 0);
+            assertResponse(in, 2, (byte) DecisionReason.APPROVED.ordinal(), 2400, 24);
+        }
+    }
+
+    @Test
+    void testMorePipelinedRequestsThanInFlightLimitAreAllAnswered() throws IOException {
+        server = BinaryDecisionServer.start(new DecisionEngine(), new InetSocketAddress("127.0.0.1", 0));
+        int count = BinaryDecisionServer.MAXIMUM_PIPELINED_REQUESTS * 8;
+        ByteBuffer requests = ByteBuffer.allocate(count * BinaryDecisionFrame.REQUEST_BYTES);
+        for (int i = 0; i < count; i++) {
+            BinaryDecisionFrame.writeRequest(requests, i, 50307172740L, 4000, 24, Country.EE);
+        }
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(requests.array());
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < count; i++) {
+                assertResponse(in, i, (byte) DecisionReason.APPROVED.ordinal(), 2400, 24);
+            }
+        }
+    }
+
+    @Test
+    void testSlowDecisionKeepsResponseOrder() throws IOException {
+        CompletableFuture<Decision> slow = new CompletableFuture<>();
+        DecisionEngine decisionEngine = new DecisionEngine() {
+            @Override
+            public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                           Country countryCode) {
+                return loanPeriod == 36 ? slow : super.decideAsync(personalCode, loanAmount, loanPeriod, countryCode);
+            }
+        };
+        server = BinaryDecisionServer.start(decisionEngine, new InetSocketAddress("127.0.0.1", 0));
+        ByteBuffer requests = ByteBuffer.allocate(2 * BinaryDecisionFrame.REQUEST_BYTES);
+        BinaryDecisionFrame.writeRequest(requests, 1, 50307172740L, 4000, 36, Country.EE);
+        BinaryDecisionFrame.writeRequest(requests, 2, 50307172740L, 4000, 24, Country.EE);
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(requests.array());
+            CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS)
+                    .execute(() -> slow.complete(Decision.approved(3600, 36)));
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+
+            assertResponse(in, 1, (byte) DecisionReason.APPROVED.ordinal(), 3600, 36);
+            assertResponse(in, 2, (byte) DecisionReason.APPROVED.ordinal(), 2400, 24);
+        }
+    }
+
+    @Test
+    void testResponsesAreSentAfterClientShutsDownOutput() throws IOException {
+        // every decision completes off the selector thread, like one that waits for the credit bureau
+        DecisionEngine decisionEngine = new DecisionEngine() {
+            @Override
+            public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                           Country countryCode) {
+                return CompletableFuture.supplyAsync(() -> decide(personalCode, loanAmount, loanPeriod, countryCode),
+                        CompletableFuture.delayedExecutor(50, TimeUnit.MILLISECONDS));
+            }
+        };
+        server = BinaryDecisionServer.start(decisionEngine, new InetSocketAddress("127.0.0.1", 0));
+        // more responses than the server buffers, so they cannot all be written before the client reads
+        int count = BinaryDecisionServer.MAXIMUM_PIPELINED_REQUESTS * 4;
+        ByteBuffer requests = ByteBuffer.allocate(count * BinaryDecisionFrame.REQUEST_BYTES);
+        for (int i = 0; i < count; i++) {
+            BinaryDecisionFrame.writeRequest(requests, i, 50307172740L, 4000, 24, Country.EE);
+        }
+
+        try (Socket socket = connect()) {
+            socket.getOutputStream().write(requests.array());
+            socket.shutdownOutput();
+            DataInputStream in = new DataInputStream(socket.getInputStream());
+            for (int i = 0; i < count; i++) {
+                assertResponse(in, i, (byte) DecisionReason.APPROVED.ordinal(), 2400, 24);
+            }
+            assertEquals(-1, in.read());
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket("127.0.0.1", server.getPort());
+        socket.setSoTimeout(5000);
+        return socket;
+    }
+
+    private static void assertResponse(DataInputStream in, int requestId, byte outcome, int loanAmount,
+                                       int loanPeriod) throws IOException {
+        assertEquals(requestId, in.readInt());
+        assertEquals(outcome, in.readByte());
+        in.readByte();
+        assertEquals(loanPeriod, in.readShort());
+        assertEquals(loanAmount, in.readInt());
+    }
+}
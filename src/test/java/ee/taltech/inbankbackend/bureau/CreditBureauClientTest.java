@@ -0,0 +1,144 @@
+package ee.taltech.inbankbackend.bureau;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class holds tests for the credit bureau client against a bureau stub with injected latency and errors.
+ */
+class CreditBureauClientTest {
+
+    private FaultInjectingBureauServer bureau;
+    private CreditBureauClient client;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        bureau = new FaultInjectingBureauServer();
+        bureau.creditModifier("EE", "50307172740", 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (client != null) {
+            client.close();
+        }
+        bureau.close();
+    }
+
+    @Test
+    void testAnswersAreReturned() {
+        client = client(Duration.ofSeconds(2), Duration.ofSeconds(2), 10);
+
+        BureauResult known = client.creditModifier(Country.EE, "50307172740").join();
+        BureauResult unknown = client.creditModifier(Country.EE, "38411266610").join();
+
+        assertEquals(BureauResult.Status.ANSWERED, known.getStatus());
+        assertEquals(1000, known.getCreditModifier());
+        assertEquals(BureauResult.Status.ANSWERED, unknown.getStatus());
+        assertEquals(-1, unknown.getCreditModifier());
+        assertEquals(2, client.stats().getAnswered());
+    }
+
+    @Test
+    void testSlowBureauTimesOutWithinDeadline() {
+        bureau.latencyMillis(request -> 2000);
+        client = client(Duration.ofMillis(200), Duration.ofMillis(50), 10);
+
+        long started = System.nanoTime();
+        BureauResult result = client.creditModifier(Country.EE, "50307172740").join();
+        long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+
+        assertEquals(BureauResult.Status.TIMED_OUT, result.getStatus());
+        assertTrue(elapsedMillis < 1000, "timed out after " + elapsedMillis + " ms");
+        assertEquals(1, client.stats().getTimedOut());
+    }
+
+    @Test
+    void testHedgedRequestAnswersForSlowPrimary() {
+        client = client(Duration.ofMillis(1000), Duration.ofMillis(20), 10);
+        // a first call opens the connection, so the primary request reaches the bureau before the hedged one
+        client.creditModifier(Country.EE, "38411266610").join();
+        // only the primary request is slow, the hedged request answers right away
+        bureau.latencyMillis(request -> request == 1 ? 2000 : 0);
+
+        BureauResult result = client.creditModifier(Country.EE, "50307172740").join();
+
+        assertEquals(BureauResult.Status.ANSWERED, result.getStatus());
+        assertEquals(1000, result.getCreditModifier());
+        assertEquals(1, client.stats().getHedged());
+        assertEquals(1, client.stats().getHedgeWins());
+    }
+
+    @Test
+    void testFullBulkheadFallsBackRightAway() {
+        bureau.latencyMillis(request -> 500);
+        client = client(Duration.ofSeconds(2), Duration.ofSeconds(2), 1);
+
+        CompletableFuture<BureauResult> first = client.creditModifier(Country.EE, "50307172740");
+        BureauResult second = client.creditModifier(Country.EE, "50307172740").join();
+
+        assertEquals(BureauResult.Status.BULKHEAD_FULL, second.getStatus());
+        assertEquals(BureauResult.Status.ANSWERED, first.join().getStatus());
+        assertEquals(1, client.stats().getBulkheadFull());
+    }
+
+    @Test
+    void testErrorsAreRetriedOnceAndThenFail() {
+        bureau.errorStatus(500);
+        client = client(Duration.ofSeconds(2), Duration.ofSeconds(2), 10);
+
+        BureauResult result = client.creditModifier(Country.EE, "50307172740").join();
+
+        assertEquals(BureauResult.Status.FAILED, result.getStatus());
+        assertEquals(2, bureau.requests());
+        assertEquals(1, client.stats().getFailed());
+    }
+
+    @Test
+    void testEngineFallsBackToRegistryWhenBureauTimesOut() {
+        DecisionEngine withBureau = engine(client(Duration.ofSeconds(2), Duration.ofSeconds(2), 10));
+        Decision answered = withBureau.decideAsync("50307172740", 4000L, 24, Country.EE).join();
+        client.close();
+
+        bureau.latencyMillis(request -> 2000);
+        DecisionEngine withSlowBureau = engine(client(Duration.ofMillis(100), Duration.ofMillis(100), 10));
+        Decision fallback = withSlowBureau.decideAsync("50307172740", 4000L, 24, Country.EE).join();
+
+        // the bureau knows the customer as segment 3, the registry derives segment 1 from the code
+        assertEquals(10000, answered.getLoanAmount());
+        assertEquals(1000, answered.getBureauCreditModifier());
+        assertEquals(2400, fallback.getLoanAmount());
+        assertEquals(24, fallback.getLoanPeriod());
+        assertNull(fallback.getBureauCreditModifier());
+    }
+
+    private CreditBureauClient client(Duration deadline, Duration initialHedgeDelay, int maximumConcurrentCalls) {
+        client = new CreditBureauClient(HttpClient.newHttpClient(), new ObjectMapper(), bureau.uri(), deadline,
+                0.95, initialHedgeDelay, maximumConcurrentCalls);
+        return client;
+    }
+
+    private DecisionEngine engine(CreditBureauClient creditBureau) {
+        return new DecisionEngine(new DecisionMetrics(), new ProfileCache(), new SegmentCreditRegistry(),
+                new RuleStore(RuleSnapshot.defaults()), creditBureau);
+    }
+}
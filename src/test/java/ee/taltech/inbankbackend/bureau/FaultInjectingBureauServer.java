@@ -0,0 +1,92 @@
+package ee.taltech.inbankbackend.bureau;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Credit bureau stub for tests. Answers {@code GET /credit/<country>/<code>} from a map of modifiers and can be
+ * told to answer slowly or with an error, per request number, to drive the client's fallbacks.
+ */
+class FaultInjectingBureauServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final Map<String, Integer> creditModifiers = new ConcurrentHashMap<>();
+    private final AtomicInteger requests = new AtomicInteger();
+    // request number to latency in milliseconds
+    private volatile IntUnaryOperator latencyMillis = request -> 0;
+    private volatile int errorStatus;
+
+    FaultInjectingBureauServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/credit/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    URI uri() {
+        return URI.create("http://127.0.0.1:" + server.getAddress().getPort() + "/");
+    }
+
+    void creditModifier(String countryCode, String personalCode, int creditModifier) {
+        creditModifiers.put(countryCode + "/" + personalCode, creditModifier);
+    }
+
+    void latencyMillis(IntUnaryOperator latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    void errorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+    }
+
+    int requests() {
+        return requests.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        int request = requests.getAndIncrement();
+        try (exchange) {
+            long latency = latencyMillis.applyAsInt(request);
+            if (latency > 0) {
+                Thread.sleep(latency);
+            }
+            if (errorStatus != 0) {
+                exchange.sendResponseHeaders(errorStatus, -1);
+                return;
+            }
+            String key = exchange.getRequestURI().getPath().substring("/credit/".length());
+            Integer creditModifier = creditModifiers.get(key);
+            if (creditModifier == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] body = ("{\"creditModifier\":" + creditModifier + "}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
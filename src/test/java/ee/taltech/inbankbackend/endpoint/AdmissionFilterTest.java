@@ -0,0 +1,185 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.admission.AdmissionControl;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the status codes and Retry-After headers of {@link AdmissionFilter}, and that an admitted request is
+ * released exactly once however its asynchronous processing ends.
+ */
+class AdmissionFilterTest {
+
+    private final LoanController controller = new LoanController();
+
+    @Test
+    void testClientOverItsRateGets429() throws Exception {
+        MockMvc mockMvc = mockMvc(new CountingAdmissionControl(1, 0, 1, Duration.ofSeconds(3)));
+
+        mockMvc.perform(get("/loan/sync").header("X-Client-Id", "a")).andExpect(status().isOk());
+        mockMvc.perform(get("/loan/sync").header("X-Client-Id", "a"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.errorMessage").value("Too many requests, retry later."));
+        mockMvc.perform(get("/loan/sync").header("X-Client-Id", "b")).andExpect(status().isOk());
+    }
+
+    @Test
+    void testAllClientsOverGlobalRateGet503() throws Exception {
+        MockMvc mockMvc = mockMvc(new CountingAdmissionControl(0, 1, 1, Duration.ofSeconds(3)));
+
+        mockMvc.perform(get("/loan/sync").header("X-Client-Id", "a")).andExpect(status().isOk());
+        mockMvc.perform(get("/loan/sync").header("X-Client-Id", "b"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "1"))
+                .andExpect(jsonPath("$.errorMessage").value("The service is overloaded, retry later."));
+    }
+
+    @Test
+    void testRequestOverConcurrencyLimitGets503UntilPermitIsReleased() throws Exception {
+        CountingAdmissionControl admissionControl = new CountingAdmissionControl(0, 0, 1, Duration.ofSeconds(3));
+        MockMvc mockMvc = mockMvc(admissionControl);
+
+        MvcResult pending = mockMvc.perform(get("/loan/async")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(get("/loan/sync"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"));
+
+        controller.result.complete("done");
+        mockMvc.perform(asyncDispatch(pending)).andExpect(status().isOk());
+        mockMvc.perform(get("/loan/sync")).andExpect(status().isOk());
+        assertEquals(0, admissionControl.stats().getInFlight());
+    }
+
+    @Test
+    void testPermitIsReleasedOnceByAsyncDispatchAndCompletion() throws Exception {
+        CountingAdmissionControl admissionControl = new CountingAdmissionControl(0, 0, 10, Duration.ofSeconds(1));
+        MockMvc mockMvc = mockMvc(admissionControl);
+
+        MvcResult pending = mockMvc.perform(get("/loan/async")).andExpect(request().asyncStarted()).andReturn();
+        assertEquals(0, admissionControl.releases.get());
+        controller.result.complete("done");
+        mockMvc.perform(asyncDispatch(pending)).andExpect(status().isOk());
+        asyncContext(pending).complete();
+
+        assertEquals(1, admissionControl.releases.get());
+        assertEquals(0, admissionControl.stats().getInFlight());
+    }
+
+    @Test
+    void testPermitIsReleasedOnceWhenAsyncRequestTimesOut() throws Exception {
+        CountingAdmissionControl admissionControl = new CountingAdmissionControl(0, 0, 10, Duration.ofSeconds(1));
+        MockMvc mockMvc = mockMvc(admissionControl);
+
+        MvcResult pending = mockMvc.perform(get("/loan/async")).andExpect(request().asyncStarted()).andReturn();
+        MockAsyncContext asyncContext = asyncContext(pending);
+        for (AsyncListener listener : List.copyOf(asyncContext.getListeners())) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+        assertEquals(0, admissionControl.releases.get());
+        mockMvc.perform(asyncDispatch(pending)).andExpect(status().isServiceUnavailable());
+        asyncContext.complete();
+
+        assertEquals(1, admissionControl.releases.get());
+        assertEquals(0, admissionControl.stats().getInFlight());
+    }
+
+    @Test
+    void testPermitIsReleasedOnceWhenAsyncRequestFails() throws Exception {
+        CountingAdmissionControl admissionControl = new CountingAdmissionControl(0, 0, 10, Duration.ofSeconds(1));
+        MockMvc mockMvc = mockMvc(admissionControl);
+
+        MvcResult pending = mockMvc.perform(get("/loan/async")).andExpect(request().asyncStarted()).andReturn();
+        MockAsyncContext asyncContext = asyncContext(pending);
+        for (AsyncListener listener : List.copyOf(asyncContext.getListeners())) {
+            listener.onError(new AsyncEvent(asyncContext, new IOException("Connection reset")));
+        }
+        assertEquals(0, admissionControl.releases.get());
+        // the container completes a failed request without an async dispatch
+        asyncContext.complete();
+        asyncContext.complete();
+
+        assertEquals(1, admissionControl.releases.get());
+        assertEquals(0, admissionControl.stats().getInFlight());
+    }
+
+    @Test
+    void testOtherPathsAreNotChecked() throws Exception {
+        CountingAdmissionControl admissionControl = new CountingAdmissionControl(0, 0, 10, Duration.ofSeconds(1));
+        MockMvc mockMvc = mockMvc(admissionControl);
+
+        mockMvc.perform(get("/other")).andExpect(status().isOk());
+        assertEquals(0, admissionControl.stats().getAdmitted());
+    }
+
+    private MockMvc mockMvc(AdmissionControl admissionControl) {
+        return MockMvcBuilders.standaloneSetup(controller)
+                .addFilters(new AdmissionFilter(admissionControl, "X-Client-Id"))
+                .build();
+    }
+
+    private static MockAsyncContext asyncContext(MvcResult result) {
+        return (MockAsyncContext) result.getRequest().getAsyncContext();
+    }
+
+    /**
+     * Admission control that counts how often an admitted request is released.
+     */
+    private static final class CountingAdmissionControl extends AdmissionControl {
+        private final AtomicInteger releases = new AtomicInteger();
+
+        private CountingAdmissionControl(double clientRate, double globalRate, int concurrencyLimit,
+                                         Duration overloadRetryAfter) {
+            super(clientRate, 1, 10, globalRate, 1, Duration.ofSeconds(10), concurrencyLimit, concurrencyLimit,
+                    concurrencyLimit, overloadRetryAfter);
+        }
+
+        @Override
+        public void release(long latencyNanos, long nowNanos) {
+            releases.incrementAndGet();
+            super.release(latencyNanos, nowNanos);
+        }
+    }
+
+    @RestController
+    static class LoanController {
+        private final CompletableFuture<String> result = new CompletableFuture<>();
+
+        @GetMapping("/loan/sync")
+        String sync() {
+            return "done";
+        }
+
+        @GetMapping("/loan/async")
+        CompletableFuture<String> async() {
+            return result;
+        }
+
+        @GetMapping("/other")
+        String other() {
+            return "done";
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.github.vladislavgoltjajev.personalcode.common.Gender;
+import com.github.vladislavgoltjajev.personalcode.exception.PersonalCodeException;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeGenerator;
+import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeGenerator;
+import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeGenerator;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.DecisionCoalescer;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.shadow.ShadowEvaluator;
+import ee.taltech.inbankbackend.trace.DecisionTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class fires thousands of mixed requests at the decision path at the same time and checks that
+ * every response belongs to its own request.
+ */
+class DecisionEngineControllerConcurrencyTest {
+
+    private static final int CUSTOMERS = 300;
+    private static final int REQUESTS = 20_000;
+    private static final int THREADS = 32;
+
+    private final Random random = new Random(42L);
+    private ExecutorService executor;
+    private DecisionEngineController controller;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        DecisionEngine decisionEngine = new DecisionEngine();
+        controller = new DecisionEngineController(decisionEngine, new DecisionCoalescer(decisionEngine), executor,
+                ShadowEvaluator.disabled(), new DecisionTracer(0, 1));
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenConcurrentMixedRequests_whenRequestDecision_thenEveryResponseMatchesItsRequest() throws Exception {
+        List<DecisionRequest> customers = generateCustomers();
+        List<DecisionRequest> requests = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            DecisionRequest customer = customers.get(random.nextInt(customers.size()));
+            requests.add(new DecisionRequest(customer.getPersonalCode(), 1500L + random.nextInt(9000),
+                    10 + random.nextInt(53), customer.getCountryCode()));
+        }
+
+        // expected outcomes are computed one at a time before any concurrency
+        List<String> expected = new ArrayList<>(REQUESTS);
+        for (DecisionRequest request : requests) {
+            expected.add(outcome(controller.requestDecision(request, null).join()));
+        }
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<String>> actual = new ArrayList<>(REQUESTS);
+        for (DecisionRequest request : requests) {
+            actual.add(executor.submit(() -> {
+                start.await();
+                return outcome(controller.requestDecision(request, null).join());
+            }));
+        }
+        start.countDown();
+
+        for (int i = 0; i < REQUESTS; i++) {
+            assertEquals(expected.get(i), actual.get(i).get(), "request " + i);
+        }
+    }
+
+    private List<DecisionRequest> generateCustomers() throws PersonalCodeException {
+        EstonianPersonalCodeGenerator estonianGenerator = new EstonianPersonalCodeGenerator();
+        LithuanianPersonalCodeGenerator lithuanianGenerator = new LithuanianPersonalCodeGenerator();
+        LatvianPersonalCodeGenerator latvianGenerator = new LatvianPersonalCodeGenerator();
+
+        List<DecisionRequest> customers = new ArrayList<>(CUSTOMERS + 3);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            Gender gender = random.nextBoolean() ? Gender.FEMALE : Gender.MALE;
+            LocalDate birthDate = LocalDate.of(1940, 1, 1).plusDays(random.nextInt(365 * 76));
+            switch (i % 3) {
+                case 0:
+                    customers.add(new DecisionRequest(estonianGenerator.generatePersonalCode(gender, birthDate), 0L, 0, Country.EE));
+                    break;
+                case 1:
+                    customers.add(new DecisionRequest(lithuanianGenerator.generatePersonalCode(gender, birthDate), 0L, 0, Country.LT));
+                    break;
+                default:
+                    customers.add(new DecisionRequest(latvianGenerator.generateLegacyPersonalCode(birthDate), 0L, 0, Country.LV));
+            }
+        }
+        // invalid codes and codes of the wrong country
+        customers.add(new DecisionRequest("12345678901", 0L, 0, Country.EE));
+        customers.add(new DecisionRequest("50307172740", 0L, 0, Country.LV));
+        customers.add(new DecisionRequest("37605030299", 0L, 0, Country.EE));
+        return customers;
+    }
+
+    private static String outcome(ResponseEntity<DecisionResponse> response) {
+        DecisionResponse body = Objects.requireNonNull(response.getBody());
+        return response.getStatusCode().value() + "/" + body.getLoanAmount() + "/" + body.getLoanPeriod() + "/" + body.getErrorMessage();
+    }
+}
@@ -2,12 +2,11 @@ package ee.taltech.inbankbackend.endpoint;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import ee.taltech.inbankbackend.common.Country;
-import ee.taltech.inbankbackend.exceptions.InvalidLoanAmountException;
-import ee.taltech.inbankbackend.exceptions.InvalidLoanPeriodException;
-import ee.taltech.inbankbackend.exceptions.InvalidPersonalCodeException;
-import ee.taltech.inbankbackend.exceptions.NoValidLoanException;
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
 import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
 import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.OfferCurve;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -20,9 +19,16 @@ import org.springframework.http.MediaType;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -53,14 +59,13 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenValidRequest_whenRequestDecision_thenReturnsExpectedResponse()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        Decision decision = new Decision(1000, 12, null);
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any())).thenReturn(decision);
+            throws Exception {
+        Decision decision = Decision.approved(1000, 12);
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any())).thenReturn(CompletableFuture.completedFuture(decision));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isOk())
@@ -82,27 +87,26 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenInvalidPersonalCode_whenRequestDecision_thenReturnsBadRequest()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any()))
-                .thenThrow(new InvalidPersonalCodeException("Invalid personal code"));
+            throws Exception {
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.INVALID_PERSONAL_CODE)));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.loanAmount").isEmpty())
                 .andExpect(jsonPath("$.loanPeriod").isEmpty())
-                .andExpect(jsonPath("$.errorMessage").value("Invalid personal code"))
+                .andExpect(jsonPath("$.errorMessage").value("Invalid personal ID code!"))
                 .andReturn();
 
         DecisionResponse response = objectMapper.readValue(result.getResponse().getContentAsString(), DecisionResponse.class);
         assert response.getLoanAmount() == null;
         assert response.getLoanPeriod() == null;
-        assert response.getErrorMessage().equals("Invalid personal code");
+        assert response.getErrorMessage().equals("Invalid personal ID code!");
     }
 
     /**
@@ -111,27 +115,26 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenInvalidLoanAmount_whenRequestDecision_thenReturnsBadRequest()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any()))
-                .thenThrow(new InvalidLoanAmountException("Invalid loan amount"));
+            throws Exception {
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.INVALID_LOAN_AMOUNT)));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.loanAmount").isEmpty())
                 .andExpect(jsonPath("$.loanPeriod").isEmpty())
-                .andExpect(jsonPath("$.errorMessage").value("Invalid loan amount"))
+                .andExpect(jsonPath("$.errorMessage").value("Invalid loan amount!"))
                 .andReturn();
 
         DecisionResponse response = objectMapper.readValue(result.getResponse().getContentAsString(), DecisionResponse.class);
         assert response.getLoanAmount() == null;
         assert response.getLoanPeriod() == null;
-        assert response.getErrorMessage().equals("Invalid loan amount");
+        assert response.getErrorMessage().equals("Invalid loan amount!");
     }
 
     /**
@@ -140,27 +143,26 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenInvalidLoanPeriod_whenRequestDecision_thenReturnsBadRequest()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any()))
-                .thenThrow(new InvalidLoanPeriodException("Invalid loan period"));
+            throws Exception {
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.INVALID_LOAN_PERIOD)));
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isBadRequest())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.loanAmount").isEmpty())
                 .andExpect(jsonPath("$.loanPeriod").isEmpty())
-                .andExpect(jsonPath("$.errorMessage").value("Invalid loan period"))
+                .andExpect(jsonPath("$.errorMessage").value("Invalid loan period!"))
                 .andReturn();
 
         DecisionResponse response = objectMapper.readValue(result.getResponse().getContentAsString(), DecisionResponse.class);
         assert response.getLoanAmount() == null;
         assert response.getLoanPeriod() == null;
-        assert response.getErrorMessage().equals("Invalid loan period");
+        assert response.getErrorMessage().equals("Invalid loan period!");
     }
 
     /**
@@ -169,27 +171,26 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenNoValidLoan_whenRequestDecision_thenReturnsBadRequest()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any()))
-                .thenThrow(new NoValidLoanException("No valid loan available"));
+            throws Exception {
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.NO_VALID_LOAN)));
 
         DecisionRequest request = new DecisionRequest("1234", 1000L, 12, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isNotFound())
                 .andExpect(content().contentType(MediaType.APPLICATION_JSON))
                 .andExpect(jsonPath("$.loanAmount").isEmpty())
                 .andExpect(jsonPath("$.loanPeriod").isEmpty())
-                .andExpect(jsonPath("$.errorMessage").value("No valid loan available"))
+                .andExpect(jsonPath("$.errorMessage").value("No valid loan found!"))
                 .andReturn();
 
         DecisionResponse response = objectMapper.readValue(result.getResponse().getContentAsString(), DecisionResponse.class);
         assert response.getLoanAmount() == null;
         assert response.getLoanPeriod() == null;
-        assert response.getErrorMessage().equals("No valid loan available");
+        assert response.getErrorMessage().equals("No valid loan found!");
     }
 
     /**
@@ -198,13 +199,12 @@ public class DecisionEngineControllerTest {
      */
     @Test
     public void givenUnexpectedError_whenRequestDecision_thenReturnsInternalServerError()
-            throws Exception, InvalidLoanPeriodException, NoValidLoanException, InvalidPersonalCodeException,
-            InvalidLoanAmountException {
-        when(decisionEngine.calculateApprovedLoan(anyString(), anyLong(), anyInt(), any())).thenThrow(new RuntimeException());
+            throws Exception {
+        when(decisionEngine.decideAsync(anyString(), anyLong(), anyInt(), any())).thenThrow(new RuntimeException());
 
         DecisionRequest request = new DecisionRequest("1234", 10L, 10, Country.EE);
 
-        MvcResult result = mockMvc.perform(post("/loan/decision")
+        MvcResult result = perform(post("/loan/decision")
                         .content(objectMapper.writeValueAsString(request))
                         .contentType(MediaType.APPLICATION_JSON))
                 .andExpect(status().isInternalServerError())
@@ -219,4 +219,106 @@ public class DecisionEngineControllerTest {
         assert response.getLoanPeriod() == null;
         assert response.getErrorMessage().equals("An unexpected error occurred");
     }
+
+    /**
+     * This test ensures that the batch endpoint answers every item in request order with its own status,
+     * and that a failing item does not affect the others.
+     */
+    @Test
+    public void givenMixedBatch_whenRequestDecisions_thenReturnsItemsInOrder()
+            throws Exception {
+        when(decisionEngine.decideAsync(eq("valid"), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.approved(2400, 24)));
+        when(decisionEngine.decideAsync(eq("invalid"), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.INVALID_PERSONAL_CODE)));
+        when(decisionEngine.decideAsync(eq("debtor"), anyLong(), anyInt(), any()))
+                .thenReturn(CompletableFuture.completedFuture(Decision.rejected(DecisionReason.DEBT)));
+
+        List<DecisionRequest> requests = List.of(
+                new DecisionRequest("valid", 5000L, 24, Country.EE),
+                new DecisionRequest("invalid", 5000L, 24, Country.EE),
+                new DecisionRequest("debtor", 5000L, 24, Country.LT),
+                new DecisionRequest("valid", 5000L, 24, Country.LV));
+
+        perform(post("/loan/decisions")
+                        .content(objectMapper.writeValueAsString(requests))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(4))
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[0].loanAmount").value(2400))
+                .andExpect(jsonPath("$[0].loanPeriod").value(24))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[1].loanAmount").isEmpty())
+                .andExpect(jsonPath("$[1].errorMessage").value("Invalid personal ID code!"))
+                .andExpect(jsonPath("$[2].status").value(404))
+                .andExpect(jsonPath("$[2].errorMessage").value("Loan cannot be acquired due to a debt!"))
+                .andExpect(jsonPath("$[3].status").value(200))
+                .andExpect(jsonPath("$[3].loanAmount").value(2400));
+    }
+
+    /**
+     * This test ensures that a batch over the maximum batch size is rejected with
+     * an HTTP Payload Too Large (413) response.
+     */
+    @Test
+    public void givenOversizedBatch_whenRequestDecisions_thenReturnsPayloadTooLarge() throws Exception {
+        List<DecisionRequest> requests = new ArrayList<>();
+        for (int i = 0; i <= DecisionEngineConstants.MAXIMUM_BATCH_SIZE; i++) {
+            requests.add(new DecisionRequest("1234", 5000L, 24, Country.EE));
+        }
+
+        perform(post("/loan/decisions")
+                        .content(objectMapper.writeValueAsString(requests))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    /**
+     * This test ensures that the /loan/offers endpoint returns every offer of the curve in one response.
+     */
+    @Test
+    public void givenValidCustomer_whenRequestOffers_thenReturnsEveryOffer() throws Exception {
+        when(decisionEngine.offerCurve(anyString(), any())).thenReturn(CompletableFuture.completedFuture(
+                OfferCurve.of(List.of(Decision.approved(2000, 20), Decision.approved(2100, 21)), "default")));
+
+        perform(post("/loan/offers")
+                        .content(objectMapper.writeValueAsString(new OfferRequest("50307172740", Country.EE)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.offers.length()").value(2))
+                .andExpect(jsonPath("$.offers[0].loanAmount").value(2000))
+                .andExpect(jsonPath("$.offers[0].loanPeriod").value(20))
+                .andExpect(jsonPath("$.offers[1].loanAmount").value(2100))
+                .andExpect(jsonPath("$.offers[1].loanPeriod").value(21))
+                .andExpect(jsonPath("$.errorMessage").isEmpty())
+                .andExpect(jsonPath("$.rulesVersion").value("default"));
+    }
+
+    /**
+     * This test ensures that a customer without any loan gets the status and error message of the decision.
+     */
+    @Test
+    public void givenDebtor_whenRequestOffers_thenReturnsNotFound() throws Exception {
+        when(decisionEngine.offerCurve(anyString(), any())).thenReturn(CompletableFuture.completedFuture(
+                OfferCurve.rejected(Decision.rejected(DecisionReason.DEBT))));
+
+        perform(post("/loan/offers")
+                        .content(objectMapper.writeValueAsString(new OfferRequest("37605030299", Country.EE)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$.offers.length()").value(0))
+                .andExpect(jsonPath("$.errorMessage").value("Loan cannot be acquired due to a debt!"));
+    }
+
+    /**
+     * Performs a request against an asynchronous endpoint and dispatches its result.
+     */
+    private ResultActions perform(MockHttpServletRequestBuilder builder) throws Exception {
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started));
+    }
 }
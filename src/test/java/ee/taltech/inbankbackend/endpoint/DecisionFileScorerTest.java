@@ -0,0 +1,95 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * This class holds tests for the headless file scorer.
+ */
+class DecisionFileScorerTest {
+
+    @TempDir
+    Path directory;
+
+    private ObjectMapper objectMapper;
+    private ExecutorService executor;
+    private DecisionFileScorer scorer;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        executor = Executors.newFixedThreadPool(2);
+        scorer = new DecisionFileScorer(new DecisionEngine(), objectMapper, executor, "", "");
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void givenNdjsonFile_whenScore_thenWritesOneResultPerLineInOrder() throws Exception {
+        Path input = directory.resolve("requests.ndjson");
+        Path output = directory.resolve("results.ndjson");
+        Files.write(input, List.of(
+                "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":12,\"countryCode\":\"EE\"}",
+                "{\"personalCode\":\"12345678901\",\"loanAmount\":4000,\"loanPeriod\":12,\"countryCode\":\"EE\"}",
+                "not json",
+                "",
+                "{\"personalCode\":\"37605030299\",\"loanAmount\":4000,\"loanPeriod\":12,\"countryCode\":\"EE\"}"));
+
+        long records = scorer.score(input, output);
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals(5, records);
+        assertEquals(5, results.size());
+        JsonNode approved = objectMapper.readTree(results.get(0));
+        assertEquals(200, approved.get("status").asInt());
+        assertEquals(2000, approved.get("loanAmount").asInt());
+        assertEquals(20, approved.get("loanPeriod").asInt());
+        assertEquals("default", approved.get("rulesVersion").asText());
+        assertEquals(400, objectMapper.readTree(results.get(1)).get("status").asInt());
+        assertEquals("Malformed record", objectMapper.readTree(results.get(2)).get("errorMessage").asText());
+        assertEquals("", results.get(3));
+        assertEquals(404, objectMapper.readTree(results.get(4)).get("status").asInt());
+    }
+
+    @Test
+    void givenLargeCsvFile_whenScore_thenKeepsInputOrderAcrossChunks() throws Exception {
+        Path input = directory.resolve("requests.csv");
+        Path output = directory.resolve("results.csv");
+        List<String> lines = new ArrayList<>();
+        lines.add("personalCode,loanAmount,loanPeriod,countryCode");
+        int records = DecisionFileScorer.CHUNK_SIZE * 5 + 7;
+        for (int i = 0; i < records; i++) {
+            // alternate an approved segment 3 customer with a debtor so that misordered chunks are detected
+            lines.add(i % 2 == 0 ? "35006069515,4000,12,EE" : "37605030299,4000,12,EE");
+        }
+        Files.write(input, lines);
+
+        assertEquals(records, scorer.score(input, output));
+
+        List<String> results = Files.readAllLines(output);
+        assertEquals("status,loanAmount,loanPeriod,errorMessage,rulesVersion", results.get(0));
+        assertEquals(records + 1, results.size());
+        for (int i = 0; i < records; i++) {
+            String expected = i % 2 == 0 ? "200,10000,12,,default" : "404,,,\"Loan cannot be acquired due to a debt!\",default";
+            assertEquals(expected, results.get(i + 1));
+        }
+    }
+}
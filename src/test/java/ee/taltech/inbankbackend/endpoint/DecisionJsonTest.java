@@ -0,0 +1,278 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * This class holds conformance tests of the hand-rolled decision JSON codec against Jackson: every body must
+ * be read into the same request or rejected just like Jackson does, and every response must be written byte
+ * for byte like Jackson writes it.
+ */
+class DecisionJsonTest {
+
+    // bodies the hand-rolled reader parses on its own
+    private static final List<String> PLAIN_BODIES = List.of(
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"countryCode\":\"LV\",\"loanPeriod\":60,\"loanAmount\":10000,\"personalCode\":\"170384-15000\"}",
+            " {\n\t\"personalCode\" : \"38411266610\" ,\r\n \"loanAmount\" : 2000 , \"loanPeriod\":12,"
+                    + "\"countryCode\":\"LT\" }\n",
+            "{\"personalCode\":null,\"loanAmount\":null,\"loanPeriod\":null,\"countryCode\":null}",
+            "{\"personalCode\":\"50307172740\",\"loanPeriod\":24}",
+            "{}",
+            "{ }",
+            "{\"loanAmount\":-5,\"loanPeriod\":-0}",
+            "{\"loanAmount\":0,\"loanPeriod\":0}",
+            "{\"loanAmount\":999999999999999999,\"loanPeriod\":999999999}",
+            "{\"personalCode\":\"\",\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"a b/c\u007f\",\"countryCode\":\"LT\"}");
+
+    // bodies left to Jackson, whether it accepts them or not
+    private static final List<String> OTHER_BODIES = List.of(
+            // valid JSON outside of the plain bodies
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":\"4000\",\"loanPeriod\":\"24\",\"countryCode\":\"EE\"}",
+            "{\"personalCode\":50307172740,\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"5030717274\\u0030\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"\u00e4\u20ac\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4000.0,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4000.7,\"loanPeriod\":24.2,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4e3,\"loanPeriod\":24,\"countryCode\":\"EE\"}",
+            "{\"personalCode\":\"50307172740\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\",\"x\":[1,{}]}",
+            "{\"extra\":true,\"personalCode\":\"50307172740\"}",
+            "{\"personalCode\":\"1\",\"personalCode\":\"2\"}",
+            "{\"loanAmount\":1000000000000000000}",
+            "{\"loanAmount\":9223372036854775807}",
+            "{\"loanAmount\":9223372036854775808}",
+            "{\"loanPeriod\":2147483647}",
+            "{\"loanPeriod\":2147483648}",
+            "{\"loanAmount\":\"\",\"loanPeriod\":\"\"}",
+            "{\"loanAmount\":true}",
+            "{\"countryCode\":0}",
+            "{\"countryCode\":\"1\"}",
+            "{\"countryCode\":\"ee\"}",
+            "{\"countryCode\":\"XX\"}",
+            "{\"countryCode\":\"\"}",
+            "{\"countryCode\":\" EE\"}",
+            "{\"countryCode\":[\"EE\"]}",
+            "{\"personalCode\":[\"50307172740\"]}",
+            "{\"personalCode\":{}}",
+            "{\"personalCode\":\"50307172740\"} trailing",
+            "{\"personalCode\":\"50307172740\"}{}",
+            "\uFEFF{\"personalCode\":\"50307172740\"}",
+            // malformed JSON
+            "",
+            "   ",
+            "null",
+            "[]",
+            "42",
+            "\"text\"",
+            "{",
+            "}",
+            "{\"personalCode\"}",
+            "{\"personalCode\":}",
+            "{\"personalCode\" \"50307172740\"}",
+            "{\"personalCode\":\"50307172740\",}",
+            "{,\"personalCode\":\"50307172740\"}",
+            "{\"personalCode\":\"50307172740\" \"loanAmount\":4000}",
+            "{'personalCode':'50307172740'}",
+            "{personalCode:\"50307172740\"}",
+            "{\"personalCode\":\"50307172740}",
+            "{\"personalCode\":\"503\n07172740\"}",
+            "{\"personalCode\":\"\\x\"}",
+            "{\"personalCode\":nul}",
+            "{\"personalCode\":nullx}",
+            "{\"personalCode\":NULL}",
+            "{\"loanAmount\":0123}",
+            "{\"loanAmount\":+5}",
+            "{\"loanAmount\":-}",
+            "{\"loanAmount\":--5}",
+            "{\"loanAmount\":NaN}",
+            "{\"loanAmount\":1e999}",
+            "{\"loanAmount\":.5}",
+            "{\"loanAmount\":5.}",
+            "{\"countryCode\":\"EE}",
+            "{\"countryCode\":EE}");
+
+    private ObjectMapper objectMapper;
+    private DecisionJsonConverter converter;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        converter = new DecisionJsonConverter(objectMapper,
+                new DecisionResponseCache(new RuleStore(RuleSnapshot.defaults())));
+    }
+
+    @Test
+    void testPlainBodiesAreReadWithoutJackson() throws IOException {
+        for (String body : PLAIN_BODIES) {
+            assertNotNull(DecisionJson.readRequest(bytes(body)), body);
+            assertReadLikeJackson(bytes(body));
+        }
+    }
+
+    @Test
+    void testOtherBodiesAreReadOrRejectedLikeJackson() throws IOException {
+        for (String body : OTHER_BODIES) {
+            assertNull(DecisionJson.readRequest(bytes(body)), body);
+            assertReadLikeJackson(bytes(body));
+        }
+        assertReadLikeJackson(new byte[]{'{', '"', 'p', (byte) 0xC3, '"', ':', '1', '}'});
+        assertReadLikeJackson(new byte[]{'{', '"', 'p', 'e', 'r', '"', ':', '"', (byte) 0xFF, '"', '}'});
+    }
+
+    @Test
+    void testMutatedBodiesAreReadOrRejectedLikeJackson() throws IOException {
+        byte[] alphabet = bytes("{}[]\":,-.0159eEnulLTVtr \\x");
+        Random random = new Random(7L);
+        for (int i = 0; i < 20_000; i++) {
+            byte[] body = bytes(PLAIN_BODIES.get(random.nextInt(PLAIN_BODIES.size())));
+            for (int mutations = 1 + random.nextInt(3); mutations > 0; mutations--) {
+                body = mutate(body, random, alphabet);
+            }
+            assertReadLikeJackson(body);
+        }
+    }
+
+    @Test
+    void testOtherCharsetIsDecodedBeforeReading() throws IOException {
+        String body = "{\"personalCode\":\"\u00e4\",\"loanAmount\":4000,\"loanPeriod\":24,\"countryCode\":\"EE\"}";
+        MockHttpInputMessage message = new MockHttpInputMessage(body.getBytes(StandardCharsets.ISO_8859_1));
+        message.getHeaders().setContentType(new MediaType("application", "json", StandardCharsets.ISO_8859_1));
+
+        DecisionRequest request = (DecisionRequest) converter.read(DecisionRequest.class, message);
+
+        assertEquals("\u00e4", request.getPersonalCode());
+    }
+
+    @Test
+    void testConverterOnlyHandlesDecisionBodies() {
+        assertTrue(converter.canRead(DecisionRequest.class, MediaType.APPLICATION_JSON));
+        assertTrue(converter.canWrite(DecisionResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(DecisionRequest.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(DecisionResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(OfferRequest.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canWrite(BatchDecisionResponse.class, MediaType.APPLICATION_JSON));
+        assertFalse(converter.canRead(DecisionRequest.class, MediaType.APPLICATION_XML));
+    }
+
+    @Test
+    void testResponsesAreWrittenLikeJackson() throws IOException {
+        List<DecisionResponse> responses = List.of(
+                new DecisionResponse(2400, 24, null, "default"),
+                new DecisionResponse(null, null, "No valid loan found!", "2024-06-01.1"),
+                new DecisionResponse(null, null, null, null),
+                new DecisionResponse(0, -1, "", ""),
+                new DecisionResponse(Integer.MAX_VALUE, Integer.MIN_VALUE, "a", "b"),
+                new DecisionResponse(10, 100, "quote \" backslash \\ slash /", "v"),
+                new DecisionResponse(9, 99, "\u0000\u0001\b\t\n\u000b\f\r\u001f\u007f", "v"),
+                new DecisionResponse(999, 1000, "\u00e4\u00f5\u00fc \u20ac \ud83d\ude00", "v"),
+                new DecisionResponse(12345, 60, "Your age plus specified loan period exceeds expected 78 years life "
+                        + "time in your country. Try to request smaller loan period", "default"));
+        for (DecisionResponse response : responses) {
+            ByteArrayOutputStream written = new ByteArrayOutputStream();
+            DecisionJson.writeResponse(response, written);
+            byte[] expected = objectMapper.writeValueAsBytes(response);
+            assertArrayEquals(expected, written.toByteArray(), new String(expected, StandardCharsets.UTF_8));
+
+            MockHttpOutputMessage message = new MockHttpOutputMessage();
+            converter.write(response, MediaType.APPLICATION_JSON, message);
+            assertArrayEquals(expected, message.getBodyAsBytes());
+            assertEquals(MediaType.APPLICATION_JSON, message.getHeaders().getContentType());
+        }
+    }
+
+    /**
+     * Reads the body with the converter and with Jackson, and checks that both give the same request or both
+     * reject the body.
+     */
+    private void assertReadLikeJackson(byte[] body) throws IOException {
+        String description = new String(body, StandardCharsets.UTF_8);
+        DecisionRequest expected;
+        try {
+            expected = objectMapper.readValue(body, DecisionRequest.class);
+        } catch (IOException e) {
+            assertThrows(HttpMessageNotReadableException.class, () -> read(body), description);
+            return;
+        }
+        DecisionRequest actual;
+        try {
+            actual = read(body);
+        } catch (HttpMessageNotReadableException e) {
+            fail("Jackson accepts " + description + " but the converter throws " + e.getMessage());
+            return;
+        }
+        if (expected == null) {
+            // a JSON null is read as a missing body
+            assertNull(actual, description);
+            return;
+        }
+        assertEquals(expected.getPersonalCode(), actual.getPersonalCode(), description);
+        assertEquals(expected.getLoanAmount(), actual.getLoanAmount(), description);
+        assertEquals(expected.getLoanPeriod(), actual.getLoanPeriod(), description);
+        assertEquals(expected.getCountryCode(), actual.getCountryCode(), description);
+    }
+
+    private DecisionRequest read(byte[] body) throws IOException {
+        HttpInputMessage message = new MockHttpInputMessage(body);
+        message.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return (DecisionRequest) converter.read(DecisionRequest.class, message);
+    }
+
+    private static byte[] mutate(byte[] body, Random random, byte[] alphabet) {
+        int position = random.nextInt(body.length + 1);
+        byte value = alphabet[random.nextInt(alphabet.length)];
+        byte[] mutated;
+        switch (random.nextInt(3)) {
+            case 0 -> {
+                mutated = new byte[body.length + 1];
+                System.arraycopy(body, 0, mutated, 0, position);
+                mutated[position] = value;
+                System.arraycopy(body, position, mutated, position + 1, body.length - position);
+            }
+            case 1 -> {
+                if (position == body.length) {
+                    return body;
+                }
+                mutated = new byte[body.length - 1];
+                System.arraycopy(body, 0, mutated, 0, position);
+                System.arraycopy(body, position + 1, mutated, position, body.length - position - 1);
+            }
+            default -> {
+                if (body.length == 0) {
+                    return new byte[]{value};
+                }
+                mutated = body.clone();
+                mutated[Math.min(position, body.length - 1)] = value;
+            }
+        }
+        return mutated;
+    }
+
+    private static byte[] bytes(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,127 @@
+package ee.taltech.inbankbackend.endpoint;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * This class holds tests for the cached response bodies, which must be the bytes the response is serialized to.
+ */
+class DecisionResponseCacheTest {
+
+    private static final String STRICTER_RULES = """
+            rules.version=2024-06-01.1
+            loan.minimum-amount=2000
+            loan.maximum-amount=8000
+            loan.minimum-period=12
+            loan.maximum-period=48
+            credit-modifier.segment-1=100
+            credit-modifier.segment-2=300
+            credit-modifier.segment-3=1000
+            age.minimum-years=21
+            lifetime.ee.female=82
+            lifetime.ee.male=78
+            lifetime.lv=75
+            lifetime.lt.female=80
+            lifetime.lt.male=70
+            """;
+
+    private final RuleStore ruleStore = new RuleStore(RuleSnapshot.defaults());
+    private final DecisionResponseCache cache = new DecisionResponseCache(ruleStore);
+
+    @Test
+    void testEveryDecisionOfTheRulesIsCached() throws IOException {
+        RuleSnapshot rules = ruleStore.current();
+        for (CreditSegment segment : CreditSegment.values()) {
+            for (int loanPeriod = rules.getMinimumLoanPeriod(); loanPeriod <= rules.getMaximumLoanPeriod(); loanPeriod++) {
+                Decision offer = rules.getOfferTable().offer(segment, loanPeriod);
+                if (offer != null) {
+                    assertCached(response(offer));
+                }
+            }
+        }
+        for (DecisionReason reason : DecisionReason.values()) {
+            if (rules.rejected(reason) != null) {
+                assertCached(response(rules.rejected(reason)));
+            }
+        }
+        for (Country country : Country.values()) {
+            assertCached(response(rules.loanPeriodRejection(rules.lifetimeYears(country, true))));
+            assertCached(response(rules.loanPeriodRejection(rules.lifetimeYears(country, false))));
+        }
+    }
+
+    @Test
+    void testOtherApprovedLoansAreCachedOnFirstWrite() throws IOException {
+        RuleSnapshot rules = ruleStore.current();
+
+        assertCached(new DecisionResponse(4321, 37, null, rules.getVersion()));
+        assertCached(new DecisionResponse(rules.getMinimumLoanAmount(), rules.getMinimumLoanPeriod(), null,
+                rules.getVersion()));
+        assertCached(new DecisionResponse(rules.getMaximumLoanAmount(), rules.getMaximumLoanPeriod(), null,
+                rules.getVersion()));
+    }
+
+    @Test
+    void testResponsesOutsideTheRulesAreNotCached() {
+        RuleSnapshot rules = ruleStore.current();
+        String version = rules.getVersion();
+
+        assertNull(cache.bytes(new DecisionResponse(4000, 24, null, "other")));
+        assertNull(cache.bytes(new DecisionResponse(null, null, "An unexpected error occurred", null)));
+        assertNull(cache.bytes(new DecisionResponse(rules.getMaximumLoanAmount() + 1, 24, null, version)));
+        assertNull(cache.bytes(new DecisionResponse(4000, rules.getMinimumLoanPeriod() - 1, null, version)));
+        assertNull(cache.bytes(new DecisionResponse(4000, rules.getMaximumLoanPeriod() + 1, null, version)));
+        assertNull(cache.bytes(new DecisionResponse(4000, null, null, version)));
+        assertNull(cache.bytes(new DecisionResponse(null, null, "Some other message", version)));
+        assertNull(cache.bytes(new DecisionResponse(4000, 24, rules.rejected(DecisionReason.UNDERAGE).getErrorMessage(),
+                version)));
+    }
+
+    @Test
+    void testCacheIsRebuiltWhenRulesChange() throws IOException {
+        RuleSnapshot defaults = ruleStore.current();
+        DecisionResponse oldOffer = response(defaults.getOfferTable().offer(CreditSegment.SEGMENT_3, 24));
+        assertCached(oldOffer);
+        Properties properties = new Properties();
+        properties.load(new StringReader(STRICTER_RULES));
+        RuleSnapshot stricter = RuleSnapshot.of(properties);
+
+        ruleStore.publish(stricter);
+
+        assertNull(cache.bytes(oldOffer));
+        assertCached(response(stricter.getOfferTable().offer(CreditSegment.SEGMENT_3, 24)));
+        assertCached(response(stricter.rejected(DecisionReason.UNDERAGE)));
+        assertNull(cache.bytes(new DecisionResponse(9000, 24, null, stricter.getVersion())));
+        assertNull(cache.bytes(new DecisionResponse(4000, 60, null, stricter.getVersion())));
+    }
+
+    private void assertCached(DecisionResponse response) throws IOException {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        DecisionJson.writeResponse(response, expected);
+
+        byte[] cached = cache.bytes(response);
+        assertNotNull(cached, () -> new String(expected.toByteArray()));
+        assertArrayEquals(expected.toByteArray(), cached);
+        assertSame(cached, cache.bytes(response));
+    }
+
+    private static DecisionResponse response(Decision decision) {
+        return new DecisionResponse(decision.getLoanAmount(), decision.getLoanPeriod(), decision.getErrorMessage(),
+                decision.getRulesVersion());
+    }
+}
@@ -0,0 +1,87 @@
+package ee.taltech.inbankbackend.loadgen;
+
+import ee.taltech.inbankbackend.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks which answers of a load step count against its failure budget.
+ */
+class LoadReportTest {
+
+    private static final double SLO_P99_MILLIS = 50;
+    private static final double MAXIMUM_FAILURE_RATIO = 0.01;
+
+    @Test
+    void testRejectedLoansAndInvalidInputsAreNotFailures() {
+        // the default synthetic mix: a quarter debt customers, answered with 404, plus a few invalid inputs
+        LoadReport report = report(100, repeat(200, 70), repeat(404, 25), repeat(400, 5));
+
+        assertEquals(0, report.failureRatio());
+        assertEquals(0.3, report.rejectionRatio(), 1e-9);
+        assertTrue(report.meets(SLO_P99_MILLIS, MAXIMUM_FAILURE_RATIO));
+    }
+
+    @Test
+    void testServerErrorsAndLoadSheddingAreFailures() {
+        LoadReport report = report(100, repeat(200, 70), repeat(404, 25), repeat(400, 3), new int[]{500, 429});
+
+        assertEquals(0.02, report.failureRatio(), 1e-9);
+        assertFalse(report.meets(SLO_P99_MILLIS, MAXIMUM_FAILURE_RATIO));
+    }
+
+    @Test
+    void testUnansweredRequestsAreFailures() {
+        LoadReport report = report(100, repeat(200, 60), repeat(404, 38));
+
+        assertEquals(0.02, report.failureRatio(), 1e-9);
+        assertFalse(report.meets(SLO_P99_MILLIS, MAXIMUM_FAILURE_RATIO));
+    }
+
+    @Test
+    void testSlowStepMissesTheSlo() {
+        LoadReport report = report(100, TimeUnit.MILLISECONDS.toNanos(80), repeat(200, 100));
+
+        assertEquals(0, report.failureRatio());
+        assertFalse(report.meets(SLO_P99_MILLIS, MAXIMUM_FAILURE_RATIO));
+    }
+
+    private static LoadReport report(long scheduled, int[]... statuses) {
+        return report(scheduled, TimeUnit.MILLISECONDS.toNanos(5), statuses);
+    }
+
+    /**
+     * Counts the answers like {@link OpenLoopRun}, each with the same response time.
+     */
+    private static LoadReport report(long scheduled, long responseNanos, int[]... statuses) {
+        LatencyHistogram responseTime = new LatencyHistogram();
+        long answered = 0;
+        long rejected = 0;
+        long errors = 0;
+        for (int[] group : statuses) {
+            for (int status : group) {
+                responseTime.record(responseNanos);
+                answered++;
+                if (LoadReport.isError(status)) {
+                    errors++;
+                } else if (LoadReport.isRejection(status)) {
+                    rejected++;
+                }
+            }
+        }
+        return new LoadReport(100, TimeUnit.SECONDS.toNanos(1), scheduled, answered, rejected, errors,
+                scheduled - answered, responseTime.snapshot(), responseTime.snapshot());
+    }
+
+    private static int[] repeat(int status, int count) {
+        int[] statuses = new int[count];
+        Arrays.fill(statuses, status);
+        return statuses;
+    }
+}
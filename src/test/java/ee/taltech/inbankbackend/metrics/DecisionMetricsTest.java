@@ -0,0 +1,49 @@
+package ee.taltech.inbankbackend.metrics;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class DecisionMetricsTest {
+
+    @Test
+    void testDecisionsAreCountedByCountrySegmentAndReason() {
+        DecisionMetrics metrics = new DecisionMetrics();
+        DecisionEngine decisionEngine = new DecisionEngine(metrics, new ProfileCache(), new SegmentCreditRegistry(),
+                new RuleStore(RuleSnapshot.defaults()));
+
+        decisionEngine.decide("50307172740", 4000L, 12, Country.EE);
+        decisionEngine.decide("50307172740", 5000L, 24, Country.EE);
+        decisionEngine.decide("37605030299", 4000L, 12, Country.EE);
+        decisionEngine.decide("12345678901", 4000L, 12, Country.EE);
+
+        DecisionMetricsReport report = metrics.report();
+        List<OutcomeCount> outcomes = report.getOutcomes();
+        assertEquals(3, outcomes.size());
+        assertOutcome(outcomes, "SEGMENT_1", "APPROVED", 2);
+        assertOutcome(outcomes, "DEBT", "DEBT", 1);
+        assertOutcome(outcomes, null, "INVALID_PERSONAL_CODE", 1);
+
+        assertEquals(4, report.getStages().get(DecisionStage.PERSONAL_CODE_VALIDATION).getCount());
+        assertEquals(3, report.getStages().get(DecisionStage.AGE_VALIDATION).getCount());
+        assertEquals(3, report.getStages().get(DecisionStage.SCORING).getCount());
+    }
+
+    private static void assertOutcome(List<OutcomeCount> outcomes, String segment, String reason, long count) {
+        OutcomeCount outcome = outcomes.stream()
+                .filter(candidate -> reason.equals(candidate.getReason()))
+                .findFirst()
+                .orElseThrow();
+        assertEquals("EE", outcome.getCountry());
+        assertEquals(segment, outcome.getSegment());
+        assertEquals(count, outcome.getCount());
+    }
+}
@@ -0,0 +1,63 @@
+package ee.taltech.inbankbackend.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void testEveryValueFallsIntoItsBucket() {
+        for (long value = 0; value < 1_000_000; value++) {
+            int bucket = LatencyHistogram.bucketIndex(value);
+            long lowerBound = bucket == 0 ? 0 : LatencyHistogram.bucketUpperBound(bucket - 1) + 1;
+            assertTrue(lowerBound <= value && value <= LatencyHistogram.bucketUpperBound(bucket), "value " + value);
+        }
+    }
+
+    @Test
+    void testPercentilesWithinRelativeError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 100_000; nanos++) {
+            histogram.record(nanos * 1_000);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+
+        assertEquals(100_000, snapshot.getCount());
+        assertEquals(50_000_500, snapshot.getMeanNanos());
+        assertWithinError(50_000_000, snapshot.getP50Nanos());
+        assertWithinError(90_000_000, snapshot.getP90Nanos());
+        assertWithinError(99_000_000, snapshot.getP99Nanos());
+        assertWithinError(99_900_000, snapshot.getP999Nanos());
+        assertEquals(100_000_000, snapshot.getMaxNanos());
+    }
+
+    @Test
+    void testConcurrentRecordingLosesNoValues() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            threads.add(new Thread(() -> {
+                for (int j = 0; j < 100_000; j++) {
+                    histogram.record(ThreadLocalRandom.current().nextLong(1, 10_000_000));
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(800_000, histogram.snapshot().getCount());
+    }
+
+    private static void assertWithinError(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.125, "expected about " + expected + " but was " + actual);
+    }
+}
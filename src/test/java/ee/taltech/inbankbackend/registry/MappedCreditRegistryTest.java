@@ -0,0 +1,106 @@
+package ee.taltech.inbankbackend.registry;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.CustomerProfile;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class holds tests for the memory-mapped credit registry and its file builder.
+ */
+class MappedCreditRegistryTest {
+
+    @TempDir
+    Path directory;
+
+    private final ProfileCache profileCache = new ProfileCache();
+    private final RuleSnapshot rules = RuleSnapshot.defaults();
+
+    @Test
+    void testModifiersAreLookedUpByCodeAndCountry() throws IOException {
+        Path registryFile = build("""
+                personalCode,countryCode,creditModifier
+                50307172740,EE,250
+                38411266610,EE,0
+                170384-12344,LV,1000
+                38411266610,LT,100
+                """);
+
+        MappedCreditRegistry registry = MappedCreditRegistry.open(registryFile);
+
+        assertEquals(4, registry.size());
+        assertEquals(250, registry.creditModifier(profile("50307172740", Country.EE), rules));
+        assertEquals(0, registry.creditModifier(profile("38411266610", Country.EE), rules));
+        assertEquals(100, registry.creditModifier(profile("38411266610", Country.LT), rules));
+        assertEquals(1000, registry.creditModifier(profile("170384-12344", Country.LV), rules));
+        assertEquals(1000, registry.creditModifier(profile("17038412344", Country.LV), rules));
+        assertEquals(CreditRegistry.UNKNOWN_CUSTOMER, registry.creditModifier(profile("35006069515", Country.EE), rules));
+    }
+
+    @Test
+    void testEmptyRegistryKnowsNoCustomers() throws IOException {
+        MappedCreditRegistry registry = MappedCreditRegistry.open(build("personalCode,countryCode,creditModifier\n"));
+
+        assertEquals(0, registry.size());
+        assertEquals(CreditRegistry.UNKNOWN_CUSTOMER, registry.creditModifier(profile("50307172740", Country.EE), rules));
+    }
+
+    @Test
+    void testBuilderRejectsInvalidInput() {
+        assertThrows(IllegalArgumentException.class, () -> build("12345678901,EE,100\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("50307172740,EE,-1\n"));
+        assertThrows(IllegalArgumentException.class, () -> build("50307172740,EE,100\n50307172740,EE,300\n"));
+    }
+
+    @Test
+    void testOpenRejectsFilesThatAreNotRegistries() throws IOException {
+        Path file = directory.resolve("not-a-registry.bin");
+        Files.write(file, new byte[CreditRegistryFile.HEADER_BYTES + CreditRegistryFile.RECORD_BYTES]);
+
+        assertThrows(IOException.class, () -> MappedCreditRegistry.open(file));
+    }
+
+    @Test
+    void testEngineUsesRegistryModifiersAndSwapsAtomically() throws IOException {
+        ReloadableCreditRegistry registry = new ReloadableCreditRegistry(new SegmentCreditRegistry());
+        DecisionEngine decisionEngine = new DecisionEngine(new DecisionMetrics(), profileCache, registry,
+                new RuleStore(rules));
+
+        assertEquals(2400, decisionEngine.decide("50307172740", 4000L, 24, Country.EE).getLoanAmount());
+
+        registry.load(build("50307172740,EE,250\n38411266610,EE,0\n"));
+
+        Decision approved = decisionEngine.decide("50307172740", 4000L, 12, Country.EE);
+        assertEquals(3000, approved.getLoanAmount());
+        assertEquals(12, approved.getLoanPeriod());
+        assertEquals(DecisionReason.DEBT, decisionEngine.decide("38411266610", 4000L, 12, Country.EE).getReason());
+        assertEquals(DecisionReason.NO_VALID_LOAN,
+                decisionEngine.decide("35006069515", 4000L, 12, Country.EE).getReason());
+    }
+
+    private Path build(String csv) throws IOException {
+        Path csvFile = Files.createTempFile(directory, "registry", ".csv");
+        Files.writeString(csvFile, csv);
+        Path registryFile = directory.resolve("credit-registry.bin");
+        CreditRegistryFileBuilder.build(csvFile, registryFile);
+        return registryFile;
+    }
+
+    private CustomerProfile profile(String personalCode, Country countryCode) {
+        return profileCache.get(personalCode, countryCode);
+    }
+}
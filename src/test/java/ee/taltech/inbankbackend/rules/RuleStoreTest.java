@@ -0,0 +1,137 @@
+package ee.taltech.inbankbackend.rules;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * This class holds tests for loading and publishing rule snapshots.
+ */
+class RuleStoreTest {
+
+    private static final String RULES = """
+            rules.version=2024-06-01.1
+            loan.minimum-amount=1000
+            loan.maximum-amount=20000
+            loan.minimum-period=6
+            loan.maximum-period=48
+            credit-modifier.segment-1=150
+            credit-modifier.segment-2=300
+            credit-modifier.segment-3=1000
+            age.minimum-years=21
+            lifetime.ee.female=82
+            lifetime.ee.male=78
+            lifetime.lv=70
+            lifetime.lt.female=79
+            lifetime.lt.male=69
+            """;
+
+    @TempDir
+    Path directory;
+
+    private RuleStore ruleStore;
+    private DecisionEngine decisionEngine;
+
+    @BeforeEach
+    void setUp() {
+        ruleStore = new RuleStore(RuleSnapshot.defaults());
+        decisionEngine = new DecisionEngine(new DecisionMetrics(), new ProfileCache(), new SegmentCreditRegistry(),
+                ruleStore);
+    }
+
+    @Test
+    void testDefaultRulesReportDefaultVersion() {
+        Decision decision = decisionEngine.decide("50307172740", 4000L, 12, Country.EE);
+
+        assertEquals(2000, decision.getLoanAmount());
+        assertEquals(20, decision.getLoanPeriod());
+        assertEquals(RuleSnapshot.DEFAULT_VERSION, decision.getRulesVersion());
+        assertEquals(RuleSnapshot.DEFAULT_VERSION,
+                decisionEngine.decide("37605030299", 4000L, 12, Country.EE).getRulesVersion());
+    }
+
+    @Test
+    void testLoadedRulesAreUsedByFollowingDecisions() throws Exception {
+        ruleStore.load(write(RULES));
+
+        Decision decision = decisionEngine.decide("50307172740", 1000L, 6, Country.EE);
+        assertEquals(1050, decision.getLoanAmount());
+        assertEquals(7, decision.getLoanPeriod());
+        assertEquals("2024-06-01.1", decision.getRulesVersion());
+
+        assertEquals(12000, decisionEngine.decide("35006069515", 20000L, 12, Country.EE).getLoanAmount());
+        assertEquals(DecisionReason.INVALID_LOAN_PERIOD,
+                decisionEngine.decide("50307172740", 4000L, 60, Country.EE).getReason());
+        assertEquals("2024-06-01.1", decisionEngine.decide("12345678901", 4000L, 12, Country.EE).getRulesVersion());
+    }
+
+    @Test
+    void testMessagesFollowTheRules() {
+        RuleSnapshot rules = RuleSnapshot.of(properties(RULES));
+
+        assertEquals("Loans are not offered to people under age 21.",
+                rules.rejected(DecisionReason.UNDERAGE).getErrorMessage());
+        assertEquals("Your age plus specified loan period exceeds expected 69 years life time in your country. "
+                        + "Try to request smaller loan period",
+                rules.loanPeriodRejection(rules.lifetimeYears(Country.LT, false)).getErrorMessage());
+        assertEquals(70, rules.lifetimeYears(Country.LV, true));
+    }
+
+    @Test
+    void testInvalidRulesAreRejectedAndTheCurrentSnapshotIsKept() throws Exception {
+        RuleSnapshot current = ruleStore.current();
+
+        assertThrows(IllegalArgumentException.class,
+                () -> ruleStore.load(write(RULES.replace("loan.minimum-amount=1000", "loan.minimum-amount=30000"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> ruleStore.load(write(RULES.replace("lifetime.lv=70\n", ""))));
+        assertThrows(IllegalArgumentException.class,
+                () -> ruleStore.load(write(RULES.replace("age.minimum-years=21", "age.minimum-years=eighteen"))));
+        assertThrows(IllegalArgumentException.class,
+                () -> ruleStore.load(write(RULES.replace("2024-06-01.1", "2024,06"))));
+
+        assertSame(current, ruleStore.current());
+    }
+
+    @Test
+    void testPublishReturnsReplacedSnapshot() {
+        RuleSnapshot defaults = ruleStore.current();
+        RuleSnapshot loaded = RuleSnapshot.of(properties(RULES));
+
+        assertSame(defaults, ruleStore.publish(loaded));
+        assertSame(loaded, ruleStore.current());
+    }
+
+    private Path write(String rules) throws Exception {
+        Path file = Files.createTempFile(directory, "rules", ".properties");
+        Files.writeString(file, rules);
+        return file;
+    }
+
+    private static Properties properties(String rules) {
+        Properties properties = new Properties();
+        try {
+            properties.load(new StringReader(rules));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+        return properties;
+    }
+}
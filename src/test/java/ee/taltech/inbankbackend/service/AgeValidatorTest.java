@@ -0,0 +1,163 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Period;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * This class holds tests for the age validator and its daily cutoffs.
+ */
+class AgeValidatorTest {
+
+    private static final String STRICTER_RULES = """
+            rules.version=2024-06-01.1
+            loan.minimum-amount=2000
+            loan.maximum-amount=10000
+            loan.minimum-period=12
+            loan.maximum-period=60
+            credit-modifier.segment-1=100
+            credit-modifier.segment-2=300
+            credit-modifier.segment-3=1000
+            age.minimum-years=21
+            lifetime.ee.female=82
+            lifetime.ee.male=78
+            lifetime.lv=75
+            lifetime.lt.female=80
+            lifetime.lt.male=70
+            """;
+
+    private final RuleSnapshot rules = RuleSnapshot.defaults();
+
+    @Test
+    void testCutoffsMatchPeriodArithmetic() {
+        // leap days and month ends are where whole months are counted differently from days
+        for (String today : new String[]{"2024-02-29", "2023-02-28", "2023-03-31", "2024-12-31", "2026-10-17"}) {
+            LocalDate date = LocalDate.parse(today);
+            AgeValidator ageValidator = new AgeValidator(Clock.fixed(
+                    date.atTime(12, 0).toInstant(ZoneOffset.UTC), ZoneOffset.UTC));
+            for (LocalDate birthDate = date.minusYears(90); !birthDate.isAfter(date); birthDate = birthDate.plusDays(3)) {
+                for (boolean female : new boolean[]{false, true}) {
+                    long parsedCode = PersonalCodeParser.parse(estonianCode(birthDate, female), Country.EE);
+                    for (Country countryCode : new Country[]{Country.EE, Country.LT}) {
+                        for (int loanPeriod = rules.getMinimumLoanPeriod(); loanPeriod <= rules.getMaximumLoanPeriod(); loanPeriod++) {
+                            assertSame(expected(parsedCode, countryCode, loanPeriod, date),
+                                    ageValidator.validate(rules, parsedCode, countryCode, loanPeriod),
+                                    today + " " + birthDate + " " + countryCode + " " + loanPeriod);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void testLongestLoanPeriodIsLastAcceptedPeriod() {
+        LocalDate today = LocalDate.parse("2024-02-29");
+        AgeValidator ageValidator = new AgeValidator(Clock.fixed(
+                today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        for (LocalDate birthDate = today.minusYears(80); birthDate.isBefore(today.minusYears(72)); birthDate = birthDate.plusDays(11)) {
+            long parsedCode = PersonalCodeParser.parse(estonianCode(birthDate, false), Country.EE);
+            int longest = ageValidator.longestLoanPeriod(rules, parsedCode, Country.EE);
+            for (int loanPeriod = rules.getMinimumLoanPeriod(); loanPeriod <= rules.getMaximumLoanPeriod(); loanPeriod++) {
+                Decision decision = ageValidator.validate(rules, parsedCode, Country.EE, loanPeriod);
+                assertEquals(loanPeriod <= longest, decision == null, birthDate + " " + loanPeriod);
+            }
+        }
+    }
+
+    @Test
+    void testCutoffsAreRefreshedAtMidnight() {
+        ZoneId zone = ZoneId.of("Europe/Tallinn");
+        LocalDate birthday = LocalDate.parse("2024-06-15");
+        long parsedCode = PersonalCodeParser.parse(estonianCode(birthday.minusYears(18), false), Country.EE);
+        MutableClock clock = new MutableClock(birthday.minusDays(1).atTime(23, 59, 59).atZone(zone).toInstant(), zone);
+        AgeValidator ageValidator = new AgeValidator(clock);
+
+        assertSame(rules.rejected(DecisionReason.UNDERAGE), ageValidator.validate(rules, parsedCode, Country.EE, 12));
+        clock.instant = birthday.atStartOfDay(zone).toInstant();
+        assertNull(ageValidator.validate(rules, parsedCode, Country.EE, 12));
+    }
+
+    @Test
+    void testCutoffsFollowRulesUpdate() throws IOException {
+        LocalDate today = LocalDate.parse("2024-06-15");
+        AgeValidator ageValidator = new AgeValidator(Clock.fixed(
+                today.atStartOfDay(ZoneOffset.UTC).toInstant(), ZoneOffset.UTC));
+        long parsedCode = PersonalCodeParser.parse(estonianCode(today.minusYears(20), false), Country.EE);
+        Properties properties = new Properties();
+        properties.load(new StringReader(STRICTER_RULES));
+        RuleSnapshot stricter = RuleSnapshot.of(properties);
+
+        assertNull(ageValidator.validate(rules, parsedCode, Country.EE, 12));
+        assertSame(stricter.rejected(DecisionReason.UNDERAGE), ageValidator.validate(stricter, parsedCode, Country.EE, 12));
+    }
+
+    /**
+     * The age check as it was done with {@link Period} before the cutoffs.
+     */
+    private Decision expected(long parsedCode, Country countryCode, int loanPeriod, LocalDate today) {
+        Period age = Period.between(LocalDate.ofEpochDay(PersonalCodeParser.birthEpochDay(parsedCode)), today);
+        int averageLifetimeYears = rules.lifetimeYears(countryCode, PersonalCodeParser.isFemale(parsedCode));
+        if (rules.getUnderageYears() > age.getYears()) {
+            return rules.rejected(DecisionReason.UNDERAGE);
+        }
+        if (averageLifetimeYears <= age.getYears()) {
+            return rules.rejected(DecisionReason.LIFETIME_EXCEEDED);
+        }
+        if (averageLifetimeYears <= age.plusMonths(loanPeriod).normalized().getYears()) {
+            return rules.loanPeriodRejection(averageLifetimeYears);
+        }
+        return null;
+    }
+
+    private static String estonianCode(LocalDate birthDate, boolean female) {
+        int centuryDigit = (birthDate.getYear() / 100 - 18) * 2 + (female ? 2 : 1);
+        String prefix = centuryDigit + birthDate.format(DateTimeFormatter.ofPattern("yyMMdd")) + "999";
+        for (int checksum = 0; checksum < 10; checksum++) {
+            if (PersonalCodeParser.isValid(PersonalCodeParser.parse(prefix + checksum, Country.EE))) {
+                return prefix + checksum;
+            }
+        }
+        throw new IllegalStateException("No valid code for " + birthDate);
+    }
+
+    private static final class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant instant;
+
+        private MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.audit.AuditEntry;
+import ee.taltech.inbankbackend.audit.AuditJournal;
+import ee.taltech.inbankbackend.audit.AuditJournalReader;
+import ee.taltech.inbankbackend.audit.FsyncPolicy;
+import ee.taltech.inbankbackend.bureau.CreditBureauClient;
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.metrics.OutcomeCount;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class DecisionCoalescerTest {
+
+    private final PendingDecisionEngine decisionEngine = new PendingDecisionEngine();
+    private final DecisionCoalescer coalescer = new DecisionCoalescer(decisionEngine);
+
+    @Test
+    void testIdenticalRequestsInFlightShareOneDecision() {
+        CompletableFuture<Decision> first = coalescer.decide("50307172740", 4000L, 24, Country.EE);
+        CompletableFuture<Decision> second = coalescer.decide("50307172740", 4000L, 24, Country.EE);
+
+        assertEquals(1, decisionEngine.pending.size());
+        assertFalse(first.isDone());
+        assertEquals(1, coalescer.stats().getInFlight());
+
+        Decision decision = Decision.approved(2400, 24);
+        decisionEngine.pending.get(0).complete(decision);
+
+        assertSame(decision, first.join());
+        assertSame(decision, second.join());
+        assertEquals(2, coalescer.stats().getRequests());
+        assertEquals(1, coalescer.stats().getCoalesced());
+        assertEquals(0, coalescer.stats().getInFlight());
+    }
+
+    @Test
+    void testDifferentRequestsAreNotCoalesced() {
+        coalescer.decide("50307172740", 4000L, 24, Country.EE);
+        coalescer.decide("50307172740", 4000L, 36, Country.EE);
+        coalescer.decide("50307172740", 5000L, 24, Country.EE);
+        coalescer.decide("50307172740", 4000L, 24, Country.LT);
+
+        assertEquals(4, decisionEngine.pending.size());
+        assertEquals(0, coalescer.stats().getCoalesced());
+    }
+
+    @Test
+    void testFinishedDecisionIsNotShared() {
+        coalescer.decide("50307172740", 4000L, 24, Country.EE);
+        decisionEngine.pending.get(0).complete(Decision.approved(2400, 24));
+
+        coalescer.decide("50307172740", 4000L, 24, Country.EE);
+
+        assertEquals(2, decisionEngine.pending.size());
+        assertEquals(0, coalescer.stats().getCoalesced());
+    }
+
+    @Test
+    void testFailureIsSharedAndDropped() {
+        CompletableFuture<Decision> first = coalescer.decide("50307172740", 4000L, 24, Country.EE);
+        CompletableFuture<Decision> second = coalescer.decide("50307172740", 4000L, 24, Country.EE);
+
+        decisionEngine.pending.get(0).completeExceptionally(new IllegalStateException());
+
+        assertThrows(CompletionException.class, first::join);
+        assertThrows(CompletionException.class, second::join);
+        assertEquals(0, coalescer.stats().getInFlight());
+    }
+
+    @Test
+    void testEveryCoalescedRequestIsAudited(@TempDir Path directory) throws Exception {
+        AuditJournal auditJournal = AuditJournal.open(directory, FsyncPolicy.NONE, Duration.ofHours(1), 1 << 20, 1024);
+        GatedDecisionEngine gatedEngine = new GatedDecisionEngine(new DecisionMetrics(), auditJournal);
+        DecisionCoalescer auditedCoalescer = new DecisionCoalescer(gatedEngine);
+
+        decideConcurrently(auditedCoalescer, gatedEngine, 8);
+        auditJournal.close();
+
+        assertEquals(7, auditedCoalescer.stats().getCoalesced());
+        List<AuditEntry> entries = new ArrayList<>();
+        AuditJournalReader.read(directory, entries::add);
+        assertEquals(8, entries.size());
+        for (AuditEntry entry : entries) {
+            assertEquals("50307172740", entry.getPersonalCode());
+            assertEquals(DecisionReason.APPROVED, entry.getReason());
+        }
+    }
+
+    @Test
+    void testEveryCoalescedRequestIsCountedByOutcome() throws Exception {
+        DecisionMetrics metrics = new DecisionMetrics();
+        GatedDecisionEngine gatedEngine = new GatedDecisionEngine(metrics, AuditJournal.disabled());
+        DecisionCoalescer countedCoalescer = new DecisionCoalescer(gatedEngine);
+
+        decideConcurrently(countedCoalescer, gatedEngine, 8);
+
+        assertEquals(7, countedCoalescer.stats().getCoalesced());
+        List<OutcomeCount> outcomes = metrics.report().getOutcomes();
+        assertEquals(1, outcomes.size());
+        assertEquals("SEGMENT_1", outcomes.get(0).getSegment());
+        assertEquals("APPROVED", outcomes.get(0).getReason());
+        assertEquals(8, outcomes.get(0).getCount());
+    }
+
+    /**
+     * Sends identical requests from concurrent threads while the engine holds its decisions back, then lets the
+     * engine decide and checks that every request was approved.
+     */
+    private static void decideConcurrently(DecisionCoalescer coalescer, GatedDecisionEngine gatedEngine,
+                                           int requests) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<CompletableFuture<Decision>> decisions = new ArrayList<>();
+        List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < requests; i++) {
+            CompletableFuture<Decision> decision = new CompletableFuture<>();
+            decisions.add(decision);
+            Thread caller = new Thread(() -> {
+                try {
+                    start.await();
+                    coalescer.decide("50307172740", 4000L, 24, Country.EE).whenComplete((result, error) -> {
+                        if (error != null) {
+                            decision.completeExceptionally(error);
+                        } else {
+                            decision.complete(result);
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    decision.completeExceptionally(e);
+                }
+            });
+            caller.start();
+            callers.add(caller);
+        }
+        start.countDown();
+        for (Thread caller : callers) {
+            caller.join();
+        }
+        gatedEngine.gate.complete(null);
+        for (CompletableFuture<Decision> decision : decisions) {
+            assertEquals(DecisionReason.APPROVED, decision.join().getReason());
+        }
+    }
+
+    /**
+     * Engine whose decisions stay in flight until the test completes them.
+     */
+    private static final class PendingDecisionEngine extends DecisionEngine {
+        private final List<CompletableFuture<Decision>> pending = new ArrayList<>();
+
+        @Override
+        public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                       Country countryCode) {
+            CompletableFuture<Decision> decision = new CompletableFuture<>();
+            pending.add(decision);
+            return decision;
+        }
+    }
+
+    /**
+     * Engine that records its decisions and only starts deciding once the test opens the gate.
+     */
+    private static final class GatedDecisionEngine extends DecisionEngine {
+        private final CompletableFuture<Void> gate = new CompletableFuture<>();
+
+        private GatedDecisionEngine(DecisionMetrics metrics, AuditJournal auditJournal) {
+            super(metrics, new ProfileCache(), new SegmentCreditRegistry(),
+                    new RuleStore(RuleSnapshot.defaults()), CreditBureauClient.disabled(), auditJournal);
+        }
+
+        @Override
+        public CompletableFuture<Decision> decideAsync(String personalCode, Long loanAmount, int loanPeriod,
+                                                       Country countryCode) {
+            return gate.thenCompose(open -> super.decideAsync(personalCode, loanAmount, loanPeriod, countryCode));
+        }
+    }
+}
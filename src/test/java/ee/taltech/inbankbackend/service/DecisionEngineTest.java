@@ -12,7 +12,6 @@ import ee.taltech.inbankbackend.exceptions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
@@ -23,7 +22,6 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 @ExtendWith(MockitoExtension.class)
 class DecisionEngineTest {
 
-    @InjectMocks
     private DecisionEngine decisionEngine;
 
     private String debtorPersonalCode;
@@ -33,6 +31,7 @@ class DecisionEngineTest {
 
     @BeforeEach
     void setUp() {
+        decisionEngine = new DecisionEngine();
         debtorPersonalCode = "37605030299";
         segment1PersonalCode = "50307172740";
         segment2PersonalCode = "38411266610";
@@ -255,5 +254,33 @@ class DecisionEngineTest {
                 + AgeConstants.LITHUANIAN_AVERAGE_MALE_LIFETIME_YEARS
                 + " years life time in your country. Try to request smaller loan period", decision.getErrorMessage());
     }
-}
 
+    @Test
+    void testDecideReturnsReasonsInsteadOfThrowing() {
+        assertEquals(DecisionReason.INVALID_PERSONAL_CODE,
+                decisionEngine.decide("12345678901", 4000L, 12, Country.EE).getReason());
+        assertEquals(DecisionReason.INVALID_LOAN_AMOUNT,
+                decisionEngine.decide(segment1PersonalCode, 1000L, 12, Country.EE).getReason());
+        assertEquals(DecisionReason.INVALID_LOAN_AMOUNT,
+                decisionEngine.decide(segment1PersonalCode, null, 12, Country.EE).getReason());
+        assertEquals(DecisionReason.INVALID_LOAN_PERIOD,
+                decisionEngine.decide(segment1PersonalCode, 4000L, 61, Country.EE).getReason());
+        assertEquals(DecisionReason.DEBT,
+                decisionEngine.decide(debtorPersonalCode, 4000L, 12, Country.EE).getReason());
+
+        Decision decision = decisionEngine.decide(segment1PersonalCode, 4000L, 12, Country.EE);
+        assertEquals(DecisionReason.APPROVED, decision.getReason());
+        assertEquals(2000, decision.getLoanAmount());
+        assertEquals(20, decision.getLoanPeriod());
+    }
+
+    @Test
+    void testDecideReportsAgeRestrictionReason() throws PersonalCodeException {
+        String underagePersonalCode = new EstonianPersonalCodeGenerator().generatePersonalCode(Gender.MALE, LocalDate.now());
+
+        Decision decision = decisionEngine.decide(underagePersonalCode, 4000L, 12, Country.EE);
+
+        assertEquals(DecisionReason.UNDERAGE, decision.getReason());
+        assertEquals("Loans are not offered to people under age 18.", decision.getErrorMessage());
+    }
+}
@@ -0,0 +1,123 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.metrics.DecisionMetrics;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class holds tests for the offer curve, which must agree with a decision per loan period.
+ */
+class OfferCurveTest {
+
+    private final DecisionEngine decisionEngine = new DecisionEngine();
+    private final RuleSnapshot rules = RuleSnapshot.defaults();
+
+    @Test
+    void testCurveMatchesDecisionOfEveryPeriod() {
+        assertCurveMatchesDecisions(decisionEngine, "50307172740", Country.EE);
+        assertCurveMatchesDecisions(decisionEngine, "38411266610", Country.EE);
+        assertCurveMatchesDecisions(decisionEngine, "35006069515", Country.EE);
+        assertCurveMatchesDecisions(decisionEngine, "38411266610", Country.LT);
+        assertCurveMatchesDecisions(decisionEngine, "170384-15000", Country.LV);
+    }
+
+    @Test
+    void testCurveOfSegment1StartsAtFirstPeriodWithValidLoan() {
+        OfferCurve curve = decisionEngine.offerCurve("50307172740", Country.EE).join();
+
+        assertEquals(DecisionReason.APPROVED, curve.getReason());
+        assertEquals(RuleSnapshot.DEFAULT_VERSION, curve.getRulesVersion());
+        assertEquals(20, curve.getOffers().get(0).getLoanPeriod());
+        assertEquals(2000, curve.getOffers().get(0).getLoanAmount());
+        assertEquals(60, curve.getOffers().get(curve.getOffers().size() - 1).getLoanPeriod());
+        assertEquals(6000, curve.getOffers().get(curve.getOffers().size() - 1).getLoanAmount());
+    }
+
+    @Test
+    void testCurveOfRegistryModifierIsComputedWithoutSegment() {
+        DecisionEngine registryEngine = new DecisionEngine(new DecisionMetrics(), new ProfileCache(),
+                (profile, snapshot) -> 150, new RuleStore(rules));
+
+        assertCurveMatchesDecisions(registryEngine, "50307172740", Country.EE);
+        assertEquals(14, registryEngine.offerCurve("50307172740", Country.EE).join().getOffers().get(0).getLoanPeriod());
+    }
+
+    @Test
+    void testCurveEndsBeforeLoanWouldOutliveCustomer() {
+        // a man of 76 years and one month, two years before the Estonian male lifetime
+        String personalCode = estonianMaleCode(LocalDate.now().minusYears(76).minusMonths(1));
+
+        OfferCurve curve = decisionEngine.offerCurve(personalCode, Country.EE).join();
+
+        assertEquals(DecisionReason.APPROVED, curve.getReason());
+        assertEquals(22, curve.getOffers().get(curve.getOffers().size() - 1).getLoanPeriod());
+        assertCurveMatchesDecisions(decisionEngine, personalCode, Country.EE);
+    }
+
+    @Test
+    void testRejectedCustomerGetsReasonInsteadOfOffers() {
+        assertRejected("37605030299", Country.EE, DecisionReason.DEBT);
+        assertRejected("12345678901", Country.EE, DecisionReason.INVALID_PERSONAL_CODE);
+        assertRejected(estonianMaleCode(LocalDate.now().minusYears(10)), Country.EE, DecisionReason.UNDERAGE);
+        assertRejected(estonianMaleCode(LocalDate.now().minusYears(79)), Country.EE, DecisionReason.LIFETIME_EXCEEDED);
+    }
+
+    private void assertRejected(String personalCode, Country countryCode, DecisionReason reason) {
+        OfferCurve curve = decisionEngine.offerCurve(personalCode, countryCode).join();
+
+        assertEquals(reason, curve.getReason(), personalCode);
+        assertTrue(curve.getOffers().isEmpty(), personalCode);
+        assertEquals(rules.rejected(reason).getErrorMessage(), curve.getErrorMessage());
+        assertCurveAgrees(decisionEngine, personalCode, countryCode, curve);
+    }
+
+    private void assertCurveMatchesDecisions(DecisionEngine engine, String personalCode, Country countryCode) {
+        OfferCurve curve = engine.offerCurve(personalCode, countryCode).join();
+        assertFalse(curve.getOffers().isEmpty(), personalCode);
+        assertCurveAgrees(engine, personalCode, countryCode, curve);
+    }
+
+    /**
+     * Every offer of the curve is the decision for its period, and every decision that approves the requested
+     * period is on the curve.
+     */
+    private void assertCurveAgrees(DecisionEngine engine, String personalCode, Country countryCode,
+                                   OfferCurve curve) {
+        List<Decision> offers = curve.getOffers();
+        int next = 0;
+        for (int loanPeriod = rules.getMinimumLoanPeriod(); loanPeriod <= rules.getMaximumLoanPeriod(); loanPeriod++) {
+            Decision decision = engine.decide(personalCode, 4000L, loanPeriod, countryCode);
+            if (decision.isApproved() && decision.getLoanPeriod() == loanPeriod) {
+                Decision offer = offers.get(next++);
+                assertEquals(decision.getLoanAmount(), offer.getLoanAmount(), personalCode + " " + loanPeriod);
+                assertEquals(decision.getLoanPeriod(), offer.getLoanPeriod(), personalCode + " " + loanPeriod);
+            } else if (decision.isApproved()) {
+                // a period without a loan of its own is offered the loan of a longer period on the curve
+                assertTrue(offers.stream().anyMatch(offer -> offer.getLoanPeriod().equals(decision.getLoanPeriod())),
+                        personalCode + " " + loanPeriod);
+            }
+        }
+        assertEquals(offers.size(), next, personalCode);
+    }
+
+    private static String estonianMaleCode(LocalDate birthDate) {
+        String prefix = (birthDate.getYear() < 2000 ? "3" : "5")
+                + birthDate.format(DateTimeFormatter.ofPattern("yyMMdd")) + "999";
+        for (int checksum = 0; checksum < 10; checksum++) {
+            if (PersonalCodeParser.isValid(PersonalCodeParser.parse(prefix + checksum, Country.EE))) {
+                return prefix + checksum;
+            }
+        }
+        throw new IllegalStateException("No valid code for " + birthDate);
+    }
+}
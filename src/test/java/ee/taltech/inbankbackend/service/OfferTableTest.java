@@ -0,0 +1,81 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.config.DecisionEngineConstants;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class OfferTableTest {
+
+    private final OfferTable offerTable = RuleSnapshot.defaults().getOfferTable();
+
+    @Test
+    void testEveryEntryMatchesPeriodSearchLoop() {
+        for (CreditSegment segment : CreditSegment.values()) {
+            if (segment == CreditSegment.DEBT) {
+                continue;
+            }
+            int creditModifier = creditModifier(segment);
+            for (int loanPeriod = DecisionEngineConstants.MINIMUM_LOAN_PERIOD;
+                 loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD; loanPeriod++) {
+                // the period search the engine used to run on every request
+                int approvedPeriod = loanPeriod;
+                while (creditModifier * approvedPeriod < DecisionEngineConstants.MINIMUM_LOAN_AMOUNT) {
+                    approvedPeriod++;
+                }
+
+                Decision offer = offerTable.offer(segment, loanPeriod);
+                if (approvedPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD) {
+                    assertNotNull(offer, segment + " " + loanPeriod);
+                    assertEquals(Math.min(DecisionEngineConstants.MAXIMUM_LOAN_AMOUNT, creditModifier * approvedPeriod),
+                            offer.getLoanAmount(), segment + " " + loanPeriod);
+                    assertEquals(approvedPeriod, offer.getLoanPeriod(), segment + " " + loanPeriod);
+                    assertNull(offer.getErrorMessage());
+                } else {
+                    assertNull(offer, segment + " " + loanPeriod);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testDebtHasNoOffers() {
+        for (int loanPeriod = DecisionEngineConstants.MINIMUM_LOAN_PERIOD;
+             loanPeriod <= DecisionEngineConstants.MAXIMUM_LOAN_PERIOD; loanPeriod++) {
+            assertNull(offerTable.offer(CreditSegment.DEBT, loanPeriod));
+        }
+    }
+
+    @Test
+    void testLookupReturnsSharedDecision() {
+        assertSame(offerTable.offer(CreditSegment.SEGMENT_1, 12), offerTable.offer(CreditSegment.SEGMENT_1, 12));
+    }
+
+    @Test
+    void testSegmentBoundaries() {
+        assertEquals(CreditSegment.DEBT, CreditSegment.fromLastFourDigits(0));
+        assertEquals(CreditSegment.DEBT, CreditSegment.fromLastFourDigits(2499));
+        assertEquals(CreditSegment.SEGMENT_1, CreditSegment.fromLastFourDigits(2500));
+        assertEquals(CreditSegment.SEGMENT_1, CreditSegment.fromLastFourDigits(4999));
+        assertEquals(CreditSegment.SEGMENT_2, CreditSegment.fromLastFourDigits(5000));
+        assertEquals(CreditSegment.SEGMENT_2, CreditSegment.fromLastFourDigits(7499));
+        assertEquals(CreditSegment.SEGMENT_3, CreditSegment.fromLastFourDigits(7500));
+        assertEquals(CreditSegment.SEGMENT_3, CreditSegment.fromLastFourDigits(9999));
+    }
+
+    private static int creditModifier(CreditSegment segment) {
+        switch (segment) {
+            case SEGMENT_1:
+                return DecisionEngineConstants.SEGMENT_1_CREDIT_MODIFIER;
+            case SEGMENT_2:
+                return DecisionEngineConstants.SEGMENT_2_CREDIT_MODIFIER;
+            default:
+                return DecisionEngineConstants.SEGMENT_3_CREDIT_MODIFIER;
+        }
+    }
+}
@@ -0,0 +1,181 @@
+package ee.taltech.inbankbackend.service;
+
+import com.github.vladislavgoltjajev.personalcode.common.Gender;
+import com.github.vladislavgoltjajev.personalcode.exception.PersonalCodeException;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeGenerator;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.estonia.EstonianPersonalCodeValidator;
+import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeGenerator;
+import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.latvia.LatvianPersonalCodeValidator;
+import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeGenerator;
+import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeParser;
+import com.github.vladislavgoltjajev.personalcode.locale.lithuania.LithuanianPersonalCodeValidator;
+import ee.taltech.inbankbackend.common.Country;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the in-house parser against the personal code library on a generated corpus of valid codes
+ * and of codes with a mutated serial number or checksum.
+ */
+class PersonalCodeParserTest {
+
+    private static final int CORPUS_SIZE = 5_000;
+    private static final LocalDate OLDEST_BIRTH_DATE = LocalDate.of(1900, 1, 1);
+
+    private final Random random = new Random(20240101L);
+
+    @Test
+    void testEstonianCodesMatchLibrary() throws PersonalCodeException {
+        EstonianPersonalCodeGenerator generator = new EstonianPersonalCodeGenerator();
+        EstonianPersonalCodeParser parser = new EstonianPersonalCodeParser();
+        EstonianPersonalCodeValidator validator = new EstonianPersonalCodeValidator();
+
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Gender gender = random.nextBoolean() ? Gender.FEMALE : Gender.MALE;
+            String personalCode = generator.generatePersonalCode(gender, randomBirthDate(LocalDate.now()));
+            assertParsedLike(personalCode, Country.EE, parser.getDateOfBirth(personalCode), parser.getGender(personalCode));
+
+            String mutatedCode = mutate(personalCode, 7);
+            long parsedCode = PersonalCodeParser.parse(mutatedCode, Country.EE);
+            assertEquals(validator.isValid(mutatedCode), PersonalCodeParser.isValid(parsedCode), mutatedCode);
+        }
+    }
+
+    @Test
+    void testLithuanianCodesMatchLibrary() throws PersonalCodeException {
+        LithuanianPersonalCodeGenerator generator = new LithuanianPersonalCodeGenerator();
+        LithuanianPersonalCodeParser parser = new LithuanianPersonalCodeParser();
+        LithuanianPersonalCodeValidator validator = new LithuanianPersonalCodeValidator();
+
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            Gender gender = random.nextBoolean() ? Gender.FEMALE : Gender.MALE;
+            String personalCode = generator.generatePersonalCode(gender, randomBirthDate(LocalDate.now()));
+            assertParsedLike(personalCode, Country.LT, parser.getDateOfBirth(personalCode), parser.getGender(personalCode));
+
+            String mutatedCode = mutate(personalCode, 7);
+            long parsedCode = PersonalCodeParser.parse(mutatedCode, Country.LT);
+            assertEquals(validator.isValid(mutatedCode), PersonalCodeParser.isValid(parsedCode), mutatedCode);
+        }
+    }
+
+    @Test
+    void testLatvianLegacyCodesMatchLibrary() throws PersonalCodeException {
+        LatvianPersonalCodeGenerator generator = new LatvianPersonalCodeGenerator();
+        LatvianPersonalCodeParser parser = new LatvianPersonalCodeParser();
+        LatvianPersonalCodeValidator validator = new LatvianPersonalCodeValidator();
+
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            String personalCode = generator.generateLegacyPersonalCode(randomBirthDate(LocalDate.of(2016, 12, 31)));
+            long parsedCode = PersonalCodeParser.parse(personalCode, Country.LV);
+            assertTrue(PersonalCodeParser.isValid(parsedCode), personalCode);
+            assertEquals(parser.getDateOfBirth(personalCode).toEpochDay(), PersonalCodeParser.birthEpochDay(parsedCode), personalCode);
+            assertEquals(lastFourDigits(personalCode), PersonalCodeParser.lastFourDigits(parsedCode), personalCode);
+
+            String mutatedCode = mutate(personalCode, personalCode.length() - 4);
+            assertEquals(validator.isValid(mutatedCode), PersonalCodeParser.isValid(PersonalCodeParser.parse(mutatedCode, Country.LV)), mutatedCode);
+        }
+    }
+
+    @Test
+    void testRandomCodesMatchLibrary() {
+        EstonianPersonalCodeValidator estonianValidator = new EstonianPersonalCodeValidator();
+        LithuanianPersonalCodeValidator lithuanianValidator = new LithuanianPersonalCodeValidator();
+        LatvianPersonalCodeValidator latvianValidator = new LatvianPersonalCodeValidator();
+
+        for (int i = 0; i < CORPUS_SIZE; i++) {
+            // every other prefix holds a plausible birth date, so the checksums are reached too
+            String prefix = i % 2 == 0 ? randomDigits(10)
+                    : randomDigits(1) + randomBirthDate(LocalDate.now()).format(DateTimeFormatter.ofPattern("yyMMdd")) + randomDigits(3);
+            for (int checkDigit = 0; checkDigit < 10; checkDigit++) {
+                String code = prefix + checkDigit;
+                String latvianCode = code.substring(1, 7) + "-" + code.substring(7);
+                assertEquals(estonianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.EE)), code);
+                assertEquals(lithuanianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.LT)), code);
+                assertEquals(latvianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.LV)), code);
+                assertEquals(latvianValidator.isValid(latvianCode), PersonalCodeParser.isValid(PersonalCodeParser.parse(latvianCode, Country.LV)), latvianCode);
+            }
+        }
+    }
+
+    @Test
+    void testLatvianCodesWithCheckDigitZero() {
+        LatvianPersonalCodeValidator validator = new LatvianPersonalCodeValidator();
+
+        for (String code : new String[]{"260108-14750", "120696-02560", "32010537950", "320154-33130"}) {
+            assertTrue(validator.isValid(code), code);
+            assertTrue(PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.LV)), code);
+        }
+    }
+
+    @Test
+    void testMalformedCodesMatchLibrary() {
+        String[] malformedCodes = {"", "1234", "5030717274", "503071727401", "5030717274a", "90307172740",
+                "50302302740", "50313172740", "60002292745", "50300002740"};
+        EstonianPersonalCodeValidator estonianValidator = new EstonianPersonalCodeValidator();
+        LithuanianPersonalCodeValidator lithuanianValidator = new LithuanianPersonalCodeValidator();
+        LatvianPersonalCodeValidator latvianValidator = new LatvianPersonalCodeValidator();
+
+        for (String code : malformedCodes) {
+            assertEquals(estonianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.EE)), code);
+            assertEquals(lithuanianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.LT)), code);
+            assertEquals(latvianValidator.isValid(code), PersonalCodeParser.isValid(PersonalCodeParser.parse(code, Country.LV)), code);
+        }
+        assertFalse(PersonalCodeParser.isValid(PersonalCodeParser.parse(null, Country.EE)));
+    }
+
+    @Test
+    void testEpochDayMatchesLocalDate() {
+        for (LocalDate date = LocalDate.of(1800, 1, 1); date.getYear() < 2200; date = date.plusDays(1)) {
+            assertEquals(date.toEpochDay(), PersonalCodeParser.epochDay(date.getYear(), date.getMonthValue(), date.getDayOfMonth()));
+        }
+    }
+
+    private void assertParsedLike(String personalCode, Country countryCode, LocalDate birthDate, Gender gender) {
+        long parsedCode = PersonalCodeParser.parse(personalCode, countryCode);
+        assertTrue(PersonalCodeParser.isValid(parsedCode), personalCode);
+        assertTrue(PersonalCodeParser.hasBirthDate(parsedCode), personalCode);
+        assertEquals(birthDate.toEpochDay(), PersonalCodeParser.birthEpochDay(parsedCode), personalCode);
+        assertEquals(gender == Gender.FEMALE, PersonalCodeParser.isFemale(parsedCode), personalCode);
+        assertEquals(personalCode.charAt(10) - '0', PersonalCodeParser.checksum(parsedCode), personalCode);
+        assertEquals(lastFourDigits(personalCode), PersonalCodeParser.lastFourDigits(parsedCode), personalCode);
+    }
+
+    private LocalDate randomBirthDate(LocalDate latest) {
+        long days = latest.toEpochDay() - OLDEST_BIRTH_DATE.toEpochDay();
+        return OLDEST_BIRTH_DATE.plusDays((long) (random.nextDouble() * days));
+    }
+
+    /**
+     * Replaces one random digit at or after the given index with a different digit.
+     */
+    private String mutate(String personalCode, int fromIndex) {
+        char[] chars = personalCode.toCharArray();
+        int index;
+        do {
+            index = fromIndex + random.nextInt(chars.length - fromIndex);
+        } while (chars[index] == '-');
+        chars[index] = (char) ('0' + (chars[index] - '0' + 1 + random.nextInt(9)) % 10);
+        return new String(chars);
+    }
+
+    private String randomDigits(int count) {
+        StringBuilder digits = new StringBuilder(count);
+        for (int i = 0; i < count; i++) {
+            digits.append((char) ('0' + random.nextInt(10)));
+        }
+        return digits.toString();
+    }
+
+    private static int lastFourDigits(String personalCode) {
+        return Integer.parseInt(personalCode.substring(personalCode.length() - 4));
+    }
+}
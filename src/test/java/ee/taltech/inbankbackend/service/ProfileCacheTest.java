@@ -0,0 +1,119 @@
+package ee.taltech.inbankbackend.service;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileCacheTest {
+
+    @Test
+    void testProfileIsParsedOnceAndThenServedFromCache() {
+        ProfileCache cache = new ProfileCache(10, Duration.ofMinutes(1));
+
+        CustomerProfile first = cache.get("50307172740", Country.EE);
+        CustomerProfile second = cache.get("50307172740", Country.EE);
+
+        assertSame(first, second);
+        assertTrue(first.isValid());
+        assertTrue(first.hasBirthDate());
+        assertEquals(PersonalCodeParser.parse("50307172740", Country.EE), first.getParsedCode());
+        assertEquals(CreditSegment.SEGMENT_1, first.getSegment());
+        assertEquals(1, cache.stats().getHits());
+        assertEquals(1, cache.stats().getMisses());
+    }
+
+    @Test
+    void testSameCodeIsCachedSeparatelyPerCountry() {
+        ProfileCache cache = new ProfileCache(10, Duration.ofMinutes(1));
+
+        CustomerProfile estonian = cache.get("50307172740", Country.EE);
+        // Lithuanian codes share the Estonian format
+        CustomerProfile lithuanian = cache.get("50307172740", Country.LT);
+
+        assertNotSame(estonian, lithuanian);
+        assertTrue(estonian.isValid());
+        assertTrue(lithuanian.isValid());
+        assertEquals(Country.LT, lithuanian.getCountryCode());
+        assertEquals(2, cache.stats().getSize());
+    }
+
+    @Test
+    void testInvalidCodesAreNotCached() {
+        ProfileCache cache = new ProfileCache(2, Duration.ofMinutes(1));
+        CustomerProfile valid = cache.get("50307172740", Country.EE);
+
+        // a Latvian code is read differently, so this one is invalid
+        CustomerProfile latvian = cache.get("50307172740", Country.LV);
+        for (int i = 0; i < 10; i++) {
+            cache.get("5030717274" + i, Country.EE);
+        }
+
+        assertFalse(latvian.isValid());
+        assertNull(latvian.getSegment());
+        assertNotSame(latvian, cache.get("50307172740", Country.LV));
+        assertEquals(1, cache.stats().getSize());
+        assertEquals(0, cache.stats().getEvictions());
+        assertSame(valid, cache.get("50307172740", Country.EE));
+    }
+
+    @Test
+    void testOldestProfilesAreEvictedWhenFull() {
+        ProfileCache cache = new ProfileCache(2, Duration.ofMinutes(1));
+
+        CustomerProfile first = cache.get("50307172740", Country.EE);
+        cache.get("38411266610", Country.EE);
+        cache.get("35006069515", Country.EE);
+
+        assertEquals(2, cache.stats().getSize());
+        assertEquals(1, cache.stats().getEvictions());
+        assertNotSame(first, cache.get("50307172740", Country.EE));
+    }
+
+    @Test
+    void testExpiredProfilesAreParsedAgain() throws InterruptedException {
+        ProfileCache cache = new ProfileCache(10, Duration.ofMillis(1));
+
+        CustomerProfile first = cache.get("50307172740", Country.EE);
+        Thread.sleep(5);
+        CustomerProfile second = cache.get("50307172740", Country.EE);
+
+        assertNotSame(first, second);
+        assertEquals(first.getParsedCode(), second.getParsedCode());
+        assertEquals(1, cache.stats().getExpirations());
+        assertEquals(2, cache.stats().getMisses());
+        assertEquals(1, cache.stats().getSize());
+    }
+
+    @Test
+    void testExpiredProfilesDoNotHoldEvictionSlots() throws InterruptedException {
+        ProfileCache cache = new ProfileCache(2, Duration.ofMillis(1));
+
+        for (int i = 0; i < 5; i++) {
+            cache.get("50307172740", Country.EE);
+            Thread.sleep(2);
+        }
+
+        assertEquals(1, cache.stats().getSize());
+        assertEquals(4, cache.stats().getExpirations());
+    }
+
+    @Test
+    void testInvalidateAllEmptiesTheCache() {
+        ProfileCache cache = new ProfileCache(10, Duration.ofMinutes(1));
+        cache.get("50307172740", Country.EE);
+        cache.get("38411266610", Country.EE);
+
+        cache.invalidateAll();
+
+        assertEquals(0, cache.stats().getSize());
+    }
+}
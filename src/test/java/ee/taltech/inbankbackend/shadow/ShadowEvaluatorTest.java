@@ -0,0 +1,193 @@
+package ee.taltech.inbankbackend.shadow;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.common.CreditSegment;
+import ee.taltech.inbankbackend.registry.CreditRegistry;
+import ee.taltech.inbankbackend.registry.SegmentCreditRegistry;
+import ee.taltech.inbankbackend.rules.RuleSnapshot;
+import ee.taltech.inbankbackend.rules.RuleStore;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import ee.taltech.inbankbackend.service.DecisionReason;
+import ee.taltech.inbankbackend.service.ProfileCache;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Clock;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * This class holds tests for the shadow evaluation, which must count the differences of the candidate rules
+ * and drop sampled requests instead of waiting when its workers are busy.
+ */
+class ShadowEvaluatorTest {
+
+    // the default rules with a higher minimum and lower maximum amount, a shorter minimum period and a higher
+    // segment 2 modifier
+    private static final String CANDIDATE_RULES = """
+            rules.version=candidate
+            loan.minimum-amount=2500
+            loan.maximum-amount=8000
+            loan.minimum-period=6
+            loan.maximum-period=60
+            credit-modifier.segment-1=100
+            credit-modifier.segment-2=400
+            credit-modifier.segment-3=1000
+            age.minimum-years=18
+            lifetime.ee.female=82
+            lifetime.ee.male=78
+            lifetime.lv=70
+            lifetime.lt.female=79
+            lifetime.lt.male=69
+            """;
+
+    private static final String DEBTOR = "37605030299";
+    private static final String SEGMENT_1 = "50307172740";
+    private static final String SEGMENT_2 = "38411266610";
+    private static final String SEGMENT_3 = "38501018806";
+    private static final String OTHER_SEGMENT_3 = "49005059501";
+
+    private final DecisionEngine decisionEngine = new DecisionEngine();
+
+    @Test
+    void testDifferencesAreCountedByCountryAndSegment() throws IOException {
+        try (ShadowEvaluator evaluator = new ShadowEvaluator(candidateRules(), new ProfileCache(),
+                new SegmentCreditRegistry(), Clock.systemDefaultZone(), 1, 1, 10)) {
+            compare(evaluator, SEGMENT_3, 4000L, 12);
+            compare(evaluator, OTHER_SEGMENT_3, 9000L, 12);
+            compare(evaluator, OTHER_SEGMENT_3, 4000L, 6);
+            compare(evaluator, SEGMENT_2, 4000L, 12);
+            compare(evaluator, SEGMENT_1, 4000L, 12);
+            compare(evaluator, DEBTOR, 4000L, 12);
+            compare(evaluator, DEBTOR, 2200L, 12);
+
+            ShadowReport report = evaluator.report();
+            assertEquals("candidate", report.getCandidateRulesVersion());
+            assertEquals(4, report.getDifferences().size());
+            // 10000 is over the candidate maximum, 9000 is an invalid amount and 6 months a valid period now
+            ShadowDifference segment3 = difference(report, CreditSegment.SEGMENT_3);
+            assertEquals(3, segment3.getCompared());
+            assertEquals(1, segment3.getAmountsDecreased());
+            assertEquals(-2000, segment3.getAmountDelta());
+            assertEquals(1, segment3.getApprovalsLost());
+            assertEquals(1, segment3.getApprovalsGained());
+            ShadowDifference segment2 = difference(report, CreditSegment.SEGMENT_2);
+            assertEquals(1, segment2.getAmountsIncreased());
+            assertEquals(1200, segment2.getAmountDelta());
+            assertEquals(0, segment2.getPeriodsChanged());
+            // 2000 for 20 months is under the candidate minimum, which takes 25 months
+            ShadowDifference segment1 = difference(report, CreditSegment.SEGMENT_1);
+            assertEquals(1, segment1.getAmountsIncreased());
+            assertEquals(500, segment1.getAmountDelta());
+            assertEquals(1, segment1.getPeriodsChanged());
+            assertEquals(5, segment1.getPeriodDelta());
+            // a debt stays a debt, but 2200 is now an invalid amount
+            ShadowDifference debt = difference(report, CreditSegment.DEBT);
+            assertEquals(2, debt.getCompared());
+            assertEquals(1, debt.getReasonsChanged());
+            assertEquals(0, debt.getApprovalsLost());
+        }
+    }
+
+    @Test
+    void testBusyWorkersDropSampledRequests() throws IOException, InterruptedException {
+        CountDownLatch released = new CountDownLatch(1);
+        CreditRegistry blockingRegistry = (profile, rules) -> {
+            try {
+                released.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return rules.creditModifier(profile.getSegment());
+        };
+        try (ShadowEvaluator evaluator = new ShadowEvaluator(candidateRules(), new ProfileCache(),
+                blockingRegistry, Clock.systemDefaultZone(), 1, 1, 1)) {
+            Decision decision = decisionEngine.decide(SEGMENT_3, 4000L, 12, Country.EE);
+
+            // the first request holds the only worker and the second fills the queue
+            for (int i = 0; i < 100; i++) {
+                evaluator.submit(SEGMENT_3, 4000L, 12, Country.EE, decision);
+            }
+            assertEquals(100, evaluator.report().getSampled());
+            assertEquals(98, evaluator.report().getDropped());
+
+            released.countDown();
+            long deadline = System.nanoTime() + 10_000_000_000L;
+            while (evaluator.report().getDifferences().isEmpty()
+                    || evaluator.report().getDifferences().get(0).getCompared() < 2) {
+                if (System.nanoTime() - deadline > 0) {
+                    fail("sampled requests were not compared");
+                }
+                Thread.sleep(10);
+            }
+            assertEquals(0, evaluator.report().getFailed());
+        }
+    }
+
+    @Test
+    void testBureauScoredDecisionsAreComparedWithTheBureauModifier() throws IOException {
+        try (ShadowEvaluator evaluator = new ShadowEvaluator(candidateRules(), new ProfileCache(),
+                new SegmentCreditRegistry(), Clock.systemDefaultZone(), 1, 1, 10)) {
+            // the registry puts both customers in segment 1, the bureau answered 1000 and 0
+            Decision bureauApproved = decisionEngine.decide(SEGMENT_1, 4000L, 12, Country.EE, 1000);
+            Decision bureauDebt = decisionEngine.decide(SEGMENT_1, 4000L, 24, Country.EE, 0);
+            assertEquals(10000, bureauApproved.getLoanAmount());
+            assertEquals(DecisionReason.DEBT, bureauDebt.getReason());
+            evaluator.compare(SEGMENT_1, 4000L, 12, Country.EE, bureauApproved);
+            evaluator.compare(SEGMENT_1, 4000L, 24, Country.EE, bureauDebt);
+
+            ShadowReport report = evaluator.report();
+            assertEquals(2, report.getDifferences().size());
+            // 1000 is the candidate segment 3 modifier, whose loans end at the candidate maximum of 8000
+            ShadowDifference segment3 = difference(report, CreditSegment.SEGMENT_3);
+            assertEquals(1, segment3.getCompared());
+            assertEquals(1, segment3.getAmountsDecreased());
+            assertEquals(-2000, segment3.getAmountDelta());
+            assertEquals(0, segment3.getPeriodsChanged());
+            ShadowDifference debt = difference(report, CreditSegment.DEBT);
+            assertEquals(1, debt.getCompared());
+            assertEquals(0, debt.getApprovalsGained());
+            assertEquals(0, debt.getReasonsChanged());
+        }
+    }
+
+    @Test
+    void testDisabledEvaluatorDecidesNothing() {
+        ShadowEvaluator evaluator = ShadowEvaluator.disabled();
+        evaluator.submit(SEGMENT_3, 4000L, 12, Country.EE, decisionEngine.decide(SEGMENT_3, 4000L, 12, Country.EE));
+
+        ShadowReport report = evaluator.report();
+        assertNull(report.getCandidateRulesVersion());
+        assertEquals(0, report.getSampled());
+        assertTrue(report.getDifferences().isEmpty());
+    }
+
+    private void compare(ShadowEvaluator evaluator, String personalCode, Long loanAmount, int loanPeriod) {
+        Decision decision = decisionEngine.decide(personalCode, loanAmount, loanPeriod, Country.EE);
+        assertEquals(personalCode.equals(DEBTOR) || loanPeriod < 12,
+                decision.getReason() != DecisionReason.APPROVED, personalCode);
+        evaluator.compare(personalCode, loanAmount, loanPeriod, Country.EE, decision);
+    }
+
+    private static ShadowDifference difference(ShadowReport report, CreditSegment segment) {
+        for (ShadowDifference difference : report.getDifferences()) {
+            if (Country.EE.name().equals(difference.getCountry()) && segment.name().equals(difference.getSegment())) {
+                return difference;
+            }
+        }
+        throw new AssertionError("no difference for " + segment);
+    }
+
+    private static RuleStore candidateRules() throws IOException {
+        Properties properties = new Properties();
+        properties.load(new StringReader(CANDIDATE_RULES));
+        return new RuleStore(RuleSnapshot.of(properties));
+    }
+}
@@ -0,0 +1,137 @@
+package ee.taltech.inbankbackend.trace;
+
+import ee.taltech.inbankbackend.common.Country;
+import ee.taltech.inbankbackend.service.Decision;
+import ee.taltech.inbankbackend.service.DecisionEngine;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * This class holds tests for decision traces, which must explain every rule step of a traced decision and be
+ * kept until newer traces take their place.
+ */
+class DecisionTracerTest {
+
+    private static final String SEGMENT_1 = "50307172740";
+    private static final String SEGMENT_3 = "38501018806";
+    // born in 2015
+    private static final String UNDERAGE = "51501018805";
+
+    private final DecisionEngine decisionEngine = new DecisionEngine();
+
+    @Test
+    void testTraceExplainsHowThePeriodWasExtended() {
+        DecisionTracer tracer = new DecisionTracer(0, 16);
+
+        DecisionTraceReport report = decide(tracer, SEGMENT_1, 4000L, 12);
+
+        assertEquals("APPROVED", report.getReason());
+        assertEquals(2000, report.getLoanAmount());
+        assertEquals(20, report.getLoanPeriod());
+        assertEquals("EE", report.getCountry());
+        List<TraceRecord> steps = report.getSteps();
+        assertEquals(List.of("INPUTS", "AGE", "CREDIT_MODIFIER", "OFFER"), steps.stream().map(TraceRecord::getStep).toList());
+        assertEquals("Valid personal code, amount 4000 and period 12 months within the loan limits",
+                steps.get(0).getExplanation());
+        assertEquals("At least 18 years old, and the loan is paid off before the expected lifetime of 78 years",
+                steps.get(1).getExplanation());
+        assertEquals("Credit modifier 100 of credit segment SEGMENT_1 from the credit registry",
+                steps.get(2).getExplanation());
+        assertEquals("No loan of at least the minimum amount for 12 months, the period was extended by 8 months"
+                + " to 20 months for 2000", steps.get(3).getExplanation());
+    }
+
+    @Test
+    void testTraceEndsWithTheRejectingStep() {
+        DecisionTracer tracer = new DecisionTracer(0, 16);
+
+        DecisionTraceReport underage = decide(tracer, UNDERAGE, 4000L, 12);
+        DecisionTraceReport invalidAmount = decide(tracer, SEGMENT_3, 20000L, 12);
+
+        assertEquals("UNDERAGE", underage.getReason());
+        assertEquals(2, underage.getSteps().size());
+        assertEquals("Rejected, younger than the minimum age of 18 years", underage.getSteps().get(1).getExplanation());
+        assertEquals(1, invalidAmount.getSteps().size());
+        assertEquals("Rejected as INVALID_LOAN_AMOUNT, amount 20000 and period 12 months",
+                invalidAmount.getSteps().get(0).getExplanation());
+    }
+
+    @Test
+    void testOnlyRequestedOrSampledDecisionsAreTraced() {
+        assertNull(new DecisionTracer(0, 16).start(false, Country.EE));
+        assertNotNull(new DecisionTracer(0, 16).start(true, Country.EE));
+        assertNotNull(new DecisionTracer(1, 16).start(false, Country.EE));
+    }
+
+    @Test
+    void testDisabledTracerTracesNothing() {
+        DecisionTracer tracer = DecisionTracer.disabled();
+
+        assertFalse(tracer.isEnabled());
+        assertNull(tracer.start(true, Country.EE));
+        assertNull(tracer.find("0-AAAAAAAAAAAAAAAAAAAAAA"));
+    }
+
+    @Test
+    void testNewerTracesReplaceOlderOnes() {
+        DecisionTracer tracer = new DecisionTracer(0, 2);
+        String first = decide(tracer, SEGMENT_3, 4000L, 12).getId();
+        String second = decide(tracer, SEGMENT_3, 5000L, 24).getId();
+        String third = decide(tracer, SEGMENT_3, 6000L, 36).getId();
+
+        assertNull(tracer.find(first));
+        assertEquals(24, tracer.find(second).getLoanPeriod());
+        assertNotNull(tracer.find(third));
+    }
+
+    @Test
+    void testIdsCannotBeGuessed() {
+        DecisionTracer tracer = new DecisionTracer(0, 1);
+        String first = decide(tracer, SEGMENT_3, 4000L, 12).getId();
+        String second = decide(tracer, SEGMENT_3, 4000L, 12).getId();
+
+        // both traces took the only slot, only their random part tells them apart
+        assertTrue(first.startsWith("0-"));
+        assertTrue(second.startsWith("0-"));
+        assertNotEquals(first, second);
+        assertEquals(24, second.length());
+        assertNull(tracer.find(first));
+        assertNull(tracer.find(second.substring(0, second.length() - 1)));
+        assertNull(tracer.find("0-" + "A".repeat(22)));
+        for (String malformed : new String[]{null, "", "0", "-", "-0-abc", "1-" + second.substring(2), "x-y"}) {
+            assertNull(tracer.find(malformed), malformed);
+        }
+    }
+
+    @Test
+    void testStepsBeyondTheLimitAreNotRecorded() {
+        DecisionTrace trace = new DecisionTracer(0, 16).start(true, null);
+        for (int i = 0; i < DecisionTrace.MAXIMUM_STEPS + 3; i++) {
+            trace.record(TraceStep.OFFER, 12, 12, 1000 + i);
+        }
+        trace.finish(null);
+
+        DecisionTraceReport report = trace.report();
+        assertEquals(DecisionTrace.MAXIMUM_STEPS, report.getSteps().size());
+        assertNull(report.getReason());
+        assertTrue(report.getSteps().get(0).getExplanation().endsWith("is 1000"));
+    }
+
+    private DecisionTraceReport decide(DecisionTracer tracer, String personalCode, Long loanAmount, int loanPeriod) {
+        DecisionTrace trace = tracer.start(true, Country.EE);
+        Decision decision = decisionEngine.decideAsync(personalCode, loanAmount, loanPeriod, Country.EE, trace).join();
+        tracer.finish(trace, decision);
+        DecisionTraceReport report = tracer.find(trace.getId());
+        assertNotNull(report);
+        assertEquals(decision.getReason().name(), report.getReason());
+        return report;
+    }
+}